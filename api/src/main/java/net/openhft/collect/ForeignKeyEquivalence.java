@@ -0,0 +1,238 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * An extension of an {@link Equivalence} of keys of type {@code T} to "foreign" keys
+ * of type {@code F}, i. e. another representations of the same keys, which allows to query
+ * hash containers without converting a foreign key to a key, for example
+ * to look up a {@code String} key by a {@code CharSequence} or by bytes in a buffer.
+ *
+ * <p>{@link #hash(Object) hash(foreignKey)} should be equal to the hash of the keys,
+ * equivalent to the foreign key, by the {@linkplain #keyEquivalence() key equivalence}.
+ * A container accepts only foreign key equivalences, which extend the same key equivalence,
+ * as the container has, and throws {@code IllegalArgumentException} otherwise.
+ *
+ * @param <F> the type of foreign keys
+ * @param <T> the type of keys
+ * @see net.openhft.collect.map.hash.HashObjObjMap#containsKey(Object, ForeignKeyEquivalence)
+ */
+public abstract class ForeignKeyEquivalence<F, T> {
+
+    /**
+     * Returns the foreign key equivalence of {@code CharSequence}s to {@code String} keys,
+     * compared by {@link String#equals(Object)}: a sequence is equivalent to the key
+     * with the same chars.
+     */
+    public static ForeignKeyEquivalence<CharSequence, String> charSequence() {
+        return CHAR_SEQUENCE;
+    }
+
+    /**
+     * Returns the foreign key equivalence of the remaining bytes of {@code ByteBuffer}s,
+     * decoded from UTF-8, to {@code String} keys, compared by {@link String#equals(Object)}.
+     * Malformed byte sequences aren't equivalent to any key. Positions of the buffers
+     * aren't changed.
+     *
+     * <p>To look up a slice of a {@code byte[]} array, wrap the array into a buffer once,
+     * and set the position and the limit of the buffer to the bounds of the slice before
+     * each lookup.
+     */
+    public static ForeignKeyEquivalence<ByteBuffer, String> utf8() {
+        return UTF_8;
+    }
+
+    private static final ForeignKeyEquivalence<CharSequence, String> CHAR_SEQUENCE =
+            new CharSequenceEquivalence();
+
+    private static class CharSequenceEquivalence
+            extends ForeignKeyEquivalence<CharSequence, String> {
+
+        @Override
+        public boolean equivalent(@Nonnull CharSequence foreignKey, @Nonnull String key) {
+            if (foreignKey instanceof String)
+                return foreignKey.equals(key);
+            int length = key.length();
+            if (foreignKey.length() != length)
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (foreignKey.charAt(i) != key.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hash(@Nonnull CharSequence foreignKey) {
+            if (foreignKey instanceof String)
+                return foreignKey.hashCode();
+            // String.hashCode() formula
+            int h = 0;
+            for (int i = 0, length = foreignKey.length(); i < length; i++) {
+                h = 31 * h + foreignKey.charAt(i);
+            }
+            return h;
+        }
+
+        @Override
+        public String toString() {
+            return "ForeignKeyEquivalence.charSequence()";
+        }
+    }
+
+    private static final ForeignKeyEquivalence<ByteBuffer, String> UTF_8 = new Utf8Equivalence();
+
+    private static class Utf8Equivalence extends ForeignKeyEquivalence<ByteBuffer, String> {
+
+        private static final int MALFORMED = -1;
+
+        /**
+         * Decodes the code point, starting at the given index.
+         *
+         * @return the code point in the lower 32 bits and the index of the next code point
+         *         in the higher, or {@link #MALFORMED}
+         */
+        private static long decode(ByteBuffer bytes, int index, int limit) {
+            int b0 = bytes.get(index) & 0xFF;
+            if (b0 < 0x80)
+                return ((long) (index + 1) << 32) | b0;
+            int length, cp;
+            if (b0 < 0xC2) {
+                return MALFORMED;
+            } else if (b0 < 0xE0) {
+                length = 2;
+                cp = b0 & 0x1F;
+            } else if (b0 < 0xF0) {
+                length = 3;
+                cp = b0 & 0x0F;
+            } else if (b0 < 0xF5) {
+                length = 4;
+                cp = b0 & 0x07;
+            } else {
+                return MALFORMED;
+            }
+            if (index + length > limit)
+                return MALFORMED;
+            for (int i = 1; i < length; i++) {
+                int b = bytes.get(index + i);
+                if ((b & 0xC0) != 0x80)
+                    return MALFORMED;
+                cp = (cp << 6) | (b & 0x3F);
+            }
+            // overlong encodings, surrogates and code points beyond Unicode
+            if ((length == 3 && (cp < 0x800 || (cp >= 0xD800 && cp < 0xE000))) ||
+                    (length == 4 && (cp < 0x10000 || cp > 0x10FFFF))) {
+                return MALFORMED;
+            }
+            return ((long) (index + length) << 32) | cp;
+        }
+
+        private static char highSurrogate(int cp) {
+            return (char) ((cp >>> 10) + (0xD800 - (0x10000 >>> 10)));
+        }
+
+        private static char lowSurrogate(int cp) {
+            return (char) ((cp & 0x3FF) + 0xDC00);
+        }
+
+        @Override
+        public boolean equivalent(@Nonnull ByteBuffer foreignKey, @Nonnull String key) {
+            int limit = foreignKey.limit();
+            int keyLength = key.length();
+            int j = 0;
+            for (int i = foreignKey.position(); i < limit; ) {
+                long r = decode(foreignKey, i, limit);
+                if (r == MALFORMED)
+                    return false;
+                int cp = (int) r;
+                i = (int) (r >>> 32);
+                if (cp < 0x10000) {
+                    if (j >= keyLength || key.charAt(j++) != cp)
+                        return false;
+                } else {
+                    if (j + 1 >= keyLength || key.charAt(j++) != highSurrogate(cp) ||
+                            key.charAt(j++) != lowSurrogate(cp)) {
+                        return false;
+                    }
+                }
+            }
+            return j == keyLength;
+        }
+
+        @Override
+        public int hash(@Nonnull ByteBuffer foreignKey) {
+            int limit = foreignKey.limit();
+            int h = 0;
+            for (int i = foreignKey.position(); i < limit; ) {
+                long r = decode(foreignKey, i, limit);
+                // malformed input isn't equivalent to any key, the hash doesn't matter
+                if (r == MALFORMED)
+                    break;
+                int cp = (int) r;
+                i = (int) (r >>> 32);
+                if (cp < 0x10000) {
+                    h = 31 * h + cp;
+                } else {
+                    h = 31 * (31 * h + highSurrogate(cp)) + lowSurrogate(cp);
+                }
+            }
+            return h;
+        }
+
+        @Override
+        public String toString() {
+            return "ForeignKeyEquivalence.utf8()";
+        }
+    }
+
+
+    /**
+     * Returns the equivalence of keys, which this equivalence extends to foreign keys,
+     * or {@code null}, if keys are compared by {@link Object#equals(Object)} and hashed
+     * by {@link Object#hashCode()}. The default implementation returns {@code null}.
+     *
+     * @return the key equivalence, which this equivalence extends
+     */
+    @Nullable
+    public Equivalence<T> keyEquivalence() {
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the given foreign key is equivalent to the given key.
+     *
+     * @param foreignKey the foreign key
+     * @param key the key, stored in a container
+     * @return whether the keys are equivalent
+     */
+    public abstract boolean equivalent(@Nonnull F foreignKey, @Nonnull T key);
+
+    /**
+     * Returns the hash code of the given foreign key, equal to the hash code of the keys,
+     * equivalent to it, by the {@linkplain #keyEquivalence() key equivalence}.
+     *
+     * @param foreignKey the foreign key
+     * @return the hash code of the foreign key
+     */
+    public abstract int hash(@Nonnull F foreignKey);
+}
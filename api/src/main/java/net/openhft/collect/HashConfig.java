@@ -35,14 +35,17 @@ public abstract class HashConfig {
     private static final int DEFAULT_DEFAULT_EXPECTED_SIZE = 10;
     @Nullable
     private static final Predicate<HashContainer> DEFAULT_SHRINK_CONDITION = null;
+    private static final boolean DEFAULT_HASH_CODE_TRACKED = false;
+    private static final boolean DEFAULT_TABLE_RECYCLED = false;
     private static final HashConfig DEFAULT =
             create(DEFAULT_MIN_LOAD, DEFAULT_TARGET_LOAD, DEFAULT_MAX_LOAD, DEFAULT_GROW_FACTOR,
-                    DEFAULT_SHRINK_CONDITION, DEFAULT_DEFAULT_EXPECTED_SIZE);
+                    DEFAULT_SHRINK_CONDITION, DEFAULT_DEFAULT_EXPECTED_SIZE,
+                    DEFAULT_HASH_CODE_TRACKED, DEFAULT_TABLE_RECYCLED);
 
     /**
      * Returns a config with {@literal 0.(3)} min load, {@literal 0.5} target load,
-     * {@literal 0.(6)} max load, {@literal 2.0} grow factor, {@code null} shrink condition
-     * and {@literal 10} default expected size.
+     * {@literal 0.(6)} max load, {@literal 2.0} grow factor, {@code null} shrink condition,
+     * {@literal 10} default expected size, hash code tracking and table recycling turned off.
      */
     public static HashConfig getDefault() {
         return DEFAULT;
@@ -50,7 +53,8 @@ public abstract class HashConfig {
 
     private static HashConfig create(
             double minLoad, double targetLoad, double maxLoad, double growFactor,
-            @Nullable Predicate<HashContainer> shrinkCondition, int defaultExpectedSize) {
+            @Nullable Predicate<HashContainer> shrinkCondition, int defaultExpectedSize,
+            boolean hashCodeTracked, boolean tableRecycled) {
         if (Double.isNaN(targetLoad) || targetLoad <= 0.0 || targetLoad >= 1.0) {
             throw new IllegalArgumentException("Target load must be in (0.0, 1.0) range, " +
                     targetLoad + " given.");
@@ -75,7 +79,8 @@ public abstract class HashConfig {
                     defaultExpectedSize + " given");
         }
         HashConfig config = new AutoValue_HashConfig(minLoad, targetLoad,
-                maxLoad, growFactor, shrinkCondition, defaultExpectedSize);
+                maxLoad, growFactor, shrinkCondition, defaultExpectedSize, hashCodeTracked,
+                tableRecycled);
         return config;
     }
 
@@ -105,7 +110,8 @@ public abstract class HashConfig {
      */
     public final HashConfig withMinLoad(double minLoad) {
         return create(minLoad, getTargetLoad(), getMaxLoad(), getGrowFactor(),
-                getShrinkCondition(), getDefaultExpectedSize());
+                getShrinkCondition(), getDefaultExpectedSize(), isHashCodeTracked(),
+                isTableRecycled());
     }
 
     /**
@@ -128,7 +134,8 @@ public abstract class HashConfig {
      */
     public final HashConfig withTargetLoad(double targetLoad) {
         return create(getMinLoad(), targetLoad, getMaxLoad(), getGrowFactor(),
-                getShrinkCondition(), getDefaultExpectedSize());
+                getShrinkCondition(), getDefaultExpectedSize(), isHashCodeTracked(),
+                isTableRecycled());
     }
 
     /**
@@ -149,7 +156,8 @@ public abstract class HashConfig {
      */
     public final HashConfig withMaxLoad(double maxLoad) {
         return create(getMinLoad(), getTargetLoad(), maxLoad, getGrowFactor(),
-                getShrinkCondition(), getDefaultExpectedSize());
+                getShrinkCondition(), getDefaultExpectedSize(), isHashCodeTracked(),
+                isTableRecycled());
     }
 
     /**
@@ -173,7 +181,8 @@ public abstract class HashConfig {
      */
     public final HashConfig withGrowFactor(double growFactor) {
         return create(getMinLoad(), getTargetLoad(), getMaxLoad(), growFactor,
-                getShrinkCondition(), getDefaultExpectedSize());
+                getShrinkCondition(), getDefaultExpectedSize(), isHashCodeTracked(),
+                isTableRecycled());
     }
 
     /**
@@ -207,7 +216,8 @@ public abstract class HashConfig {
      */
     public final HashConfig withShrinkCondition(@Nullable Predicate<HashContainer> condition) {
         return create(getMinLoad(), getTargetLoad(), getMaxLoad(), getGrowFactor(),
-                condition, getDefaultExpectedSize());
+                condition, getDefaultExpectedSize(), isHashCodeTracked(),
+                isTableRecycled());
     }
 
     /**
@@ -227,6 +237,65 @@ public abstract class HashConfig {
      */
     public final HashConfig withDefaultExpectedSize(int defaultExpectedSize) {
         return create(getMinLoad(), getTargetLoad(), getMaxLoad(), getGrowFactor(),
-                getShrinkCondition(), defaultExpectedSize);
+                getShrinkCondition(), defaultExpectedSize, isHashCodeTracked(),
+                isTableRecycled());
+    }
+
+    /**
+     * Denotes whether hash sets and maps maintain their {@link Object#hashCode() hash code}
+     * incrementally, on each insertion, removal and value update, rather than compute it
+     * by traversing the whole table on each {@code hashCode()} call.
+     *
+     * @return {@code true} if hash containers track their hash codes
+     * @see #withHashCodeTracked(boolean)
+     */
+    public abstract boolean isHashCodeTracked();
+
+    /**
+     * Returns a config with the specified hash code tracking policy. Hash code tracking makes
+     * {@code hashCode()} of mutable hash sets and maps a constant-time operation, and
+     * {@code equals()} between them fail fast, if their hash codes differ, at the cost of
+     * a little overhead on each modification. Useful if sets or maps are used as keys
+     * in other hash containers, or compared with each other often.
+     *
+     * @param hashCodeTracked whether hash containers should track their hash codes
+     * @return hash config with the specified hash code tracking policy
+     * @see #isHashCodeTracked()
+     */
+    public final HashConfig withHashCodeTracked(boolean hashCodeTracked) {
+        return create(getMinLoad(), getTargetLoad(), getMaxLoad(), getGrowFactor(),
+                getShrinkCondition(), getDefaultExpectedSize(), hashCodeTracked,
+                isTableRecycled());
+    }
+
+    /**
+     * Denotes whether mutable hash sets and maps take the arrays for their tables from
+     * a pool, shared by all containers with this policy, and return the arrays, which are
+     * replaced on rehash, to the pool, rather than leave them to the garbage collector.
+     *
+     * @return {@code true} if hash containers recycle the arrays of their tables
+     * @see #withTableRecycled(boolean)
+     */
+    public abstract boolean isTableRecycled();
+
+    /**
+     * Returns a config with the specified table recycling policy. Table recycling saves
+     * allocation of large arrays and garbage collection pressure, when hash containers
+     * repeatedly grow and shrink, e. g. per-batch working sets, which are cleared and
+     * {@linkplain HashContainer#shrink() shrunk} after each batch. The pool is bounded,
+     * small arrays aren't pooled.
+     *
+     * <p>Iterators and cursors over a container, which is rehashed during the iteration,
+     * could observe the contents of other containers, before they throw
+     * {@code ConcurrentModificationException}.
+     *
+     * @param tableRecycled whether hash containers should recycle the arrays of their tables
+     * @return hash config with the specified table recycling policy
+     * @see #isTableRecycled()
+     */
+    public final HashConfig withTableRecycled(boolean tableRecycled) {
+        return create(getMinLoad(), getTargetLoad(), getMaxLoad(), getGrowFactor(),
+                getShrinkCondition(), getDefaultExpectedSize(), isHashCodeTracked(),
+                tableRecycled);
     }
 }
@@ -37,6 +37,17 @@ public interface HashContainer extends Container {
      */
     float currentLoad();
 
+    /**
+     * Returns an estimate of the number of bytes, occupied by this container: the container
+     * object and its internal tables, including free and removed slots. Free and removed
+     * slots are marked by special keys, there are no separate state arrays. Views share
+     * the tables of their backing containers and return the same as the backing containers.
+     * Objects, referenced by keys, values or elements of the container, are not counted.
+     *
+     * @return the number of bytes, occupied by this container
+     */
+    long bytesUsed();
+
 
     /**
      * Prepares hash for inserting {@code minSize - size()} new elements without
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.LongLongMap;
+
+
+/**
+ * A non-blocking hash map from {@code long} keys to {@code long} values. Operations don't
+ * take locks, and values aren't boxed. The resize of the table is done cooperatively
+ * by the threads, accessing the map; an operation waits for another thread only
+ * if that thread is moving the entry of the same key to the new table, which takes
+ * a few writes. Any {@code long} could be put into the map as a value.
+ *
+ * <p>Every operation on a single key, including the compound ones, like
+ * {@link #compute(long, net.openhft.function.LongLongToLongFunction) compute()}
+ * and the methods of {@link java.util.Map} with boxed arguments, is atomic. Functions,
+ * passed to {@code compute}-like methods, could be applied several times, if the value
+ * is updated concurrently.
+ *
+ * <p>The {@link java.util.Map} views, the {@linkplain #cursor() cursor} and
+ * {@link #forEach(net.openhft.function.LongLongConsumer) forEach()} are weakly consistent,
+ * like the ones of {@link java.util.concurrent.ConcurrentHashMap}: they never throw
+ * {@link java.util.ConcurrentModificationException}, reflect the state of each entry
+ * at some point since they were created, and may or may not reflect keys, inserted
+ * after that. The cursor doesn't fail if the entry, which it points to, is updated
+ * concurrently, {@link net.openhft.collect.map.LongLongCursor#setValue(long) setValue()}
+ * and {@link net.openhft.collect.map.LongLongCursor#remove() remove()} update the key
+ * unconditionally.
+ *
+ * @see HashLongLongMapFactory#newNonBlockingMap(int)
+ */
+public interface NonBlockingHashLongLongMap extends LongLongMap, ConcurrentHashLongLongMap {
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.Container;
+import javax.annotation.Nonnull;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+
+/**
+ * An interning map from symbols, i. e. byte strings, to dense {@code int} ids: the first
+ * interned symbol gets id {@code 0}, the next one {@code 1}, and so on. Symbols are never
+ * removed, the id of a symbol doesn't change until {@link #clear()}.
+ *
+ * <p>The bytes of the symbols are stored back to back in a single arena, on-heap or in native
+ * memory, rather than in a {@code String} object per key, and indexed by a hash table
+ * of ids, with cached hashes of the symbols. A symbol takes its length, the offset and
+ * the hash, 8 bytes in an on-heap table and 12 bytes in an off-heap one, and 4 bytes per
+ * slot of the hash table, i. e. 6 bytes at {@literal 2/3} load.
+ *
+ * <p>A {@code CharSequence} is the symbol of the bytes of its UTF-8 encoding, unpaired
+ * surrogates are encoded as {@code '?'}, like by {@link String#getBytes(String)}.
+ * Lookups and insertions by a {@code CharSequence}, a {@code byte[]} slice or
+ * a {@code ByteBuffer} don't allocate, unless the table grows.
+ *
+ * <p>The native memory of an off-heap table is released by {@link #close()}, or, if
+ * the table isn't closed explicitly, some time after it becomes unreachable. Any operation
+ * on a closed table, except {@code close()} and size queries, throws
+ * {@code IllegalStateException}. The table isn't thread-safe, but lookups, i. e. {@code id()},
+ * {@code length()}, {@code getBytes()} and {@code symbol()} calls, could run concurrently,
+ * while no thread updates the table.
+ *
+ * @see HashObjIntMapFactory#newSymbolTable(int)
+ * @see HashObjIntMapFactory#newOffHeapSymbolTable(int)
+ */
+public interface SymbolTable extends Container, Closeable {
+
+    boolean isEmpty();
+
+    /**
+     * Returns the id of the given symbol, interning it, if it isn't in the table yet.
+     *
+     * @param symbol the symbol to intern
+     * @return the id of the symbol
+     */
+    int intern(@Nonnull CharSequence symbol);
+
+    /**
+     * Returns the id of the symbol of the {@code length} bytes of the given array,
+     * starting from {@code offset}, interning it, if it isn't in the table yet.
+     *
+     * @return the id of the symbol
+     * @throws IndexOutOfBoundsException if the slice is out of the array bounds
+     */
+    int intern(@Nonnull byte[] bytes, int offset, int length);
+
+    /**
+     * Returns the id of the symbol of the remaining bytes of the given buffer, interning it,
+     * if it isn't in the table yet. The position of the buffer isn't changed.
+     *
+     * @return the id of the symbol
+     */
+    int intern(@Nonnull ByteBuffer bytes);
+
+    /**
+     * Returns the id of the given symbol, or {@code -1}, if it isn't in the table.
+     */
+    int id(@Nonnull CharSequence symbol);
+
+    /**
+     * Returns the id of the symbol of the {@code length} bytes of the given array,
+     * starting from {@code offset}, or {@code -1}, if it isn't in the table.
+     *
+     * @throws IndexOutOfBoundsException if the slice is out of the array bounds
+     */
+    int id(@Nonnull byte[] bytes, int offset, int length);
+
+    /**
+     * Returns the id of the symbol of the remaining bytes of the given buffer,
+     * or {@code -1}, if it isn't in the table. The position of the buffer isn't changed.
+     */
+    int id(@Nonnull ByteBuffer bytes);
+
+    /**
+     * Returns the number of bytes in the symbol with the given id.
+     *
+     * @throws IndexOutOfBoundsException if there is no symbol with the given id
+     */
+    int length(int id);
+
+    /**
+     * Copies the bytes of the symbol with the given id to the given array.
+     *
+     * @param id the id of the symbol
+     * @param dest the array to copy the bytes to
+     * @param destOffset the index in the array to copy the first byte to
+     * @return the number of copied bytes, the {@linkplain #length(int) length} of the symbol
+     * @throws IndexOutOfBoundsException if there is no symbol with the given id, or
+     *         the bytes don't fit the array
+     */
+    int getBytes(int id, @Nonnull byte[] dest, int destOffset);
+
+    /**
+     * Puts the bytes of the symbol with the given id to the given buffer, at its position,
+     * and advances the position.
+     *
+     * @throws IndexOutOfBoundsException if there is no symbol with the given id
+     * @throws java.nio.BufferOverflowException if the bytes don't fit the buffer
+     */
+    void getBytes(int id, @Nonnull ByteBuffer dest);
+
+    /**
+     * Returns the symbol with the given id, decoded from UTF-8. Allocates a new string.
+     *
+     * @throws IndexOutOfBoundsException if there is no symbol with the given id
+     */
+    @Nonnull
+    String symbol(int id);
+
+    /**
+     * Removes all symbols from the table, ids are assigned from {@code 0} again.
+     */
+    void clear();
+
+    /**
+     * Releases the native memory of an off-heap table, or the arrays of an on-heap one.
+     * Repeated calls have no effect.
+     */
+    @Override
+    void close();
+}
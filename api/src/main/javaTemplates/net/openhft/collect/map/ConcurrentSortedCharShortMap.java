@@ -0,0 +1,150 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double|obj value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map;
+
+import net.openhft.collect.Container;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A thread-safe map from {@code char} keys to {@code short} values, sorted by keys.
+ * Lookups and traversals don't block, updates don't block updates of other keys.
+ /* if float|double key */
+ * Keys are ordered like by {@link Double#compare(double, double)}.
+ /* endif */
+ /* if obj value */
+ * Null values are not permitted, methods return {@code null}, if there is no mapping
+ * for the key.
+ /* endif */
+ *
+ * <p>Like concurrent hash maps, this map doesn't provide collection views. Entries are traversed in ascending key order
+ * by {@linkplain #cursor() cursors}, which also serve range scans and
+ * {@code ceiling}/{@code floor} queries. Cursors are weakly consistent, they never throw
+ * {@code ConcurrentModificationException}.
+ *
+ * @see net.openhft.collect.map.hash.HashCharShortMapFactory#newConcurrentSortedMap()
+ */
+public interface ConcurrentSortedCharShortMap/*<>*/ extends Container {
+
+    /* if !(obj value) */
+    /**
+     * Returns the value, which is returned from methods of this map when there is no mapping
+     * for the key.
+     *
+     * @return the default value of this map
+     * @see CharShortMap#defaultValue()
+     */
+    short defaultValue();
+    /* endif */
+
+    boolean isEmpty();
+
+    boolean containsKey(char key);
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * /* if !(obj value) */{@link #defaultValue()}/* elif obj value //{@code null}// endif */
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     */
+    short get(char key);
+
+    short getOrDefault(char key, short defaultValue);
+
+    short put(char key, short value);
+
+    short putIfAbsent(char key, short value);
+
+    short remove(char key);
+
+    boolean remove(char key, short value);
+
+    /**
+     * Returns the least key in this map.
+     *
+     * @return the least key in this map
+     * @throws java.util.NoSuchElementException if this map is empty
+     */
+    char firstKey();
+
+    /**
+     * Returns the greatest key in this map.
+     *
+     * @return the greatest key in this map
+     * @throws java.util.NoSuchElementException if this map is empty
+     */
+    char lastKey();
+
+    /**
+     * Removes the entry with the least key and passes it to the given action.
+     *
+     * @param action the action to be performed for the removed entry
+     * @return {@code false} if this map is empty, {@code true} otherwise
+     */
+    boolean pollFirstEntry(@Nonnull /*f*/CharShortConsumer action);
+
+    /**
+     * Removes the entry with the greatest key and passes it to the given action.
+     *
+     * @param action the action to be performed for the removed entry
+     * @return {@code false} if this map is empty, {@code true} otherwise
+     */
+    boolean pollLastEntry(@Nonnull /*f*/CharShortConsumer action);
+
+    /**
+     * Performs the given action for each entry in this map in ascending key order.
+     *
+     * @param action the action to be performed for each entry
+     */
+    void forEach(@Nonnull /*f*/CharShortConsumer action);
+
+    /**
+     * Returns a new cursor over all entries of this map, initially in front of the first
+     * entry.
+     *
+     * @return a new cursor over this map
+     */
+    @Nonnull
+    NavigableCharShortCursor/*<>*/ cursor();
+
+    /**
+     * Returns a new cursor over the entries of this map with keys in the given range,
+     * initially in front of the first entry of the range.
+     *
+     * @param fromKey the low end of the range
+     * @param fromInclusive {@code true} if the low end is included in the range
+     * @param toKey the high end of the range
+     * @param toInclusive {@code true} if the high end is included in the range
+     * @return a new cursor over the range of this map
+     */
+    @Nonnull
+    NavigableCharShortCursor/*<>*/ cursor(char fromKey, boolean fromInclusive,
+            char toKey, boolean toInclusive);
+
+    /**
+     * Removes all of the mappings from this map. Mappings, inserted concurrently,
+     * could be retained.
+     */
+    void clear();
+}
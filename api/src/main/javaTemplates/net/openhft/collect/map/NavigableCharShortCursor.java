@@ -0,0 +1,84 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double|obj value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map;
+
+
+/**
+ * A cursor over the entries of a sorted map in ascending key order, which could be
+ * repositioned to the entry, nearest to some key. A single cursor could serve any number
+ * of range scans and {@code ceiling}/{@code floor} queries without allocations.
+ *
+ * <p>If the cursor is created over a key range, all movements are limited to this range.
+ * After unsuccessful movement the cursor doesn't point to any entry, {@link #moveNext()}
+ * call then is also unsuccessful, until the cursor is repositioned.
+ *
+ * @see ConcurrentSortedCharShortMap#cursor()
+ */
+public interface NavigableCharShortCursor/*<>*/ extends CharShortCursor/*<>*/ {
+
+    /**
+     * Moves the cursor to the first entry of the range.
+     *
+     * @return {@code true} if the cursor has moved, {@code false} if the range is empty
+     */
+    boolean moveToFirst();
+
+    /**
+     * Moves the cursor to the last entry of the range.
+     *
+     * @return {@code true} if the cursor has moved, {@code false} if the range is empty
+     */
+    boolean moveToLast();
+
+    /**
+     * Moves the cursor to the entry with the least key, greater than or equal to
+     * the given key.
+     *
+     * @param key the key
+     * @return {@code true} if the cursor has moved, {@code false} if there is no such entry
+     */
+    boolean moveToCeiling(char key);
+
+    /**
+     * Moves the cursor to the entry with the greatest key, less than or equal to
+     * the given key.
+     *
+     * @param key the key
+     * @return {@code true} if the cursor has moved, {@code false} if there is no such entry
+     */
+    boolean moveToFloor(char key);
+
+    /**
+     * Moves the cursor to the entry with the least key, strictly greater than the given key.
+     *
+     * @param key the key
+     * @return {@code true} if the cursor has moved, {@code false} if there is no such entry
+     */
+    boolean moveToHigher(char key);
+
+    /**
+     * Moves the cursor to the entry with the greatest key, strictly less than the given key.
+     *
+     * @param key the key
+     * @return {@code true} if the cursor has moved, {@code false} if there is no such entry
+     */
+    boolean moveToLower(char key);
+}
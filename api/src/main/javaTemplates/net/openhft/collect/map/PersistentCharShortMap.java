@@ -0,0 +1,73 @@
+/* with
+ char|byte|short|int|long|float|double|obj key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * An immutable {@link CharShortMap}, "modifications" of which return new maps, sharing most
+ * of the structure with the original one. So keeping many versions of the map is cheap.
+ /* if obj key */
+ * Keys are compared by {@link Object#equals(Object)}, {@link #keyEquivalence()}
+ * returns {@code null}.
+ /* endif */
+ *
+ * <p>All the methods of {@code CharShortMap}, which would change the map, the same methods
+ * of the collection views and the cursor throw {@code UnsupportedOperationException}.
+ *
+ * @see net.openhft.collect.map.hash.HashCharShortMapFactory#newPersistentMap()
+ */
+public interface PersistentCharShortMap/*<>*/ extends CharShortMap/*<>*/ {
+
+    /**
+     * Returns a map with the same mappings as this map, plus the given one, replacing
+     * the mapping for the key in this map, if any. Returns this map, if it already
+     * contains exactly this mapping.
+     *
+     * @param key the key
+     * @param value the value to associate with the key
+     * @return a map with the given mapping
+     */
+    @Nonnull
+    PersistentCharShortMap/*<>*/ with(char key, short value);
+
+    /**
+     * Returns a map with the same mappings as this map, except the mapping for the given key.
+     * Returns this map, if it doesn't contain the key.
+     *
+     * @param key the key
+     * @return a map without mapping for the given key
+     */
+    @Nonnull
+    PersistentCharShortMap/*<>*/ without(/* raw */char key);
+
+    /**
+     * Returns a new mutable builder, initially containing the mappings of this map.
+     * Updates of the builder don't copy the parts of the structure, which are already
+     * copied by the builder, so a batch of updates is much cheaper, than the same number
+     * of {@link #with(char, short)} calls.
+     *
+     * @return a new transient map, containing the mappings of this map
+     */
+    @Nonnull
+    TransientCharShortMap/*<>*/ asTransient();
+}
@@ -0,0 +1,70 @@
+/* with
+ char|byte|short|int|long|float|double|obj key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * A mutable builder of {@link PersistentCharShortMap}s. Isn't thread-safe.
+ *
+ * @see PersistentCharShortMap#asTransient()
+ */
+public interface TransientCharShortMap/*<>*/ {
+
+    /* define valueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //$Short// endif */
+    /* enddefine */
+
+    /* define asValueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //AsShort// endif */
+    /* enddefine */
+
+    int size();
+
+    boolean isEmpty();
+
+    boolean containsKey(/* raw */char key);
+
+    /**
+     * @see CharShortMap#get/* valueSuffix */(/* raw */char)
+     */
+    short get/* valueSuffix */(/* raw */char key);
+
+    /**
+     * @see CharShortMap#put(/* raw */char, short)
+     */
+    short put(char key, short value);
+
+    /**
+     * @see CharShortMap#remove/* asValueSuffix */(/* raw */char)
+     */
+    short remove/* asValueSuffix */(/* raw */char key);
+
+    /**
+     * Returns a persistent map with the current mappings of this builder. The builder
+     * could be used further, its updates don't affect the returned map.
+     *
+     * @return a persistent map with the mappings of this builder
+     */
+    @Nonnull
+    PersistentCharShortMap/*<>*/ persistent();
+}
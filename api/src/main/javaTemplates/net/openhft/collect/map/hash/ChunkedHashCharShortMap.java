@@ -0,0 +1,45 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortMap;
+
+
+/**
+ * A hash map from {@code char} keys to {@code short} values, which table is split into
+ * chunks, each one is a separate Java array. The capacity of the map isn't limited by
+ * the max array length, the map could hold more than {@code Integer.MAX_VALUE} entries,
+ * {@link #sizeAsLong()} should be used to query the size of such maps, {@link #size()}
+ * returns {@code Integer.MAX_VALUE} for them.
+ *
+ * <p>Keys are assigned to chunks by hash and never probe outside of their chunk. Chunks
+ * grow one at a time, so the pause of growth is bounded regardless of the size of the map.
+ *
+ * <p>The {@link java.util.Map} views and the compound operations, like
+ * {@link #compute(char, net.openhft.function.CharShortToShortFunction) compute()}, are
+ * implemented on top of the primitive operations and the {@linkplain #cursor() cursor}.
+ * Like {@linkplain HashCharShortMapFactory#newMutableMap() mutable maps}, this map
+ * isn't thread-safe.
+ *
+ * @see HashCharShortMapFactory#newChunkedMap(long)
+ */
+public interface ChunkedHashCharShortMap extends CharShortMap {
+}
@@ -0,0 +1,94 @@
+/* with char|byte|short|int|long|float|double key */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.Container;
+import net.openhft.function.CharLongConsumer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A thread-safe map of {@code long} counters, associated with {@code char} keys.
+ * The counter of each key is updated without locking, and is split into several cells,
+ * when it is contended, like {@code java.util.concurrent.atomic.LongAdder}, so increments
+ * of a few hot keys from many threads don't collapse on a single memory location.
+ * The price is that reading the count is a sum over the cells.
+ *
+ * <p>Keys are never removed from the map, {@link #snapshotAndReset()} drops counts
+ * to zero, leaving the keys in place.
+ *
+ * @see HashCharLongMapFactory#newCounterMap(int)
+ */
+public interface ConcurrentHashCharLongCounterMap extends Container {
+
+    boolean isEmpty();
+
+    boolean containsKey(char key);
+
+    /**
+     * Adds the given value to the counter, associated with the specified key,
+     * starting a new counter, if there is no counter for the key yet.
+     *
+     * @param key the key
+     * @param delta the value to add
+     */
+    void add(char key, long delta);
+
+    /**
+     * Equivalent to {@code add(key, 1L)}.
+     *
+     * @param key the key
+     */
+    void increment(char key);
+
+    /**
+     * Returns the current count, associated with the specified key, or {@code 0L},
+     * if there is no counter for the key. The returned value isn't an atomic snapshot,
+     * concurrent additions might be counted or not.
+     *
+     * @param key the key
+     * @return the sum of the counter of the key
+     */
+    long sum(char key);
+
+    /**
+     * Performs the given action for each key and the current count, associated with it.
+     *
+     * @param action the action to be performed for each key and count
+     */
+    void forEach(@Nonnull CharLongConsumer action);
+
+    /**
+     * Returns a new mutable map from the keys to their current counts.
+     *
+     * @return a new map of the counts
+     */
+    @Nonnull
+    HashCharLongMap snapshot();
+
+    /**
+     * Resets the counters to zero and returns a new mutable map from the keys to the counts,
+     * which are reset, omitting zero counts. Each concurrent addition is either included
+     * in the returned map or is left in the counter, so, unlike a {@link #snapshot()}
+     * followed by resets, repeated calls of this method don't lose counts.
+     *
+     * @return a new map of the counts, collected since the previous reset
+     */
+    @Nonnull
+    HashCharLongMap snapshotAndReset();
+}
@@ -0,0 +1,127 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.Container;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A thread-safe hash map from {@code char} keys to {@code short} values. Every operation
+ * is atomic, lookups don't block.
+ *
+ * <p>Unlike {@link net.openhft.collect.map.CharShortMap}, this map doesn't provide collection
+ * views. Use {@link #forEach(CharShortConsumer)} to traverse the entries and {@link #snapshot()}
+ * to copy them to a regular map.
+ *
+ * <p>Functions, passed to {@code compute}-like methods, are applied either while other
+ * updates of some part of the map are blocked, or, in lock-free implementations, possibly
+ * several times, if the value is updated concurrently. So they should be short and free
+ * of side effects, and mustn't update this map.
+ *
+ * @see HashCharShortMapFactory#newConcurrentMap(int, int)
+ * @see HashCharShortMapFactory#newSingleWriterMap(int)
+ */
+public interface ConcurrentHashCharShortMap extends Container {
+
+    /**
+     * Returns the value, which is returned from methods of this map when there is no mapping
+     * for the key.
+     *
+     * @return the default value of this map
+     * @see net.openhft.collect.map.CharShortMap#defaultValue()
+     */
+    short defaultValue();
+
+    boolean isEmpty();
+
+    boolean containsKey(char key);
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@link #defaultValue()} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@link #defaultValue()} if this map contains no mapping for the key
+     */
+    short get(char key);
+
+    short getOrDefault(char key, short defaultValue);
+
+    short put(char key, short value);
+
+    short putIfAbsent(char key, short value);
+
+    short replace(char key, short value);
+
+    boolean replace(char key, short oldValue, short newValue);
+
+    short remove(char key);
+
+    boolean remove(char key, short value);
+
+    short compute(char key, /*f*/CharShortToShortFunction remappingFunction);
+
+    short computeIfAbsent(char key, /*f*/CharToShortFunction mappingFunction);
+
+    short computeIfPresent(char key, /*f*/CharShortToShortFunction remappingFunction);
+
+    short merge(char key, short value, /*f*/ShortBinaryOperator remappingFunction);
+
+    /**
+     * Atomically increments the value, associated with the specified key, or associates
+     * {@code defaultValue() + increment} with it, if there is no mapping for the key.
+     *
+     * @param key the key
+     * @param increment the value to add
+     * @return the updated value
+     * @see net.openhft.collect.map.CharShortMap#incrementValue(char, short)
+     */
+    short incrementValue(char key, short increment);
+
+    short incrementValue(char key, short increment, short defaultValue);
+
+    /**
+     * Performs the given action for each entry in this map. Each part of the map
+     * is traversed as it was at some point of time, the action doesn't see updates,
+     * made to this part after that point.
+     *
+     * @param action the action to be performed for each entry
+     */
+    void forEach(@Nonnull CharShortConsumer action);
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    void clear();
+
+    /**
+     * Returns a new mutable map, containing the entries of this map. Like
+     * {@link #forEach(CharShortConsumer)}, the copy isn't guaranteed to reflect
+     * a single point of time, if this map is being updated concurrently.
+     *
+     * @return a new mutable copy of this map
+     */
+    @Nonnull
+    HashCharShortMap snapshot();
+}
@@ -20,12 +20,17 @@
 
 package net.openhft.collect.map.hash;
 
+import net.openhft.collect.ForeignKeyEquivalence;
 import net.openhft.collect.HashContainer;
 import net.openhft.collect.map.CharShortMap;
 import net.openhft.collect.set.hash.HashCharSet;
 import net.openhft.collect.set.hash.HashObjSet;
+import net.openhft.function.*;
 import javax.annotation.Nonnull;
 
+import java.io.DataOutput;
+import java.io.IOException;
+
 
 /**
  * @see net.openhft.collect.map.hash.HashCharShortMaps
@@ -41,4 +46,133 @@ public interface HashCharShortMap/*<>*/ extends CharShortMap/*<>*/, HashContaine
     @Override
     @Nonnull
     HashObjSet<Entry<Character, Short>> entrySet();
+
+    /**
+     * Returns an immutable map of the entries of this map, with the same hash config,
+     * equivalences and default value as this map.
+     *
+     * <p>If this map is mutable, its internal arrays are handed over to the returned map
+     * without copying (removed slots, if any, are purged beforehand), and this map becomes
+     * empty. An immutable map returns itself.
+     *
+     * @return an immutable map of the entries of this map
+     */
+    @Nonnull
+    HashCharShortMap/*<>*/ freeze();
+
+    /* if obj key || obj value */
+    /**
+     * Returns an estimate of the number of bytes, occupied by this map, like
+     * {@link #bytesUsed()}, optionally adding the objects, referenced by the keys and values
+     * of this map, with all objects reachable from them. Each object is counted once, even
+     * if several entries reference it, but objects, shared with other data structures,
+     * are counted too.
+     *
+     * @param includeReferenced whether the objects, referenced by the keys and values,
+     *        should be counted
+     * @return the number of bytes, occupied by this map
+     */
+    long bytesUsed(boolean includeReferenced);
+    /* endif */
+
+    /* if obj key */
+    /* define valueSuffix */
+    /* if short|byte|char|int|long|float|double value //$Short// endif */
+    /* enddefine */
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the key, equivalent to the given
+     * foreign key by the given equivalence, for example for the {@code String} key
+     * with the same chars, as the given {@link StringBuilder}. The foreign key isn't
+     * converted to a key, the lookup doesn't allocate.
+     *
+     * @param foreignKey the foreign key whose presence in this map is to be tested
+     * @param equivalence the equivalence of foreign keys to the keys of this map
+     * @param <F> the type of the foreign key
+     * @return {@code true} if this map contains a mapping for the foreign key
+     * @throws IllegalArgumentException if the {@linkplain ForeignKeyEquivalence#keyEquivalence()
+     *         key equivalence} of the given equivalence isn't the {@linkplain #keyEquivalence()
+     *         key equivalence} of this map
+     * @see ForeignKeyEquivalence#charSequence()
+     * @see ForeignKeyEquivalence#utf8()
+     */
+    <F> boolean containsKey(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super K> equivalence);
+
+    /**
+     * Returns the value to which the key, equivalent to the given foreign key by the given
+     * equivalence, is mapped, or
+     * {@code // if obj value //null// elif !(obj value) //defaultValue()// endif //}, if this
+     * map contains no mapping for the foreign key. The foreign key isn't converted to a key,
+     * the lookup doesn't allocate.
+     *
+     * @param foreignKey the foreign key whose associated value is to be returned
+     * @param equivalence the equivalence of foreign keys to the keys of this map
+     * @param <F> the type of the foreign key
+     * @return the value to which the foreign key is mapped
+     * @throws IllegalArgumentException if the {@linkplain ForeignKeyEquivalence#keyEquivalence()
+     *         key equivalence} of the given equivalence isn't the {@linkplain #keyEquivalence()
+     *         key equivalence} of this map
+     * @see #containsKey(Object, ForeignKeyEquivalence)
+     */
+    <F> short get/* valueSuffix */(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super K> equivalence);
+    /* endif */
+
+    /* if !(obj key) && !(obj value) */
+
+    /**
+     * Performs the given action for each entry in this map, splitting the hash table
+     * into parts, which are traversed in parallel in a shared
+     * {@link java.util.concurrent.ForkJoinPool}. Small maps are traversed in the calling
+     * thread.
+     *
+     * <p>The action is called concurrently from several threads in no particular order,
+     * so it should be thread-safe. This map mustn't be modified until this method returns.
+     *
+     * @param action the action to be performed for each entry
+     * @see #forEach(CharShortConsumer)
+     */
+    void parallelForEach(@Nonnull /*f*/CharShortConsumer action);
+
+    /**
+     * Replaces each entry's value with the result of invoking the given function on that
+     * entry, processing parts of the hash table in parallel, like
+     * {@link #parallelForEach(CharShortConsumer)} does.
+     *
+     * <p>The function is called concurrently from several threads, so it should be
+     * thread-safe and free of side effects.
+     *
+     * @param function the function to apply to each entry
+     * @throws UnsupportedOperationException if this map is immutable
+     * @see #replaceAll(CharShortToShortFunction)
+     */
+    void parallelReplaceAll(@Nonnull /*f*/CharShortToShortFunction function);
+
+    /**
+     * Removes all of the entries of this map that satisfy the given predicate, processing
+     * parts of the hash table in parallel, like {@link #parallelForEach(CharShortConsumer)}
+     * does.
+     *
+     * <p>The predicate is called concurrently from several threads, so it should be
+     * thread-safe and free of side effects.
+     *
+     * @param filter a predicate which returns {@code true} for entries to be removed
+     * @return {@code true} if any entries were removed
+     * @throws UnsupportedOperationException if this map is immutable
+     * @see #removeIf(CharShortPredicate)
+     */
+    boolean parallelRemoveIf(@Nonnull /*f*/CharShortPredicate filter);
+
+    /**
+     * Writes this map to the given output in a compact binary format: the hash config,
+     * the default value, and the hash table as is, so the map is read back by
+     * {@link HashCharShortMapFactory#readMap(java.io.DataInput)} without rehashing.
+     * Maps are also serializable, with the same format under the hood.
+     *
+     * @param out the output to write this map to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(@Nonnull DataOutput out) throws IOException;
+    /* endif */
 }
@@ -25,10 +25,26 @@ import net.openhft.function.*;
 import net.openhft.collect.map.*;
 import javax.annotation.Nullable;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 
 /**
+ /* if !(obj key) && !(obj value) */
+ * Maps of this factory could be written in a compact binary format by
+ * {@link HashCharShortMap#writeTo(java.io.DataOutput)} and read back by
+ * {@link #readMap(DataInput)}, the hash table is restored as is, without rehashing.
+ /* elif obj key || obj value //
+ * The binary format ({@code writeTo()}, {@code readMap()}) and {@code Serializable}
+ * are provided only for maps of primitive keys and values, the maps of this factory don't
+ * support them. The format is the raw hash table, object keys and values would need
+ * a codec, and object keys also a rehash on reading, because their hash codes could differ
+ * in the reading JVM.
+ // endif */
+ *
  * @see HashCharShortMaps#getDefaultFactory()
  */
 public interface HashCharShortMapFactory/*<>*/ extends CharShortMapFactory/*<>*/ {
@@ -175,4 +191,300 @@ public interface HashCharShortMapFactory/*<>*/ extends CharShortMapFactory/*<>*/
             /*pk*/char/**/ k2, /*pv*/short/**/ v2, /*pk*/char/**/ k3, /*pv*/short/**/ v3,
             /*pk*/char/**/ k4, /*pv*/short/**/ v4, /*pk*/char/**/ k5, /*pv*/short/**/ v5);
     /* endwith */
+
+    /**
+     * Returns an estimate of the number of bytes, occupied by a new mutable map
+     * of the given expected size with the config of this factory, like
+     * {@link net.openhft.collect.HashContainer#bytesUsed()} of the map would report.
+     * The map outgrows the estimate, if more entries than expected are put into it.
+     *
+     * @param expectedSize the expected size of the map
+     * @return the estimated number of bytes, occupied by the map
+     */
+    long estimateBytes(int expectedSize);
+
+    /* if !(obj key) && !(obj value) */
+    /**
+     * Creates a new thread-safe map with the config and the default value of this factory.
+     * The map is split into segments, which are selected by the key hash and updated
+     * under independent locks.
+     *
+     * @param expectedSize the expected size of the returned map
+     * @param concurrencyLevel the estimated number of concurrently updating threads,
+     *        the number of segments is the least power of two, not less than it
+     * @return a new concurrent map
+     */
+    ConcurrentHashCharShortMap newConcurrentMap(int expectedSize, int concurrencyLevel);
+
+    /**
+     * Creates a new thread-safe map with the config and the default value of this factory,
+     * the default expected size and the concurrency level, proportional to the number
+     * of available processors.
+     *
+     * @return a new concurrent map
+     * @see #newConcurrentMap(int, int)
+     */
+    ConcurrentHashCharShortMap newConcurrentMap();
+
+    /**
+     * Creates a new map with the config and the default value of this factory, which
+     * could be queried from any threads without locking, but should be updated by a single
+     * thread at a time. Updates are as fast as updates of
+     * {@linkplain #newMutableMap(int) mutable maps}, concurrent lookups are retried,
+     * if the map is updated meanwhile. If updates by several threads could intersect,
+     * the behaviour of the map is undefined.
+     *
+     * @param expectedSize the expected size of the returned map
+     * @return a new single-writer map
+     */
+    ConcurrentHashCharShortMap newSingleWriterMap(int expectedSize);
+
+    /**
+     * Creates a new partitioned map with the config and the default value of this factory.
+     * Each partition is a {@linkplain #newMutableMap(int) mutable map}, owned by a single
+     * thread, other threads send updates to it through lock-free ring buffers.
+     *
+     * @param partitions the number of partitions, rounded up to a power of two,
+     *        usually the number of owning threads
+     * @param expectedSize the expected size of the whole map
+     * @return a new partitioned map
+     * @throws IllegalArgumentException if {@code partitions} isn't positive
+     */
+    PartitionedHashCharShortMap newPartitionedMap(int partitions, int expectedSize);
+
+    /**
+     * Creates a new map with the config and the default value of this factory, which table
+     * is stored in native memory. The returned map should be {@linkplain
+     * OffHeapHashCharShortMap#close() closed} after use.
+     *
+     * @param expectedSize the expected size of the returned map, could exceed
+     *        {@code Integer.MAX_VALUE}
+     * @return a new off-heap map
+     */
+    OffHeapHashCharShortMap newOffHeapMap(long expectedSize);
+
+    /**
+     * Creates a new map with the config and the default value of this factory, which table
+     * is split into chunks of Java arrays, so the map could grow beyond
+     * {@code Integer.MAX_VALUE} entries.
+     *
+     * @param expectedSize the expected size of the returned map, could exceed
+     *        {@code Integer.MAX_VALUE}
+     * @return a new chunked map
+     */
+    ChunkedHashCharShortMap newChunkedMap(long expectedSize);
+
+    /* if !(float|double value) */
+    /**
+     * Creates a new map with the config and the default value of this factory, which stores
+     * values from the given domain bit-packed, taking as many bits per value, as the width
+     * of the domain requires. The keys are stored the same way, as in
+     * {@linkplain #newMutableMap(int) mutable maps}.
+     *
+     * @param expectedSize the expected size of the returned map
+     * @param minValue the least value, which could be stored in the returned map
+     * @param maxValue the greatest value, which could be stored in the returned map
+     * @return a new packed map
+     * @throws IllegalArgumentException if {@code minValue} is greater than {@code maxValue}
+     */
+    PackedHashCharShortMap newPackedMap(int expectedSize, short minValue, short maxValue);
+    /* endif */
+
+    /**
+     * Creates a new map with the config and the default value of this factory, stored
+     * in the given file. If the file already exists, it is replaced: the map is written
+     * to a temporary file in the same directory, which is then renamed, processes, which
+     * are attached to the old file, keep reading the old map. The returned map
+     * is attached to the file for writing and should be {@linkplain
+     * MappedHashCharShortMap#close() closed} after use.
+     *
+     * @param file the file to store the map in
+     * @param expectedSize the expected size of the map, its capacity is fixed
+     * @return a new map in the given file
+     * @throws IOException if the file couldn't be created, or it is already attached
+     *         for writing by other process
+     * @throws IllegalArgumentException if the map of the expected size is too large
+     *         to be mapped
+     */
+    MappedHashCharShortMap newMappedMap(File file, long expectedSize) throws IOException;
+
+    /**
+     * Attaches to the map, previously created by {@link #newMappedMap(File, long)}
+     * in the given file, possibly by other process. The config and the default value
+     * of this factory are ignored, they are stored in the file.
+     *
+     * @param file the file with the map
+     * @param readOnly whether the map should be attached read-only, any number of readers
+     *        could attach to the same file, but only one writer
+     * @return the map in the given file
+     * @throws IOException if the file couldn't be read, it doesn't contain a map of the same
+     *         key and value types, it is already attached for writing by other process,
+     *         or the previous writer has died during compaction of the table
+     */
+    MappedHashCharShortMap openMappedMap(File file, boolean readOnly) throws IOException;
+
+    /**
+     * Reads the map, previously written by {@link HashCharShortMap#writeTo(java.io.DataOutput)},
+     * from the given input. The hash table of the map is restored as is, without rehashing.
+     * The config and the default value of this factory are ignored, they are read from
+     * the input.
+     *
+     * @param in the input to read the map from
+     * @return the map, read from the input, mutable or immutable, like the written map
+     * @throws IOException if an I/O error occurs, or the input doesn't contain a map
+     *         of the same key and value types
+     */
+    HashCharShortMap readMap(DataInput in) throws IOException;
+
+    /**
+     * Reads the map, previously written by {@link HashCharShortMap#writeTo(java.io.DataOutput)},
+     * from the given buffer, starting from its position, bulk-copying the hash table.
+     * The position of the buffer is advanced past the map.
+     *
+     * @param buffer the buffer to read the map from
+     * @return the map, read from the buffer, mutable or immutable, like the written map
+     * @throws IOException if the buffer doesn't contain a complete map of the same key
+     *         and value types
+     * @see #readMap(DataInput)
+     */
+    HashCharShortMap readMap(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Writes the given map to the given file in the frozen format, which is the hash table
+     * of an immutable map, laid out page-aligned, so that {@link #openFrozenMap(File)}
+     * maps it to memory without loading. The file is overwritten, if it exists.
+     *
+     * <p>If the given map is a hash map without removed slots, its table is written as is,
+     * otherwise the map is copied to an immutable map of this factory first.
+     *
+     * @param file the file to write the map to
+     * @param map the map to write
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the table of the map is too large to be mapped
+     */
+    void writeFrozenMap(File file, Map<Character, Short> map) throws IOException;
+
+    /**
+     * Maps the map, previously written by {@link #writeFrozenMap(File, Map)}, to memory.
+     * Queries are served directly from the mapped file, the map isn't copied to the heap.
+     * The returned map is immutable. The config and the default value of this factory
+     * are ignored, they are read from the file.
+     *
+     * <p>The file is released, when the returned map is garbage collected. The frozen format
+     * depends on the native byte order, files are portable only between machines with
+     * the same byte order.
+     *
+     * @param file the file with the map
+     * @return the immutable map in the given file
+     * @throws IOException if the file couldn't be read, or it doesn't contain a frozen map
+     *         of the same key and value types
+     */
+    HashCharShortMap openFrozenMap(File file) throws IOException;
+
+    /**
+     * Creates a new mutable map with the config and the default value of this factory,
+     * mapping each distinct key of the {@code keys} array to the values at the same
+     * indices of the {@code values} array, combined by the given function, e. g. summed.
+     * The values of each key are combined in the order of the arrays, the first value
+     * is put as is.
+     *
+     * <p>Big arrays are processed in parallel: the keys are split into disjoint partitions
+     * by hash, each partition is aggregated in a separate task of a shared
+     * {@link java.util.concurrent.ForkJoinPool}, and the partition maps are combined
+     * without merging. So the function is called concurrently and should be thread-safe.
+     *
+     * @param keys the keys
+     * @param values the values, of the same length as {@code keys}
+     * @param function the function to combine the values of the same key
+     * @return a new mutable map of the aggregated values
+     * @throws IllegalArgumentException if the arrays are of different length
+     */
+    HashCharShortMap aggregateParallel(char[] keys, short[] values,
+            /*f*/ShortBinaryOperator function);
+    /* endif */
+
+    /* if !(obj value) */
+    /**
+     * Returns an empty persistent map with the default value of this factory. Persistent maps
+     * are hash tries rather than open-addressing tables, so the config of this factory
+     * doesn't apply to them.
+     /* if obj key */
+     * Keys of the returned map are compared by {@link Object#equals(Object)}, the key
+     * equivalence of this factory doesn't apply too.
+     /* endif */
+     *
+     * @return an empty persistent map
+     */
+    /*p1*/ PersistentCharShortMap/*p2*/ newPersistentMap();
+    /* endif */
+
+    /* if !(obj key) */
+    /**
+     * Creates a new thread-safe map/* if !(obj value) */ with the default value of this factory/* endif */,
+     * sorted by keys. The map is a skip list rather than a hash table, so the config
+     * of this factory doesn't apply to it.
+     *
+     * @return a new concurrent sorted map
+     */
+    /*p1*/ ConcurrentSortedCharShortMap/*p2*/ newConcurrentSortedMap();
+    /* endif */
+
+    /* if !(obj key) && int value */
+    /**
+     * Creates a new mutable map with the config of this factory, mapping each distinct
+     * element of the given array to the number of its occurrences. Big arrays are
+     * processed in parallel, like in {@link #aggregateParallel(char[], short[],
+     * ShortBinaryOperator)}.
+     *
+     * @param data the array to count the elements of
+     * @return a new mutable map of the counts
+     */
+    HashCharShortMap countParallel(char[] data);
+    /* endif */
+
+    /* if !(obj key) && long value */
+    /**
+     * Creates a new thread-safe map of counters with the config of this factory. Counters
+     * of the keys, which are updated from many threads concurrently, are striped.
+     *
+     * @param expectedSize the expected number of keys in the returned map
+     * @return a new counter map
+     */
+    ConcurrentHashCharShortCounterMap newCounterMap(int expectedSize);
+    /* endif */
+
+    /* if long key long value */
+    /**
+     * Creates a new lock-free map with the config and the default value of this factory.
+     * Unlike maps, returned from {@link #newConcurrentMap(int, int)}, this map never blocks,
+     * even when it is resized, and provides the views of a {@code CharShortMap}.
+     *
+     * @param expectedSize the expected size of the returned map
+     * @return a new lock-free map
+     */
+    NonBlockingHashCharShortMap newNonBlockingMap(int expectedSize);
+    /* endif */
+
+    /* if obj key int value */
+    /**
+     * Creates a new symbol table with the config of this factory, which stores the bytes
+     * of the symbols in an on-heap arena. The equivalence of this factory doesn't apply,
+     * symbols are compared by bytes.
+     *
+     * @param expectedSize the expected number of symbols in the returned table
+     * @return a new on-heap symbol table
+     */
+    SymbolTable newSymbolTable(int expectedSize);
+
+    /**
+     * Creates a new symbol table with the config of this factory, which stores the bytes
+     * of the symbols in native memory. The returned table should be {@linkplain
+     * SymbolTable#close() closed} after use. The equivalence of this factory doesn't apply,
+     * symbols are compared by bytes.
+     *
+     * @param expectedSize the expected number of symbols in the returned table
+     * @return a new off-heap symbol table
+     */
+    SymbolTable newOffHeapSymbolTable(int expectedSize);
+    /* endif */
 }
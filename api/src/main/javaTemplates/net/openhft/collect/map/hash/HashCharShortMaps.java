@@ -22,6 +22,10 @@ package net.openhft.collect.map.hash;
 
 import net.openhft.function.*;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.ServiceLoader;
 
@@ -177,5 +181,117 @@ public final class HashCharShortMaps {
     }
     /* endwith */
 
+    public static long estimateBytes(int expectedSize) {
+        return getDefaultFactory().estimateBytes(expectedSize);
+    }
+
+    /* if !(obj key) && !(obj value) */
+    public static ConcurrentHashCharShortMap newConcurrentMap() {
+        return getDefaultFactory().newConcurrentMap();
+    }
+
+    public static ConcurrentHashCharShortMap newConcurrentMap(
+            int expectedSize, int concurrencyLevel) {
+        return getDefaultFactory().newConcurrentMap(expectedSize, concurrencyLevel);
+    }
+
+    public static ConcurrentHashCharShortMap newSingleWriterMap(int expectedSize) {
+        return getDefaultFactory().newSingleWriterMap(expectedSize);
+    }
+
+    public static PartitionedHashCharShortMap newPartitionedMap(
+            int partitions, int expectedSize) {
+        return getDefaultFactory().newPartitionedMap(partitions, expectedSize);
+    }
+
+    public static OffHeapHashCharShortMap newOffHeapMap(long expectedSize) {
+        return getDefaultFactory().newOffHeapMap(expectedSize);
+    }
+
+    public static ChunkedHashCharShortMap newChunkedMap(long expectedSize) {
+        return getDefaultFactory().newChunkedMap(expectedSize);
+    }
+
+    /* if !(float|double value) */
+    public static PackedHashCharShortMap newPackedMap(
+            int expectedSize, short minValue, short maxValue) {
+        return getDefaultFactory().newPackedMap(expectedSize, minValue, maxValue);
+    }
+    /* endif */
+
+    public static MappedHashCharShortMap newMappedMap(File file, long expectedSize)
+            throws IOException {
+        return getDefaultFactory().newMappedMap(file, expectedSize);
+    }
+
+    public static MappedHashCharShortMap openMappedMap(File file, boolean readOnly)
+            throws IOException {
+        return getDefaultFactory().openMappedMap(file, readOnly);
+    }
+
+    public static HashCharShortMap readMap(DataInput in) throws IOException {
+        return getDefaultFactory().readMap(in);
+    }
+
+    public static HashCharShortMap readMap(ByteBuffer buffer) throws IOException {
+        return getDefaultFactory().readMap(buffer);
+    }
+
+    public static void writeFrozenMap(File file, Map<Character, Short> map) throws IOException {
+        getDefaultFactory().writeFrozenMap(file, map);
+    }
+
+    public static HashCharShortMap openFrozenMap(File file) throws IOException {
+        return getDefaultFactory().openFrozenMap(file);
+    }
+
+    public static HashCharShortMap aggregateParallel(char[] keys, short[] values,
+            /*f*/ShortBinaryOperator function) {
+        return getDefaultFactory().aggregateParallel(keys, values, function);
+    }
+    /* endif */
+
+    /* if !(obj value) */
+    public static /*<>*/ net.openhft.collect.map.PersistentCharShortMap/*<>*/
+    newPersistentMap() {
+        return getDefaultFactory().newPersistentMap();
+    }
+    /* endif */
+
+    /* if !(obj key) */
+    public static /*<>*/ net.openhft.collect.map.ConcurrentSortedCharShortMap/*<>*/
+    newConcurrentSortedMap() {
+        return getDefaultFactory().newConcurrentSortedMap();
+    }
+    /* endif */
+
+    /* if !(obj key) && int value */
+    public static HashCharShortMap countParallel(char[] data) {
+        return getDefaultFactory().countParallel(data);
+    }
+    /* endif */
+
+    /* if !(obj key) && long value */
+    public static ConcurrentHashCharShortCounterMap newCounterMap(int expectedSize) {
+        return getDefaultFactory().newCounterMap(expectedSize);
+    }
+    /* endif */
+
+    /* if long key long value */
+    public static NonBlockingHashCharShortMap newNonBlockingMap(int expectedSize) {
+        return getDefaultFactory().newNonBlockingMap(expectedSize);
+    }
+    /* endif */
+
+    /* if obj key int value */
+    public static SymbolTable newSymbolTable(int expectedSize) {
+        return getDefaultFactory().newSymbolTable(expectedSize);
+    }
+
+    public static SymbolTable newOffHeapSymbolTable(int expectedSize) {
+        return getDefaultFactory().newOffHeapSymbolTable(expectedSize);
+    }
+    /* endif */
+
     private HashCharShortMaps() {}
 }
@@ -0,0 +1,107 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.Container;
+import net.openhft.function.CharShortConsumer;
+import javax.annotation.Nonnull;
+
+import java.io.Closeable;
+
+
+/**
+ * A hash map from {@code char} keys to {@code short} values, stored in a memory-mapped file.
+ * The file starts with a versioned header, which holds the format version, the key
+ * and the value types, the capacity, the size and the default value of the map, so
+ * the map is attached to an existing file in constant time, without loading.
+ *
+ * <p>Any number of threads and processes could attach to the same file: one of them
+ * for writing, others read-only. Lookups don't lock, they are retried, if the writer
+ * updates the map meanwhile. The capacity of the map is fixed at creation,
+ * {@link net.openhft.collect.HashOverflowException} is thrown, if the map is full.
+ *
+ * <p>If the writer dies during an update, the next writer recovers the map, but the map
+ * is lost, if the writer dies, while it compacts the table after many removals.
+ *
+ * <p>Updates are visible to other attached processes immediately, but are written
+ * to the storage device only by {@link #force()}, or eventually by the operating system.
+ *
+ * @see HashCharShortMapFactory#newMappedMap(java.io.File, long)
+ * @see HashCharShortMapFactory#openMappedMap(java.io.File, boolean)
+ */
+public interface MappedHashCharShortMap extends Container, Closeable {
+
+    /**
+     * Returns the default value of this map, which is stored in the file.
+     *
+     * @return the default value of this map
+     * @see net.openhft.collect.map.CharShortMap#defaultValue()
+     */
+    short defaultValue();
+
+    /**
+     * Returns {@code true} if this map is attached to the file read-only. Update methods
+     * of read-only maps throw {@code UnsupportedOperationException}.
+     *
+     * @return {@code true} if this map is read-only
+     */
+    boolean isReadOnly();
+
+    boolean isEmpty();
+
+    boolean containsKey(char key);
+
+    short get(char key);
+
+    short getOrDefault(char key, short defaultValue);
+
+    short put(char key, short value);
+
+    short putIfAbsent(char key, short value);
+
+    short incrementValue(char key, short increment);
+
+    short remove(char key);
+
+    /**
+     * Performs the given action for each entry in this map. Each entry is read
+     * consistently, but entries, updated concurrently with the traversal, might be seen
+     * or not.
+     *
+     * @param action the action to be performed for each entry
+     */
+    void forEach(@Nonnull CharShortConsumer action);
+
+    void clear();
+
+    /**
+     * Writes the updates of this map to the storage device, containing the file.
+     */
+    void force();
+
+    /**
+     * Detaches this map from the file. The file and the map in it remain intact.
+     * Repeated calls have no effect. The file is unmapped, when it is no longer accessed
+     * by other threads, and this map is collected.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,54 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortMap;
+
+import java.io.Closeable;
+
+
+/**
+ * A hash map from {@code char} keys to {@code short} values, which table is stored
+ * in native memory rather than in Java arrays. The garbage collector doesn't see the table,
+ * so even very big maps don't affect collection pauses. The capacity of the map
+ * is {@code long}, it could hold more than {@code Integer.MAX_VALUE} entries.
+ *
+ * <p>The memory is released by {@link #close()}, or, if the map isn't closed explicitly,
+ * some time after the map becomes unreachable. Any operation on a closed map,
+ * except {@code close()} and size queries, throws {@code IllegalStateException}.
+ *
+ * <p>The {@link java.util.Map} views and the compound operations, like
+ * {@link #compute(char, net.openhft.function.CharShortToShortFunction) compute()}, are
+ * implemented on top of the primitive operations and the {@linkplain #cursor() cursor},
+ * they don't copy the table to the heap. Like
+ * {@linkplain HashCharShortMapFactory#newMutableMap() mutable maps}, this map
+ * isn't thread-safe.
+ *
+ * @see HashCharShortMapFactory#newOffHeapMap(long)
+ */
+public interface OffHeapHashCharShortMap extends CharShortMap, Closeable {
+
+    /**
+     * Releases the native memory of this map. Repeated calls have no effect.
+     */
+    @Override
+    void close();
+}
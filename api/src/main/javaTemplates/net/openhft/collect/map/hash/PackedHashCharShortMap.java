@@ -0,0 +1,69 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.HashContainer;
+import net.openhft.collect.map.CharShortMap;
+
+
+/**
+ * A hash map from {@code char} keys to {@code short} values, confined in the value domain,
+ * given at creation, which stores values bit-packed in {@code long} arrays. Each value
+ * takes as many bits, as the width of the domain requires, e. g. values from {@code 0}
+ * to {@code 7} take 3 bits instead of a whole {@code short}, so maps of flags, small counters
+ * or enum ordinals occupy several times less memory.
+ *
+ * <p>The keys are stored and probed the same way, as in
+ * {@linkplain HashCharShortMapFactory#newMutableMap() mutable maps}, a lookup costs the same
+ * plus a few shifts to read the value. The {@link java.util.Map} views and the compound
+ * operations are implemented on top of the primitive operations and the
+ * {@linkplain #cursor() cursor}.
+ *
+ * <p>Methods, which would store a value outside of the domain, including the methods
+ * of the views and the cursor, throw {@code IllegalArgumentException} and leave the map
+ * intact. The default value, returned for absent keys, could be outside of the domain.
+ * Like mutable maps, this map isn't thread-safe.
+ *
+ * @see HashCharShortMapFactory#newPackedMap(int, short, short)
+ */
+public interface PackedHashCharShortMap extends CharShortMap, HashContainer {
+
+    /**
+     * Returns the least value, which could be stored in this map.
+     *
+     * @return the lower bound of the value domain, inclusive
+     */
+    short minValue();
+
+    /**
+     * Returns the greatest value, which could be stored in this map.
+     *
+     * @return the upper bound of the value domain, inclusive
+     */
+    short maxValue();
+
+    /**
+     * Returns the number of bits, each value of this map takes.
+     *
+     * @return the number of bits per value
+     */
+    int bitsPerValue();
+}
@@ -0,0 +1,158 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import javax.annotation.Nonnull;
+
+import java.io.Closeable;
+
+
+/**
+ * A map from {@code char} keys to {@code short} values, split into partitions by the key hash.
+ * Each partition is a plain {@link HashCharShortMap}, owned by a single thread, e. g.
+ * a worker of a pipeline, which processes the keys of this partition. The owner queries
+ * and updates the partition map directly, without any synchronization.
+ *
+ * <p>Other threads don't touch partition maps, they send updates through
+ * {@linkplain Writer writers}. Each writer has a single-producer single-consumer ring
+ * buffer per partition, updates are published to the owner in batches. The owner applies
+ * pending updates by {@link #drain(int)} calls, when it is convenient for it.
+ * So neither the owner, nor the writers lock or CAS anything.
+ *
+ * <p>If a ring buffer is full, the writer waits until the owner of the partition drains it.
+ * An owner, which also sends updates to other partitions, should use a writer, created by
+ * {@link #newWriter(int) newWriter(ownedPartition)}: such a writer drains the owned partition
+ * while it waits, otherwise two owners, sending updates to the partitions of each other,
+ * could wait for each other forever.
+ *
+ * <p>This map isn't a {@link java.util.Map}: there is no single view of all partitions,
+ * consistent at some point of time.
+ *
+ * @see HashCharShortMapFactory#newPartitionedMap(int, int)
+ */
+public interface PartitionedHashCharShortMap {
+
+    /**
+     * Returns the number of partitions of this map, a power of two.
+     *
+     * @return the number of partitions
+     */
+    int partitionCount();
+
+    /**
+     * Returns the index of the partition of the given key.
+     *
+     * @param key the key
+     * @return the index of the partition of the key
+     */
+    int partitionOf(char key);
+
+    /**
+     * Returns the map of the partition. It should be accessed only by the owner
+     * of the partition, or by any thread, if no other thread accesses it meanwhile
+     * and the access is properly synchronized with the owner.
+     *
+     * @param partition the index of the partition
+     * @return the map of the partition
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @Nonnull
+    HashCharShortMap partition(int partition);
+
+    /**
+     * Applies the updates, sent to the partition by all writers, to the partition map,
+     * in the order of sending by each writer. Should be called only by the owner
+     * of the partition.
+     *
+     * @param partition the index of the partition
+     * @return the number of applied updates
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    int drain(int partition);
+
+    /**
+     * Creates a new writer of this map. The writer should be used by a single thread
+     * at a time, each sending thread should have its own writer. The writer should be
+     * {@linkplain Writer#close() closed}, when it isn't needed anymore.
+     *
+     * @return a new writer
+     */
+    @Nonnull
+    Writer newWriter();
+
+    /**
+     * Creates a new writer of this map for the owner of the given partition. While the writer
+     * waits for the owner of other partition to drain a full ring buffer, it {@linkplain
+     * #drain(int) drains} the owned partition, so it should be used only by the owner,
+     * and not while the owner iterates over the partition map.
+     *
+     * @param ownedPartition the index of the partition, owned by the thread,
+     *        which uses the writer
+     * @return a new writer
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @see #newWriter()
+     */
+    @Nonnull
+    Writer newWriter(int ownedPartition);
+
+    /**
+     * Sends updates to the partitions of the map. Updates are buffered by the writer
+     * and published to the owners of partitions in batches, or by {@link #flush()}.
+     * If a ring buffer is full, the writer waits until the owner of the partition
+     * drains it.
+     *
+     * <p>Writers are registered in the partitions, until they are {@linkplain #close()
+     * closed}, owners poll the ring buffers of all registered writers.
+     */
+    interface Writer extends Closeable {
+
+        /**
+         * Sends {@link HashCharShortMap#put(char, short) put(key, value)}
+         * to the partition of the key.
+         */
+        void put(char key, short value);
+
+        /**
+         * Sends {@link HashCharShortMap#remove(char) remove(key)}
+         * to the partition of the key.
+         */
+        void remove(char key);
+
+        /**
+         * Sends {@link HashCharShortMap#incrementValue(char, short)
+         * incrementValue(key, increment)} to the partition of the key.
+         */
+        void incrementValue(char key, short increment);
+
+        /**
+         * Publishes all buffered updates to the owners of the partitions.
+         */
+        void flush();
+
+        /**
+         * Publishes all buffered updates and unregisters this writer. The owners drop
+         * the ring buffers of this writer, when they apply the remaining updates.
+         * Updates can't be sent after this call. Repeated calls have no effect.
+         */
+        @Override
+        void close();
+    }
+}
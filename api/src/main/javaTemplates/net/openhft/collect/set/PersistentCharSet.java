@@ -0,0 +1,66 @@
+/* with char|byte|short|int|long|float|double|obj elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * An immutable {@link CharSet}, "modifications" of which return new sets, sharing most
+ * of the structure with the original one.
+ /* if obj elem */
+ * Elements are compared by {@link Object#equals(Object)}, {@link #equivalence()}
+ * returns {@code null}.
+ /* endif */
+ *
+ * <p>All the methods of {@code CharSet}, which would change the set, and the same methods
+ * of the cursor and the iterator throw {@code UnsupportedOperationException}.
+ *
+ * @see net.openhft.collect.set.hash.HashCharSetFactory#newPersistentSet()
+ */
+public interface PersistentCharSet/*<>*/ extends CharSet/*<>*/ {
+
+    /**
+     * Returns a set with the elements of this set and the given element, or this set,
+     * if it already contains the element.
+     *
+     * @param e the element
+     * @return a set with the given element
+     */
+    @Nonnull
+    PersistentCharSet/*<>*/ with(char e);
+
+    /**
+     * Returns a set with the elements of this set except the given element, or this set,
+     * if it doesn't contain the element.
+     *
+     * @param e the element
+     * @return a set without the given element
+     */
+    @Nonnull
+    PersistentCharSet/*<>*/ without(/* raw */char e);
+
+    /**
+     * Returns a new mutable builder, initially containing the elements of this set.
+     *
+     * @return a new transient set, containing the elements of this set
+     * @see net.openhft.collect.map.PersistentCharShortMap#asTransient()
+     */
+    @Nonnull
+    TransientCharSet/*<>*/ asTransient();
+}
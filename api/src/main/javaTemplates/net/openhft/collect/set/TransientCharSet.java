@@ -0,0 +1,48 @@
+/* with char|byte|short|int|long|float|double|obj elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * A mutable builder of {@link PersistentCharSet}s. Isn't thread-safe.
+ *
+ * @see PersistentCharSet#asTransient()
+ */
+public interface TransientCharSet/*<>*/ {
+
+    int size();
+
+    boolean isEmpty();
+
+    boolean contains(/* raw */char v);
+
+    boolean add(char e);
+
+    boolean remove(/* raw */char e);
+
+    /**
+     * Returns a persistent set with the current elements of this builder. The builder
+     * could be used further, its updates don't affect the returned set.
+     *
+     * @return a persistent set with the elements of this builder
+     */
+    @Nonnull
+    PersistentCharSet/*<>*/ persistent();
+}
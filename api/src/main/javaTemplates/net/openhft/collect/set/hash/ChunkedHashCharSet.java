@@ -0,0 +1,40 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.set.CharSet;
+
+
+/**
+ * A hash set of {@code char}s, which table is split into chunks, each one is a separate
+ * Java array. The capacity of the set isn't limited by the max array length, the set
+ * could hold more than {@code Integer.MAX_VALUE} elements, {@link #sizeAsLong()} should be
+ * used to query the size of such sets, {@link #size()} returns {@code Integer.MAX_VALUE}
+ * for them.
+ *
+ * <p>Elements are assigned to chunks by hash and never probe outside of their chunk.
+ * Chunks grow one at a time, so the pause of growth is bounded regardless of the size
+ * of the set. The bulk operations, like {@link #removeAll(java.util.Collection)
+ * removeAll()}, are implemented on top of the primitive operations and the
+ * {@linkplain #cursor() cursor}. Like {@linkplain HashCharSetFactory#newMutableSet()
+ * mutable sets}, this set isn't thread-safe.
+ *
+ * @see HashCharSetFactory#newChunkedSet(long)
+ */
+public interface ChunkedHashCharSet extends CharSet {
+}
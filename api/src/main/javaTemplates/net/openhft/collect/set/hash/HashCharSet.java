@@ -19,10 +19,106 @@ package net.openhft.collect.set.hash;
 
 import net.openhft.collect.HashContainer;
 import net.openhft.collect.set.CharSet;
+import javax.annotation.Nonnull;
+
+import java.io.DataOutput;
+import java.io.IOException;
 
 
 /**
  * @see net.openhft.collect.set.hash.HashCharSets
  */
 public interface HashCharSet/*<>*/ extends CharSet/*<>*/, HashContainer {
+
+    /**
+     * Returns the number of elements of this set, which are also contained in the specified set.
+     * Unlike {@code intersect(other).size()}, doesn't materialize the intersection.
+     *
+     * @param other the set to intersect this set with
+     * @return the size of the intersection of this set and the specified set
+     */
+    int intersectionSize(@Nonnull CharSet/*<?>*/ other);
+
+    /**
+     * Returns the Jaccard similarity coefficient of this set and the specified set, i. e.
+     * the size of their intersection divided by the size of their union.
+     * If both sets are empty, returns {@code 1.0}.
+     *
+     * @param other the set to compare this set with
+     * @return the Jaccard similarity coefficient of this set and the specified set
+     */
+    double jaccard(@Nonnull CharSet/*<?>*/ other);
+
+    /**
+     * Returns a new mutable set of elements of this set, which are also contained
+     * in the specified set. The returned set has the same hash config// if obj elem //
+     * and equivalence// endif // as this set.
+     *
+     * @param other the set to intersect this set with
+     * @return a new set, the intersection of this set and the specified set
+     */
+    @Nonnull
+    HashCharSet/*<>*/ intersect(@Nonnull CharSet/*<?>*/ other);
+
+    /**
+     * Returns a new mutable set of elements, contained in this set or in the specified set.
+     * The returned set has the same hash config// if obj elem //
+     * and equivalence// endif // as this set.
+     *
+     * @param other the set to unite this set with
+     * @return a new set, the union of this set and the specified set
+     */
+    @Nonnull
+    HashCharSet/*<>*/ union(@Nonnull CharSet/*<extends>*/ other);
+
+    /**
+     * Returns a new mutable set of elements of this set, which are not contained
+     * in the specified set. The returned set has the same hash config// if obj elem //
+     * and equivalence// endif // as this set.
+     *
+     * @param other the set, elements of which shouldn't be contained in the returned set
+     * @return a new set, the difference of this set and the specified set
+     */
+    @Nonnull
+    HashCharSet/*<>*/ difference(@Nonnull CharSet/*<?>*/ other);
+
+    /**
+     * Returns an immutable set of the elements of this set. The returned set has the same
+     * hash config// if obj elem // and equivalence// endif // as this set.
+     *
+     * <p>If this set is a mutable hash set, its internal arrays are handed over
+     * to the returned set without copying (removed slots, if any, are purged beforehand),
+     * and this set becomes empty. An immutable set returns itself. Other sets, e. g. key sets
+     * of mutable hash maps, return an immutable copy of their elements.
+     *
+     * @return an immutable set of the elements of this set
+     */
+    @Nonnull
+    HashCharSet/*<>*/ freeze();
+
+    /* if obj elem */
+    /**
+     * Returns an estimate of the number of bytes, occupied by this set, like
+     * {@link #bytesUsed()}, optionally adding the elements of this set, with all objects
+     * reachable from them. Each object is counted once, but objects, shared with other
+     * data structures, are counted too.
+     *
+     * @param includeReferenced whether the elements should be counted
+     * @return the number of bytes, occupied by this set
+     */
+    long bytesUsed(boolean includeReferenced);
+    /* endif */
+
+    /* if !(obj elem) */
+    /**
+     * Writes this set to the given output in a compact binary format: the hash config
+     * and the hash table as is, so the set is read back by
+     * {@link HashCharSetFactory#readSet(java.io.DataInput)} without rehashing.
+     * Sets are also serializable, with the same format under the hood.
+     *
+     * @param out the output to write this set to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(@Nonnull DataOutput out) throws IOException;
+    /* endif */
 }
@@ -22,10 +22,25 @@ import net.openhft.function.*;
 import net.openhft.collect.set.CharSetFactory;
 import javax.annotation.Nullable;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 
 
 /**
+ /* if !(obj elem) */
+ * Sets of this factory could be written in a compact binary format by
+ * {@link HashCharSet#writeTo(java.io.DataOutput)} and read back by
+ * {@link #readSet(DataInput)}, the hash table is restored as is, without rehashing.
+ /* elif obj elem //
+ * The binary format ({@code writeTo()}, {@code readSet()}) and {@code Serializable}
+ * are provided only for sets of primitive elements, the sets of this factory don't
+ * support them. The format is the raw hash table, object elements would need a codec
+ * and a rehash on reading, because their hash codes could differ in the reading JVM.
+ // endif */
+ *
  * @see HashCharSets#getDefaultFactory()
  */
 public interface HashCharSetFactory/*<>*/ extends CharSetFactory/*<>*/ {
@@ -137,4 +152,107 @@ public interface HashCharSetFactory/*<>*/ extends CharSetFactory/*<>*/ {
             /*pe*/char/**/ e3, /*pe*/char/**/ e4, /*pe*/char/**/ e5,
             /*pe*/char/**/... restElements);
     /* endwith */
+
+    /**
+     * Returns an estimate of the number of bytes, occupied by a new mutable set
+     * of the given expected size with the config of this factory, like
+     * {@link net.openhft.collect.HashContainer#bytesUsed()} of the set would report.
+     * The set outgrows the estimate, if more elements than expected are added to it.
+     *
+     * @param expectedSize the expected size of the set
+     * @return the estimated number of bytes, occupied by the set
+     */
+    long estimateBytes(int expectedSize);
+
+    /**
+     * Returns an empty persistent set. Persistent sets are hash tries rather than
+     * open-addressing tables, so the config of this factory doesn't apply to them.
+     /* if obj elem */
+     * Elements of the returned set are compared by {@link Object#equals(Object)},
+     * the equivalence of this factory doesn't apply too.
+     /* endif */
+     *
+     * @return an empty persistent set
+     */
+    /*p1*/ net.openhft.collect.set.PersistentCharSet/*p2*/ newPersistentSet();
+
+    /* if !(obj elem) */
+    /**
+     * Creates a new set with the config of this factory, which table is stored in native
+     * memory. The returned set should be {@linkplain OffHeapHashCharSet#close() closed}
+     * after use.
+     *
+     * @param expectedSize the expected size of the returned set, could exceed
+     *        {@code Integer.MAX_VALUE}
+     * @return a new off-heap set
+     */
+    OffHeapHashCharSet newOffHeapSet(long expectedSize);
+
+    /**
+     * Creates a new set with the config of this factory, which table is split into chunks
+     * of Java arrays, so the set could grow beyond {@code Integer.MAX_VALUE} elements.
+     *
+     * @param expectedSize the expected size of the returned set, could exceed
+     *        {@code Integer.MAX_VALUE}
+     * @return a new chunked set
+     */
+    ChunkedHashCharSet newChunkedSet(long expectedSize);
+
+    /**
+     * Reads the set, previously written by {@link HashCharSet#writeTo(java.io.DataOutput)},
+     * from the given input. The hash table of the set is restored as is, without rehashing.
+     * The config of this factory is ignored, it is read from the input.
+     *
+     * @param in the input to read the set from
+     * @return the set, read from the input, mutable or immutable, like the written set
+     * @throws IOException if an I/O error occurs, or the input doesn't contain a set
+     *         of the same element type
+     */
+    HashCharSet readSet(DataInput in) throws IOException;
+
+    /**
+     * Reads the set, previously written by {@link HashCharSet#writeTo(java.io.DataOutput)},
+     * from the given buffer, starting from its position, bulk-copying the hash table.
+     * The position of the buffer is advanced past the set.
+     *
+     * @param buffer the buffer to read the set from
+     * @return the set, read from the buffer, mutable or immutable, like the written set
+     * @throws IOException if the buffer doesn't contain a complete set of the same
+     *         element type
+     * @see #readSet(DataInput)
+     */
+    HashCharSet readSet(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Writes the given set to the given file in the frozen format, which is the hash table
+     * of an immutable set, laid out page-aligned, so that {@link #openFrozenSet(File)}
+     * maps it to memory without loading. The file is overwritten, if it exists.
+     *
+     * <p>If the given set is a hash set without removed slots, its table is written as is,
+     * otherwise the set is copied to an immutable set of this factory first.
+     *
+     * @param file the file to write the set to
+     * @param set the set to write
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the table of the set is too large to be mapped
+     */
+    void writeFrozenSet(File file, Iterable<Character> set) throws IOException;
+
+    /**
+     * Maps the set, previously written by {@link #writeFrozenSet(File, Iterable)}, to memory.
+     * Queries are served directly from the mapped file, the set isn't copied to the heap.
+     * The returned set is immutable. The config of this factory is ignored, it is read
+     * from the file.
+     *
+     * <p>The file is released, when the returned set is garbage collected. The frozen format
+     * depends on the native byte order, files are portable only between machines with
+     * the same byte order.
+     *
+     * @param file the file with the set
+     * @return the immutable set in the given file
+     * @throws IOException if the file couldn't be read, or it doesn't contain a frozen set
+     *         of the same element type
+     */
+    HashCharSet openFrozenSet(File file) throws IOException;
+    /* endif */
 }
@@ -19,6 +19,10 @@ package net.openhft.collect.set.hash;
 
 import net.openhft.function.*;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.ServiceLoader;
 
@@ -150,5 +154,39 @@ public final class HashCharSets {
     }
     /* endwith */
 
+    public static long estimateBytes(int expectedSize) {
+        return getDefaultFactory().estimateBytes(expectedSize);
+    }
+
+    public static /*<>*/ net.openhft.collect.set.PersistentCharSet/*<>*/ newPersistentSet() {
+        return getDefaultFactory().newPersistentSet();
+    }
+
+    /* if !(obj elem) */
+    public static OffHeapHashCharSet newOffHeapSet(long expectedSize) {
+        return getDefaultFactory().newOffHeapSet(expectedSize);
+    }
+
+    public static ChunkedHashCharSet newChunkedSet(long expectedSize) {
+        return getDefaultFactory().newChunkedSet(expectedSize);
+    }
+
+    public static HashCharSet readSet(DataInput in) throws IOException {
+        return getDefaultFactory().readSet(in);
+    }
+
+    public static HashCharSet readSet(ByteBuffer buffer) throws IOException {
+        return getDefaultFactory().readSet(buffer);
+    }
+
+    public static void writeFrozenSet(File file, Iterable<Character> set) throws IOException {
+        getDefaultFactory().writeFrozenSet(file, set);
+    }
+
+    public static HashCharSet openFrozenSet(File file) throws IOException {
+        return getDefaultFactory().openFrozenSet(file);
+    }
+    /* endif */
+
     private HashCharSets() {}
 }
@@ -0,0 +1,50 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.set.CharSet;
+
+import java.io.Closeable;
+
+
+/**
+ * A hash set of {@code char}s, which table is stored in native memory rather than
+ * in a Java array. The garbage collector doesn't see the table, so even very big sets
+ * don't affect collection pauses. The capacity of the set is {@code long}, it could hold
+ * more than {@code Integer.MAX_VALUE} elements.
+ *
+ * <p>The memory is released by {@link #close()}, or, if the set isn't closed explicitly,
+ * some time after the set becomes unreachable. Any operation on a closed set,
+ * except {@code close()} and size queries, throws {@code IllegalStateException}.
+ *
+ * <p>The bulk operations, like {@link #removeAll(java.util.Collection) removeAll()}, are
+ * implemented on top of the primitive operations and the {@linkplain #cursor() cursor},
+ * they don't copy the table to the heap. Like
+ * {@linkplain HashCharSetFactory#newMutableSet() mutable sets}, this set
+ * isn't thread-safe.
+ *
+ * @see HashCharSetFactory#newOffHeapSet(long)
+ */
+public interface OffHeapHashCharSet extends CharSet, Closeable {
+
+    /**
+     * Releases the native memory of this set. Repeated calls have no effect.
+     */
+    @Override
+    void close();
+}
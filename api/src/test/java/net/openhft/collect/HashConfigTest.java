@@ -55,6 +55,14 @@ public class HashConfigTest {
             }
         });
         assertEquals(conf6, conf7.withShrinkCondition(shrinkCondition));
+
+        boolean hashCodeTracked = conf7.isHashCodeTracked();
+        HashConfig conf8 = conf7.withHashCodeTracked(!hashCodeTracked);
+        assertEquals(conf7, conf8.withHashCodeTracked(hashCodeTracked));
+
+        boolean tableRecycled = conf8.isTableRecycled();
+        HashConfig conf9 = conf8.withTableRecycled(!tableRecycled);
+        assertEquals(conf8, conf9.withTableRecycled(tableRecycled));
     }
 
     @Test
@@ -63,10 +71,12 @@ public class HashConfigTest {
                 "HashConfig{" +
                         "getMinLoad=" + (1.0 / 3.0) + ", getTargetLoad=" + 0.5 + ", " +
                         "getMaxLoad=" + (2.0 / 3.0) + ", getGrowFactor=" + 2.0 + ", " +
-                        "getShrinkCondition=null, getDefaultExpectedSize=10}",
+                        "getShrinkCondition=null, getDefaultExpectedSize=10, " +
+                        "isHashCodeTracked=false, isTableRecycled=false}",
                 HashConfig.getDefault().withMinLoad(1.0 / 3.0).withTargetLoad(0.5)
                         .withMaxLoad(2.0 / 3.0).withGrowFactor(2.0).withShrinkCondition(null)
-                        .withDefaultExpectedSize(10).toString()
+                        .withDefaultExpectedSize(10).withHashCodeTracked(false)
+                        .withTableRecycled(false).toString()
         );
     }
 }
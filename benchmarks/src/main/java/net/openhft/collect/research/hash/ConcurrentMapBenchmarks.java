@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.research.hash;
+
+import net.openhft.benchmarks.DimensionedJmh;
+import net.openhft.collect.map.hash.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares lock-striped {@link ConcurrentHashIntIntMap} with a single map under one lock
+ * and {@link ConcurrentHashMap} of boxed keys and values, and increments of hot keys
+ * in {@link ConcurrentHashIntLongCounterMap} and in the lock-striped map. Run with {@code -t}
+ * JMH option to change the number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ConcurrentMapBenchmarks {
+
+    static final int SIZE = Integer.getInteger("size", 1 << 16);
+    static final int QUERIES = 1024;
+    /**
+     * Every {@code WRITE_PERIOD}-th query of the read-mostly workload is an update
+     */
+    static final int WRITE_PERIOD = 8;
+
+    @State(Scope.Benchmark)
+    public static class Maps {
+        public ConcurrentHashIntIntMap concurrentMap;
+        public HashIntIntMap synchronizedMap;
+        public ConcurrentHashMap<Integer, Integer> jdkConcurrentMap;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            concurrentMap = HashIntIntMaps.newConcurrentMap(SIZE,
+                    4 * Runtime.getRuntime().availableProcessors());
+            synchronizedMap = HashIntIntMaps.newMutableMap(SIZE);
+            jdkConcurrentMap = new ConcurrentHashMap<>(SIZE);
+            for (int key = 0; key < SIZE; key++) {
+                concurrentMap.put(key, key);
+                synchronizedMap.put(key, key);
+                jdkConcurrentMap.put(key, key);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Queries {
+        public int[] keys;
+
+        @Setup(Level.Iteration)
+        public void generate() {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            keys = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                // a half of the queries are for absent keys
+                keys[i] = r.nextInt(2 * SIZE);
+            }
+        }
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readOnlyWorkload_concurrentMap(Maps maps, Queries queries) {
+        ConcurrentHashIntIntMap map = maps.concurrentMap;
+        int x = 0;
+        for (int key : queries.keys) {
+            x ^= map.get(key);
+        }
+        return x;
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readOnlyWorkload_synchronizedMap(Maps maps, Queries queries) {
+        HashIntIntMap map = maps.synchronizedMap;
+        int x = 0;
+        for (int key : queries.keys) {
+            synchronized (map) {
+                x ^= map.get(key);
+            }
+        }
+        return x;
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readOnlyWorkload_jdkConcurrentMap(Maps maps, Queries queries) {
+        ConcurrentHashMap<Integer, Integer> map = maps.jdkConcurrentMap;
+        int x = 0;
+        for (int key : queries.keys) {
+            Integer value = map.get(key);
+            if (value != null)
+                x ^= value;
+        }
+        return x;
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readMostlyWorkload_concurrentMap(Maps maps, Queries queries) {
+        ConcurrentHashIntIntMap map = maps.concurrentMap;
+        int x = 0;
+        int[] keys = queries.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (i % WRITE_PERIOD == 0) {
+                x ^= map.incrementValue(keys[i], 1);
+            } else {
+                x ^= map.get(keys[i]);
+            }
+        }
+        return x;
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readMostlyWorkload_synchronizedMap(Maps maps, Queries queries) {
+        HashIntIntMap map = maps.synchronizedMap;
+        int x = 0;
+        int[] keys = queries.keys;
+        for (int i = 0; i < keys.length; i++) {
+            synchronized (map) {
+                if (i % WRITE_PERIOD == 0) {
+                    x ^= map.incrementValue(keys[i], 1);
+                } else {
+                    x ^= map.get(keys[i]);
+                }
+            }
+        }
+        return x;
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public int query_readMostlyWorkload_jdkConcurrentMap(Maps maps, Queries queries) {
+        ConcurrentHashMap<Integer, Integer> map = maps.jdkConcurrentMap;
+        int x = 0;
+        int[] keys = queries.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (i % WRITE_PERIOD == 0) {
+                x ^= map.merge(keys[i], 1, Integer::sum);
+            } else {
+                Integer value = map.get(keys[i]);
+                if (value != null)
+                    x ^= value;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Every thread increments the same few keys
+     */
+    static final int HOT_KEYS = 4;
+
+    @State(Scope.Benchmark)
+    public static class Counters {
+        public ConcurrentHashIntLongCounterMap counterMap;
+        public ConcurrentHashIntLongMap concurrentMap;
+
+        @Setup(Level.Trial)
+        public void create() {
+            counterMap = HashIntLongMaps.newCounterMap(HOT_KEYS);
+            concurrentMap = HashIntLongMaps.newConcurrentMap(HOT_KEYS,
+                    4 * Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public void increment_hotKeys_counterMap(Counters counters) {
+        ConcurrentHashIntLongCounterMap map = counters.counterMap;
+        for (int i = 0; i < QUERIES; i++) {
+            map.increment(i % HOT_KEYS);
+        }
+    }
+
+    @GenerateMicroBenchmark
+    @OperationsPerInvocation(QUERIES)
+    public void increment_hotKeys_concurrentMap(Counters counters) {
+        ConcurrentHashIntLongMap map = counters.concurrentMap;
+        for (int i = 0; i < QUERIES; i++) {
+            map.incrementValue(i % HOT_KEYS, 1L);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new DimensionedJmh(ConcurrentMapBenchmarks.class)
+                .addArgDim("size", 1 << 10, 1 << 16, 1 << 20)
+                .run(args);
+    }
+}
@@ -123,6 +123,12 @@ public abstract class MethodGenerator {
         if (!this.indent.equals(indent))
             throw new IllegalStateException(
                     "Indent of start and end of the generated method doesn't match");
+        if (cxt.mutable() && !permissions.isEmpty()) {
+            List<String> body = lines;
+            lines = new ArrayList<>();
+            beforeWrites();
+            lines.addAll(body);
+        }
         String body = "";
         for (String line : lines) {
             body += line + "\n";
@@ -132,6 +138,13 @@ public abstract class MethodGenerator {
 
     protected abstract void generateLines(Method method);
 
+    /**
+     * Generates lines, preceding the body of the method, which might write to the container,
+     * i. e. requires any {@link Permission}. Called only in mutable context.
+     */
+    protected void beforeWrites() {
+    }
+
 
     protected String wrapKey(String key) {
         return wrap(cxt, cxt.keyOption(), key);
@@ -36,6 +36,11 @@ public class HashBulkMethodGenerator extends BulkMethodGenerator {
     private boolean noRemoved = true;
     private BulkMethod method;
 
+    @Override
+    protected void beforeWrites() {
+        lines("ownArrays();");
+    }
+
     @Override
     public void generateLines(Method m) {
         this.method = (BulkMethod) m;
@@ -57,13 +62,23 @@ public class HashBulkMethodGenerator extends BulkMethodGenerator {
             }
         }
         lines(cxt.keyUnwrappedRawType() + "[] keys = set;");
+        // Rehash reads the old arrays only, and recycles them itself
+        boolean scan = cxt.mutable() && !(method instanceof Rehash);
+        if (scan)
+            lines("boolean outerScan = beginScan();");
         int beforeLoops = lines.size();
 
+        boolean splitLoops = cxt.mutable() && !cxt.isFloatingKey();
+        if (splitLoops) {
+            // Read before rightBeforeLoop(), because it could reset the count of removed slots,
+            // e. g. Rehash calls initForRehash() there
+            lines("boolean noRemoved = noRemoved();");
+        }
+
         method.rightBeforeLoop();
 
-        boolean splitLoops = cxt.mutable() && !cxt.isFloatingKey();
         if (splitLoops) {
-            lines("if (noRemoved()) {");
+            lines("if (noRemoved) {");
             indent();
         }
         bulkLoop();
@@ -89,6 +104,8 @@ public class HashBulkMethodGenerator extends BulkMethodGenerator {
                     "    throw new java.util.ConcurrentModificationException();"
             );
         }
+        if (scan)
+            lines("endScan(outerScan);");
 
         method.end();
 
@@ -269,6 +286,7 @@ public class HashBulkMethodGenerator extends BulkMethodGenerator {
 
     @Override
     public BulkMethodGenerator remove() {
+        lines("untrackSlotHashCode(i);");
         lines("keys[i] = " + removed(cxt) + ";");
         if (cxt.isObjectValue()) {
             lines("vals[i] = null;");
@@ -282,7 +300,9 @@ public class HashBulkMethodGenerator extends BulkMethodGenerator {
     @Override
     public BulkMethodGenerator setValue(String newValue) {
         if (!cxt.isMapView()) throw new IllegalStateException();
+        lines("untrackSlotHashCode(i);");
         lines("vals[i] = " + unwrapValue(newValue) + ";");
+        lines("trackSlotHashCode(i);");
         permissions.add(Permission.SET_VALUE);
         return this;
     }
@@ -58,7 +58,10 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
                 this.lines("this." + removed(cxt) + " = removedValue;");
             }
         }
-        lines("curKey = " + free(cxt) + ";");
+        lines(
+                "index = keys.length;",
+                "curKey = " + free(cxt) + ";"
+        );
     }
 
     @Override
@@ -83,6 +86,11 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
         endOfModCountCheck(this, cxt);
     }
 
+    @Override
+    protected void beforeWrites() {
+        ownArrays(this, cxt);
+    }
+
     @Override
     public void generateKey() {
         lines(cxt.keyUnwrappedRawType() + " curKey;");
@@ -102,9 +110,12 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
 
     @Override
     public void generateSetValue() {
+        permissions.add(Permission.SET_VALUE);
         ifBlock(isNotFree(cxt, "curKey"));
         checkModCount(this, cxt, false);
+        lines("untrackSlotHashCode(index);");
         lines("vals[index] = " + unwrapValue("value") + ";");
+        lines("trackSlotHashCode(index);");
         endOfModCountCheck(this, cxt);
         endOfIllegalStateCheck(this, cxt);
     }
@@ -137,6 +148,7 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
             lines("int index;");
         String indexAssignment = cxt.isObjectValue() ? "index = this.index" : "index";
         String keys = cxt.isObjectKey() ? "((Object[]) keys)" : "keys";
+        lines("untrackSlotHashCode(this.index);");
         lines(keys + "[" + indexAssignment + "] = " + removed(cxt) + ";");
         if (cxt.isObjectValue()) {
             lines("vals[index] = null;");
@@ -151,6 +163,7 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
     public void generateForEachForward() {
         if (cxt.mutable()) {
             lines("int mc = expectedModCount;");
+            lines("boolean outerScan = beginScan();");
         }
         copyArrays(this, cxt);
         copySpecials(this, cxt);
@@ -167,6 +180,8 @@ public class HashCursorMethodGenerator extends CursorMethodGenerator {
         ifBlock(concurrentModCond);
         concurrentMod();
         blockEnd();
+        if (cxt.mutable())
+            lines("endScan(outerScan);");
         lines("this.index = -1;");
         lines("curKey = " + free(cxt) + ";");
     }
@@ -28,9 +28,11 @@ public final class HashIterMethodGeneratorCommons {
     private HashIterMethodGeneratorCommons() {}
 
     static void commonFields(MethodGenerator g, MethodContext cxt) {
-        g.lines("final " + cxt.keyUnwrappedType() + "[] keys;");
+        // arrays of mutable hashes are reassigned, when cloned on the first write
+        String arraysModifier = cxt.mutable() ? "" : "final ";
+        g.lines(arraysModifier + cxt.keyUnwrappedType() + "[] keys;");
         if (!cxt.isKeyView()) {
-            g.lines("final " + cxt.valueUnwrappedType() + "[] vals;");
+            g.lines(arraysModifier + cxt.valueUnwrappedType() + "[] vals;");
         }
         if (cxt.isIntegralKey()) {
             g.lines("final " + cxt.keyType() + " " + free(cxt) + ";");
@@ -55,6 +57,23 @@ public final class HashIterMethodGeneratorCommons {
         }
     }
 
+    static void ownArrays(MethodGenerator g, MethodContext cxt) {
+        // arrays could be already cloned by other writes, e. g. by Map.Entry.setValue()
+        // or by put() of a present key, which don't change the mod count, so the arrays
+        // of the iterator are updated unconditionally
+        g.lines("ownArrays();");
+        if (cxt.isObjectKey()) {
+            g.lines(
+                    "// noinspection unchecked",
+                    "keys = (" + cxt.keyUnwrappedType() + "[]) set;"
+            );
+        } else {
+            g.lines("keys = set;");
+        }
+        if (!cxt.isKeyView())
+            g.lines("vals = values;");
+    }
+
     static void checkModCount(MethodGenerator g, MethodContext cxt, boolean copyModCount) {
         if (cxt.mutable()) {
             String mc;
@@ -75,6 +75,11 @@ public class HashIteratorMethodGenerator extends IteratorMethodGenerator {
         loop();
     }
 
+    @Override
+    protected void beforeWrites() {
+        ownArrays(this, cxt);
+    }
+
     @Override
     public void generateHasNext() {
         ret("nextIndex >= 0");
@@ -105,6 +110,7 @@ public class HashIteratorMethodGenerator extends IteratorMethodGenerator {
         ifBlock("(i = index) >= 0");
         ifBlock("expectedModCount++ == " + modCount());
         String keys = cxt.isObjectKey() ? "((Object[]) keys)" : "keys";
+        lines("untrackSlotHashCode(i);");
         lines(keys + "[i] = " + removed(cxt) + ";");
         if (cxt.isObjectValue()) {
             lines("vals[i] = null;");
@@ -119,6 +125,7 @@ public class HashIteratorMethodGenerator extends IteratorMethodGenerator {
     public void generateForEachRemaining() {
         if (cxt.mutable()) {
             lines("int mc = expectedModCount;");
+            lines("boolean outerScan = beginScan();");
         }
         copyArrays(this, cxt);
         copySpecials(this, cxt);
@@ -135,6 +142,8 @@ public class HashIteratorMethodGenerator extends IteratorMethodGenerator {
         ifBlock(concurrentModCond);
         concurrentMod();
         blockEnd();
+        if (cxt.mutable())
+            lines("endScan(outerScan);");
         lines((cxt.mutable() ? "index = " : "") + "nextIndex = -1;");
     }
 
@@ -75,6 +75,7 @@ public class HashMapQueryUpdateMethodGenerator extends MapQueryUpdateMethodGener
             lines("keys[" + index() + "] = " + unwrappedKey() + ";");
             if (cxt.isMapView())
                 lines(values() + "[" + index() + "] = " + unwrapValue(value) + ";");
+            lines("trackSlotHashCode(" + index() + ");");
             if (removedSlot) {
                 lines("postRemovedSlotInsertHook();");
             } else {
@@ -85,6 +86,11 @@ public class HashMapQueryUpdateMethodGenerator extends MapQueryUpdateMethodGener
         }
     }
 
+    @Override
+    protected void beforeWrites() {
+        lines("ownArrays();");
+    }
+
     @Override
     protected void generateLines(Method m) {
         method = (MapQueryUpdateMethod) m;
@@ -390,6 +396,7 @@ public class HashMapQueryUpdateMethodGenerator extends MapQueryUpdateMethodGener
         } else {
             keys = "set";
         }
+        lines("untrackSlotHashCode(index);");
         lines(keys + "[index] = " + removedValue() + ";");
         if (cxt.isObjectValue()) {
             lines(values() + "[index] = null;");
@@ -401,7 +408,9 @@ public class HashMapQueryUpdateMethodGenerator extends MapQueryUpdateMethodGener
 
     @Override
     public MethodGenerator setValue(String newValue) {
+        lines("untrackSlotHashCode(index);");
         lines(values() + "[index] = " + unwrapValue(newValue) + ";");
+        lines("trackSlotHashCode(index);");
         permissions.add(SET_VALUE);
         return this;
     }
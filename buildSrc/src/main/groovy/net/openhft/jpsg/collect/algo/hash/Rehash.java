@@ -38,6 +38,8 @@ public class Rehash extends BulkMethod {
     public void loopBody() {
         String key = gen.unwrappedKey();
         gen.lines("int hash, index;");
+        if (cxt.isObjectKey())
+            gen.ifBlock(key + " != null");
         gen.ifBlock(isNotFree(cxt, firstKey(cxt, "newKeys", key, true)));
         gen.lines(step());
         gen.lines("do").block();
@@ -45,8 +47,22 @@ public class Rehash extends BulkMethod {
         gen.unIndent();
         gen.lines("} while (" + isNotFree(cxt, "newKeys[index]") + ");");
         gen.blockEnd();
+        if (cxt.isObjectKey()) {
+            // the null key is probed linearly from the first slot, like in insertNullKey()
+            gen.elseBlock();
+            gen.lines("index = 0;");
+            gen.lines("while (" + isNotFree(cxt, "newKeys[index]") + ") index++;");
+            gen.blockEnd();
+        }
         gen.lines("newKeys[index] = " + key + ";");
         if (cxt.isMapView())
             gen.lines("newVals[index] = " + gen.unwrappedValue() + ";");
     }
+
+    @Override
+    public void end() {
+        gen.lines("recycle(keys);");
+        if (cxt.isMapView())
+            gen.lines("recycle(vals);");
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * {@code DataInput} over a {@code ByteBuffer}, which is read from its position. Arrays
+ * are read from the buffer in bulk, see {@link CharArrayIO#read(DataInput, char[])}.
+ */
+public final class ByteBufferInput implements DataInput {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Checks that {@code bytes} remain in the buffer, and returns the buffer.
+     */
+    public ByteBuffer buffer(long bytes) throws EOFException {
+        if ((long) buffer.remaining() < bytes)
+            throw new EOFException();
+        return buffer;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        buffer(b.length).get(b);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        buffer(len).get(b, off, len);
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return buffer(1).get() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return buffer(1).get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return buffer(1).get() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return buffer(2).getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return buffer(2).getShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return buffer(2).getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return buffer(4).getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return buffer(8).getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return buffer(4).getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return buffer(8).getDouble();
+    }
+
+    /**
+     * Reads a line of bytes, like {@code DataInputStream.readLine()}: each byte is converted
+     * to a char, the line is terminated by {@code '\n'}, {@code '\r'} or {@code "\r\n"}.
+     *
+     * @return the line without the terminator, or {@code null} if no bytes remain
+     */
+    @Override
+    public String readLine() {
+        if (!buffer.hasRemaining())
+            return null;
+        StringBuilder line = new StringBuilder();
+        while (buffer.hasRemaining()) {
+            int b = buffer.get() & 0xFF;
+            if (b == '\n')
+                break;
+            if (b == '\r') {
+                if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n')
+                    buffer.get();
+                break;
+            }
+            line.append((char) b);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+}
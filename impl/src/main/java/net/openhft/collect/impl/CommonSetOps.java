@@ -17,6 +17,10 @@
 
 package net.openhft.collect.impl;
 
+import net.openhft.collect.NullableObjects;
+import net.openhft.collect.ObjCollection;
+import net.openhft.collect.ObjCursor;
+import net.openhft.collect.set.ObjSet;
 import javax.annotation.Nonnull;
 
 import java.util.Set;
@@ -42,5 +46,41 @@ public final class CommonSetOps {
     }
 
 
+    public static int intersectionSize(@Nonnull ObjSet<?> set, @Nonnull ObjSet<?> another) {
+        if (set == another)
+            return set.size();
+        ObjSet<?> iterated = set, probed = another;
+        if (another.size() < set.size() &&
+                NullableObjects.equals(set.equivalence(), another.equivalence())) {
+            iterated = another;
+            probed = set;
+        }
+        int count = 0;
+        for (ObjCursor<?> cur = iterated.cursor(); cur.moveNext();) {
+            if (probed.contains(cur.elem()))
+                count++;
+        }
+        return count;
+    }
+
+    public static double jaccard(@Nonnull ObjSet<?> set, @Nonnull ObjSet<?> another) {
+        int intersectionSize = intersectionSize(set, another);
+        int unionSize = set.size() + another.size() - intersectionSize;
+        return unionSize != 0 ? ((double) intersectionSize) / unionSize : 1.0;
+    }
+
+    /**
+     * Adds elements of the {@code set}, which are (if {@code inAnother} is {@code true})
+     * or are not contained in {@code another} set, to the {@code result} collection.
+     */
+    public static <E> void addFiltered(@Nonnull ObjSet<E> set, @Nonnull ObjSet<?> another,
+            boolean inAnother, @Nonnull ObjCollection<? super E> result) {
+        for (ObjCursor<E> cur = set.cursor(); cur.moveNext();) {
+            E e = cur.elem();
+            if (another.contains(e) == inAnother)
+                result.add(e);
+        }
+    }
+
     private CommonSetOps() {}
 }
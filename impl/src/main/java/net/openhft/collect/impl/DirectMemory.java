@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static net.openhft.collect.impl.UnsafeConstants.U;
+
+
+/**
+ * Access to the memory of direct buffers and release of native memory, which work on all Java
+ * versions from 6 on: {@code sun.nio.ch.DirectBuffer} and {@code sun.misc.Cleaner} aren't
+ * exported, or don't exist, since Java 9. The address of a buffer is read from the field
+ * of {@link Buffer}, mapped buffers are released by {@code Unsafe.invokeCleaner()} since
+ * Java 9, and by the cleaner of the buffer before.
+ */
+public final class DirectMemory {
+
+    private static final long BUFFER_ADDRESS_OFFSET;
+    /**
+     * Offsets of {@code ByteBuffer.hb} and {@code ByteBuffer.offset} fields of heap buffers,
+     * {@code -1} if the JVM hasn't them
+     */
+    private static final long BUFFER_ARRAY_OFFSET, BUFFER_ARRAY_OFFSET_OFFSET;
+    /** {@code Unsafe.invokeCleaner(ByteBuffer)}, {@code null} before Java 9 */
+    private static final Method INVOKE_CLEANER;
+    static {
+        try {
+            BUFFER_ADDRESS_OFFSET =
+                    U.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+        long arrayOffset, arrayOffsetOffset;
+        try {
+            arrayOffset = U.objectFieldOffset(ByteBuffer.class.getDeclaredField("hb"));
+            arrayOffsetOffset = U.objectFieldOffset(ByteBuffer.class.getDeclaredField("offset"));
+        } catch (NoSuchFieldException e) {
+            arrayOffset = arrayOffsetOffset = -1L;
+        }
+        BUFFER_ARRAY_OFFSET = arrayOffset;
+        BUFFER_ARRAY_OFFSET_OFFSET = arrayOffsetOffset;
+        Method invokeCleaner;
+        try {
+            invokeCleaner = U.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (NoSuchMethodException e) {
+            invokeCleaner = null;
+        }
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /** The number of fence slots, a power of 2, the slots are picked by thread ids */
+    private static final int FENCE_STRIPES = 64;
+    /** Fence slots are 16 references apart, to not share cache lines */
+    private static final int FENCE_SPREAD_SHIFT = 4;
+    private static final Object[] FENCES = new Object[FENCE_STRIPES << FENCE_SPREAD_SHIFT];
+    private static final long FENCES_BASE = (long) U.arrayBaseOffset(Object[].class);
+    private static final int FENCES_SCALE_SHIFT =
+            31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(Object[].class));
+
+    /**
+     * Returns the address of the first byte of the direct buffer, regardless of its position.
+     */
+    public static long address(ByteBuffer buffer) {
+        if (!buffer.isDirect())
+            throw new IllegalArgumentException("The buffer is not direct");
+        return U.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+
+    /**
+     * Returns the array of the heap buffer, also of a read-only one, which doesn't expose it
+     * by {@link ByteBuffer#array()}, or {@code null}, if the buffer is direct, or the array
+     * isn't accessible on the running JVM. The array mustn't be modified.
+     *
+     * @see #arrayOffset(ByteBuffer)
+     */
+    public static byte[] array(ByteBuffer buffer) {
+        if (buffer.isDirect() || BUFFER_ARRAY_OFFSET < 0L)
+            return null;
+        return (byte[]) U.getObject(buffer, BUFFER_ARRAY_OFFSET);
+    }
+
+    /**
+     * Returns the offset of the first byte of the heap buffer in its {@linkplain
+     * #array(ByteBuffer) array}, regardless of its position.
+     */
+    public static int arrayOffset(ByteBuffer buffer) {
+        return U.getInt(buffer, BUFFER_ARRAY_OFFSET_OFFSET);
+    }
+
+    /**
+     * Unmaps or frees the memory of the direct buffer right away, rather than when the buffer
+     * is collected. Neither the buffer nor addresses within it may be accessed after
+     * this call. If the running JVM doesn't allow to release the memory explicitly,
+     * it is released when the buffer is collected.
+     *
+     * @param buffer a buffer, returned from {@code FileChannel.map()} or
+     *        {@code ByteBuffer.allocateDirect()}, not a slice or a duplicate
+     */
+    public static void release(ByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(U, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // left to the collector
+        }
+    }
+
+    /**
+     * Keeps the referent reachable at least until this call, like
+     * {@code Reference.reachabilityFence()} of Java 9. Should be called after the last access
+     * to the memory of a buffer, which might be collected and unmapped meanwhile otherwise,
+     * if it is referenced only from a field. Threads store to different slots, so concurrent
+     * readers of the same buffer don't contend.
+     *
+     * @see Cleaner#keepReachable(Object)
+     */
+    public static void keepReachable(Object referent) {
+        long offset = FENCES_BASE + (((long) (((int) Thread.currentThread().getId()) &
+                (FENCE_STRIPES - 1))) << (FENCE_SPREAD_SHIFT + FENCES_SCALE_SHIFT));
+        U.putOrderedObject(FENCES, offset, referent);
+        U.putOrderedObject(FENCES, offset, null);
+    }
+
+
+    /**
+     * Runs the action, when the referent becomes phantom reachable, unless the action is
+     * already run by {@link #clean()}. Replaces {@code sun.misc.Cleaner}. The actions
+     * are run by a single daemon thread, they mustn't reference the referents
+     * and should be quick.
+     *
+     * <p>A method of the referent, which accesses the memory, released by the action, should
+     * call {@link #keepReachable(Object) keepReachable(this)} after the last access,
+     * otherwise the referent could be collected, and the memory released, while
+     * the method is still running.
+     */
+    public static final class Cleaner extends PhantomReference<Object> {
+
+        private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+        /** Keeps the cleaners reachable until they are run */
+        private static final Set<Cleaner> PENDING =
+                Collections.synchronizedSet(new HashSet<Cleaner>());
+        private static final long FENCE_OFFSET;
+        static {
+            try {
+                FENCE_OFFSET = U.objectFieldOffset(Cleaner.class.getDeclaredField("fence"));
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+            Thread thread = new Thread("net.openhft.collect cleaner") {
+                @Override
+                public void run() {
+                    while (true) {
+                        try {
+                            ((Cleaner) QUEUE.remove()).clean();
+                        } catch (InterruptedException e) {
+                            // continue
+                        } catch (Throwable t) {
+                            // an action mustn't stop the thread
+                        }
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public static Cleaner create(Object referent, Runnable action) {
+            Cleaner cleaner = new Cleaner(referent, action);
+            PENDING.add(cleaner);
+            return cleaner;
+        }
+
+        private final Runnable action;
+        @SuppressWarnings("unused")
+        private Object fence;
+
+        private Cleaner(Object referent, Runnable action) {
+            super(referent, QUEUE);
+            this.action = action;
+        }
+
+        /**
+         * Runs the action, if it isn't run yet.
+         */
+        public void clean() {
+            if (PENDING.remove(this))
+                action.run();
+        }
+
+        /**
+         * Keeps the referent reachable at least until this call, like
+         * {@code Reference.reachabilityFence()} of Java 9. The ordered stores
+         * of the reference to a field, which is strongly reachable itself, can be neither
+         * eliminated, nor moved before the preceding memory accesses.
+         */
+        public void keepReachable(Object referent) {
+            U.putOrderedObject(this, FENCE_OFFSET, referent);
+            U.putOrderedObject(this, FENCE_OFFSET, null);
+        }
+    }
+
+    private DirectMemory() {}
+}
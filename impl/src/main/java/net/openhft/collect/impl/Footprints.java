@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import javax.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.openhft.collect.impl.UnsafeConstants.INT_BASE;
+import static net.openhft.collect.impl.UnsafeConstants.U;
+
+
+/**
+ * Estimates of memory, occupied by objects and arrays in the heap, for
+ * {@link net.openhft.collect.HashContainer#bytesUsed()}. Sizes are computed from the field
+ * offsets and array layouts, reported by the running JVM, and rounded up to the 8-byte
+ * object alignment.
+ */
+public final class Footprints {
+
+    /** The array length field follows the object header. */
+    private static final long OBJECT_HEADER_SIZE = INT_BASE - 4L;
+    private static final long OBJECT_ALIGNMENT = 8L;
+
+    private static final class Layout {
+        final long size;
+        final long[] referenceOffsets;
+
+        Layout(long size, long[] referenceOffsets) {
+            this.size = size;
+            this.referenceOffsets = referenceOffsets;
+        }
+    }
+
+    private static final ConcurrentHashMap<Class<?>, Layout> LAYOUTS =
+            new ConcurrentHashMap<Class<?>, Layout>();
+
+    private static Layout layout(Class<?> c) {
+        Layout layout = LAYOUTS.get(c);
+        if (layout == null) {
+            try {
+                layout = reportedLayout(c);
+            } catch (UnsupportedOperationException e) {
+                // Field offsets of hidden classes (e. g. lambdas) are not reported
+                // since Java 15, of records since Java 16
+                layout = estimatedLayout(c);
+            }
+            LAYOUTS.putIfAbsent(c, layout);
+        }
+        return layout;
+    }
+
+    private static Layout reportedLayout(Class<?> c) {
+        long end = OBJECT_HEADER_SIZE;
+        long[] referenceOffsets = new long[4];
+        int references = 0;
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()))
+                    continue;
+                long offset = U.objectFieldOffset(f);
+                Class<?> type = f.getType();
+                end = Math.max(end, offset + fieldSize(type));
+                if (!type.isPrimitive()) {
+                    if (references == referenceOffsets.length) {
+                        referenceOffsets = Arrays.copyOf(referenceOffsets, references * 2);
+                    }
+                    referenceOffsets[references++] = offset;
+                }
+            }
+        }
+        return new Layout(align(end), Arrays.copyOf(referenceOffsets, references));
+    }
+
+    /**
+     * Returns a shallow estimate, if field offsets aren't reported: fields are assumed
+     * to be packed one after another, the objects they reference are not followed.
+     */
+    private static Layout estimatedLayout(Class<?> c) {
+        long end = OBJECT_HEADER_SIZE;
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers()))
+                    end += fieldSize(f.getType());
+            }
+        }
+        return new Layout(align(end), new long[0]);
+    }
+
+    private static long fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8L;
+        if (type == int.class || type == float.class) return 4L;
+        if (type == char.class || type == short.class) return 2L;
+        if (type == byte.class || type == boolean.class) return 1L;
+        return (long) U.arrayIndexScale(Object[].class);
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1L) & -OBJECT_ALIGNMENT;
+    }
+
+    /**
+     * Returns the size of an array of the given class and length.
+     */
+    public static long arrayBytes(Class<?> arrayClass, long length) {
+        return align((long) U.arrayBaseOffset(arrayClass) +
+                length * (long) U.arrayIndexScale(arrayClass));
+    }
+
+    /**
+     * Returns the size of the given array, not including the objects it references,
+     * or 0, if the array is {@code null}.
+     */
+    public static long arrayBytes(@Nullable Object array) {
+        return array != null ? arrayBytes(array.getClass(), (long) Array.getLength(array)) : 0L;
+    }
+
+    /**
+     * Returns the size of the given object itself, not including the objects
+     * it references.
+     */
+    public static long shallowBytes(Object o) {
+        Class<?> c = o.getClass();
+        return c.isArray() ? arrayBytes(o) : layout(c).size;
+    }
+
+    /**
+     * Returns a set to pass to {@link #deepBytes(Object, Set)}, to count objects, shared
+     * by several graphs, only once.
+     */
+    public static Set<Object> newVisitedSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    }
+
+    /**
+     * Returns the total size of the given object and the objects, reachable from it, which
+     * are not in the given set yet, and adds them to the set. {@code Class} objects are
+     * shared metadata, they aren't counted nor followed.
+     *
+     * @param root the object to start the traversal from, could be {@code null}
+     * @param visited the objects, which are already counted
+     * @return the size of the newly visited objects
+     */
+    public static long deepBytes(@Nullable Object root, Set<Object> visited) {
+        if (root == null || root instanceof Class || !visited.add(root))
+            return 0L;
+        long bytes = 0L;
+        ArrayList<Object> stack = new ArrayList<Object>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Object o = stack.remove(stack.size() - 1);
+            Class<?> c = o.getClass();
+            if (c.isArray()) {
+                bytes += arrayBytes(o);
+                if (!c.getComponentType().isPrimitive()) {
+                    for (Object e : (Object[]) o) {
+                        push(e, visited, stack);
+                    }
+                }
+            } else {
+                Layout layout = layout(c);
+                bytes += layout.size;
+                for (long offset : layout.referenceOffsets) {
+                    push(U.getObject(o, offset), visited, stack);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static void push(@Nullable Object o, Set<Object> visited, ArrayList<Object> stack) {
+        if (o != null && !(o instanceof Class) && visited.add(o))
+            stack.add(o);
+    }
+
+    private Footprints() {}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+/**
+ * A {@code long} counter, updated by CAS on a single field, until the first failed CAS.
+ * Then the counter is split into stripes, each one on its own cache line, and threads
+ * add to the stripes, selected by thread ids. Backport of the idea
+ * of {@code java.util.concurrent.atomic.LongAdder}, which isn't available in Java 7.
+ */
+public final class StripedCounter implements UnsafeConstants {
+
+    private static final int STRIPES;
+    /**
+     * Each stripe is padded to 8 longs, i. e. 64 bytes
+     */
+    private static final int PAD_SHIFT = 3;
+    private static final long BASE_OFFSET;
+    private static final long STRIPES_OFFSET;
+    static {
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+        try {
+            BASE_OFFSET = U.objectFieldOffset(StripedCounter.class.getDeclaredField("base"));
+            STRIPES_OFFSET =
+                    U.objectFieldOffset(StripedCounter.class.getDeclaredField("stripes"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long stripeOffset(int stripe) {
+        // the first and the last 64 bytes of the array are padding
+        long index = ((long) ((stripe & (STRIPES - 1)) + 1)) << PAD_SHIFT;
+        return LONG_BASE + (index << LONG_SCALE_SHIFT);
+    }
+
+    private static int threadHash() {
+        long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+
+
+    private volatile long base;
+    private volatile long[] stripes;
+
+    public void add(long delta) {
+        long[] stripes;
+        if ((stripes = this.stripes) == null) {
+            long b = base;
+            if (U.compareAndSwapLong(this, BASE_OFFSET, b, b + delta))
+                return;
+            stripes = inflate();
+        }
+        for (int stripe = threadHash(); ; stripe++) {
+            long offset = stripeOffset(stripe);
+            long v = U.getLongVolatile(stripes, offset);
+            // on contention, try the next stripe
+            if (U.compareAndSwapLong(stripes, offset, v, v + delta))
+                return;
+        }
+    }
+
+    private long[] inflate() {
+        long[] stripes = new long[(STRIPES + 2) << PAD_SHIFT];
+        if (U.compareAndSwapObject(this, STRIPES_OFFSET, null, stripes))
+            return stripes;
+        return this.stripes;
+    }
+
+    /**
+     * Returns the current sum. Additions, concurrent with the call, might be counted or not.
+     */
+    public long sum() {
+        long sum = base;
+        long[] stripes;
+        if ((stripes = this.stripes) != null) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += U.getLongVolatile(stripes, stripeOffset(stripe));
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero and returns the sum, which is reset. Each concurrent
+     * addition is either included in the returned sum, or left in the counter.
+     */
+    public long sumThenReset() {
+        long sum = getAndClear(this, BASE_OFFSET);
+        long[] stripes;
+        if ((stripes = this.stripes) != null) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += getAndClear(stripes, stripeOffset(stripe));
+            }
+        }
+        return sum;
+    }
+
+    private static long getAndClear(Object o, long offset) {
+        // no getAndSetLong() in Java 7 Unsafe
+        long v;
+        do {
+            v = U.getLongVolatile(o, offset);
+        } while (v != 0L && !U.compareAndSwapLong(o, offset, v, 0L));
+        return v;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.Footprints;
+import javax.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The pool of arrays, released by rehashed hash tables, see
+ * {@link net.openhft.collect.HashConfig#isTableRecycled()}.
+ *
+ * <p>Capacities of hash tables are taken from the fixed sequence of primes, see
+ * {@link DHashCapacities}, so the arrays are matched by the exact class and length.
+ * The pool is split into stripes, each guarded by its own lock, the stripe is chosen by
+ * the class and the length of the array. Taking and releasing arrays don't allocate.
+ */
+final class ArrayPool {
+
+    /** Shorter arrays are cheap to allocate and collect, they aren't pooled. */
+    static final int MIN_POOLED_LENGTH = 256;
+
+    private static final int STRIPE_BITS = 6;
+    private static final int ARRAYS_PER_STRIPE = 4;
+    private static final long MAX_POOLED_BYTES = Runtime.getRuntime().maxMemory() / 16L;
+
+    private static final Object[][] STRIPES = new Object[1 << STRIPE_BITS][];
+    static {
+        for (int i = 0; i < STRIPES.length; i++) {
+            STRIPES[i] = new Object[ARRAYS_PER_STRIPE];
+        }
+    }
+
+    private static final AtomicLong pooledBytes = new AtomicLong();
+
+    private static Object[] stripe(Class<?> arrayClass, int length) {
+        int h = (arrayClass.hashCode() * 31 + length) * 0x9E3779B9;
+        return STRIPES[h >>> (32 - STRIPE_BITS)];
+    }
+
+    /**
+     * Returns an array of the given class and length from the pool, or {@code null},
+     * if there is no such array. Contents of the returned array are undefined,
+     * except that arrays of references are filled with {@code null}s.
+     */
+    @Nullable
+    static <A> A take(Class<A> arrayClass, int length) {
+        if (length < MIN_POOLED_LENGTH)
+            return null;
+        Object[] stripe = stripe(arrayClass, length);
+        synchronized (stripe) {
+            for (int i = 0; i < stripe.length; i++) {
+                Object array = stripe[i];
+                if (array != null && array.getClass() == arrayClass &&
+                        Array.getLength(array) == length) {
+                    stripe[i] = null;
+                    pooledBytes.addAndGet(-Footprints.arrayBytes(arrayClass, (long) length));
+                    return arrayClass.cast(array);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts the given array to the pool, if it is large enough and the pool isn't full.
+     * The array shouldn't be accessed after this call.
+     */
+    static void release(Object array) {
+        int length = Array.getLength(array);
+        if (length < MIN_POOLED_LENGTH)
+            return;
+        Class<?> arrayClass = array.getClass();
+        long bytes = Footprints.arrayBytes(arrayClass, (long) length);
+        if (pooledBytes.addAndGet(bytes) > MAX_POOLED_BYTES) {
+            pooledBytes.addAndGet(-bytes);
+            return;
+        }
+        // don't retain garbage
+        if (array instanceof Object[])
+            Arrays.fill((Object[]) array, null);
+        Object[] stripe = stripe(arrayClass, length);
+        synchronized (stripe) {
+            for (int i = 0; i < stripe.length; i++) {
+                if (stripe[i] == null) {
+                    stripe[i] = array;
+                    return;
+                }
+            }
+        }
+        // the stripe is full, leave the array to the garbage collector
+        pooledBytes.addAndGet(-bytes);
+    }
+
+    private ArrayPool() {}
+}
@@ -103,6 +103,18 @@ public final class DHashCapacities {
         }
     }
 
+    /**
+     * Checks that tables of the given capacity could be created by this class, i. e. it is
+     * one of the capacities, {@link #capacity} and {@link #nearestGreaterCapacity} return.
+     * Double hashing over a table of any other capacity might not visit all slots.
+     */
+    public static boolean isCapacity(int capacity) {
+        return Arrays.binarySearch(SMALL_CAPACITY_LOOKUP_TABLE, capacity) >= 0 ||
+                Arrays.binarySearch(REGULAR_CAPACITIES, capacity) >= 0 ||
+                capacity == MAX_HIGH_TWIN_PRIME_CAPACITY || capacity == MAX_CAPACITY ||
+                capacity == Integer.MAX_VALUE;
+    }
+
     private static final int MAX_HIGH_TWIN_PRIME_CAPACITY = 2147482951;
 
     public static final int MAX_CAPACITY = 2147483629;
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.ByteBufferInput;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+
+
+/**
+ * Common parts of the compact binary format of {@link DHash} containers, written by
+ * {@code writeTo(DataOutput)} methods of the containers. The format is the same
+ * for {@code DataInput} and {@code ByteBuffer} sources, numbers are big-endian:
+ * <pre>
+ * format version, container kind, key type and value type (0 for sets), 1 byte each
+ * hash config: min, target and max loads, grow factor, default expected size,
+ *     hash code tracking
+ * [default value of the map]
+ * [free key, whether removed slots are supported and removed key, for integral keys]
+ * capacity, size, removed slots, 4 bytes each
+ * keys, [values], raw arrays of the capacity length, of bits of floating point numbers
+ * </pre>
+ *
+ * <p>The shrink condition and the table recycling policy of the hash config aren't written.
+ */
+final class DHashFormat {
+
+    static final byte FORMAT_VERSION = 1;
+    static final byte MUTABLE_SET = 's', IMMUTABLE_SET = 'S';
+    static final byte MUTABLE_MAP = 'm', IMMUTABLE_MAP = 'M';
+
+    static void writeHeader(DataOutput out, byte kind, byte keyType, byte valueType)
+            throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(kind);
+        out.writeByte(keyType);
+        out.writeByte(valueType);
+    }
+
+    /**
+     * @return {@code true} if the written container is mutable
+     */
+    static boolean readHeader(DataInput in, boolean map, byte keyType, byte valueType)
+            throws IOException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION)
+            throw new InvalidObjectException("Unsupported format version " + version);
+        byte kind = in.readByte();
+        if (map ? kind != MUTABLE_MAP && kind != IMMUTABLE_MAP :
+                kind != MUTABLE_SET && kind != IMMUTABLE_SET) {
+            throw new InvalidObjectException("Not a " + (map ? "map" : "set"));
+        }
+        if (in.readByte() != keyType || in.readByte() != valueType)
+            throw new InvalidObjectException("Other key or value type");
+        return kind == MUTABLE_MAP || kind == MUTABLE_SET;
+    }
+
+    static void writeConfig(DataOutput out, HashConfig config) throws IOException {
+        out.writeDouble(config.getMinLoad());
+        out.writeDouble(config.getTargetLoad());
+        out.writeDouble(config.getMaxLoad());
+        out.writeDouble(config.getGrowFactor());
+        out.writeInt(config.getDefaultExpectedSize());
+        out.writeBoolean(config.isHashCodeTracked());
+    }
+
+    static HashConfig readConfig(DataInput in) throws IOException {
+        double minLoad = in.readDouble();
+        double targetLoad = in.readDouble();
+        double maxLoad = in.readDouble();
+        double growFactor = in.readDouble();
+        int defaultExpectedSize = in.readInt();
+        boolean hashCodeTracked = in.readBoolean();
+        try {
+            // the order keeps the intermediate configs valid
+            return HashConfig.getDefault()
+                    .withMinLoad(0.0)
+                    .withMaxLoad(1.0)
+                    .withTargetLoad(targetLoad)
+                    .withGrowFactor(growFactor)
+                    .withMaxLoad(maxLoad)
+                    .withMinLoad(minLoad)
+                    .withDefaultExpectedSize(defaultExpectedSize)
+                    .withHashCodeTracked(hashCodeTracked);
+        } catch (IllegalArgumentException e) {
+            InvalidObjectException ex = new InvalidObjectException("Invalid hash config");
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    static void checkTable(int capacity, int size, int removedSlots, boolean mutable)
+            throws IOException {
+        // checked before the table of the given capacity is allocated
+        if (!DHashCapacities.isCapacity(capacity) || size < 0 || removedSlots < 0 ||
+                // at least one free slot in the table
+                size > capacity - 1 - removedSlots ||
+                (!mutable && removedSlots != 0)) {
+            throw new InvalidObjectException("Inconsistent table");
+        }
+    }
+
+    /**
+     * Checks that the given number of bytes remain in the input, before the arrays
+     * of the capacity, read from the input, are allocated. Only buffers know how many bytes
+     * remain, truncated streams fail with {@code EOFException} later, when the arrays are read.
+     */
+    static void checkRemaining(DataInput in, long bytes) throws IOException {
+        if (in instanceof ByteBufferInput)
+            ((ByteBufferInput) in).buffer(bytes);
+    }
+
+    private DHashFormat() {}
+}
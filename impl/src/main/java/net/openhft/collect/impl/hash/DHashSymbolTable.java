@@ -0,0 +1,618 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashOverflowException;
+import net.openhft.collect.impl.DirectMemory;
+import net.openhft.collect.impl.UnsafeConstants;
+import net.openhft.collect.map.hash.SymbolTable;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * The bytes of the symbols are appended to the arena in the order of ids, so the symbol
+ * with id {@code i} spans from {@code offset(i)} to {@code offset(i + 1)}. The hash table
+ * holds {@code id + 1} in each full slot and {@code 0} in free slots, probing is the same
+ * as in {@link MutableDHash} tables. Symbols are never removed, so there are no removed
+ * slots, and the table is rehashed by the cached hashes, without reading the arena.
+ *
+ * <p>The arena is read and written by {@code Unsafe} with the same code for both kinds
+ * of tables: the base object is the {@code byte[]} arena for on-heap tables and
+ * {@code null} for off-heap ones.
+ *
+ * <p>Methods, which access the off-heap arena, call {@link #reachabilityFence()} after
+ * the last access, so that the cleaner doesn't free the arena while they run.
+ *
+ * <p>The key of a lookup is passed through the probing methods either as
+ * a {@code CharSequence}, or as the base, the address and the length of its bytes,
+ * so concurrent read-only lookups don't share any state.
+ */
+public final class DHashSymbolTable implements SymbolTable, UnsafeConstants {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long MIN_ARENA_CAPACITY = 64L;
+    private static final long MAX_HEAP_ARENA_CAPACITY = Integer.MAX_VALUE - 8L;
+
+    /**
+     * Holds the address of the off-heap arena, the action of the cleaner.
+     * Mustn't reference the table.
+     */
+    static final class Memory implements Runnable {
+        long address;
+
+        @Override
+        public void run() {
+            if (address != 0L) {
+                U.freeMemory(address);
+                address = 0L;
+            }
+        }
+    }
+
+    private final HashConfigWrapper configWrapper;
+    @Nullable private final Memory memory;
+    @Nullable private final DirectMemory.Cleaner cleaner;
+
+    /** {@code id + 1} of the symbols, {@code null} after {@link #close()} */
+    private int[] slots;
+    private int maxSize;
+    private int size;
+    /** Hashes of the symbols, by id */
+    private int[] hashes;
+    /** Offsets of the symbols in the arena, by id, on-heap tables use {@code int}s */
+    private int[] intOffsets;
+    private long[] longOffsets;
+
+    @Nullable private byte[] heapArena;
+    /** The arena base address, relative to the {@link #heapArena} */
+    private long arenaAddress;
+    private long arenaCapacity;
+    private long arenaSize;
+
+    DHashSymbolTable(HashConfigWrapper configWrapper, int expectedSize, boolean offHeap) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size should be non-negative");
+        this.configWrapper = configWrapper;
+        int capacity = DHashCapacities.capacity(configWrapper, expectedSize);
+        slots = new int[capacity];
+        maxSize = Math.min(configWrapper.maxSize(capacity), capacity - 1);
+        hashes = new int[expectedSize + 1];
+        long arenaCapacity = Math.max(((long) expectedSize) * 16L, MIN_ARENA_CAPACITY);
+        if (offHeap) {
+            longOffsets = new long[expectedSize + 1];
+            memory = new Memory();
+            memory.address = arenaAddress = U.allocateMemory(arenaCapacity);
+            cleaner = DirectMemory.Cleaner.create(this, memory);
+        } else {
+            intOffsets = new int[expectedSize + 1];
+            heapArena = new byte[(int) arenaCapacity];
+            arenaAddress = BYTE_BASE;
+            memory = null;
+            cleaner = null;
+        }
+        this.arenaCapacity = arenaCapacity;
+    }
+
+
+    ////////////////////////////
+    // UTF-8 encoding and hashing
+
+    private static final int FNV_BASIS = 0x811C9DC5, FNV_PRIME = 0x01000193;
+
+    private static int hashStep(int hash, int b) {
+        return (hash ^ b) * FNV_PRIME;
+    }
+
+    private static int finishHash(int hash) {
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA6B;
+        return (hash ^ (hash >>> 13)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the code point at the given index, or {@code '?'} for an unpaired surrogate.
+     */
+    private static int codePointAt(CharSequence s, int i, int length) {
+        char c = s.charAt(i);
+        if (!Character.isSurrogate(c))
+            return c;
+        if (Character.isHighSurrogate(c) && i + 1 < length) {
+            char low = s.charAt(i + 1);
+            if (Character.isLowSurrogate(low))
+                return Character.toCodePoint(c, low);
+        }
+        return '?';
+    }
+
+    private static int utf8Length(int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the code point, packed in an {@code int},
+     * the first byte in the lowest bits.
+     */
+    private static int utf8Bytes(int codePoint) {
+        if (codePoint < 0x80)
+            return codePoint;
+        if (codePoint < 0x800)
+            return (0xC0 | codePoint >>> 6) | (0x80 | codePoint & 0x3F) << 8;
+        if (codePoint < 0x10000) {
+            return (0xE0 | codePoint >>> 12) | (0x80 | codePoint >>> 6 & 0x3F) << 8 |
+                    (0x80 | codePoint & 0x3F) << 16;
+        }
+        return (0xF0 | codePoint >>> 18) | (0x80 | codePoint >>> 12 & 0x3F) << 8 |
+                (0x80 | codePoint >>> 6 & 0x3F) << 16 | (0x80 | codePoint & 0x3F) << 24;
+    }
+
+    private static int hash(CharSequence s) {
+        int hash = FNV_BASIS;
+        for (int i = 0, length = s.length(); i < length;) {
+            int codePoint = codePointAt(s, i, length);
+            i += codePoint >= 0x10000 ? 2 : 1;
+            int n = utf8Length(codePoint);
+            for (int bytes = utf8Bytes(codePoint); n > 0; n--, bytes >>>= 8) {
+                hash = hashStep(hash, bytes & 0xFF);
+            }
+        }
+        return finishHash(hash);
+    }
+
+    private static int utf8Length(CharSequence s) {
+        int byteLength = 0;
+        for (int i = 0, length = s.length(); i < length;) {
+            int codePoint = codePointAt(s, i, length);
+            i += codePoint >= 0x10000 ? 2 : 1;
+            byteLength += utf8Length(codePoint);
+        }
+        return byteLength;
+    }
+
+    private static int hash(@Nullable Object base, long address, int length) {
+        int hash = FNV_BASIS;
+        for (long a = address, end = address + length; a < end; a++) {
+            hash = hashStep(hash, U.getByte(base, a) & 0xFF);
+        }
+        return finishHash(hash);
+    }
+
+    /**
+     * Compares the symbol with the key, given either by {@code chars}, or by the {@code base},
+     * the {@code address} and the {@code length} of its bytes, if {@code chars}
+     * is {@code null}.
+     */
+    private boolean keyEquals(int id, @Nullable CharSequence chars,
+            @Nullable Object base, long address, int length) {
+        long from = offset(id), to = offset(id + 1);
+        Object arena = heapArena;
+        long a = arenaAddress + from;
+        if (chars != null) {
+            long end = arenaAddress + to;
+            for (int i = 0, charsLength = chars.length(); i < charsLength;) {
+                int codePoint = codePointAt(chars, i, charsLength);
+                i += codePoint >= 0x10000 ? 2 : 1;
+                int n = utf8Length(codePoint);
+                if (a + (long) n > end)
+                    return false;
+                for (int bytes = utf8Bytes(codePoint); n > 0; n--, bytes >>>= 8, a++) {
+                    if (U.getByte(arena, a) != (byte) bytes)
+                        return false;
+                }
+            }
+            return a == end;
+        } else {
+            if (to - from != (long) length)
+                return false;
+            for (long k = address, end = k + length; k < end; k++, a++) {
+                if (U.getByte(arena, a) != U.getByte(base, k))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private void writeKey(long to, @Nullable CharSequence chars,
+            @Nullable Object base, long address, int length) {
+        if (chars != null) {
+            Object arena = heapArena;
+            long a = arenaAddress + to;
+            for (int i = 0, charsLength = chars.length(); i < charsLength;) {
+                int codePoint = codePointAt(chars, i, charsLength);
+                i += codePoint >= 0x10000 ? 2 : 1;
+                int n = utf8Length(codePoint);
+                for (int bytes = utf8Bytes(codePoint); n > 0; n--, bytes >>>= 8, a++) {
+                    U.putByte(arena, a, (byte) bytes);
+                }
+            }
+        } else {
+            U.copyMemory(base, address, heapArena, arenaAddress + to, (long) length);
+        }
+    }
+
+
+    ////////////////////////////
+    // Table operations
+
+    private void checkOpen() {
+        if (slots == null)
+            throw new IllegalStateException("Container is closed");
+    }
+
+    private void reachabilityFence() {
+        if (cleaner != null)
+            cleaner.keepReachable(this);
+    }
+
+    private long offset(int id) {
+        return longOffsets != null ? longOffsets[id] : (long) intOffsets[id];
+    }
+
+    private void setOffset(int id, long offset) {
+        if (longOffsets != null) {
+            longOffsets[id] = offset;
+        } else {
+            intOffsets[id] = (int) offset;
+        }
+    }
+
+    /**
+     * @return the id of the key, or the bitwise complement of the free slot,
+     *         in which it could be inserted
+     * @see #keyEquals(int, CharSequence, Object, long, int)
+     */
+    private int lookup(int hash, @Nullable CharSequence chars,
+            @Nullable Object base, long address, int length) {
+        int[] slots = this.slots;
+        int[] hashes = this.hashes;
+        int capacity = slots.length;
+        int index = hash % capacity;
+        int cur = slots[index];
+        if (cur == 0)
+            return ~index;
+        if (hashes[cur - 1] == hash && keyEquals(cur - 1, chars, base, address, length))
+            return cur - 1;
+        int step = hash % (capacity - 2) + 1;
+        while (true) {
+            if ((index -= step) < 0) index += capacity; // nextIndex
+            if ((cur = slots[index]) == 0)
+                return ~index;
+            if (hashes[cur - 1] == hash && keyEquals(cur - 1, chars, base, address, length))
+                return cur - 1;
+        }
+    }
+
+    private int id(int hash, @Nullable CharSequence chars,
+            @Nullable Object base, long address, int length) {
+        try {
+            int id = lookup(hash, chars, base, address, length);
+            return id >= 0 ? id : -1;
+        } finally {
+            reachabilityFence();
+        }
+    }
+
+    private int intern(int hash, @Nullable CharSequence chars,
+            @Nullable Object base, long address, int length) {
+        try {
+            int id = lookup(hash, chars, base, address, length);
+            if (id >= 0)
+                return id;
+            int index = ~id;
+            id = size;
+            if (id == hashes.length - 1)
+                growIds(id + 1);
+            if (chars != null)
+                length = utf8Length(chars);
+            long from = offset(id), to = from + (long) length;
+            if (to > arenaCapacity)
+                growArena(to);
+            writeKey(from, chars, base, address, length);
+            setOffset(id + 1, to);
+            hashes[id] = hash;
+            slots[index] = id + 1;
+            if (++size > maxSize) {
+                rehash(DHashCapacities.nearestGreaterCapacity(
+                        configWrapper.grow(slots.length), size));
+            }
+            return id;
+        } finally {
+            reachabilityFence();
+        }
+    }
+
+    /**
+     * Looks up or interns the remaining bytes of the buffer, without copying them. Read-only
+     * heap buffers are read from their arrays too, if the arrays are accessible.
+     */
+    private int idOrIntern(ByteBuffer bytes, boolean intern) {
+        int position = bytes.position(), length = bytes.remaining();
+        Object base;
+        long address;
+        byte[] array;
+        if (bytes.hasArray()) {
+            base = bytes.array();
+            address = BYTE_BASE + (long) (bytes.arrayOffset() + position);
+        } else if (bytes.isDirect()) {
+            base = null;
+            address = DirectMemory.address(bytes) + (long) position;
+        } else if ((array = DirectMemory.array(bytes)) != null) {
+            base = array;
+            address = BYTE_BASE + (long) (DirectMemory.arrayOffset(bytes) + position);
+        } else {
+            byte[] copy = new byte[length];
+            bytes.duplicate().get(copy);
+            base = copy;
+            address = BYTE_BASE;
+        }
+        int hash = hash(base, address, length);
+        int id = intern ? intern(hash, null, base, address, length) :
+                id(hash, null, base, address, length);
+        // the memory of the direct buffer is read till this point
+        DirectMemory.keepReachable(bytes);
+        return id;
+    }
+
+    /**
+     * Ensures the id arrays could hold {@code minSize} symbols.
+     */
+    private void growIds(int minSize) {
+        int newLength = (int) Math.min(Math.max((long) minSize, hashes.length * 2L) + 1L,
+                (long) Integer.MAX_VALUE);
+        hashes = Arrays.copyOf(hashes, newLength);
+        if (longOffsets != null) {
+            longOffsets = Arrays.copyOf(longOffsets, newLength);
+        } else {
+            intOffsets = Arrays.copyOf(intOffsets, newLength);
+        }
+    }
+
+    private void growArena(long minCapacity) {
+        long newCapacity = Math.max(minCapacity, arenaCapacity * 2L);
+        if (memory == null && newCapacity > MAX_HEAP_ARENA_CAPACITY) {
+            if (minCapacity > MAX_HEAP_ARENA_CAPACITY)
+                throw new HashOverflowException();
+            newCapacity = MAX_HEAP_ARENA_CAPACITY;
+        }
+        resizeArena(newCapacity);
+    }
+
+    private void resizeArena(long newCapacity) {
+        if (memory != null) {
+            memory.address = arenaAddress = U.reallocateMemory(memory.address, newCapacity);
+        } else {
+            heapArena = Arrays.copyOf(heapArena, (int) newCapacity);
+        }
+        arenaCapacity = newCapacity;
+    }
+
+    private long arenaSize() {
+        return offset(size);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] hashes = this.hashes;
+        int[] slots = new int[newCapacity];
+        for (int id = 0; id < size; id++) {
+            int hash = hashes[id];
+            int index = hash % newCapacity;
+            if (slots[index] != 0) {
+                int step = hash % (newCapacity - 2) + 1;
+                do {
+                    if ((index -= step) < 0) index += newCapacity; // nextIndex
+                } while (slots[index] != 0);
+            }
+            slots[index] = id + 1;
+        }
+        this.slots = slots;
+        maxSize = Math.min(configWrapper.maxSize(newCapacity), newCapacity - 1);
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("Id: " + id + ", size: " + size);
+    }
+
+    private static void checkSlice(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length)
+            throw new IndexOutOfBoundsException();
+    }
+
+
+    ////////////////////////////
+    // SymbolTable API
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return (long) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        if (minSize < 0L)
+            throw new IllegalArgumentException(
+                    "Min size should be positive, " + minSize + " given.");
+        checkOpen();
+        int intMinSize = (int) Math.min(minSize, (long) Integer.MAX_VALUE);
+        if (intMinSize <= maxSize)
+            return false;
+        if (intMinSize > hashes.length - 1)
+            growIds(intMinSize);
+        rehash(DHashCapacities.capacity(configWrapper, intMinSize));
+        return true;
+    }
+
+    /**
+     * Compacts the hash table and trims the id arrays and the arena to the current size.
+     */
+    @Override
+    public boolean shrink() {
+        checkOpen();
+        boolean shrunk = false;
+        int newCapacity = DHashCapacities.capacity(configWrapper, size);
+        if (newCapacity < slots.length) {
+            rehash(newCapacity);
+            shrunk = true;
+        }
+        if (hashes.length > size + 1) {
+            hashes = Arrays.copyOf(hashes, size + 1);
+            if (longOffsets != null) {
+                longOffsets = Arrays.copyOf(longOffsets, size + 1);
+            } else {
+                intOffsets = Arrays.copyOf(intOffsets, size + 1);
+            }
+            shrunk = true;
+        }
+        long arenaSize = Math.max(arenaSize(), MIN_ARENA_CAPACITY);
+        if (arenaSize < arenaCapacity) {
+            resizeArena(arenaSize);
+            shrunk = true;
+        }
+        return shrunk;
+    }
+
+    @Override
+    public int intern(@Nonnull CharSequence symbol) {
+        checkOpen();
+        return intern(hash(symbol), symbol, null, 0L, 0);
+    }
+
+    @Override
+    public int intern(@Nonnull byte[] bytes, int offset, int length) {
+        checkSlice(bytes, offset, length);
+        checkOpen();
+        long address = BYTE_BASE + (long) offset;
+        return intern(hash(bytes, address, length), null, bytes, address, length);
+    }
+
+    @Override
+    public int intern(@Nonnull ByteBuffer bytes) {
+        checkOpen();
+        return idOrIntern(bytes, true);
+    }
+
+    @Override
+    public int id(@Nonnull CharSequence symbol) {
+        checkOpen();
+        return id(hash(symbol), symbol, null, 0L, 0);
+    }
+
+    @Override
+    public int id(@Nonnull byte[] bytes, int offset, int length) {
+        checkSlice(bytes, offset, length);
+        checkOpen();
+        long address = BYTE_BASE + (long) offset;
+        return id(hash(bytes, address, length), null, bytes, address, length);
+    }
+
+    @Override
+    public int id(@Nonnull ByteBuffer bytes) {
+        checkOpen();
+        return idOrIntern(bytes, false);
+    }
+
+    @Override
+    public int length(int id) {
+        checkOpen();
+        checkId(id);
+        return (int) (offset(id + 1) - offset(id));
+    }
+
+    @Override
+    public int getBytes(int id, @Nonnull byte[] dest, int destOffset) {
+        int length = length(id);
+        checkSlice(dest, destOffset, length);
+        U.copyMemory(heapArena, arenaAddress + offset(id),
+                dest, BYTE_BASE + (long) destOffset, (long) length);
+        reachabilityFence();
+        return length;
+    }
+
+    @Override
+    public void getBytes(int id, @Nonnull ByteBuffer dest) {
+        int length = length(id);
+        int position = dest.position();
+        if (dest.remaining() < length)
+            throw new BufferOverflowException();
+        long from = arenaAddress + offset(id);
+        if (dest.hasArray()) {
+            U.copyMemory(heapArena, from, dest.array(),
+                    BYTE_BASE + (long) (dest.arrayOffset() + position), (long) length);
+        } else if (dest.isDirect()) {
+            U.copyMemory(heapArena, from,
+                    null, DirectMemory.address(dest) + (long) position, (long) length);
+        } else {
+            // throws ReadOnlyBufferException
+            dest.put(position, U.getByte(heapArena, from));
+        }
+        reachabilityFence();
+        dest.position(position + length);
+    }
+
+    @Nonnull
+    @Override
+    public String symbol(int id) {
+        byte[] bytes = new byte[length(id)];
+        getBytes(id, bytes, 0);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public void clear() {
+        checkOpen();
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        slots = null;
+        hashes = null;
+        intOffsets = null;
+        longOffsets = null;
+        heapArena = null;
+        size = 0;
+        if (cleaner != null)
+            cleaner.clean();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int id = 0; id < size; id++) {
+            if (id > 0)
+                sb.append(',').append(' ');
+            sb.append(symbol(id));
+        }
+        return sb.append(']').toString();
+    }
+}
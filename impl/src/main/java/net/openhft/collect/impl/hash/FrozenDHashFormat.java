@@ -0,0 +1,186 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.ByteBufferInput;
+import net.openhft.collect.impl.DirectMemory;
+import net.openhft.collect.impl.UnsafeConstants;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * The file format of frozen hash containers, which tables are mapped from the file
+ * and probed right in the mapped memory:
+ * <pre>
+ * the first page, big-endian:
+ *     magic number, 8 bytes
+ *     format version, container kind, key type and value type, see {@link DHashFormat}
+ *     byte order of the tables, 1 byte
+ *     hash config, see {@link DHashFormat}
+ *     capacity, size, 4 bytes each
+ *     bits of the free key and of the default value, 8 bytes each
+ * keys, from the second page, in the byte order of the machine, which has written the file
+ * [values, from the page, following the keys]
+ * </pre>
+ *
+ * <p>The tables are aligned by pages, so the mapped keys and values are aligned as well.
+ */
+final class FrozenDHashFormat implements UnsafeConstants {
+
+    static final long MAGIC = 0x55434f4c4c465a4eL;
+    static final long PAGE_SIZE = 4096L;
+    private static final byte NATIVE_ORDER =
+            (byte) (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? 'B' : 'L');
+
+    private static long pageAligned(long offset) {
+        return (offset + PAGE_SIZE - 1L) & ~(PAGE_SIZE - 1L);
+    }
+
+    private static long valuesOffset(long keysSize) {
+        return pageAligned(PAGE_SIZE + keysSize);
+    }
+
+    /**
+     * Writes the table of the container to the file. The tables are copied from the given
+     * arrays (primitive, of the {@code capacity} length), values are {@code null} for sets.
+     */
+    static void write(File file, byte kind, byte keyType, byte valueType, HashConfig config,
+            int capacity, int size, long freeBits, long defaultValueBits,
+            Object keys, long keysBase, int keyScaleShift,
+            Object values, long valuesBase, int valueScaleShift) throws IOException {
+        long keysSize = ((long) capacity) << keyScaleShift;
+        long valuesSize = values != null ? ((long) capacity) << valueScaleShift : 0L;
+        if (keysSize > (long) Integer.MAX_VALUE || valuesSize > (long) Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The table is too large to be mapped");
+        ByteArrayOutputStream header = new ByteArrayOutputStream((int) PAGE_SIZE);
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeLong(MAGIC);
+        DHashFormat.writeHeader(out, kind, keyType, valueType);
+        out.writeByte(NATIVE_ORDER);
+        DHashFormat.writeConfig(out, config);
+        out.writeInt(capacity);
+        out.writeInt(size);
+        out.writeLong(freeBits);
+        out.writeLong(defaultValueBits);
+        out.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0L);
+            raf.write(header.toByteArray());
+            FileChannel channel = raf.getChannel();
+            copy(channel, PAGE_SIZE, keys, keysBase, keysSize);
+            if (values != null)
+                copy(channel, valuesOffset(keysSize), values, valuesBase, valuesSize);
+            channel.force(true);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void copy(FileChannel channel, long offset,
+            Object array, long base, long size) throws IOException {
+        if (size == 0L)
+            return;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+        try {
+            U.copyMemory(array, base, null, DirectMemory.address(buffer), size);
+            buffer.force();
+        } finally {
+            DirectMemory.release(buffer);
+        }
+    }
+
+
+    /**
+     * The header of the file and the mapped tables.
+     */
+    static final class Table {
+        HashConfig config;
+        int capacity;
+        int size;
+        long freeBits;
+        long defaultValueBits;
+        /** Retained, the mappings are released when the buffers are collected */
+        MappedByteBuffer keyBuffer, valueBuffer;
+        long keys, values;
+    }
+
+    /**
+     * Maps the table, written by {@link #write}, from the file.
+     *
+     * @param valueScaleShift the scale shift of values, ignored for sets
+     */
+    static Table read(File file, boolean map, byte keyType, byte valueType,
+            int keyScaleShift, int valueScaleShift) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(PAGE_SIZE, fileSize));
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0)
+                    break;
+            }
+            header.flip();
+            ByteBufferInput in = new ByteBufferInput(header);
+            Table table = new Table();
+            try {
+                if (in.readLong() != MAGIC)
+                    throw new IOException(file + " isn't a frozen hash file");
+                if (DHashFormat.readHeader(in, map, keyType, valueType))
+                    throw new InvalidObjectException("Frozen containers are immutable");
+                if (in.readByte() != NATIVE_ORDER) {
+                    throw new IOException(file + " is written on a machine " +
+                            "with other byte order");
+                }
+                table.config = DHashFormat.readConfig(in);
+                table.capacity = in.readInt();
+                table.size = in.readInt();
+                table.freeBits = in.readLong();
+                table.defaultValueBits = in.readLong();
+            } catch (EOFException e) {
+                throw new IOException(file + " isn't a frozen hash file");
+            }
+            DHashFormat.checkTable(table.capacity, table.size, 0, false);
+            long keysSize = ((long) table.capacity) << keyScaleShift;
+            long valuesOffset = valuesOffset(keysSize);
+            long valuesSize = map ? ((long) table.capacity) << valueScaleShift : 0L;
+            if (fileSize != (map ? valuesOffset + valuesSize : PAGE_SIZE + keysSize))
+                throw new IOException(file + " is truncated");
+            table.keyBuffer = channel.map(FileChannel.MapMode.READ_ONLY, PAGE_SIZE, keysSize);
+            table.keys = DirectMemory.address(table.keyBuffer);
+            if (map) {
+                table.valueBuffer = channel.map(
+                        FileChannel.MapMode.READ_ONLY, valuesOffset, valuesSize);
+                table.values = DirectMemory.address(table.valueBuffer);
+            }
+            // the mappings remain valid after the file is closed
+            return table;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private FrozenDHashFormat() {}
+}
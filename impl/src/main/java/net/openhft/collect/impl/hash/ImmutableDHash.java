@@ -18,6 +18,7 @@ package net.openhft.collect.impl.hash;
 
 import net.openhft.collect.HashConfig;
 import net.openhft.collect.impl.AbstractContainer;
+import net.openhft.collect.impl.Footprints;
 
 
 public abstract class ImmutableDHash extends AbstractContainer implements DHash {
@@ -67,6 +68,16 @@ public abstract class ImmutableDHash extends AbstractContainer implements DHash
         return ( float ) (((double) size) / capacity());
     }
 
+    @Override
+    public final long bytesUsed() {
+        return Footprints.shallowBytes(this) + tableBytes();
+    }
+
+    /**
+     * Returns the number of bytes, occupied by the arrays comprising the hash.
+     */
+    abstract long tableBytes();
+
 
     @Override
     public final boolean noRemoved() {
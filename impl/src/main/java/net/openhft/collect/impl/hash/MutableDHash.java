@@ -19,6 +19,8 @@ package net.openhft.collect.impl.hash;
 import net.openhft.collect.HashConfig;
 import net.openhft.collect.HashOverflowException;
 import net.openhft.collect.impl.AbstractContainer;
+import net.openhft.collect.impl.Footprints;
+import javax.annotation.Nullable;
 
 import static java.lang.Math.max;
 
@@ -56,6 +58,36 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
 
     private int modCount = 0;
 
+    /**
+     * Whether {@link #trackedHashCode} is up to date, see {@link HashConfig#isHashCodeTracked()}.
+     * Copy operations don't maintain it, the next {@link #trackedHashCode()} call
+     * turns tracking on again.
+     */
+    private boolean hashCodeTracked;
+
+    private int trackedHashCode;
+
+    /**
+     * Whether the arrays are shared with the immutable hash, this hash is a copy of.
+     * Immutable hashes never write to their arrays, so they are cloned lazily,
+     * on the first write to this hash, see {@link #ownArrays()}.
+     */
+    private boolean arraysShared;
+
+    /**
+     * Whether the arrays, replaced by the last {@link #initForRehash(int)} call, should be
+     * returned to the {@link ArrayPool}, see {@link #recycle(Object)}.
+     */
+    private boolean oldArraysRecycled;
+
+    /**
+     * Whether the arrays are read by a bulk operation in progress, which calls back user code,
+     * e. g. {@code forEach()}. If that code rehashes this hash, the old arrays are not
+     * recycled, because the operation would go on reading them, when they might be already
+     * taken by another hash. See {@link #beginScan()}.
+     */
+    private boolean scanInProgress;
+
 
     /////////////////////////////
     // Getters
@@ -102,12 +134,50 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
         modCount++;
     }
 
+    /**
+     * Returns the hash code of this hash, in constant time if it is tracked.
+     * Starts tracking the hash code, if the hash config says so.
+     */
+    final int trackedHashCode() {
+        if (hashCodeTracked)
+            return trackedHashCode;
+        int hashCode = computeHashCode();
+        if (configWrapper.config().isHashCodeTracked()) {
+            trackedHashCode = hashCode;
+            hashCodeTracked = true;
+        }
+        return hashCode;
+    }
+
+    /**
+     * Returns {@code true} if both this and the given hash track their hash codes,
+     * and the tracked values differ, i. e. the hashes are certainly not equal.
+     * Should be called only with the hashes of the same kind (sets or maps).
+     */
+    final boolean trackedHashCodesDiffer(DHash hash) {
+        if (hashCodeTracked && hash instanceof MutableDHash) {
+            MutableDHash other = (MutableDHash) hash;
+            return other.hashCodeTracked && trackedHashCode != other.trackedHashCode;
+        }
+        return false;
+    }
+
     @Override
     public final float currentLoad() {
         // Division in double to minimize precision loss
         return (float) (((double) (size + removedSlots)) / (double) capacity());
     }
 
+    @Override
+    public final long bytesUsed() {
+        return Footprints.shallowBytes(this) + tableBytes();
+    }
+
+    /**
+     * Returns the number of bytes, occupied by the arrays comprising the hash.
+     */
+    abstract long tableBytes();
+
 
     ////////////////////////
     // Initialization and construction operations
@@ -127,8 +197,42 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
         // see #initSlotCounts()
         if (freeSlots < minFreeSlots) this.minFreeSlots = (freeSlots + 1) / 2;
         this.removedSlots = hash.removedSlots();
+        hashCodeTracked = false;
+        arraysShared = hash instanceof ImmutableDHash;
+    }
+
+    /**
+     * Returns {@code true} if the arrays of the hash, given to {@link #copy(DHash)},
+     * should be shared rather than cloned.
+     */
+    final boolean arraysShared() {
+        return arraysShared;
+    }
+
+    /**
+     * Clones the arrays, if they are shared with an immutable hash. Should be called
+     * before any write to the arrays. Doesn't change {@link #modCount()}.
+     *
+     * @return {@code true} if the arrays were cloned, i. e. references to them, copied
+     *         before this call, are stale
+     */
+    final boolean ownArrays() {
+        if (arraysShared) {
+            arraysShared = false;
+            cloneArrays();
+            return true;
+        }
+        return false;
     }
 
+    /**
+     * Replaces the arrays comprising the hash with their clones.
+     *
+     * <p>Subclasses should override this method, but SHOULD NOT call it. This
+     * method is called in MutableDHash from {@link #ownArrays()}.
+     */
+    abstract void cloneArrays();
+
     /**
      * Creates data structures with a prime capacity at or near the minimum
      * needed to hold {@code size} elements without triggering a rehash.
@@ -138,12 +242,15 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
     final void init(HashConfigWrapper configWrapper, int size) {
         this.configWrapper = configWrapper;
         this.size = 0;
+        hashCodeTracked = configWrapper.config().isHashCodeTracked();
+        trackedHashCode = 0;
         int capacity = DHashCapacities.capacity(configWrapper, size);
         minFreeSlots = minFreeSlots(capacity, size);
         internalInit(capacity);
     }
 
     private void internalInit(int capacity) {
+        arraysShared = false;
         initSlotCounts(capacity);
         allocateArrays(capacity);
     }
@@ -153,12 +260,24 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
      * or values in.
      *
      * <p>Subclasses should override this method, but SHOULD NOT call it. This
-     * method is called in MutableDHash from initForRehash() and init() methods.
+     * method is called in MutableDHash from initForRehash(), init() and clear() methods.
      *
      * @param capacity size of arrays, comprising the hash
      */
     abstract void allocateArrays(int capacity);
 
+    /**
+     * Returns an array of the given class and length from the {@link ArrayPool}, if the hash
+     * config says so, or {@code null}. Should be called in {@link #allocateArrays(int)}
+     * implementations, which should fill the returned array, if the undefined contents
+     * matter, and allocate a new one, if {@code null} is returned.
+     */
+    @Nullable
+    final <A> A takeArray(Class<A> arrayClass, int length) {
+        return configWrapper.config().isTableRecycled() ?
+                ArrayPool.take(arrayClass, length) : null;
+    }
+
     private void initSlotCounts(int capacity) {
         maxSize = configWrapper.maxSize(capacity);
         int freeSlots = this.freeSlots = capacity - size;
@@ -182,6 +301,8 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
      *
      *  3. Move elements, entries, etc. from the old arrays to the new ones.
      *
+     *  4. Pass the old arrays to {@link #recycle(Object)}.
+     *
      * <p>Subclasses should implement, but MUST NOT call this method. This method is called
      * in DHash from postInsertHooks, {@link #ensureCapacity(long)} and {@link #shrink()} methods.
      */
@@ -194,9 +315,50 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
      */
     final void initForRehash(int newCapacity) {
         modCount++;
+        // arrays, shared with an immutable hash, are still in use
+        oldArraysRecycled = configWrapper.config().isTableRecycled() && !arraysShared &&
+                // and so are arrays, read by a bulk operation, calling this method
+                // from user code
+                !scanInProgress;
+        scanInProgress = false;
         internalInit(newCapacity);
     }
 
+    /**
+     * Should be called by bulk operations over the arrays, which call back user code,
+     * before the loop. Cursors and iterators check {@link #modCount()} before each read
+     * from the arrays, so they don't need to call this method, except for their
+     * {@code forEach} methods.
+     *
+     * @return the value to pass to {@link #endScan(boolean)}
+     */
+    final boolean beginScan() {
+        boolean outerScan = scanInProgress;
+        scanInProgress = true;
+        return outerScan;
+    }
+
+    /**
+     * Should be called after the loop of the bulk operation, if {@link #modCount()}
+     * hasn't changed during it. If the hash is rehashed or the operation fails,
+     * it just isn't called.
+     *
+     * @param outerScan the value, returned by {@link #beginScan()}
+     */
+    final void endScan(boolean outerScan) {
+        scanInProgress = outerScan;
+    }
+
+    /**
+     * Returns the given array, replaced by {@link #initForRehash(int)}, to the
+     * {@link ArrayPool}, if the hash config says so. Should be called by subclasses
+     * in {@link #rehash(int)} implementation, after elements are moved to the new arrays.
+     */
+    final void recycle(Object oldArray) {
+        if (oldArraysRecycled)
+            ArrayPool.release(oldArray);
+    }
+
     
     //////////////////////////////
     // Roots of chain operations
@@ -205,16 +367,54 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
      * Empties the hash.
      */
     public void clear() {
+        if (arraysShared) {
+            // No sense in cloning the arrays, which are going to be cleared
+            arraysShared = false;
+            allocateArrays(capacity());
+        }
         modCount++;
         size = 0;
         freeSlots = capacity();
         removedSlots = 0;
+        trackedHashCode = 0;
     }
 
     
     abstract void removeAt( int index );
     
 
+    /////////////////////////////
+    // Hash code tracking
+
+    /**
+     * Computes the hash code by traversing the whole table.
+     */
+    abstract int computeHashCode();
+
+    /**
+     * Returns the contribution of the full slot at the given index into the hash code
+     * of this hash, e. g. the hash code of the key or the hash code of the entry.
+     */
+    abstract int slotHashCode(int index);
+
+    /**
+     * Should be called right after the slot at the given index is filled or its value
+     * is updated, before insertion hooks, which could rehash.
+     */
+    final void trackSlotHashCode(int index) {
+        if (hashCodeTracked)
+            trackedHashCode += slotHashCode(index);
+    }
+
+    /**
+     * Should be called right before the slot at the given index is removed or its value
+     * is updated.
+     */
+    final void untrackSlotHashCode(int index) {
+        if (hashCodeTracked)
+            trackedHashCode -= slotHashCode(index);
+    }
+
     /////////////////////////////
     // Modification hooks and rehash logic
 
@@ -277,6 +477,27 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
         size--;
         removedSlots++;
     }
+
+    /**
+     * Should be called after a parallel bulk removal, see {@link ParallelSlotTask},
+     * with the total number of the slots, marked removed by all parts. Slot hash codes
+     * aren't untracked concurrently, so the hash code tracking is turned off.
+     */
+    final void postParallelRemoveHook(int removed) {
+        modCount++;
+        size -= removed;
+        removedSlots += removed;
+        hashCodeTracked = false;
+    }
+
+    /**
+     * Should be called after values of the hash are updated in parallel, see
+     * {@link ParallelSlotTask}. Slot hash codes aren't tracked concurrently,
+     * so the hash code tracking is turned off.
+     */
+    final void postParallelUpdateHook() {
+        hashCodeTracked = false;
+    }
 //
 //    /**
 //     * After insertion, this hook is called to adjust the size/free
@@ -325,7 +546,7 @@ public abstract class MutableDHash extends AbstractContainer implements DHash {
             rehash(DHashCapacities.capacity(configWrapper, size));
             return true;
         } else {
-            return tryRehashForExpansion(configWrapper.grow(capacity()));
+            return tryRehashForExpansion(grownCapacity());
         }
     }
 
@@ -0,0 +1,927 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashOverflowException;
+import net.openhft.collect.impl.AbstractMutableLongLongMap;
+import net.openhft.collect.impl.UnsafeConstants;
+import net.openhft.collect.map.LongLongCursor;
+import net.openhft.collect.map.hash.HashLongLongMap;
+import net.openhft.collect.map.hash.NonBlockingHashLongLongMap;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Non-blocking linear probing map, after Cliff Click's {@code NonBlockingHashMapLong}.
+ *
+ * <p>Keys and values are stored in {@code long} arrays, both updated with compare-and-swap.
+ * Each table reserves four random values as sentinels: of free slots and absent keys, of removed
+ * keys, of slots, which are being copied, and of copied slots. A value, equal to a sentinel
+ * of the table, is put into the next table, which has other sentinels. A key slot, once claimed,
+ * is never freed in the same table: removed keys keep their slots, until the table is replaced.
+ * Key {@code 0}, which marks free slots, has the extra value slot after the last one.
+ *
+ * <p>The table is resized cooperatively. The thread, which finds the table full, installs
+ * the next table. From that moment any thread, which accesses a slot of the old table, copies
+ * it first: the value is replaced with the {@linkplain Table#primed primed} sentinel, which
+ * prohibits updates of the slot in the old table, put into the next table, if the key isn't
+ * set there yet, then the slot is killed with the {@linkplain Table#tombprime tombprime}
+ * sentinel. Only the thread, which has primed the slot, knows the value, so other threads,
+ * which meet the slot, wait for these two writes to complete. Absent values and free slots
+ * are killed right away, so that lookups of absent keys in the old table also go to the next
+ * one. Updates of the keys, which slots are copied, go to the next table, lookups follow them.
+ * Threads, which update the map, also copy chunks of the old table, and when all slots
+ * are copied, the next table becomes the main one.
+ */
+public final class NonBlockingLHashLongLongMap extends AbstractMutableLongLongMap
+        implements NonBlockingHashLongLongMap, UnsafeConstants {
+
+    private static final long FREE_KEY = 0L;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int COPY_CHUNK = 1024;
+    private static final int REPROBE_LIMIT = 10;
+
+    // update operations
+    private static final int PUT = 0, PUT_IF_ABSENT = 1, REPLACE = 2, REPLACE_IF_MATCH = 3,
+            REMOVE = 4, REMOVE_IF_MATCH = 5,
+            // copy of a slot of the previous table, puts only if the key isn't set yet
+            COPY = 6,
+            // operations, which return the new value
+            INCREMENT = 7, MERGE = 8, COMPUTE = 9, COMPUTE_IF_ABSENT = 10, COMPUTE_IF_PRESENT = 11,
+            BOXED_MERGE = 12, BOXED_COMPUTE = 13, BOXED_COMPUTE_IF_ABSENT = 14,
+            BOXED_COMPUTE_IF_PRESENT = 15;
+
+    private static final long SIZE_OFFSET, TABLE_OFFSET;
+    static {
+        try {
+            Class<NonBlockingLHashLongLongMap> c = NonBlockingLHashLongLongMap.class;
+            SIZE_OFFSET = U.objectFieldOffset(c.getDeclaredField("size"));
+            TABLE_OFFSET = U.objectFieldOffset(c.getDeclaredField("table"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Table {
+        private static final long SLOTS_OFFSET, NEXT_OFFSET, COPY_INDEX_OFFSET,
+                COPY_DONE_OFFSET;
+        static {
+            try {
+                Class<Table> c = Table.class;
+                SLOTS_OFFSET = U.objectFieldOffset(c.getDeclaredField("slots"));
+                NEXT_OFFSET = U.objectFieldOffset(c.getDeclaredField("next"));
+                COPY_INDEX_OFFSET = U.objectFieldOffset(c.getDeclaredField("copyIndex"));
+                COPY_DONE_OFFSET = U.objectFieldOffset(c.getDeclaredField("copyDone"));
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        final long[] keys;
+        /**
+         * One slot longer than {@link #keys}, the last slot holds the value of the key {@code 0}
+         */
+        final long[] vals;
+        final int mask;
+        /**
+         * The value of free slots and of absent keys
+         */
+        final long absent;
+        /**
+         * The value of removed keys, {@code absent + 1}
+         */
+        final long tombstone;
+        /**
+         * The value of a slot, which is being copied to the next table, {@code absent + 2}
+         */
+        final long primed;
+        /**
+         * The value of copied slots, and of absent keys and free slots of tables,
+         * which are copied, {@code absent + 3}
+         */
+        final long tombprime;
+        volatile Table next;
+        /**
+         * The number of claimed key slots
+         */
+        volatile int slots;
+        /**
+         * The start of the first chunk, which isn't taken for copying yet
+         */
+        volatile int copyIndex;
+        /**
+         * The number of slots, which are copied to the next table
+         */
+        volatile int copyDone;
+        /**
+         * Whether all slots are copied, so the next table could become the main one
+         */
+        volatile boolean copied;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            vals = new long[capacity + 1];
+            mask = capacity - 1;
+            absent = ThreadLocalRandom.current().nextLong();
+            tombstone = absent + 1L;
+            primed = absent + 2L;
+            tombprime = absent + 3L;
+            Arrays.fill(vals, absent);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int maxSlots() {
+            return (mask >> 1) + (mask >> 2);
+        }
+
+        int reprobeLimit() {
+            return REPROBE_LIMIT + (capacity() >> 2);
+        }
+
+        boolean isSentinel(long value) {
+            return (value - absent) >>> 2 == 0L;
+        }
+
+        boolean isAbsent(long value) {
+            return (value - absent) >>> 1 == 0L;
+        }
+
+        /**
+         * Returns the value, or {@link #primed}, if the value could be stored
+         * only in the next table.
+         */
+        long valid(long value) {
+            return isSentinel(value) ? primed : value;
+        }
+
+        long keyOf(int index) {
+            return index != capacity() ? keyAt(keys, index) : FREE_KEY;
+        }
+    }
+
+    /**
+     * Tells the operations, which return {@code null} for absent keys, whether the key is present.
+     */
+    static final class Presence {
+        boolean present;
+    }
+
+
+    private static long keyAt(long[] keys, int index) {
+        return U.getLongVolatile(keys, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT));
+    }
+
+    private static boolean casKey(long[] keys, int index, long expected, long key) {
+        return U.compareAndSwapLong(keys, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT),
+                expected, key);
+    }
+
+    private static long valueAt(long[] vals, int index) {
+        return U.getLongVolatile(vals, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT));
+    }
+
+    private static boolean casValue(long[] vals, int index, long expected, long value) {
+        return U.compareAndSwapLong(vals, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT),
+                expected, value);
+    }
+
+    private static int addInt(Object o, long offset, int delta) {
+        for (;;) {
+            int v = U.getIntVolatile(o, offset);
+            if (U.compareAndSwapInt(o, offset, v, v + delta))
+                return v + delta;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the power of two capacity, in which the given number of keys takes
+     * at most a half of slots.
+     */
+    private static int capacityFor(long size) {
+        long capacity = Long.highestOneBit(Math.max(size, 1L)) << 2;
+        if (capacity < (long) MIN_CAPACITY)
+            return MIN_CAPACITY;
+        return capacity <= (long) MAX_CAPACITY ? (int) capacity : MAX_CAPACITY;
+    }
+
+    /**
+     * Returns the new value for the current one, {@link Table#tombstone} if the operation
+     * removes the key, the current value, if the operation doesn't update the map,
+     * or {@link Table#primed}, if the new value is equal to a sentinel of the table.
+     */
+    @SuppressWarnings("unchecked")
+    private static long newValue(Table t, int op, long key, long cur, long value, long other,
+            Object function) {
+        boolean absent = t.isAbsent(cur);
+        switch (op) {
+            case PUT: return t.valid(value);
+            case PUT_IF_ABSENT: return absent ? t.valid(value) : cur;
+            case REPLACE: return absent ? cur : t.valid(value);
+            case REPLACE_IF_MATCH: return !absent && cur == other ? t.valid(value) : cur;
+            case REMOVE: return absent ? cur : t.tombstone;
+            case REMOVE_IF_MATCH: return !absent && cur == other ? t.tombstone : cur;
+            case COPY: return cur == t.absent ? t.valid(value) : cur;
+            case INCREMENT: return t.valid((absent ? other : cur) + value);
+            case MERGE:
+                return t.valid(absent ? value :
+                        ((LongBinaryOperator) function).applyAsLong(cur, value));
+            case COMPUTE:
+                return t.valid(((LongLongToLongFunction) function).applyAsLong(key,
+                        absent ? other : cur));
+            case COMPUTE_IF_ABSENT:
+                return absent ? t.valid(((LongUnaryOperator) function).applyAsLong(key)) : cur;
+            case COMPUTE_IF_PRESENT:
+                return absent ? cur :
+                        t.valid(((LongLongToLongFunction) function).applyAsLong(key, cur));
+            case BOXED_MERGE: {
+                if (absent)
+                    return t.valid(value);
+                Long newValue = ((BiFunction<? super Long, ? super Long, ? extends Long>)
+                        function).apply(cur, value);
+                return newValue != null ? t.valid(newValue) : t.tombstone;
+            }
+            case BOXED_COMPUTE: {
+                Long newValue = ((BiFunction<? super Long, ? super Long, ? extends Long>)
+                        function).apply(key, absent ? null : Long.valueOf(cur));
+                return newValue != null ? t.valid(newValue) : (absent ? cur : t.tombstone);
+            }
+            case BOXED_COMPUTE_IF_ABSENT: {
+                if (!absent)
+                    return cur;
+                Long newValue = ((Function<? super Long, ? extends Long>) function).apply(key);
+                return newValue != null ? t.valid(newValue) : cur;
+            }
+            case BOXED_COMPUTE_IF_PRESENT: {
+                if (absent)
+                    return cur;
+                Long newValue = ((BiFunction<? super Long, ? super Long, ? extends Long>)
+                        function).apply(key, cur);
+                return newValue != null ? t.valid(newValue) : t.tombstone;
+            }
+            default: throw new AssertionError();
+        }
+    }
+
+
+    private final HashLongLongMapFactoryGO factory;
+    private final long defaultValue;
+    private volatile Table table;
+    private volatile long size;
+
+    NonBlockingLHashLongLongMap(HashLongLongMapFactoryGO factory, int expectedSize) {
+        this.factory = factory;
+        defaultValue = factory.getDefaultValue();
+        table = new Table(capacityFor((long) expectedSize));
+    }
+
+    private void addSize(long delta) {
+        for (;;) {
+            long size = this.size;
+            if (U.compareAndSwapLong(this, SIZE_OFFSET, size, size + delta))
+                return;
+        }
+    }
+
+    private void updateSize(Table t, long oldValue, long newValue) {
+        if (t.isAbsent(oldValue)) {
+            if (!t.isAbsent(newValue))
+                addSize(1L);
+        } else if (t.isAbsent(newValue)) {
+            addSize(-1L);
+        }
+    }
+
+    /**
+     * Installs the next table, if it isn't installed yet.
+     *
+     * @return the next table
+     */
+    private Table resize(Table t, long minSize) {
+        Table next;
+        if ((next = t.next) != null)
+            return next;
+        long size = Math.max(sizeAsLong(), minSize);
+        int capacity = capacityFor(size);
+        if (capacity == MAX_CAPACITY &&
+                size >= (long) ((MAX_CAPACITY >> 1) + (MAX_CAPACITY >> 2)))
+            throw new HashOverflowException();
+        U.compareAndSwapObject(t, Table.NEXT_OFFSET, null, new Table(capacity));
+        return t.next;
+    }
+
+    /**
+     * Makes the next table the main one, if the given table is the main one and all its slots
+     * are copied, and so on for the next tables.
+     */
+    private void promote(Table t) {
+        while (t.copied && U.compareAndSwapObject(this, TABLE_OFFSET, t, t.next)) {
+            t = t.next;
+        }
+    }
+
+    private void addCopied(Table t, int copied) {
+        if (copied > 0 && addInt(t, Table.COPY_DONE_OFFSET, copied) == t.vals.length) {
+            t.copied = true;
+            promote(t);
+        }
+    }
+
+    /**
+     * Waits until the thread, which has primed the slot, kills it. Only that thread knows
+     * the value, and the copy is a few writes.
+     */
+    private static void awaitCopy(Table t, int index) {
+        while (valueAt(t.vals, index) == t.primed) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Copies the slot to the next table, unless it is already copied.
+     *
+     * @return {@code true} if this call has completed the copy of the slot
+     */
+    private boolean copySlot(Table t, int index) {
+        long[] vals = t.vals;
+        for (;;) {
+            long cur = valueAt(vals, index);
+            if (cur == t.tombprime)
+                return false;
+            if (cur == t.primed) {
+                awaitCopy(t, index);
+                return false;
+            }
+            if (t.isAbsent(cur)) {
+                if (casValue(vals, index, cur, t.tombprime))
+                    return true;
+            } else if (casValue(vals, index, cur, t.primed)) {
+                // other threads wait for the slot to be killed, see awaitCopy()
+                update(t.next, t.keyOf(index), COPY, cur, 0L, null, 0L, null);
+                casValue(vals, index, t.primed, t.tombprime);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copies the next chunk of the table, if not all chunks are taken yet.
+     */
+    private void helpCopy(Table t) {
+        int slots = t.vals.length;
+        int start;
+        while ((start = t.copyIndex) < slots) {
+            if (U.compareAndSwapInt(t, Table.COPY_INDEX_OFFSET, start, start + COPY_CHUNK)) {
+                int end = Math.min(start + COPY_CHUNK, slots), copied = 0;
+                for (int i = start; i < end; i++) {
+                    if (copySlot(t, i))
+                        copied++;
+                }
+                addCopied(t, copied);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies all slots of the table, which aren't copied yet. Threads, which have taken
+     * chunks, could be slow to copy them, so chunks aren't taken, the whole table is scanned.
+     */
+    private void finishCopy(Table t) {
+        int copied = 0;
+        for (int i = 0; i < t.vals.length; i++) {
+            if (copySlot(t, i))
+                copied++;
+        }
+        addCopied(t, copied);
+        t.copied = true;
+        promote(t);
+    }
+
+    /**
+     * Returns the newest table, after copying all tables, which are being copied.
+     */
+    private Table copiedTable() {
+        Table t = table;
+        Table next;
+        while ((next = t.next) != null) {
+            finishCopy(t);
+            t = next;
+        }
+        return t;
+    }
+
+    /**
+     * Returns the value of the key in the given table or the tables, which replace it,
+     * or {@code absentResult}, if the key is absent.
+     *
+     * @param presence if not {@code null}, is marked present, if the key is present
+     */
+    private static long lookup(Table t, long key, long absentResult,
+            @Nullable Presence presence) {
+        retry:
+        for (;;) {
+            int index;
+            if (key == FREE_KEY) {
+                index = t.capacity();
+            } else {
+                long[] keys = t.keys;
+                int mask = t.mask;
+                index = hash(key) & mask;
+                int reprobeLimit = t.reprobeLimit();
+                for (int probes = 0;; probes++) {
+                    long cur = keyAt(keys, index);
+                    if (cur == key)
+                        break;
+                    if (cur == FREE_KEY) {
+                        if (valueAt(t.vals, index) != t.tombprime)
+                            return absentResult;
+                        // the slot is killed, the key could be inserted into the next table
+                        t = t.next;
+                        continue retry;
+                    }
+                    if (probes >= reprobeLimit) {
+                        if ((t = t.next) == null)
+                            return absentResult;
+                        continue retry;
+                    }
+                    index = (index + 1) & mask;
+                }
+            }
+            long value = valueAt(t.vals, index);
+            if (t.isSentinel(value)) {
+                if (t.isAbsent(value))
+                    return absentResult;
+                // the value could be updated in the next table already
+                awaitCopy(t, index);
+                t = t.next;
+                continue;
+            }
+            if (presence != null)
+                presence.present = true;
+            return value;
+        }
+    }
+
+    /**
+     * Performs the operation in the given table or the tables, which replace it.
+     *
+     * @param presence if not {@code null}, is marked present, if the returned value
+     *        isn't {@code absentResult}
+     * @return the new value for {@link #INCREMENT} and following operations, the previous
+     *         value for others, {@code absentResult} if the key is absent; {@code 0}
+     *         for {@link #COPY}
+     */
+    private long update(Table t, long key, int op, long value, long other,
+            @Nullable Object function, long absentResult, @Nullable Presence presence) {
+        boolean insert = op != REPLACE && op != REPLACE_IF_MATCH && op != REMOVE &&
+                op != REMOVE_IF_MATCH && op != COMPUTE_IF_PRESENT &&
+                op != BOXED_COMPUTE_IF_PRESENT;
+        retry:
+        for (;;) {
+            long[] vals = t.vals;
+            int index;
+            if (key == FREE_KEY) {
+                index = t.capacity();
+            } else {
+                long[] keys = t.keys;
+                int mask = t.mask;
+                index = hash(key) & mask;
+                int reprobeLimit = t.reprobeLimit();
+                for (int probes = 0;; probes++) {
+                    long cur = keyAt(keys, index);
+                    if (cur == FREE_KEY) {
+                        if (!insert) {
+                            if (valueAt(vals, index) != t.tombprime)
+                                return absentResult;
+                            t = t.next;
+                            continue retry;
+                        }
+                        if (casKey(keys, index, FREE_KEY, key)) {
+                            if (addInt(t, Table.SLOTS_OFFSET, 1) >= t.maxSlots())
+                                resize(t, 0L);
+                            break;
+                        }
+                        // the slot is just claimed, possibly for the same key
+                        cur = keyAt(keys, index);
+                    }
+                    if (cur == key)
+                        break;
+                    if (probes >= reprobeLimit) {
+                        Table next = t.next;
+                        if (next == null) {
+                            if (!insert)
+                                return absentResult;
+                            next = resize(t, 0L);
+                        }
+                        helpCopy(t);
+                        t = next;
+                        continue retry;
+                    }
+                    index = (index + 1) & mask;
+                }
+            }
+            long cur = valueAt(vals, index);
+            for (;;) {
+                Table next;
+                if ((next = t.next) != null) {
+                    // the update goes to the next table, after the current value
+                    if (copySlot(t, index))
+                        addCopied(t, 1);
+                    helpCopy(t);
+                    t = next;
+                    continue retry;
+                }
+                long newValue = newValue(t, op, key, cur, value, other, function);
+                if (newValue == t.primed) {
+                    // the new value is a sentinel of this table
+                    resize(t, 0L);
+                    continue;
+                }
+                if (newValue == cur || casValue(vals, index, cur, newValue)) {
+                    if (op == COPY)
+                        return 0L;
+                    updateSize(t, cur, newValue);
+                    long result = op >= INCREMENT ? newValue : cur;
+                    if (t.isAbsent(result))
+                        return absentResult;
+                    if (presence != null)
+                        presence.present = true;
+                    return result;
+                }
+                // either updated concurrently, or primed
+                cur = valueAt(vals, index);
+            }
+        }
+    }
+
+    private long update(long key, int op, long value, long other, @Nullable Object function,
+            long absentResult) {
+        return update(table, key, op, value, other, function, absentResult, null);
+    }
+
+    /**
+     * Performs the operation of the {@code Map} interface, which returns {@code null}
+     * if the key is absent.
+     */
+    private Long boxedUpdate(long key, int op, long value, @Nullable Object function) {
+        Presence presence = new Presence();
+        long result = update(table, key, op, value, 0L, function, 0L, presence);
+        return presence.present ? Long.valueOf(result) : null;
+    }
+
+    private static long checkValue(Long value) {
+        if (value == null)
+            throw new java.lang.NullPointerException();
+        return value.longValue();
+    }
+
+
+    @Override
+    public long defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        // updates of the size lag behind updates of values,
+        // so it could be negative for a moment
+        return Math.max(size, 0L);
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        boolean resized = false;
+        Table t;
+        while (minSize > (long) (t = copiedTable()).maxSlots()) {
+            resize(t, minSize);
+            finishCopy(t);
+            resized = true;
+        }
+        return resized;
+    }
+
+    @Override
+    public boolean shrink() {
+        Table t = copiedTable();
+        long size = sizeAsLong();
+        if (capacityFor(size) >= t.capacity() && (long) t.slots <= size)
+            return false;
+        resize(t, 0L);
+        finishCopy(t);
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        Presence presence = new Presence();
+        lookup(table, key, 0L, presence);
+        return presence.present;
+    }
+
+    @Override
+    public boolean containsEntry(long key, long value) {
+        return lookup(table, key, ~value, null) == value;
+    }
+
+    @Override
+    public Long get(Object key) {
+        Presence presence = new Presence();
+        long value = lookup(table, ((Long) key).longValue(), 0L, presence);
+        return presence.present ? Long.valueOf(value) : null;
+    }
+
+    @Override
+    public long get(long key) {
+        return lookup(table, key, defaultValue, null);
+    }
+
+    @Override
+    public Long getOrDefault(Object key, Long defaultValue) {
+        Presence presence = new Presence();
+        long value = lookup(table, ((Long) key).longValue(), 0L, presence);
+        return presence.present ? Long.valueOf(value) : defaultValue;
+    }
+
+    @Override
+    public long getOrDefault(long key, long defaultValue) {
+        return lookup(table, key, defaultValue, null);
+    }
+
+    @Override
+    public Long put(Long key, Long value) {
+        return boxedUpdate(key.longValue(), PUT, checkValue(value), null);
+    }
+
+    @Override
+    public long put(long key, long value) {
+        return update(key, PUT, value, 0L, null, defaultValue);
+    }
+
+    @Override
+    public Long putIfAbsent(Long key, Long value) {
+        return boxedUpdate(key.longValue(), PUT_IF_ABSENT, checkValue(value), null);
+    }
+
+    @Override
+    public long putIfAbsent(long key, long value) {
+        return update(key, PUT_IF_ABSENT, value, 0L, null, defaultValue);
+    }
+
+    @Override
+    public Long replace(Long key, Long value) {
+        return boxedUpdate(key.longValue(), REPLACE, checkValue(value), null);
+    }
+
+    @Override
+    public long replace(long key, long value) {
+        return update(key, REPLACE, value, 0L, null, defaultValue);
+    }
+
+    @Override
+    public boolean replace(long key, long oldValue, long newValue) {
+        // the previous value, or not the old value, if the key is absent
+        return update(key, REPLACE_IF_MATCH, newValue, oldValue, null, ~oldValue) == oldValue;
+    }
+
+    @Override
+    public Long remove(Object key) {
+        return boxedUpdate(((Long) key).longValue(), REMOVE, 0L, null);
+    }
+
+    @Override
+    public long remove(long key) {
+        return update(key, REMOVE, 0L, 0L, null, defaultValue);
+    }
+
+    @Override
+    public boolean remove(long key, long value) {
+        return update(key, REMOVE_IF_MATCH, 0L, value, null, ~value) == value;
+    }
+
+    @Override
+    public Long compute(Long key,
+            BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return boxedUpdate(key.longValue(), BOXED_COMPUTE, 0L, remappingFunction);
+    }
+
+    @Override
+    public long compute(long key, LongLongToLongFunction remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return update(key, COMPUTE, 0L, defaultValue, remappingFunction, defaultValue);
+    }
+
+    @Override
+    public Long computeIfAbsent(Long key, Function<? super Long, ? extends Long> mappingFunction) {
+        if (mappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return boxedUpdate(key.longValue(), BOXED_COMPUTE_IF_ABSENT, 0L, mappingFunction);
+    }
+
+    @Override
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return update(key, COMPUTE_IF_ABSENT, 0L, 0L, mappingFunction, defaultValue);
+    }
+
+    @Override
+    public Long computeIfPresent(Long key,
+            BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return boxedUpdate(key.longValue(), BOXED_COMPUTE_IF_PRESENT, 0L, remappingFunction);
+    }
+
+    @Override
+    public long computeIfPresent(long key, LongLongToLongFunction remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return update(key, COMPUTE_IF_PRESENT, 0L, 0L, remappingFunction, defaultValue);
+    }
+
+    @Override
+    public Long merge(Long key, Long value,
+            BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return boxedUpdate(key.longValue(), BOXED_MERGE, value.longValue(), remappingFunction);
+    }
+
+    @Override
+    public long merge(long key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        return update(key, MERGE, value, 0L, remappingFunction, defaultValue);
+    }
+
+    @Override
+    public long incrementValue(long key, long increment) {
+        return incrementValue(key, increment, defaultValue);
+    }
+
+    @Override
+    public long incrementValue(long key, long increment, long defaultValue) {
+        return update(key, INCREMENT, increment, defaultValue, null, defaultValue);
+    }
+
+    @Override
+    public void forEach(@Nonnull LongLongConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        new TableCursor().forEachForward(action);
+    }
+
+    @Nonnull
+    @Override
+    public LongLongCursor cursor() {
+        return new TableCursor();
+    }
+
+    @Override
+    public void clear() {
+        update(FREE_KEY, REMOVE, 0L, 0L, null, 0L);
+        Table t = copiedTable();
+        long[] keys = t.keys;
+        for (int i = 0; i <= t.mask; i++) {
+            long key;
+            if ((key = keyAt(keys, i)) != FREE_KEY)
+                update(key, REMOVE, 0L, 0L, null, 0L);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public HashLongLongMap snapshot() {
+        final MutableDHashLongLongMapGO snapshot = factory.newMutableMap(size());
+        forEach(new LongLongConsumer() {
+            @Override
+            public void accept(long key, long value) {
+                snapshot.put(key, value);
+            }
+        });
+        return snapshot;
+    }
+
+
+    /**
+     * Traverses the key {@code 0}, then the keys of the newest table at the moment
+     * of creation, in descending order of slots. Values are read from the table, which
+     * holds the key at the moment of {@link #moveNext()}.
+     */
+    class TableCursor implements LongLongCursor {
+        final Table table;
+        final Presence presence = new Presence();
+        int index;
+        long curKey;
+        long curValue;
+        boolean pointing;
+
+        TableCursor() {
+            table = copiedTable();
+            index = table.vals.length;
+        }
+
+        @Override
+        public void forEachForward(LongLongConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (moveNext()) {
+                action.accept(curKey, curValue);
+            }
+        }
+
+        @Override
+        public long key() {
+            checkPointing();
+            return curKey;
+        }
+
+        @Override
+        public long value() {
+            checkPointing();
+            return curValue;
+        }
+
+        @Override
+        public void setValue(long value) {
+            checkPointing();
+            put(curKey, value);
+            curValue = value;
+        }
+
+        @Override
+        public boolean moveNext() {
+            Table t = table;
+            long[] keys = t.keys;
+            int capacity = t.capacity();
+            for (int i = index - 1; i >= 0; i--) {
+                long key;
+                if (i == capacity) {
+                    key = FREE_KEY;
+                } else if ((key = keyAt(keys, i)) == FREE_KEY) {
+                    continue;
+                }
+                long value = valueAt(t.vals, i);
+                if (t.isSentinel(value)) {
+                    if (t.isAbsent(value))
+                        continue;
+                    // the value could be updated in the next table
+                    Presence presence = this.presence;
+                    presence.present = false;
+                    value = lookup(t, key, 0L, presence);
+                    if (!presence.present)
+                        continue;
+                }
+                index = i;
+                curKey = key;
+                curValue = value;
+                return pointing = true;
+            }
+            index = 0;
+            return pointing = false;
+        }
+
+        @Override
+        public void remove() {
+            checkPointing();
+            NonBlockingLHashLongLongMap.this.remove(curKey);
+            pointing = false;
+        }
+
+        private void checkPointing() {
+            if (!pointing)
+                throw new IllegalStateException();
+        }
+    }
+}
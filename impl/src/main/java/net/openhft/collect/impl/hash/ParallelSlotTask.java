@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.Math.max;
+
+
+/**
+ * A fork/join task, processing a range of slots of a hash table. The range is split
+ * in halves until it becomes shorter than the threshold, then each part is processed
+ * by {@link #processRange(int, int)}. Parts never overlap, so the tasks could write
+ * to the slots of their parts without synchronization. The results of the parts,
+ * e. g. the numbers of removed slots, are summed up. If a part fails, the task completes
+ * exceptionally only after all its parts are finished, so the table isn't written
+ * concurrently after {@link #invoke(ParallelSlotTask)} throws.
+ *
+ * <p>The range could also index any other independent parts of work, e. g. partitions
+ * of the input of {@link CharShortAggregation}, with the threshold of 1.
+ */
+abstract class ParallelSlotTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Tables smaller than this are processed in the calling thread, the parts of bigger
+     * tables are never smaller than this, forking costs more than scanning such a part.
+     */
+    private static final int MIN_RANGE = 8192;
+
+    /**
+     * Java 6 and 7 don't have the common pool, lazily initialized pool of the default
+     * parallelism is shared by all hash containers instead.
+     */
+    private static class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Processes the slots of a table of the given capacity by the given task, either
+     * in the calling thread, if the table is small, or in the shared pool.
+     *
+     * @param rootTask the task, covering {@code [0, capacity)} range
+     * @return the sum of the results of all parts
+     */
+    static int invoke(ParallelSlotTask rootTask) {
+        if (rootTask.to - rootTask.from <= rootTask.threshold)
+            return rootTask.processRange(rootTask.from, rootTask.to);
+        return PoolHolder.POOL.invoke(rootTask);
+    }
+
+    /**
+     * Returns the parallelism of the shared pool.
+     */
+    static int parallelism() {
+        return PoolHolder.POOL.getParallelism();
+    }
+
+    /**
+     * Returns the part length, that gives each worker of the pool a few parts
+     * to steal.
+     */
+    static int threshold(int capacity) {
+        if (capacity <= MIN_RANGE)
+            return MIN_RANGE; // don't start the pool for small tables
+        return max(MIN_RANGE, capacity / (PoolHolder.POOL.getParallelism() * 4));
+    }
+
+    final int from, to, threshold;
+
+    ParallelSlotTask(int from, int to, int threshold) {
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a task of the same kind, processing the given subrange.
+     */
+    abstract ParallelSlotTask subTask(int from, int to);
+
+    /**
+     * Processes the slots from {@code from}, inclusive, to {@code to}, exclusive.
+     */
+    abstract int processRange(int from, int to);
+
+    @Override
+    protected final Integer compute() {
+        if (to - from <= threshold)
+            return processRange(from, to);
+        int mid = (from + to) >>> 1;
+        ParallelSlotTask left = subTask(from, mid);
+        left.fork();
+        int rightResult;
+        boolean rightCompleted = false;
+        try {
+            rightResult = subTask(mid, to).compute();
+            rightCompleted = true;
+        } finally {
+            // The left part mustn't write to the table after the failure is rethrown
+            if (!rightCompleted)
+                left.quietlyJoin();
+        }
+        return rightResult + left.join();
+    }
+}
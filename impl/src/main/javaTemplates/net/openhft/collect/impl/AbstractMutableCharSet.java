@@ -0,0 +1,416 @@
+/* with
+ char|byte|short|int|long|float|double|obj elem
+ Mutable|Immutable mutability
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import net.openhft.collect.*;
+import net.openhft.collect.set.CharSet;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+
+
+/**
+ * Implements the boxing methods and the bulk operations of a set on top of the primitive
+ * lookups and the cursor of the set, for sets, which tables aren't {@code DHash} arrays,
+ * like off-heap sets.
+ /* if obj elem */
+ * Elements are compared by {@link Object#equals(Object)}.
+ /* endif */
+ *
+ /* if Mutable mutability */
+ * <p>A subclass should implement {@link #contains(/* raw */char)}, {@link #add(/* raw */char)},
+ * {@link #remove/* if !(obj elem) */Char/* endif */(/* raw */char)}, {@link #cursor()},
+ * {@link #sizeAsLong()}, {@link #clear()} and the capacity methods, bulk removals remove
+ * elements via the cursor of the set.
+ /* elif Immutable mutability //
+ * <p>A subclass should implement {@link #contains(// raw //char)}, {@link #cursor()}
+ * and {@link #sizeAsLong()}. All the methods, which would change the set, throw
+ * {@code UnsupportedOperationException}.
+ // endif */
+ */
+public abstract class AbstractMutableCharSet/*<>*/
+        implements CharSet/*<>*/, InternalCharCollectionOps/*<>*/ {
+
+    /* if obj elem */
+    @Override
+    public Equivalence<Character> equivalence() {
+        return null;
+    }
+    /* endif */
+
+    @Override
+    public int size() {
+        return Containers.sizeAsInt(sizeAsLong());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sizeAsLong() == 0L;
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public boolean contains(Object o) {
+        return contains(((Character) o).charValue());
+    }
+
+    /* if float|double elem */
+    @Override
+    public boolean contains(/* bits */char bits) {
+        return contains(/* wrap elem */bits);
+    }
+    /* endif */
+    /* endif */
+
+    @Override
+    public final boolean containsAll(@Nonnull Collection<?> c) {
+        return CommonCharCollectionOps.containsAll(this, c);
+    }
+
+    /* if obj elem || JDK8 jdk //@Override// endif */
+    public void forEach(Consumer<? super Character> action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            action.accept(cur.elem());
+        }
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public void forEach(CharConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        cursor().forEachForward(action);
+    }
+    /* endif */
+
+    @Override
+    public boolean forEachWhile(
+            /* if !(obj elem) */CharPredicate/* elif obj elem //Predicate// endif *//*<super>*/
+            predicate) {
+        if (predicate == null)
+            throw new java.lang.NullPointerException();
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (!predicate.test(cur.elem()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean allContainingIn(CharCollection/*<?>*/ c) {
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (!c.contains(cur.elem()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean reverseAddAllTo(CharCollection/*<super>*/ c) {
+        boolean changed = false;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            changed |= c.add(cur.elem());
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean reverseRemoveAllFrom(CharSet/*<?>*/ s) {
+        boolean changed = false;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            changed |= s.remove/* if !(obj elem) */Char/* endif */(cur.elem());
+        }
+        return changed;
+    }
+
+    @Override
+    @Nonnull
+    public CharIterator/*<>*/ iterator() {
+        return new ElemIterator();
+    }
+
+    @Override
+    @Nonnull
+    public Object[] toArray() {
+        Object[] result = new Object[size()];
+        int i = 0;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            result[i++] = cur.elem();
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <T> T[] toArray(@Nonnull T[] a) {
+        int size = size();
+        if (a.length < size) {
+            Class<?> elementType = a.getClass().getComponentType();
+            a = (T[]) java.lang.reflect.Array.newInstance(elementType, size);
+        }
+        int i = 0;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            a[i++] = (T) /* if !(obj elem) */(Character) /* endif */cur.elem();
+        }
+        if (a.length > i)
+            a[i] = null;
+        return a;
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public char[] toCharArray() {
+        return toArray(new char[size()]);
+    }
+
+    @Override
+    public char[] toArray(char[] a) {
+        int size = size();
+        if (a.length < size)
+            a = new char[size];
+        int i = 0;
+        for (CharCursor cur = cursor(); cur.moveNext();) {
+            a[i++] = cur.elem();
+        }
+        if (a.length > i)
+            a[i] = (char) 0;
+        return a;
+    }
+
+    @Override
+    @Deprecated
+    public boolean add(Character e) {
+        return add(e.charValue());
+    }
+
+    /* if float|double elem */
+    @Override
+    public boolean add(/* bits */char bits) {
+        return add(/* wrap elem */bits);
+    }
+    /* endif */
+    /* endif */
+
+    @Override
+    public boolean addAll(@Nonnull Collection<? extends Character> c) {
+        return CommonCharCollectionOps.addAll(this, c);
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public boolean remove(Object o) {
+        return removeChar(((Character) o).charValue());
+    }
+
+    /* if float|double elem */
+    @Override
+    public boolean removeChar(/* bits */char bits) {
+        return removeChar(/* wrap elem */bits);
+    }
+    /* endif */
+    /* endif */
+
+    /* if obj elem || JDK8 jdk //@Override// endif */
+    public boolean removeIf(Predicate<? super Character> filter) {
+        if (filter == null)
+            throw new java.lang.NullPointerException();
+        boolean changed = false;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (filter.test(cur.elem())) {
+                cur.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public boolean removeIf(CharPredicate filter) {
+        if (filter == null)
+            throw new java.lang.NullPointerException();
+        boolean changed = false;
+        for (CharCursor cur = cursor(); cur.moveNext();) {
+            if (filter.test(cur.elem())) {
+                cur.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+    /* endif */
+
+    @Override
+    public boolean removeAll(@Nonnull Collection<?> c) {
+        if (c == null)
+            throw new java.lang.NullPointerException();
+        boolean changed = false;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (c.contains(cur.elem())) {
+                cur.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        if (c == null)
+            throw new java.lang.NullPointerException();
+        boolean changed = false;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (!c.contains(cur.elem())) {
+                cur.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return CommonSetOps.equals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            hashCode += /* if !(obj elem) */Primitives.hashCode(cur.elem())
+                    /* elif obj elem //NullableObjects.hashCode(cur.elem())// endif */;
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('[');
+        for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (sb.length() > 1)
+                sb.append(',').append(' ');
+            /* if obj elem */
+            Object elem = cur.elem();
+            sb.append(elem != this ? elem : "(this Collection)");
+            /* elif !(obj elem) */
+            sb.append(cur.elem());
+            /* endif */
+        }
+        return sb.append(']').toString();
+    }
+
+
+    /* if Immutable mutability */
+    @Override
+    public final boolean ensureCapacity(long minSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean shrink() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean add(char e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean remove/* if !(obj elem) */Char/* endif */(/* raw */char e) {
+        throw new UnsupportedOperationException();
+    }
+    /* endif */
+
+
+    /**
+     * Doesn't look ahead, so {@link #remove()} could be done by the cursor of the set after
+     * {@link #hasNext()} calls. Concurrent modifications are detected by the cursor.
+     */
+    class ElemIterator implements CharIterator/*<>*/ {
+        final CharCursor/*<>*/ cur = cursor();
+        long remaining = sizeAsLong();
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L;
+        }
+
+        /* if !(obj elem) */
+        @Override
+        public char nextChar() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return cur.elem();
+        }
+
+        @Override
+        public Character next() {
+            return nextChar();
+        }
+        /* elif obj elem //
+        @Override
+        public E next() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return cur.elem();
+        }
+        // endif */
+
+        /* if obj elem || JDK8 jdk //@Override// endif */
+        public void forEachRemaining(Consumer<? super Character> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.elem());
+            }
+        }
+
+        /* if !(obj elem) */
+        @Override
+        public void forEachRemaining(CharConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.elem());
+            }
+        }
+        /* endif */
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+}
@@ -0,0 +1,1553 @@
+/* with
+ char|byte|short|int|long|float|double|obj key
+ short|byte|char|int|long|float|double value
+ Mutable|Immutable mutability
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import net.openhft.collect.*;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.set.CharSet;
+import net.openhft.collect.set.ObjSet;
+import net.openhft.collect.set.ShortSet;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.util.*;
+
+
+/**
+ * Implements the boxing methods, the compound operations and the views of a map on top
+ * of the primitive lookups and the cursor of the map, for maps, which tables
+ * aren't {@code DHash} arrays, like off-heap maps. The compound operations look up the key
+ * twice, the maps should override the ones, which they could do better.
+ /* if obj key */
+ * Keys are compared by {@link Object#equals(Object)}.
+ /* endif */
+ *
+ /* if Mutable mutability */
+ * <p>A subclass should implement {@link #put(char, short)},
+ * {@link #remove/* if obj key //AsShort// endif */(/* raw */char)}, {@link #clear()}
+ * and the capacity methods, views remove entries via the cursor of the map.
+ /* elif Immutable mutability //
+ * <p>All the methods, which would change the map, and the same methods of the views
+ * throw {@code UnsupportedOperationException}.
+ // endif */
+ */
+public abstract class AbstractMutableCharShortMap/*<>*/
+        implements InternalCharShortMapOps/*<>*/ {
+
+    /* define valueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //$Short// endif */
+    /* enddefine */
+
+    /* define asValueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //AsShort// endif */
+    /* enddefine */
+
+    /* if obj key */
+    @Override
+    public Equivalence<Character> keyEquivalence() {
+        return null;
+    }
+    /* endif */
+
+    @Override
+    public int size() {
+        return Containers.sizeAsInt(sizeAsLong());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sizeAsLong() == 0L;
+    }
+
+    /* if !(obj key) */
+    @Override
+    public boolean containsKey(Object key) {
+        return containsKey(((Character) key).charValue());
+    }
+    /* endif */
+
+    @Override
+    public boolean containsValue(Object value) {
+        return containsValue(((Short) value).shortValue());
+    }
+
+    @Override
+    public boolean containsValue(short value) {
+        /* bits */short v = /* unwrap value */value;
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (/* unwrap value */cur.value()/**/ == v)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsEntry(/* raw */char key, /* raw */short value) {
+        if (!containsKey(key))
+            return false;
+        short v = get/* valueSuffix */(key);
+        return /* unwrap value */v/**/ == /* unwrap value */value/**/;
+    }
+
+    /* if float|double key || float|double value */
+    @Override
+    public boolean containsEntry(/* bits *//* raw */char key, /* bits *//* raw */short value) {
+        return containsEntry(/* wrap key */key/**/, /* wrap value */value/**/);
+    }
+    /* endif */
+
+    @Override
+    public Short get(Object key) {
+        /* if !(obj key) */
+        char k = ((Character) key).charValue();
+        return containsKey(k) ? get(k) : null;
+        /* elif obj key */
+        return containsKey(key) ? get/* valueSuffix */(key) : null;
+        /* endif */
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short getOrDefault(Object key, Short defaultValue) {
+        /* if !(obj key) */
+        char k = ((Character) key).charValue();
+        return containsKey(k) ? get(k) : defaultValue;
+        /* elif obj key */
+        return containsKey(key) ? get/* valueSuffix */(key) : defaultValue;
+        /* endif */
+    }
+
+    @Override
+    public short getOrDefault(/* raw */char key, short defaultValue) {
+        return containsKey(key) ? get/* valueSuffix */(key) : defaultValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public void forEach(BiConsumer<? super Character, ? super Short> action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            action.accept(cur.key(), cur.value());
+        }
+    }
+
+    @Override
+    public void forEach(/*f*/CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        cursor().forEachForward(action);
+    }
+
+    @Override
+    public boolean forEachWhile(/*f*/CharShortPredicate predicate) {
+        if (predicate == null)
+            throw new java.lang.NullPointerException();
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (!predicate.test(cur.key(), cur.value()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsAllEntries(Map<?, ?> m) {
+        return CommonCharShortMapOps.containsAllEntries(this, m);
+    }
+
+    @Override
+    public boolean allEntriesContainingIn(InternalCharShortMapOps/*<?>*/ m) {
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (!m.containsEntry(cur.key(), cur.value()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void reversePutAllTo(InternalCharShortMapOps/*<super>*/ m) {
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            m.justPut(cur.key(), cur.value());
+        }
+    }
+
+    @Override
+    @Nonnull
+    public CharSet/*<>*/ keySet() {
+        return new KeyView();
+    }
+
+    @Override
+    @Nonnull
+    public ShortCollection values() {
+        return new ValueView();
+    }
+
+    @Override
+    @Nonnull
+    public ObjSet<Map.Entry<Character, Short>> entrySet() {
+        return new EntryView();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return CommonMapOps.equals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            hashCode += /* if !(obj key) */Primitives.hashCode(cur.key())
+                    /* elif obj key //NullableObjects.hashCode(cur.key())// endif */ ^
+                    Primitives.hashCode(cur.value());
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (sb.length() > 1)
+                sb.append(',').append(' ');
+            /* if obj key */
+            Object key = cur.key();
+            sb.append(key != this ? key : "(this Map)");
+            /* elif !(obj key) */
+            sb.append(cur.key());
+            /* endif */
+            sb.append('=').append(cur.value());
+        }
+        return sb.append('}').toString();
+    }
+
+
+    /* if Immutable mutability */
+    @Override
+    public final boolean ensureCapacity(long minSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean shrink() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final short put(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final short remove/* asValueSuffix */(/* raw */char key) {
+        throw new UnsupportedOperationException();
+    }
+    /* endif */
+
+    @Override
+    public void justPut(char key, short value) {
+        put(key, value);
+    }
+
+    /* if float|double key || float|double value */
+    @Override
+    public void justPut(/* bits */char key, /* bits */short value) {
+        put(/* wrap key */key/**/, /* wrap value */value/**/);
+    }
+    /* endif */
+
+    @Override
+    public Short put(Character key, Short value) {
+        boolean present = containsKey(key);
+        short oldValue = put(key/* if !(obj key) */.charValue()/* endif */, value.shortValue());
+        return present ? oldValue : null;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short putIfAbsent(Character key, Short value) {
+        if (containsKey(key))
+            return get/* valueSuffix */(key/* if !(obj key) */.charValue()/* endif */);
+        put(key/* if !(obj key) */.charValue()/* endif */, value.shortValue());
+        return null;
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        if (containsKey(key))
+            return get/* valueSuffix */(key);
+        put(key, value);
+        return defaultValue();
+    }
+
+    @Override
+    public void putAll(@Nonnull Map<? extends Character, ? extends Short> m) {
+        /* if Mutable mutability */
+        CommonCharShortMapOps.putAll(this, m);
+        /* elif Immutable mutability //
+        throw new UnsupportedOperationException();
+        // endif */
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short compute(Character key,
+            BiFunction<? super Character, ? super Short, ? extends Short> remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        boolean present = containsKey(key);
+        Short newValue = remappingFunction.apply(key,
+                present ? get/* valueSuffix */(key/* if !(obj key) */.charValue()/* endif */) :
+                        null);
+        if (newValue != null) {
+            put(key/* if !(obj key) */.charValue()/* endif */, newValue.shortValue());
+        } else if (present) {
+            remove/* asValueSuffix */(key/* if !(obj key) */.charValue()/* endif */);
+        }
+        return newValue;
+    }
+
+    @Override
+    public short compute(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        short newValue = remappingFunction.applyAsShort(key,
+                containsKey(key) ? get/* valueSuffix */(key) : defaultValue());
+        put(key, newValue);
+        return newValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short computeIfAbsent(Character key,
+            Function<? super Character, ? extends Short> mappingFunction) {
+        if (mappingFunction == null)
+            throw new java.lang.NullPointerException();
+        if (containsKey(key))
+            return get/* valueSuffix */(key/* if !(obj key) */.charValue()/* endif */);
+        Short value = mappingFunction.apply(key);
+        if (value != null)
+            put(key/* if !(obj key) */.charValue()/* endif */, value.shortValue());
+        return value;
+    }
+
+    @Override
+    public short computeIfAbsent(char key, /*f*/CharToShortFunction mappingFunction) {
+        if (mappingFunction == null)
+            throw new java.lang.NullPointerException();
+        if (containsKey(key))
+            return get/* valueSuffix */(key);
+        short value = mappingFunction.applyAsShort(key);
+        put(key, value);
+        return value;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short computeIfPresent(Character key,
+            BiFunction<? super Character, ? super Short, ? extends Short> remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        if (!containsKey(key))
+            return null;
+        Short newValue = remappingFunction.apply(key,
+                get/* valueSuffix */(key/* if !(obj key) */.charValue()/* endif */));
+        if (newValue != null) {
+            put(key/* if !(obj key) */.charValue()/* endif */, newValue.shortValue());
+        } else {
+            remove/* asValueSuffix */(key/* if !(obj key) */.charValue()/* endif */);
+        }
+        return newValue;
+    }
+
+    @Override
+    public short computeIfPresent(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        if (!containsKey(key))
+            return defaultValue();
+        short newValue = remappingFunction.applyAsShort(key, get/* valueSuffix */(key));
+        put(key, newValue);
+        return newValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short merge(Character key, Short value,
+            BiFunction<? super Short, ? super Short, ? extends Short> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        Short newValue = containsKey(key) ? remappingFunction.apply(
+                get/* valueSuffix */(key/* if !(obj key) */.charValue()/* endif */), value) :
+                value;
+        if (newValue != null) {
+            put(key/* if !(obj key) */.charValue()/* endif */, newValue.shortValue());
+        } else {
+            remove/* asValueSuffix */(key/* if !(obj key) */.charValue()/* endif */);
+        }
+        return newValue;
+    }
+
+    @Override
+    public short merge(char key, short value, /*f*/ShortBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new java.lang.NullPointerException();
+        short newValue = containsKey(key) ?
+                remappingFunction.applyAsShort(get/* valueSuffix */(key), value) : value;
+        put(key, newValue);
+        return newValue;
+    }
+
+    @Override
+    public short incrementValue(char key, short increment) {
+        return incrementValue(key, increment, defaultValue());
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        short newValue = (short) ((containsKey(key) ? get/* valueSuffix */(key) : defaultValue) +
+                increment);
+        put(key, newValue);
+        return newValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short replace(Character key, Short value) {
+        if (!containsKey(key))
+            return null;
+        return put(key/* if !(obj key) */.charValue()/* endif */, value.shortValue());
+    }
+
+    @Override
+    public short replace(char key, short value) {
+        return containsKey(key) ? put(key, value) : defaultValue();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public boolean replace(Character key, Short oldValue, Short newValue) {
+        return replace(key/* if !(obj key) */.charValue()/* endif */,
+                oldValue.shortValue(), newValue.shortValue());
+    }
+
+    @Override
+    public boolean replace(char key, short oldValue, short newValue) {
+        if (containsEntry(key, oldValue)) {
+            put(key, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public void replaceAll(
+            BiFunction<? super Character, ? super Short, ? extends Short> function) {
+        if (function == null)
+            throw new java.lang.NullPointerException();
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            cur.setValue(function.apply(cur.key(), cur.value()));
+        }
+    }
+
+    @Override
+    public void replaceAll(/*f*/CharShortToShortFunction function) {
+        if (function == null)
+            throw new java.lang.NullPointerException();
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            cur.setValue(function.applyAsShort(cur.key(), cur.value()));
+        }
+    }
+
+    @Override
+    public Short remove(Object key) {
+        /* if !(obj key) */
+        char k = ((Character) key).charValue();
+        return containsKey(k) ? remove(k) : null;
+        /* elif obj key */
+        return containsKey(key) ? remove/* asValueSuffix */(key) : null;
+        /* endif */
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public boolean remove(Character key, Short value) {
+        return remove(key/* if !(obj key) */.charValue()/* endif */, value.shortValue());
+    }
+
+    @Override
+    public boolean remove(/* raw */char key, /* raw */short value) {
+        if (containsEntry(key, value)) {
+            remove/* asValueSuffix */(key);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeIf(/*f*/CharShortPredicate filter) {
+        if (filter == null)
+            throw new java.lang.NullPointerException();
+        boolean changed = false;
+        for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+            if (filter.test(cur.key(), cur.value())) {
+                cur.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+
+    class KeyView extends AbstractCharKeyView/*<>*/ {
+
+        /* if obj key */
+        @Override
+        public Equivalence<Character> equivalence() {
+            return keyEquivalence();
+        }
+        /* endif */
+
+        @Override
+        public long sizeAsLong() {
+            return AbstractMutableCharShortMap.this.sizeAsLong();
+        }
+
+        @Override
+        public int size() {
+            return AbstractMutableCharShortMap.this.size();
+        }
+
+        @Override
+        public boolean shrink() {
+            return AbstractMutableCharShortMap.this.shrink();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        /* if !(obj key) */
+        @Override
+        public boolean contains(char key) {
+            return containsKey(key);
+        }
+
+        /* if float|double key */
+        @Override
+        public boolean contains(/* bits */char bits) {
+            return containsKey(/* wrap key */bits);
+        }
+        /* endif */
+        /* endif */
+
+        /* if obj key || JDK8 jdk //@Override// endif */
+        public void forEach(Consumer<? super Character> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                action.accept(cur.key());
+            }
+        }
+
+        /* if !(obj key) */
+        @Override
+        public void forEach(CharConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                action.accept(cur.key());
+            }
+        }
+        /* endif */
+
+        @Override
+        public boolean forEachWhile(
+                /* if !(obj key) */CharPredicate/* elif obj key //Predicate// endif *//*<super>*/
+                predicate) {
+            if (predicate == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!predicate.test(cur.key()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean allContainingIn(CharCollection/*<?>*/ c) {
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!c.contains(cur.key()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean reverseAddAllTo(CharCollection/*<super>*/ c) {
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                changed |= c.add(cur.key());
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean reverseRemoveAllFrom(CharSet/*<?>*/ s) {
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                changed |= s.remove/* if !(obj key) */Char/* endif */(cur.key());
+            }
+            return changed;
+        }
+
+        @Override
+        @Nonnull
+        public CharIterator/*<>*/ iterator() {
+            return new KeyIterator();
+        }
+
+        @Override
+        @Nonnull
+        public CharCursor/*<>*/ cursor() {
+            return new KeyCursor();
+        }
+
+        @Override
+        @Nonnull
+        public Object[] toArray() {
+            Object[] result = new Object[size()];
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                result[i++] = cur.key();
+            }
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        public <T> T[] toArray(@Nonnull T[] a) {
+            int size = size();
+            if (a.length < size) {
+                Class<?> elementType = a.getClass().getComponentType();
+                a = (T[]) java.lang.reflect.Array.newInstance(elementType, size);
+            }
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                a[i++] = (T) /* if !(obj key) */(Character) /* endif */cur.key();
+            }
+            if (a.length > i)
+                a[i] = null;
+            return a;
+        }
+
+        /* if !(obj key) */
+        @Override
+        public char[] toCharArray() {
+            return toArray(new char[size()]);
+        }
+
+        @Override
+        public char[] toArray(char[] a) {
+            int size = size();
+            if (a.length < size)
+                a = new char[size];
+            int i = 0;
+            for (CharShortCursor cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                a[i++] = cur.key();
+            }
+            if (a.length > i)
+                a[i] = (char) 0;
+            return a;
+        }
+        /* endif */
+
+        @Override
+        public int hashCode() {
+            int hashCode = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                hashCode += /* if !(obj key) */Primitives.hashCode(cur.key())
+                        /* elif obj key //NullableObjects.hashCode(cur.key())// endif */;
+            }
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder().append('[');
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (sb.length() > 1)
+                    sb.append(',').append(' ');
+                sb.append(cur.key());
+            }
+            return sb.append(']').toString();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!containsKey(o))
+                return false;
+            /* if !(obj key) */
+            AbstractMutableCharShortMap.this.remove(((Character) o).charValue());
+            /* elif obj key */
+            AbstractMutableCharShortMap.this.remove/* asValueSuffix */(o);
+            /* endif */
+            return true;
+        }
+
+        /* if !(obj key) */
+        @Override
+        public boolean removeChar(char v) {
+            if (!containsKey(v))
+                return false;
+            AbstractMutableCharShortMap.this.remove(v);
+            return true;
+        }
+
+        /* if float|double key */
+        @Override
+        public boolean removeChar(/* bits */char bits) {
+            return removeChar(/* wrap key */bits);
+        }
+        /* endif */
+        /* endif */
+
+        /* if obj key || JDK8 jdk //@Override// endif */
+        public boolean removeIf(Predicate<? super Character> filter) {
+            if (filter == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (filter.test(cur.key())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /* if !(obj key) */
+        @Override
+        public boolean removeIf(CharPredicate filter) {
+            if (filter == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (filter.test(cur.key())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        /* endif */
+
+        @Override
+        public boolean removeAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (c.contains(cur.key())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean retainAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!c.contains(cur.key())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public void clear() {
+            AbstractMutableCharShortMap.this.clear();
+        }
+    }
+
+    class KeyCursor implements CharCursor/*<>*/ {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+
+        @Override
+        public void forEachForward(
+                /* if !(obj key) */CharConsumer/* elif obj key //Consumer// endif *//*<super>*/
+                action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (cur.moveNext()) {
+                action.accept(cur.key());
+            }
+        }
+
+        @Override
+        public char elem() {
+            return cur.key();
+        }
+
+        @Override
+        public boolean moveNext() {
+            return cur.moveNext();
+        }
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+    /**
+     * Doesn't look ahead, so {@link #remove()} could be done by the cursor of the map after
+     * {@link #hasNext()} calls. Concurrent modifications are detected by the cursor.
+     */
+    class KeyIterator implements CharIterator/*<>*/ {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+        long remaining = sizeAsLong();
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L;
+        }
+
+        /* if !(obj key) */
+        @Override
+        public char nextChar() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return cur.key();
+        }
+
+        @Override
+        public Character next() {
+            return nextChar();
+        }
+        /* elif obj key //
+        @Override
+        public K next() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return cur.key();
+        }
+        // endif */
+
+        /* if obj key || JDK8 jdk //@Override// endif */
+        public void forEachRemaining(Consumer<? super Character> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.key());
+            }
+        }
+
+        /* if !(obj key) */
+        @Override
+        public void forEachRemaining(CharConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.key());
+            }
+        }
+        /* endif */
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+
+    class ValueView extends AbstractShortValueView {
+
+        @Override
+        public long sizeAsLong() {
+            return AbstractMutableCharShortMap.this.sizeAsLong();
+        }
+
+        @Override
+        public int size() {
+            return AbstractMutableCharShortMap.this.size();
+        }
+
+        @Override
+        public boolean shrink() {
+            return AbstractMutableCharShortMap.this.shrink();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public boolean contains(short v) {
+            return containsValue(v);
+        }
+
+        /* if float|double value */
+        @Override
+        public boolean contains(/* bits */short bits) {
+            return containsValue(/* wrap value */bits);
+        }
+        /* endif */
+
+        /* if JDK8 jdk */@Override/* endif */
+        public void forEach(Consumer<? super Short> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                action.accept(cur.value());
+            }
+        }
+
+        @Override
+        public void forEach(ShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                action.accept(cur.value());
+            }
+        }
+
+        @Override
+        public boolean forEachWhile(ShortPredicate predicate) {
+            if (predicate == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!predicate.test(cur.value()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean allContainingIn(ShortCollection c) {
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!c.contains(cur.value()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean reverseAddAllTo(ShortCollection c) {
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                changed |= c.add(cur.value());
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean reverseRemoveAllFrom(ShortSet s) {
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                changed |= s.removeShort(cur.value());
+            }
+            return changed;
+        }
+
+        @Override
+        @Nonnull
+        public ShortIterator iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        @Nonnull
+        public ShortCursor cursor() {
+            return new ValueCursor();
+        }
+
+        @Override
+        @Nonnull
+        public Object[] toArray() {
+            Object[] result = new Object[size()];
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                result[i++] = cur.value();
+            }
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        public <T> T[] toArray(@Nonnull T[] a) {
+            int size = size();
+            if (a.length < size) {
+                Class<?> elementType = a.getClass().getComponentType();
+                a = (T[]) java.lang.reflect.Array.newInstance(elementType, size);
+            }
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                a[i++] = (T) Short.valueOf(cur.value());
+            }
+            if (a.length > i)
+                a[i] = null;
+            return a;
+        }
+
+        @Override
+        public short[] toShortArray() {
+            return toArray(new short[size()]);
+        }
+
+        @Override
+        public short[] toArray(short[] a) {
+            int size = size();
+            if (a.length < size)
+                a = new short[size];
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                a[i++] = cur.value();
+            }
+            if (a.length > i)
+                a[i] = (short) 0;
+            return a;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder().append('[');
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (sb.length() > 1)
+                    sb.append(',').append(' ');
+                sb.append(cur.value());
+            }
+            return sb.append(']').toString();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return removeShort(((Short) o).shortValue());
+        }
+
+        /**
+         * Removes the first entry with the value, in the order of the cursor.
+         */
+        @Override
+        public boolean removeShort(short v) {
+            /* bits */short bits = /* unwrap value */v;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (/* unwrap value */cur.value()/**/ == bits) {
+                    cur.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /* if float|double value */
+        @Override
+        public boolean removeShort(/* bits */short bits) {
+            return removeShort(/* wrap value */bits);
+        }
+        /* endif */
+
+        /* if JDK8 jdk */@Override/* endif */
+        public boolean removeIf(Predicate<? super Short> filter) {
+            if (filter == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (filter.test(cur.value())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean removeIf(ShortPredicate filter) {
+            if (filter == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (filter.test(cur.value())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean removeAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (c.contains(cur.value())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean retainAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!c.contains(cur.value())) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public void clear() {
+            AbstractMutableCharShortMap.this.clear();
+        }
+    }
+
+    class ValueCursor implements ShortCursor {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+
+        @Override
+        public void forEachForward(ShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (cur.moveNext()) {
+                action.accept(cur.value());
+            }
+        }
+
+        @Override
+        public short elem() {
+            return cur.value();
+        }
+
+        @Override
+        public boolean moveNext() {
+            return cur.moveNext();
+        }
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+    /**
+     * Like {@link KeyIterator}, doesn't look ahead.
+     */
+    class ValueIterator implements ShortIterator {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+        long remaining = sizeAsLong();
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L;
+        }
+
+        @Override
+        public short nextShort() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return cur.value();
+        }
+
+        @Override
+        public Short next() {
+            return nextShort();
+        }
+
+        /* if JDK8 jdk */@Override/* endif */
+        public void forEachRemaining(Consumer<? super Short> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.value());
+            }
+        }
+
+        @Override
+        public void forEachRemaining(ShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(cur.value());
+            }
+        }
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+
+    class EntryView extends AbstractSetView<Map.Entry<Character, Short>>
+            implements ObjSet<Map.Entry<Character, Short>> {
+
+        @Override
+        public Equivalence<Map.Entry<Character, Short>> equivalence() {
+            return null;
+        }
+
+        @Override
+        public long sizeAsLong() {
+            return AbstractMutableCharShortMap.this.sizeAsLong();
+        }
+
+        @Override
+        public int size() {
+            return AbstractMutableCharShortMap.this.size();
+        }
+
+        @Override
+        public boolean shrink() {
+            return AbstractMutableCharShortMap.this.shrink();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry e = (Map.Entry) o;
+            Object key = e.getKey(), value = e.getValue();
+            return /* if !(obj key) */key instanceof Character && /* endif */
+                    value instanceof Short &&
+                    containsEntry(/* if !(obj key) */((Character) key).charValue()
+                            /* elif obj key //key// endif */, ((Short) value).shortValue());
+        }
+
+        @Override
+        public final boolean containsAll(@Nonnull Collection<?> c) {
+            for (Object o : c) {
+                if (!contains(o))
+                    return false;
+            }
+            return true;
+        }
+
+        /* if JDK8 jdk */@Override/* endif */
+        public void forEach(Consumer<? super Map.Entry<Character, Short>> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                action.accept(new MapEntry(cur.key(), cur.value()));
+            }
+        }
+
+        @Override
+        public boolean forEachWhile(Predicate<? super Map.Entry<Character, Short>> predicate) {
+            if (predicate == null)
+                throw new java.lang.NullPointerException();
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!predicate.test(new MapEntry(cur.key(), cur.value())))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        @Nonnull
+        public Iterator<Map.Entry<Character, Short>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        @Nonnull
+        public ObjCursor<Map.Entry<Character, Short>> cursor() {
+            return new EntryCursor();
+        }
+
+        @Override
+        @Nonnull
+        public Object[] toArray() {
+            Object[] result = new Object[size()];
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                result[i++] = new MapEntry(cur.key(), cur.value());
+            }
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        public <T> T[] toArray(@Nonnull T[] a) {
+            int size = size();
+            if (a.length < size) {
+                Class<?> elementType = a.getClass().getComponentType();
+                a = (T[]) java.lang.reflect.Array.newInstance(elementType, size);
+            }
+            int i = 0;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                a[i++] = (T) new MapEntry(cur.key(), cur.value());
+            }
+            if (a.length > i)
+                a[i] = null;
+            return a;
+        }
+
+        @Override
+        public int hashCode() {
+            return AbstractMutableCharShortMap.this.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder().append('[');
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (sb.length() > 1)
+                    sb.append(',').append(' ');
+                sb.append(cur.key()).append('=').append(cur.value());
+            }
+            return sb.append(']').toString();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o))
+                return false;
+            Object key = ((Map.Entry) o).getKey();
+            /* if !(obj key) */
+            AbstractMutableCharShortMap.this.remove(((Character) key).charValue());
+            /* elif obj key */
+            AbstractMutableCharShortMap.this.remove/* asValueSuffix */(key);
+            /* endif */
+            return true;
+        }
+
+        /* if JDK8 jdk */@Override/* endif */
+        public boolean removeIf(Predicate<? super Map.Entry<Character, Short>> filter) {
+            if (filter == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (filter.test(new MapEntry(cur.key(), cur.value()))) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean removeAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (c.contains(new MapEntry(cur.key(), cur.value()))) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean retainAll(@Nonnull Collection<?> c) {
+            if (c == null)
+                throw new java.lang.NullPointerException();
+            boolean changed = false;
+            for (CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+                 cur.moveNext();) {
+                if (!c.contains(new MapEntry(cur.key(), cur.value()))) {
+                    cur.remove();
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public void clear() {
+            AbstractMutableCharShortMap.this.clear();
+        }
+    }
+
+    class EntryCursor implements ObjCursor<Map.Entry<Character, Short>> {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+
+        @Override
+        public void forEachForward(Consumer<? super Map.Entry<Character, Short>> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (cur.moveNext()) {
+                action.accept(new MapEntry(cur.key(), cur.value()));
+            }
+        }
+
+        @Override
+        public Map.Entry<Character, Short> elem() {
+            return new MapEntry(cur.key(), cur.value());
+        }
+
+        @Override
+        public boolean moveNext() {
+            return cur.moveNext();
+        }
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+    /**
+     * Like {@link KeyIterator}, doesn't look ahead.
+     */
+    class EntryIterator implements ObjIterator<Map.Entry<Character, Short>> {
+        final CharShortCursor/*<>*/ cur = AbstractMutableCharShortMap.this.cursor();
+        long remaining = sizeAsLong();
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L;
+        }
+
+        @Override
+        public Map.Entry<Character, Short> next() {
+            if (remaining <= 0L || !cur.moveNext())
+                throw new java.util.NoSuchElementException();
+            remaining--;
+            return new MapEntry(cur.key(), cur.value());
+        }
+
+        /* if JDK8 jdk */@Override/* endif */
+        public void forEachRemaining(Consumer<? super Map.Entry<Character, Short>> action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (remaining > 0L && cur.moveNext()) {
+                remaining--;
+                action.accept(new MapEntry(cur.key(), cur.value()));
+            }
+        }
+
+        @Override
+        public void remove() {
+            cur.remove();
+        }
+    }
+
+    /**
+     * A snapshot of the entry. {@link #setValue(Short)} puts the value to the map.
+     */
+    class MapEntry extends AbstractEntry<Character, Short> {
+        final char key;
+        short value;
+
+        MapEntry(char key, short value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Character getKey() {
+            return key;
+        }
+
+        @Override
+        public Short getValue() {
+            return value;
+        }
+
+        /* if Mutable mutability */
+        @Override
+        public Short setValue(Short value) {
+            Short oldValue = this.value;
+            put(key, value.shortValue());
+            this.value = value;
+            return oldValue;
+        }
+        /* endif */
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry e = (Map.Entry) o;
+            return NullableObjects.equals(getKey(), e.getKey()) &&
+                    getValue().equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return /* if !(obj key) */Primitives.hashCode(key)
+                    /* elif obj key //NullableObjects.hashCode(key)// endif */ ^
+                    Primitives.hashCode(value);
+        }
+    }
+}
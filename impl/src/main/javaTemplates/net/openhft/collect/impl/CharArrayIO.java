@@ -0,0 +1,84 @@
+/* with char|byte|short|int|long elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+/* if !(byte elem) */
+import java.nio.CharBuffer;
+/* endif */
+
+
+/**
+ * Bulk reads and writes of {@code char} arrays, big-endian, like {@link DataOutput#writeChar}.
+ * Arrays are copied through a byte buffer of a limited size rather than element by element.
+ */
+public final class CharArrayIO {
+
+    /* if !(byte elem) */
+    private static final int BUFFER_SIZE = 8192;
+    private static final int BYTES = Character.SIZE / Byte.SIZE;
+    /* endif */
+
+    public static void write(DataOutput out, char[] a) throws IOException {
+        /* if !(byte elem) */
+        byte[] bytes = new byte[(int) Math.min((long) BUFFER_SIZE, ((long) a.length) * BYTES)];
+        CharBuffer view = ByteBuffer.wrap(bytes).asCharBuffer();
+        int chunk = view.capacity();
+        for (int off = 0; off < a.length; off += chunk) {
+            int len = Math.min(chunk, a.length - off);
+            view.clear();
+            view.put(a, off, len);
+            out.write(bytes, 0, len * BYTES);
+        }
+        /* elif byte elem //
+        out.write(a);
+        // endif */
+    }
+
+    /**
+     * Reads the array from the buffer directly, if the input is {@link ByteBufferInput}.
+     */
+    public static void read(DataInput in, char[] a) throws IOException {
+        /* if !(byte elem) */
+        if (in instanceof ByteBufferInput) {
+            long bytes = ((long) a.length) * BYTES;
+            ByteBuffer buffer = ((ByteBufferInput) in).buffer(bytes);
+            buffer.asCharBuffer().get(a);
+            // fits an int, as the bytes remain in the buffer
+            buffer.position(buffer.position() + (int) bytes);
+            return;
+        }
+        byte[] bytes = new byte[(int) Math.min((long) BUFFER_SIZE, ((long) a.length) * BYTES)];
+        CharBuffer view = ByteBuffer.wrap(bytes).asCharBuffer();
+        int chunk = view.capacity();
+        for (int off = 0; off < a.length; off += chunk) {
+            int len = Math.min(chunk, a.length - off);
+            in.readFully(bytes, 0, len * BYTES);
+            view.clear();
+            view.get(a, off, len);
+        }
+        /* elif byte elem //
+        in.readFully(a);
+        // endif */
+    }
+
+    private CharArrayIO() {}
+}
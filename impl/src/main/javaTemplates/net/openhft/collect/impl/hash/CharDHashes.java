@@ -0,0 +1,45 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+
+/**
+ * The hash function of {@code DHash} tables, for the tables, which aren't generated
+ * from the on-heap method templates, but should be probed the same way.
+ */
+final class CharDHashes {
+
+    /**
+     * The same hash, as on-heap tables compute.
+     */
+    static int hash(/* bits */char key) {
+        /* if char elem */
+        return key;
+        /* elif byte elem //
+        return key & 0xFF;
+        // elif short elem //
+        return key & 0xFFFF;
+        // elif int|float elem //
+        return key & Integer.MAX_VALUE;
+        // elif long|double elem //
+        return ((int) (key ^ (key >>> 32))) & Integer.MAX_VALUE;
+        // endif */
+    }
+
+    private CharDHashes() {}
+}
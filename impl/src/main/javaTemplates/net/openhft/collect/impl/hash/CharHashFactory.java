@@ -75,6 +75,17 @@ public abstract class CharHashFactory<MT> {
     /* enddefine */
 
     MT newHash(int expectedSize) {
+        char[] freeAndRemoved = newFreeAndRemoved();
+        return createNew(configWrapper, expectedSize, freeAndRemoved[0], freeAndRemoved[1]);
+    }
+
+    /**
+     * Chooses the free and the removed values of a new hash, according to the key domain
+     * of the config of this factory.
+     *
+     * @return the free value in the first element, the removed value in the second
+     */
+    char[] newFreeAndRemoved() {
         char free, removed;
         if (randomRemoved) {
             Random random = ThreadLocalRandom.current();
@@ -91,6 +102,6 @@ public abstract class CharHashFactory<MT> {
             removed = removedValue;
             free = freeValue;
         }
-        return createNew(configWrapper, expectedSize, free, removed);
+        return new char[] {free, removed};
     }
 }
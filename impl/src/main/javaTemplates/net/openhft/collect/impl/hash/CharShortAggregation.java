@@ -0,0 +1,216 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.function.ShortBinaryOperator;
+
+import javax.annotation.Nullable;
+
+
+/**
+ * Aggregates values by keys in parallel. The input arrays are split into chunks, the keys
+ * and values of each chunk are scattered into partitions by the prefix of the key hash,
+ * then each partition is aggregated into its own map by a separate task. Partitions
+ * are disjoint by keys, so the entries of their maps are moved into the presized result
+ * table without key comparisons or merging values.
+ *
+ * <p>Scattering is stable, so within each partition the values of a key come in the same
+ * order, as in the input.
+ */
+final class CharShortAggregation {
+
+    /**
+     * Inputs shorter than this are aggregated in the calling thread.
+     */
+    private static final int MIN_PARALLEL_LENGTH = 1 << 14;
+
+    /**
+     * Each chunk keeps the sizes of all partitions, more partitions wouldn't improve
+     * load balancing anyway.
+     */
+    private static final int MAX_PARTITIONS = 256;
+
+    /**
+     * Aggregates the values by the keys at the same indices. If {@code values} is
+     * {@code null}, counts the occurrences of the keys.
+     */
+    static HashCharShortMap aggregate(HashCharShortMapFactoryGO factory, char[] keys,
+            @Nullable short[] values, @Nullable ShortBinaryOperator function) {
+        int length = keys.length;
+        if (values != null && values.length != length) {
+            throw new IllegalArgumentException("Keys and values arrays should be " +
+                    "of the same length, " + length + " and " + values.length + " given");
+        }
+        int parallelism;
+        if (length < MIN_PARALLEL_LENGTH || (parallelism = ParallelSlotTask.parallelism()) == 1) {
+            HashCharShortMap map = factory.newMutableMap();
+            aggregate(map, keys, values, function, 0, length);
+            return map;
+        }
+        return new CharShortAggregation(factory, keys, values, function, parallelism).run();
+    }
+
+    private static void aggregate(HashCharShortMap map, char[] keys, @Nullable short[] values,
+            @Nullable ShortBinaryOperator function, int from, int to) {
+        if (values == null) {
+            for (int i = from; i < to; i++) {
+                map.incrementValue(keys[i], (short) 1, (short) 0);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                map.merge(keys[i], values[i], function);
+            }
+        }
+    }
+
+    private static final int COUNT = 0, SCATTER = 1, AGGREGATE = 2;
+
+    private final HashCharShortMapFactoryGO factory;
+    private final char[] keys;
+    @Nullable private final short[] values;
+    @Nullable private final ShortBinaryOperator function;
+
+    private final int partitions, partitionShift;
+    private final int chunkLength;
+    /**
+     * Sizes of the partitions of each chunk, then offsets of the partitions of each chunk
+     * in the scattered arrays.
+     */
+    private final int[][] chunkPartitions;
+    private final int[] partitionStarts;
+
+    private final char[] scatteredKeys;
+    @Nullable private final short[] scatteredValues;
+    private final MutableDHashCharShortMapGO[] partitionMaps;
+
+    private CharShortAggregation(HashCharShortMapFactoryGO factory, char[] keys,
+            @Nullable short[] values, @Nullable ShortBinaryOperator function, int parallelism) {
+        this.factory = factory;
+        this.keys = keys;
+        this.values = values;
+        this.function = function;
+        // a few partitions and chunks per worker for load balancing
+        int partitions = Math.min(Integer.highestOneBit(parallelism * 4 - 1) << 1,
+                MAX_PARTITIONS);
+        this.partitions = partitions;
+        partitionShift = 32 - Integer.numberOfTrailingZeros(partitions);
+        int length = keys.length;
+        chunkLength = (length + partitions - 1) / partitions;
+        chunkPartitions = new int[(length + chunkLength - 1) / chunkLength][];
+        partitionStarts = new int[partitions + 1];
+        scatteredKeys = new char[length];
+        scatteredValues = values != null ? new short[length] : null;
+        partitionMaps = new MutableDHashCharShortMapGO[partitions];
+    }
+
+    private int partition(char key) {
+        // 2^32 / golden ratio, the high bits of the product are well mixed
+        return (Primitives.hashCode(key) * 0x9E3779B9) >>> partitionShift;
+    }
+
+    private HashCharShortMap run() {
+        int chunks = chunkPartitions.length;
+        ParallelSlotTask.invoke(new Phase(COUNT, 0, chunks));
+        int offset = 0;
+        for (int p = 0; p < partitions; p++) {
+            partitionStarts[p] = offset;
+            for (int[] sizes : chunkPartitions) {
+                int size = sizes[p];
+                sizes[p] = offset;
+                offset += size;
+            }
+        }
+        partitionStarts[partitions] = offset;
+        ParallelSlotTask.invoke(new Phase(SCATTER, 0, chunks));
+        ParallelSlotTask.invoke(new Phase(AGGREGATE, 0, partitions));
+        int size = 0;
+        for (MutableDHashCharShortMapGO map : partitionMaps) {
+            size += map.size();
+        }
+        MutableDHashCharShortMapGO result = factory.newMutableMap(size);
+        for (MutableDHashCharShortMapGO map : partitionMaps) {
+            // the keys of different partitions never intersect
+            result.putAllAbsent(map);
+        }
+        return result;
+    }
+
+    private void count(int chunk) {
+        int[] sizes = chunkPartitions[chunk] = new int[partitions];
+        char[] keys = this.keys;
+        for (int i = chunk * chunkLength, to = Math.min(i + chunkLength, keys.length);
+             i < to; i++) {
+            sizes[partition(keys[i])]++;
+        }
+    }
+
+    private void scatter(int chunk) {
+        int[] offsets = chunkPartitions[chunk];
+        char[] keys = this.keys, scatteredKeys = this.scatteredKeys;
+        short[] values = this.values, scatteredValues = this.scatteredValues;
+        for (int i = chunk * chunkLength, to = Math.min(i + chunkLength, keys.length);
+             i < to; i++) {
+            char key = keys[i];
+            int offset = offsets[partition(key)]++;
+            scatteredKeys[offset] = key;
+            if (values != null)
+                scatteredValues[offset] = values[i];
+        }
+    }
+
+    private void aggregate(int partition) {
+        MutableDHashCharShortMapGO map = factory.newMutableMap();
+        aggregate(map, scatteredKeys, scatteredValues, function,
+                partitionStarts[partition], partitionStarts[partition + 1]);
+        partitionMaps[partition] = map;
+    }
+
+    private class Phase extends ParallelSlotTask {
+        private final int phase;
+
+        Phase(int phase, int from, int to) {
+            // each chunk or partition is a separate part
+            super(from, to, 1);
+            this.phase = phase;
+        }
+
+        @Override
+        ParallelSlotTask subTask(int from, int to) {
+            return new Phase(phase, from, to);
+        }
+
+        @Override
+        int processRange(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (phase == COUNT) {
+                    count(i);
+                } else if (phase == SCATTER) {
+                    scatter(i);
+                } else {
+                    aggregate(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.Container;
+import net.openhft.collect.HashOverflowException;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+import static net.openhft.collect.impl.Containers.sizeAsInt;
+
+
+/**
+ * Base of the tables of on-heap containers, which are split into chunks, each one is a separate
+ * double hashing table of a Java array with its own size and capacity. The high bits
+ * of the mixed key hash choose the chunk, the probing never leaves it, so lookups cost
+ * a single extra array read compared to {@link MutableDHash} tables.
+ *
+ * <p>Chunks grow independently, up to {@link #MAX_CHUNK_SIZE} keys. When a chunk
+ * overflows it, only this chunk is split in two by the next bit of the hash, so the total
+ * capacity isn't limited by the max array length, and the pause of a split is bounded.
+ * The array of chunks is a directory, indexed by the low bits of the chunk hash: a chunk,
+ * which is split less times than others, is referenced by several entries. Slots are
+ * {@code long}s: the entry of the directory in the high half, the index in the chunk
+ * in the low half.
+ *
+ * <p>Keys with {@code 0} and {@code 1} bits mark free and removed slots, so these keys are
+ * stored apart, in two virtual slots {@link #FREE_KEY_SLOT} and {@link #REMOVED_KEY_SLOT}.
+ */
+abstract class ChunkedCharDHash implements Container {
+
+    static final /* bits */char FREE_KEY = 0, REMOVED_KEY = 1;
+    static final long FREE_KEY_SLOT = ((long) Integer.MAX_VALUE) << 32;
+    static final long REMOVED_KEY_SLOT = FREE_KEY_SLOT + 1L;
+
+    /** Bounds the pause of a single chunk rehash */
+    static final int MAX_CHUNK_SIZE = 1 << 23;
+    private static final int MAX_CHUNKS = 1 << 24;
+    private static final int CHUNK_SHIFT = 40;
+    private static final int MIN_CHUNK_SIZE = 4;
+
+    static long mixedHash(/* bits */char key) {
+        return OffHeapCharDHash.keyHash(key) * 0x9E3779B97F4A7C15L;
+    }
+
+    static int hashInChunk(long mixedHash) {
+        return ((int) mixedHash) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * A double hashing table, probing is the same as in {@link MutableDHash} tables.
+     */
+    static class Chunk {
+        final /* bits */char[] keys;
+        final int maxSize;
+        int size;
+        int removed;
+        /**
+         * The number of the low bits of the chunk hash, common to all keys of the chunk.
+         * The chunk is referenced by each {@code 2^depth}-th entry of the directory,
+         * starting from the entry at these bits.
+         */
+        int depth;
+
+        Chunk(int capacity, HashConfigWrapper configWrapper) {
+            keys = new /* bits */char[capacity];
+            maxSize = Math.min(configWrapper.maxSize(capacity), capacity - 1);
+        }
+    }
+
+    final HashConfigWrapper configWrapper;
+    Chunk[] chunks;
+    int chunkMask;
+    long size;
+    boolean hasFreeKey, hasRemovedKey;
+    int modCount;
+
+    ChunkedCharDHash(HashConfigWrapper configWrapper, long expectedSize) {
+        if (expectedSize < 0L)
+            throw new IllegalArgumentException("Expected size should be non-negative");
+        this.configWrapper = configWrapper;
+        // chunks are half full at the expected size
+        long halfChunk = (long) (MAX_CHUNK_SIZE >> 1);
+        long desiredChunks = (expectedSize + halfChunk - 1L) / halfChunk;
+        if (desiredChunks > (long) MAX_CHUNKS)
+            throw new IllegalArgumentException("Expected size " + expectedSize + " is too large");
+        int chunkCount = desiredChunks <= 1L ? 1 :
+                Integer.highestOneBit((int) desiredChunks - 1) << 1;
+        allocateChunks(chunkCount, (int) ((expectedSize + chunkCount - 1L) / chunkCount));
+    }
+
+    private void allocateChunks(int chunkCount, int chunkSize) {
+        Chunk[] chunks = new Chunk[chunkCount];
+        int capacity = chunkCapacity(chunkSize);
+        int depth = Integer.numberOfTrailingZeros(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            (chunks[i] = newChunk(capacity)).depth = depth;
+        }
+        this.chunks = chunks;
+        chunkMask = chunkCount - 1;
+    }
+
+    final int chunkCapacity(int chunkSize) {
+        return DHashCapacities.capacity(configWrapper, Math.max(chunkSize, MIN_CHUNK_SIZE));
+    }
+
+    final int chunkIndex(long mixedHash) {
+        return ((int) (mixedHash >>> CHUNK_SHIFT)) & chunkMask;
+    }
+
+    /**
+     * Returns {@code true}, if the given entry of the directory is the first one, which
+     * references its chunk. Operations over all chunks visit only such entries.
+     */
+    final boolean firstEntry(int chunkIndex) {
+        return chunkIndex < (1 << chunks[chunkIndex].depth);
+    }
+
+    /**
+     * Puts the given chunk to all entries of the directory, which reference the chunk
+     * at the given entry.
+     */
+    private void replaceChunk(int chunkIndex, Chunk chunk) {
+        Chunk[] chunks = this.chunks;
+        int depth = chunk.depth = chunks[chunkIndex].depth;
+        for (int i = chunkIndex & ((1 << depth) - 1); i < chunks.length; i += 1 << depth) {
+            chunks[i] = chunk;
+        }
+    }
+
+    abstract Chunk newChunk(int capacity);
+
+    /**
+     * Copies the value of the given slot of the old chunk to the given slot of the new one,
+     * does nothing in sets.
+     */
+    abstract void copyValue(Chunk from, int fromIndex, Chunk to, int toIndex);
+
+    /**
+     * @return the slot of the key, or {@code -1}
+     */
+    final long index(/* bits */char key) {
+        if (key == FREE_KEY)
+            return hasFreeKey ? FREE_KEY_SLOT : -1L;
+        if (key == REMOVED_KEY)
+            return hasRemovedKey ? REMOVED_KEY_SLOT : -1L;
+        long mixedHash = mixedHash(key);
+        int chunkIndex = chunkIndex(mixedHash);
+        /* bits */char[] keys = chunks[chunkIndex].keys;
+        int capacity = keys.length;
+        int hash = hashInChunk(mixedHash);
+        int index = hash % capacity;
+        /* bits */char cur = keys[index];
+        if (cur == key)
+            return (((long) chunkIndex) << 32) | index;
+        if (cur == FREE_KEY)
+            return -1L;
+        int step = hash % (capacity - 2) + 1;
+        while (true) {
+            if ((index -= step) < 0) index += capacity; // nextIndex
+            if ((cur = keys[index]) == key)
+                return (((long) chunkIndex) << 32) | index;
+            if (cur == FREE_KEY)
+                return -1L;
+        }
+    }
+
+    /**
+     * @return the slot of the key, if it is already present, or the bitwise complement
+     *         of the slot, in which the key is inserted
+     */
+    final long insert(/* bits */char key) {
+        if (key == FREE_KEY) {
+            if (hasFreeKey)
+                return FREE_KEY_SLOT;
+            hasFreeKey = true;
+            size++;
+            modCount++;
+            return ~FREE_KEY_SLOT;
+        }
+        if (key == REMOVED_KEY) {
+            if (hasRemovedKey)
+                return REMOVED_KEY_SLOT;
+            hasRemovedKey = true;
+            size++;
+            modCount++;
+            return ~REMOVED_KEY_SLOT;
+        }
+        long mixedHash = mixedHash(key);
+        int chunkIndex = chunkIndex(mixedHash);
+        Chunk chunk = chunks[chunkIndex];
+        /* bits */char[] keys = chunk.keys;
+        int capacity = keys.length;
+        int hash = hashInChunk(mixedHash);
+        int index = hash % capacity;
+        int step = hash % (capacity - 2) + 1;
+        int firstRemoved = -1;
+        /* bits */char cur;
+        while ((cur = keys[index]) != FREE_KEY) {
+            if (cur == key)
+                return (((long) chunkIndex) << 32) | index;
+            if (cur == REMOVED_KEY && firstRemoved < 0)
+                firstRemoved = index;
+            if ((index -= step) < 0) index += capacity; // nextIndex
+        }
+        if (firstRemoved < 0 && chunk.size + chunk.removed >= chunk.maxSize) {
+            // the key is absent, grow and insert into the new table
+            growChunk(chunkIndex);
+            return insert(key);
+        }
+        if (firstRemoved >= 0) {
+            index = firstRemoved;
+            chunk.removed--;
+        }
+        keys[index] = key;
+        chunk.size++;
+        size++;
+        modCount++;
+        return ~((((long) chunkIndex) << 32) | index);
+    }
+
+    final void removeAt(long slot) {
+        if (slot == FREE_KEY_SLOT) {
+            hasFreeKey = false;
+        } else if (slot == REMOVED_KEY_SLOT) {
+            hasRemovedKey = false;
+        } else {
+            Chunk chunk = chunks[(int) (slot >>> 32)];
+            chunk.keys[(int) slot] = REMOVED_KEY;
+            chunk.size--;
+            chunk.removed++;
+        }
+        size--;
+        modCount++;
+    }
+
+    private void growChunk(int chunkIndex) {
+        Chunk chunk = chunks[chunkIndex];
+        int size = chunk.size;
+        if (chunk.removed >= (size >> 1)) {
+            // the table is full of removed slots, it is rebuilt without growth
+            replaceChunk(chunkIndex, rehash(chunk, chunkCapacity(size)));
+        } else if (size >= (MAX_CHUNK_SIZE >> 1) && (1 << chunk.depth) < MAX_CHUNKS) {
+            split(chunkIndex);
+        } else {
+            int newCapacity = DHashCapacities.nearestGreaterCapacity(
+                    configWrapper.grow(chunk.keys.length), size);
+            if (newCapacity <= chunk.keys.length)
+                throw new HashOverflowException();
+            replaceChunk(chunkIndex, rehash(chunk, newCapacity));
+        }
+        modCount++;
+    }
+
+    /**
+     * @return the free slot of the given fresh table, in which the key with the given hash
+     *         should be inserted
+     */
+    private static int freeIndex(/* bits */char[] keys, int hash) {
+        int capacity = keys.length;
+        int index = hash % capacity;
+        if (keys[index] != FREE_KEY) {
+            int step = hash % (capacity - 2) + 1;
+            do {
+                if ((index -= step) < 0) index += capacity; // nextIndex
+            } while (keys[index] != FREE_KEY);
+        }
+        return index;
+    }
+
+    private Chunk rehash(Chunk old, int newCapacity) {
+        Chunk chunk = newChunk(newCapacity);
+        /* bits */char[] oldKeys = old.keys, keys = chunk.keys;
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            /* bits */char key = oldKeys[i];
+            if (key == FREE_KEY || key == REMOVED_KEY)
+                continue;
+            int index = freeIndex(keys, hashInChunk(mixedHash(key)));
+            keys[index] = key;
+            copyValue(old, i, chunk, index);
+        }
+        chunk.size = old.size;
+        return chunk;
+    }
+
+    /**
+     * Splits the chunk at the given entry of the directory by the next bit of the hash
+     * between two new chunks, which are sized by the actual numbers of keys. The directory
+     * is doubled, if the chunk is referenced by a single entry. Other chunks are untouched.
+     */
+    private void split(int chunkIndex) {
+        Chunk old = chunks[chunkIndex];
+        int depth = old.depth;
+        if (chunks.length == 1 << depth) {
+            // the new half of the directory references the same chunks
+            Chunk[] oldChunks = chunks;
+            int oldCount = oldChunks.length;
+            Chunk[] chunks = Arrays.copyOf(oldChunks, oldCount << 1);
+            System.arraycopy(oldChunks, 0, chunks, oldCount, oldCount);
+            this.chunks = chunks;
+            chunkMask = (oldCount << 1) - 1;
+        }
+        int bit = 1 << depth;
+        /* bits */char[] oldKeys = old.keys;
+        int highSize = 0;
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            /* bits */char key = oldKeys[i];
+            if (key != FREE_KEY && key != REMOVED_KEY &&
+                    (((int) (mixedHash(key) >>> CHUNK_SHIFT)) & bit) != 0) {
+                highSize++;
+            }
+        }
+        Chunk low = newChunk(chunkCapacity(old.size - highSize));
+        Chunk high = newChunk(chunkCapacity(highSize));
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            /* bits */char key = oldKeys[i];
+            if (key == FREE_KEY || key == REMOVED_KEY)
+                continue;
+            long mixedHash = mixedHash(key);
+            Chunk chunk = (((int) (mixedHash >>> CHUNK_SHIFT)) & bit) != 0 ? high : low;
+            int index = freeIndex(chunk.keys, hashInChunk(mixedHash));
+            chunk.keys[index] = key;
+            copyValue(old, i, chunk, index);
+        }
+        low.size = old.size - highSize;
+        high.size = highSize;
+        low.depth = high.depth = depth + 1;
+        Chunk[] chunks = this.chunks;
+        for (int i = chunkIndex & (bit - 1); i < chunks.length; i += bit) {
+            chunks[i] = (i & bit) != 0 ? high : low;
+        }
+    }
+
+
+    @Override
+    public final int size() {
+        return sizeAsInt(size);
+    }
+
+    @Override
+    public final long sizeAsLong() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0L;
+    }
+
+    @Override
+    public final boolean ensureCapacity(long minSize) {
+        if (minSize <= size)
+            return false;
+        boolean rehashed = false;
+        // the depth, at which chunks are half full at the given size
+        int minDepth = 0;
+        while ((minSize >>> minDepth) > (long) (MAX_CHUNK_SIZE >> 1) &&
+                (1 << minDepth) < MAX_CHUNKS) {
+            minDepth++;
+        }
+        // entries before 1 << minDepth reference all chunks, which should be split
+        for (int i = 0; i < (1 << minDepth); i++) {
+            while (this.chunks[i].depth < minDepth) {
+                split(i);
+                rehashed = true;
+            }
+        }
+        Chunk[] chunks = this.chunks;
+        for (int i = 0; i < chunks.length; i++) {
+            if (!firstEntry(i))
+                continue;
+            Chunk chunk = chunks[i];
+            int depth = chunk.depth;
+            long chunkSize = Math.min((minSize + (1L << depth) - 1L) >>> depth,
+                    (long) MAX_CHUNK_SIZE);
+            if (chunkSize > (long) chunk.maxSize) {
+                replaceChunk(i, rehash(chunk, chunkCapacity((int) chunkSize)));
+                rehashed = true;
+            }
+        }
+        if (rehashed)
+            modCount++;
+        return rehashed;
+    }
+
+    @Override
+    public final boolean shrink() {
+        boolean rehashed = false;
+        Chunk[] chunks = this.chunks;
+        for (int i = 0; i < chunks.length; i++) {
+            if (!firstEntry(i))
+                continue;
+            Chunk chunk = chunks[i];
+            int newCapacity = chunkCapacity(chunk.size);
+            if (newCapacity < chunk.keys.length || chunk.removed > 0) {
+                replaceChunk(i, rehash(chunk, Math.min(newCapacity, chunk.keys.length)));
+                rehashed = true;
+            }
+        }
+        if (rehashed)
+            modCount++;
+        return rehashed;
+    }
+
+    public final void clear() {
+        Chunk[] chunks = this.chunks;
+        for (int i = 0; i < chunks.length; i++) {
+            if (!firstEntry(i))
+                continue;
+            Chunk chunk = chunks[i];
+            Arrays.fill(chunk.keys, FREE_KEY);
+            chunk.size = 0;
+            chunk.removed = 0;
+        }
+        size = 0L;
+        hasFreeKey = hasRemovedKey = false;
+        modCount++;
+    }
+
+
+    /**
+     * Traverses the virtual slots, as the last chunk, then the chunks in descending order
+     * of their first entries in the directory.
+     */
+    abstract class SlotCursor {
+        final Chunk[] chunks;
+        int expectedModCount;
+        int chunkIndex;
+        int index;
+        /* bits */char curKey;
+        boolean pointing;
+
+        SlotCursor() {
+            chunks = ChunkedCharDHash.this.chunks;
+            expectedModCount = modCount;
+            chunkIndex = chunks.length;
+            index = 2;
+        }
+
+        final long slot() {
+            if (chunkIndex == chunks.length)
+                return index == 1 ? FREE_KEY_SLOT : REMOVED_KEY_SLOT;
+            return (((long) chunkIndex) << 32) | index;
+        }
+
+        public boolean moveNext() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (chunkIndex == chunks.length) {
+                for (int i = index - 1; i >= 0; i--) {
+                    if (i == 1 ? hasFreeKey : hasRemovedKey) {
+                        index = i;
+                        curKey = i == 1 ? FREE_KEY : REMOVED_KEY;
+                        return pointing = true;
+                    }
+                }
+                chunkIndex--;
+                index = Integer.MAX_VALUE;
+            }
+            for (; chunkIndex >= 0; chunkIndex--, index = Integer.MAX_VALUE) {
+                Chunk chunk = chunks[chunkIndex];
+                if (chunkIndex >= (1 << chunk.depth))
+                    continue; // the chunk is visited at its first entry
+                /* bits */char[] keys = chunk.keys;
+                for (int i = Math.min(index, keys.length) - 1; i >= 0; i--) {
+                    /* bits */char key = keys[i];
+                    if (key != FREE_KEY && key != REMOVED_KEY) {
+                        index = i;
+                        curKey = key;
+                        return pointing = true;
+                    }
+                }
+            }
+            return pointing = false;
+        }
+
+        final void checkPointing() {
+            if (!pointing)
+                throw new IllegalStateException();
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public void remove() {
+            checkPointing();
+            pointing = false;
+            removeAt(slot());
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.AbstractMutableCharShortMap;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.hash.ChunkedHashCharShortMap;
+import net.openhft.function.CharShortConsumer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The table is a separate object, so that the map could extend
+ * {@link AbstractMutableCharShortMap}, which implements the {@link java.util.Map} views
+ * on top of the {@linkplain #cursor() cursor}.
+ */
+public final class ChunkedDHashCharShortMap extends AbstractMutableCharShortMap
+        implements ChunkedHashCharShortMap {
+
+    static final class Table extends ChunkedCharDHash {
+
+        static final class EntryChunk extends Chunk {
+            final short[] values;
+
+            EntryChunk(int capacity, HashConfigWrapper configWrapper) {
+                super(capacity, configWrapper);
+                values = new short[capacity];
+            }
+        }
+
+        private short freeKeyValue, removedKeyValue;
+
+        Table(HashConfigWrapper configWrapper, long expectedSize) {
+            super(configWrapper, expectedSize);
+        }
+
+        @Override
+        Chunk newChunk(int capacity) {
+            return new EntryChunk(capacity, configWrapper);
+        }
+
+        @Override
+        void copyValue(Chunk from, int fromIndex, Chunk to, int toIndex) {
+            ((EntryChunk) to).values[toIndex] = ((EntryChunk) from).values[fromIndex];
+        }
+
+        short valueAt(long slot) {
+            if (slot == FREE_KEY_SLOT)
+                return freeKeyValue;
+            if (slot == REMOVED_KEY_SLOT)
+                return removedKeyValue;
+            return ((EntryChunk) chunks[(int) (slot >>> 32)]).values[(int) slot];
+        }
+
+        void setValueAt(long slot, short value) {
+            if (slot == FREE_KEY_SLOT) {
+                freeKeyValue = value;
+            } else if (slot == REMOVED_KEY_SLOT) {
+                removedKeyValue = value;
+            } else {
+                ((EntryChunk) chunks[(int) (slot >>> 32)]).values[(int) slot] = value;
+            }
+        }
+
+
+        class EntryCursor extends SlotCursor implements CharShortCursor {
+
+            @Override
+            public void forEachForward(CharShortConsumer action) {
+                if (action == null)
+                    throw new java.lang.NullPointerException();
+                while (moveNext()) {
+                    action.accept(/* wrap key */curKey/**/, valueAt(slot()));
+                }
+            }
+
+            @Override
+            public char key() {
+                checkPointing();
+                return /* wrap key */curKey;
+            }
+
+            @Override
+            public short value() {
+                checkPointing();
+                return valueAt(slot());
+            }
+
+            @Override
+            public void setValue(short value) {
+                checkPointing();
+                setValueAt(slot(), value);
+            }
+        }
+    }
+
+    private final Table table;
+    private final short defaultValue;
+
+    ChunkedDHashCharShortMap(HashConfigWrapper configWrapper, short defaultValue,
+            long expectedSize) {
+        table = new Table(configWrapper, expectedSize);
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return table.sizeAsLong();
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return table.ensureCapacity(minSize);
+    }
+
+    @Override
+    public boolean shrink() {
+        return table.shrink();
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        return table.index(/* unwrap key */key) >= 0L;
+    }
+
+    @Override
+    public boolean containsEntry(char key, short value) {
+        long slot = table.index(/* unwrap key */key);
+        return slot >= 0L &&
+                /* unwrap value */table.valueAt(slot)/**/ == /* unwrap value */value/**/;
+    }
+
+    @Override
+    public short get(char key) {
+        long slot = table.index(/* unwrap key */key);
+        return slot >= 0L ? table.valueAt(slot) : defaultValue;
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        long slot = table.index(/* unwrap key */key);
+        return slot >= 0L ? table.valueAt(slot) : defaultValue;
+    }
+
+    @Override
+    public short put(char key, short value) {
+        long slot = table.insert(/* unwrap key */key);
+        if (slot < 0L) {
+            table.setValueAt(~slot, value);
+            return defaultValue;
+        }
+        short oldValue = table.valueAt(slot);
+        table.setValueAt(slot, value);
+        return oldValue;
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        long slot = table.insert(/* unwrap key */key);
+        if (slot < 0L) {
+            table.setValueAt(~slot, value);
+            return defaultValue;
+        }
+        return table.valueAt(slot);
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        long slot = table.insert(/* unwrap key */key);
+        short newValue;
+        if (slot < 0L) {
+            slot = ~slot;
+            newValue = (short) (defaultValue + increment);
+        } else {
+            newValue = (short) (table.valueAt(slot) + increment);
+        }
+        table.setValueAt(slot, newValue);
+        return newValue;
+    }
+
+    @Override
+    public short remove(char key) {
+        long slot = table.index(/* unwrap key */key);
+        if (slot < 0L)
+            return defaultValue;
+        short oldValue = table.valueAt(slot);
+        table.removeAt(slot);
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void forEach(@Nonnull CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        table.new EntryCursor().forEachForward(action);
+    }
+
+    @Nonnull
+    @Override
+    public CharShortCursor cursor() {
+        return table.new EntryCursor();
+    }
+}
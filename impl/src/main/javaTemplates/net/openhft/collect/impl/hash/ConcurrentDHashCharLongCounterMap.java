@@ -0,0 +1,174 @@
+/* with char|byte|short|int|long|float|double key */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.StripedCounter;
+import net.openhft.collect.map.hash.ConcurrentHashCharIntMap;
+import net.openhft.collect.map.hash.ConcurrentHashCharLongCounterMap;
+import net.openhft.collect.map.hash.HashCharLongMap;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.util.Arrays;
+
+
+/**
+ * Keys are mapped to indexes of {@link StripedCounter}s by a
+ * {@linkplain ConcurrentDHashCharIntMap lock-striped map}, which is locked only when
+ * a new key is added. Counters are looked up and updated without locking.
+ */
+public final class ConcurrentDHashCharLongCounterMap
+        implements ConcurrentHashCharLongCounterMap {
+
+    private final HashCharLongMapFactoryGO factory;
+    private final ConcurrentHashCharIntMap indexes;
+    /**
+     * Array is replaced, when it is full, but counters are never moved to other indexes.
+     * Written only holding the monitor of this map, new counters are published
+     * by the volatile write before their indexes are published in the map of indexes.
+     */
+    private volatile StripedCounter[] counters;
+    private int counterCount;
+
+    ConcurrentDHashCharLongCounterMap(HashCharLongMapFactoryGO factory, int expectedSize) {
+        this.factory = factory;
+        indexes = new HashCharIntMapFactoryImpl(factory.getConfig()).newConcurrentMap(
+                expectedSize, 4 * Runtime.getRuntime().availableProcessors());
+        counters = new StripedCounter[Math.max(expectedSize, 16)];
+    }
+
+    private synchronized int addCounter(char key) {
+        int index;
+        // another thread could have added the counter, while this one was waiting for the monitor
+        if ((index = indexes.getOrDefault(key, -1)) >= 0)
+            return index;
+        StripedCounter[] counters = this.counters;
+        index = counterCount;
+        if (index == counters.length) {
+            if (index == Integer.MAX_VALUE)
+                throw new IllegalStateException("Too many counters");
+            int newLength = index + Math.max(index >> 1, 16);
+            counters = Arrays.copyOf(counters, newLength >= 0 ? newLength : Integer.MAX_VALUE);
+        }
+        counters[index] = new StripedCounter();
+        this.counters = counters;
+        counterCount = index + 1;
+        indexes.put(key, index);
+        return index;
+    }
+
+    private StripedCounter counter(char key) {
+        int index;
+        if ((index = indexes.getOrDefault(key, -1)) < 0)
+            index = addCounter(key);
+        return counters[index];
+    }
+
+    @Override
+    public int size() {
+        return indexes.size();
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return indexes.sizeAsLong();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return indexes.isEmpty();
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return indexes.ensureCapacity(minSize);
+    }
+
+    @Override
+    public boolean shrink() {
+        return indexes.shrink();
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        return indexes.containsKey(key);
+    }
+
+    @Override
+    public void add(char key, long delta) {
+        counter(key).add(delta);
+    }
+
+    @Override
+    public void increment(char key) {
+        counter(key).add(1L);
+    }
+
+    @Override
+    public long sum(char key) {
+        int index;
+        if ((index = indexes.getOrDefault(key, -1)) < 0)
+            return 0L;
+        return counters[index].sum();
+    }
+
+    @Override
+    public void forEach(@Nonnull final CharLongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        indexes.forEach(new CharIntConsumer() {
+            @Override
+            public void accept(char key, int index) {
+                action.accept(key, counters[index].sum());
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public HashCharLongMap snapshot() {
+        final MutableDHashCharLongMapGO snapshot = factory.newMutableMap(size());
+        indexes.forEach(new CharIntConsumer() {
+            @Override
+            public void accept(char key, int index) {
+                snapshot.put(key, counters[index].sum());
+            }
+        });
+        return snapshot;
+    }
+
+    @Nonnull
+    @Override
+    public HashCharLongMap snapshotAndReset() {
+        final MutableDHashCharLongMapGO snapshot = factory.newMutableMap(size());
+        indexes.forEach(new CharIntConsumer() {
+            @Override
+            public void accept(char key, int index) {
+                long sum;
+                if ((sum = counters[index].sumThenReset()) != 0L)
+                    snapshot.put(key, sum);
+            }
+        });
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
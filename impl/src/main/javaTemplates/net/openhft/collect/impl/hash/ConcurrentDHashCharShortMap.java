@@ -0,0 +1,355 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.map.hash.ConcurrentHashCharShortMap;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Lock-striped map: keys are spread over {@linkplain DHashCharShortMapSegment segments},
+ * each one is a plain {@link MutableDHashCharShortMapGO}, guarded by its own monitor.
+ *
+ * <p>Lookups don't take the lock. Every segment publishes its tables
+ * and a version, which is odd while the segment is being updated. A lookup probes
+ * the published tables with volatile loads and succeeds, if the version
+ * hasn't changed meanwhile, otherwise it is retried, and after a few failed
+ * attempts falls back to the lock.
+ */
+public final class ConcurrentDHashCharShortMap
+        implements ConcurrentHashCharShortMap {
+
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final HashCharShortMapFactoryGO factory;
+    private final DHashCharShortMapSegment[] segments;
+    private final int segmentMask;
+    private final short defaultValue;
+
+    ConcurrentDHashCharShortMap(HashCharShortMapFactoryGO factory,
+            int expectedSize, int concurrencyLevel) {
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Concurrency level should be positive");
+        this.factory = factory;
+        defaultValue = factory.getDefaultValue();
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount < MAX_SEGMENTS) {
+            segmentCount <<= 1;
+        }
+        int segmentExpectedSize =
+                (int) (((long) expectedSize + (long) (segmentCount - 1)) / (long) segmentCount);
+        DHashCharShortMapSegment[] segments = new DHashCharShortMapSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new DHashCharShortMapSegment(
+                    factory.newMutableMap(segmentExpectedSize));
+        }
+        this.segments = segments;
+        segmentMask = segmentCount - 1;
+    }
+
+    private DHashCharShortMapSegment segment(char key) {
+        int h = Primitives.hashCode(key) * 0x9E3779B9;
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public int size() {
+        long size = sizeAsLong();
+        return size <= (long) Integer.MAX_VALUE ? (int) size : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        long size = 0L;
+        for (DHashCharShortMapSegment segment : segments) {
+            size += (long) segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (DHashCharShortMapSegment segment : segments) {
+            if (segment.size != 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        long segmentMinSize = (minSize + (long) segmentMask) / (long) segments.length;
+        boolean changed = false;
+        for (DHashCharShortMapSegment segment : segments) {
+            synchronized (segment) {
+                segment.beginUpdate();
+                try {
+                    changed |= segment.map.ensureCapacity(segmentMinSize);
+                } finally {
+                    segment.endUpdate();
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean shrink() {
+        boolean changed = false;
+        for (DHashCharShortMapSegment segment : segments) {
+            synchronized (segment) {
+                segment.beginUpdate();
+                try {
+                    changed |= segment.map.shrink();
+                } finally {
+                    segment.endUpdate();
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        for (DHashCharShortMapSegment segment : segments) {
+            synchronized (segment) {
+                segment.beginUpdate();
+                try {
+                    segment.map.clear();
+                } finally {
+                    segment.endUpdate();
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public boolean containsKey(char key) {
+        return segment(key).containsKey(key, true);
+    }
+
+    @Override
+    public short get(char key) {
+        return getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        return segment(key).getOrDefault(key, defaultValue, true);
+    }
+
+    @Override
+    public short put(char key, short value) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.put(key, value);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.putIfAbsent(key, value);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short replace(char key, short value) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.replace(key, value);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public boolean replace(char key, short oldValue, short newValue) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.replace(key, oldValue, newValue);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short remove(char key) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.remove(key);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(char key, short value) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.remove(key, value);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short compute(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.compute(key, remappingFunction);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short computeIfAbsent(char key, /*f*/CharToShortFunction mappingFunction) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.computeIfAbsent(key, mappingFunction);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short computeIfPresent(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.computeIfPresent(key, remappingFunction);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short merge(char key, short value, /*f*/ShortBinaryOperator remappingFunction) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.merge(key, value, remappingFunction);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short incrementValue(char key, short increment) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.incrementValue(key, increment);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        DHashCharShortMapSegment segment = segment(key);
+        synchronized (segment) {
+            segment.beginUpdate();
+            try {
+                return segment.map.incrementValue(key, increment, defaultValue);
+            } finally {
+                segment.endUpdate();
+            }
+        }
+    }
+
+
+    @Override
+    public void forEach(@Nonnull CharShortConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        for (DHashCharShortMapSegment segment : segments) {
+            MutableDHashCharShortMapGO copy;
+            synchronized (segment) {
+                copy = factory.newMutableMap(segment.map);
+            }
+            // the action is applied outside of the lock
+            copy.forEach(action);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public HashCharShortMap snapshot() {
+        MutableDHashCharShortMapGO snapshot = factory.newMutableMap(size());
+        for (DHashCharShortMapSegment segment : segments) {
+            synchronized (segment) {
+                snapshot.putAll(segment.map);
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
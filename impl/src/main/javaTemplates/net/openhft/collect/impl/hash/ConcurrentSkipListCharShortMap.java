@@ -0,0 +1,737 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double|obj value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.StripedCounter;
+import net.openhft.collect.map.ConcurrentSortedCharShortMap;
+import net.openhft.collect.map.NavigableCharShortCursor;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.openhft.collect.impl.UnsafeConstants.U;
+
+
+/**
+ * Lazy skip list (M. Herlihy, Y. Lev, V. Luchangco, N. Shavit, <i>A Simple Optimistic
+ * Skiplist Algorithm</i>, 2007). Each node holds the primitive key, the value and the whole
+ * tower of forward links in a single array, so an entry costs two objects.
+ *
+ * <p>Lookups and cursors traverse the links without locks and see only nodes, which
+ * are fully linked and not marked as removed. An update locks the predecessors
+ * of the node at all its levels, validates that they are still adjacent to it and then links
+ * or unlinks the node. Value updates lock only the node itself.
+ */
+public final class ConcurrentSkipListCharShortMap/*<>*/
+        implements ConcurrentSortedCharShortMap/*<>*/ {
+
+    /** Height of the head tower, enough for any {@code int}-sized map. */
+    private static final int MAX_LEVEL = 32;
+
+    private static final long NEXT_BASE;
+    private static final int NEXT_SCALE_SHIFT;
+    private static final long LOCK_OFFSET;
+    static {
+        NEXT_BASE = (long) U.arrayBaseOffset(Object[].class);
+        NEXT_SCALE_SHIFT = 31 - Integer.numberOfLeadingZeros(U.arrayIndexScale(Object[].class));
+        try {
+            LOCK_OFFSET = U.objectFieldOffset(Node.class.getDeclaredField("lock"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Node/*<>*/ {
+        final char key;
+        volatile short value;
+        /** Forward links, the length of the array is the height of the node. */
+        final Object[] next;
+        volatile boolean marked;
+        volatile boolean fullyLinked;
+        /** Spin lock, {@code 1} if held. Updates hold it only for a few stores. */
+        volatile int lock;
+
+        Node(char key, short value, int height) {
+            this.key = key;
+            this.value = value;
+            next = new Object[height];
+        }
+
+        int topLevel() {
+            return next.length - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node/*<>*/ next(int level) {
+            return (Node/*<>*/) U.getObjectVolatile(next,
+                    NEXT_BASE + (((long) level) << NEXT_SCALE_SHIFT));
+        }
+
+        void setNext(int level, Node/*<>*/ node) {
+            U.putObjectVolatile(next, NEXT_BASE + (((long) level) << NEXT_SCALE_SHIFT), node);
+        }
+
+        boolean live() {
+            return fullyLinked && !marked;
+        }
+
+        void lock() {
+            while (!U.compareAndSwapInt(this, LOCK_OFFSET, 0, 1)) {
+                Thread.yield();
+            }
+        }
+
+        void unlock() {
+            lock = 0;
+        }
+    }
+
+    private static int compare(char a, char b) {
+        /* if !(float|double key) */
+        return a < b ? -1 : (a == b ? 0 : 1);
+        /* elif float|double key //
+        return Double.compare(a, b);
+        // endif */
+    }
+
+    private static /*<>*/ boolean valueEquals(short a, short b) {
+        /* if !(float|double value) && !(obj value) */
+        return a == b;
+        /* elif float|double value //
+        return Double.compare(a, b) == 0;
+        // elif obj value //
+        return a.equals(b);
+        // endif */
+    }
+
+    private static int randomHeight() {
+        // geometric distribution with p = 1/2, capped by MAX_LEVEL
+        int r = ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1));
+        return Integer.numberOfTrailingZeros(r) + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static /*<>*/ Node/*<>*/[] newLevels() {
+        return new Node[MAX_LEVEL];
+    }
+
+    /* define absent *//* if !(obj value) //defaultValue// elif obj value //null// endif */
+    /* enddefine */
+
+    private final Node/*<>*/ head;
+    private final StripedCounter size = new StripedCounter();
+    /* if !(obj value) */
+    private final short defaultValue;
+    /* endif */
+
+    ConcurrentSkipListCharShortMap(/* if !(obj value) */short defaultValue/* endif */) {
+        head = new Node/*<>*/(/* const key 0 */0,
+                /* if !(obj value) *//* const value 0 */0/* elif obj value //null// endif */,
+                MAX_LEVEL);
+        /* if !(obj value) */
+        this.defaultValue = defaultValue;
+        /* endif */
+    }
+
+    /* if !(obj value) */
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+    /* endif */
+
+    @Override
+    public int size() {
+        long size = sizeAsLong();
+        return size <= (long) Integer.MAX_VALUE ? (int) size : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        // concurrent removal of a just linked node could be counted before its insertion
+        return Math.max(size.sum(), 0L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return firstNode() == null;
+    }
+
+    /**
+     * Skip list doesn't preallocate anything.
+     */
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return false;
+    }
+
+    @Override
+    public boolean shrink() {
+        return false;
+    }
+
+
+    /**
+     * Fills the predecessors and the successors of the key on each level.
+     *
+     * @return the highest level, on which the node with the key is found, or {@code -1}
+     */
+    private int find(char key, Node/*<>*/[] preds, Node/*<>*/[] succs) {
+        int levelFound = -1;
+        Node/*<>*/ pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node/*<>*/ curr = pred.next(level);
+            int cmp;
+            while (curr != null && (cmp = compare(key, curr.key)) >= 0) {
+                if (cmp == 0) {
+                    if (levelFound == -1)
+                        levelFound = level;
+                    break;
+                }
+                pred = curr;
+                curr = pred.next(level);
+            }
+            preds[level] = pred;
+            succs[level] = curr;
+        }
+        return levelFound;
+    }
+
+    /**
+     * Wait-free lookup.
+     *
+     * @return the live node with the key, or {@code null}
+     */
+    private Node/*<>*/ findNode(char key) {
+        Node/*<>*/ pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node/*<>*/ curr = pred.next(level);
+            int cmp;
+            while (curr != null && (cmp = compare(key, curr.key)) >= 0) {
+                if (cmp == 0)
+                    return curr.live() ? curr : null;
+                pred = curr;
+                curr = pred.next(level);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first live node with key greater than (or equal to, if {@code inclusive})
+     *         the given key, or {@code null}
+     */
+    Node/*<>*/ findGreater(char key, boolean inclusive) {
+        Node/*<>*/ pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node/*<>*/ curr = pred.next(level);
+            int cmp;
+            while (curr != null &&
+                    ((cmp = compare(curr.key, key)) < 0 || (!inclusive && cmp == 0))) {
+                pred = curr;
+                curr = pred.next(level);
+            }
+        }
+        return nextLive(pred);
+    }
+
+    /**
+     * @return the last live node with key less than (or equal to, if {@code inclusive})
+     *         the given key, or {@code null}
+     */
+    Node/*<>*/ findLower(char key, boolean inclusive) {
+        while (true) {
+            Node/*<>*/ pred = head;
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                Node/*<>*/ curr = pred.next(level);
+                int cmp;
+                while (curr != null &&
+                        ((cmp = compare(curr.key, key)) < 0 || (inclusive && cmp == 0))) {
+                    pred = curr;
+                    curr = pred.next(level);
+                }
+            }
+            if (pred == head)
+                return null;
+            if (pred.live())
+                return pred;
+            // the node is being inserted or removed, search before it
+            key = pred.key;
+            inclusive = false;
+        }
+    }
+
+    /**
+     * Links of removed nodes are retained, so the traversal could continue
+     * from the node, removed meanwhile.
+     */
+    static /*<>*/ Node/*<>*/ nextLive(Node/*<>*/ node) {
+        Node/*<>*/ curr = node.next(0);
+        while (curr != null && !curr.live()) {
+            curr = curr.next(0);
+        }
+        return curr;
+    }
+
+    Node/*<>*/ firstNode() {
+        return nextLive(head);
+    }
+
+    Node/*<>*/ lastNode() {
+        Node/*<>*/ pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node/*<>*/ curr;
+            while ((curr = pred.next(level)) != null) {
+                pred = curr;
+            }
+        }
+        if (pred == head)
+            return null;
+        return pred.live() ? pred : findLower(pred.key, false);
+    }
+
+
+    @Override
+    public boolean containsKey(char key) {
+        return findNode(key) != null;
+    }
+
+    @Override
+    public short get(char key) {
+        Node/*<>*/ node = findNode(key);
+        return node != null ? node.value : /*absent*/defaultValue/**/;
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        Node/*<>*/ node = findNode(key);
+        return node != null ? node.value : defaultValue;
+    }
+
+    @Override
+    public short put(char key, short value) {
+        return insert(key, value, false);
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        return insert(key, value, true);
+    }
+
+    private short insert(char key, short value, boolean onlyIfAbsent) {
+        /* if obj value */
+        if (value == null)
+            throw new java.lang.NullPointerException();
+        /* endif */
+        int topLevel = randomHeight() - 1;
+        Node/*<>*/[] preds = newLevels();
+        Node/*<>*/[] succs = newLevels();
+        while (true) {
+            int levelFound = find(key, preds, succs);
+            if (levelFound != -1) {
+                Node/*<>*/ found = succs[levelFound];
+                if (!found.marked) {
+                    while (!found.fullyLinked) {
+                        Thread.yield();
+                    }
+                    found.lock();
+                    try {
+                        if (!found.marked) {
+                            short oldValue = found.value;
+                            if (!onlyIfAbsent)
+                                found.value = value;
+                            return oldValue;
+                        }
+                    } finally {
+                        found.unlock();
+                    }
+                }
+                // the node is being removed, wait until it is unlinked
+                continue;
+            }
+            int highestLocked = -1;
+            try {
+                Node/*<>*/ prevPred = null;
+                boolean valid = true;
+                for (int level = 0; valid && level <= topLevel; level++) {
+                    Node/*<>*/ pred = preds[level];
+                    Node/*<>*/ succ = succs[level];
+                    if (pred != prevPred) {
+                        pred.lock();
+                        highestLocked = level;
+                        prevPred = pred;
+                    }
+                    valid = !pred.marked && (succ == null || !succ.marked) &&
+                            pred.next(level) == succ;
+                }
+                if (!valid)
+                    continue;
+                Node/*<>*/ node = new Node/*<>*/(key, value, topLevel + 1);
+                for (int level = 0; level <= topLevel; level++) {
+                    node.setNext(level, succs[level]);
+                }
+                for (int level = 0; level <= topLevel; level++) {
+                    preds[level].setNext(level, node);
+                }
+                node.fullyLinked = true;
+                size.add(1L);
+                return /*absent*/defaultValue/**/;
+            } finally {
+                unlock(preds, highestLocked);
+            }
+        }
+    }
+
+    private static /*<>*/ void unlock(Node/*<>*/[] preds, int highestLocked) {
+        Node/*<>*/ prevPred = null;
+        for (int level = 0; level <= highestLocked; level++) {
+            Node/*<>*/ pred = preds[level];
+            if (pred != prevPred) {
+                pred.unlock();
+                prevPred = pred;
+            }
+        }
+    }
+
+    @Override
+    public short remove(char key) {
+        Node/*<>*/ removed = delete(key, null, false, /*absent*/defaultValue/**/);
+        return removed != null ? removed.value : /*absent*/defaultValue/**/;
+    }
+
+    @Override
+    public boolean remove(char key, short value) {
+        /* if obj value */
+        if (value == null)
+            return false;
+        /* endif */
+        return delete(key, null, true, value) != null;
+    }
+
+    /**
+     * Removes the node with the key, if it is the expected node (if it isn't {@code null})
+     * and holds the expected value (if {@code matchValue}).
+     *
+     * @return the removed node, its value is final, or {@code null}
+     */
+    Node/*<>*/ delete(char key, Node/*<>*/ expectedNode,
+            boolean matchValue, short expectedValue) {
+        Node/*<>*/ victim = null;
+        int topLevel = -1;
+        Node/*<>*/[] preds = newLevels();
+        Node/*<>*/[] succs = newLevels();
+        while (true) {
+            int levelFound = find(key, preds, succs);
+            if (victim == null) {
+                if (levelFound == -1)
+                    return null;
+                Node/*<>*/ candidate = succs[levelFound];
+                if (expectedNode != null && candidate != expectedNode)
+                    return null;
+                if (!candidate.fullyLinked || candidate.topLevel() != levelFound ||
+                        candidate.marked) {
+                    // being inserted or already removed by another thread
+                    return null;
+                }
+                candidate.lock();
+                if (candidate.marked ||
+                        (matchValue && !valueEquals(candidate.value, expectedValue))) {
+                    candidate.unlock();
+                    return null;
+                }
+                candidate.marked = true;
+                victim = candidate;
+                topLevel = victim.topLevel();
+            }
+            int highestLocked = -1;
+            try {
+                Node/*<>*/ prevPred = null;
+                boolean valid = true;
+                for (int level = 0; valid && level <= topLevel; level++) {
+                    Node/*<>*/ pred = preds[level];
+                    if (pred != prevPred) {
+                        pred.lock();
+                        highestLocked = level;
+                        prevPred = pred;
+                    }
+                    valid = !pred.marked && pred.next(level) == victim;
+                }
+                if (!valid)
+                    continue;
+                for (int level = topLevel; level >= 0; level--) {
+                    preds[level].setNext(level, victim.next(level));
+                }
+                victim.unlock();
+                size.add(-1L);
+                return victim;
+            } finally {
+                unlock(preds, highestLocked);
+            }
+        }
+    }
+
+    @Override
+    public char firstKey() {
+        Node/*<>*/ node = firstNode();
+        if (node == null)
+            throw new NoSuchElementException();
+        return node.key;
+    }
+
+    @Override
+    public char lastKey() {
+        Node/*<>*/ node = lastNode();
+        if (node == null)
+            throw new NoSuchElementException();
+        return node.key;
+    }
+
+    @Override
+    public boolean pollFirstEntry(@Nonnull /*f*/CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        Node/*<>*/ node;
+        while ((node = firstNode()) != null) {
+            if (delete(node.key, node, false, /*absent*/defaultValue/**/) != null) {
+                action.accept(node.key, node.value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean pollLastEntry(@Nonnull /*f*/CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        Node/*<>*/ node;
+        while ((node = lastNode()) != null) {
+            if (delete(node.key, node, false, /*absent*/defaultValue/**/) != null) {
+                action.accept(node.key, node.value);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(@Nonnull /*f*/CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        for (Node/*<>*/ node = firstNode(); node != null; node = nextLive(node)) {
+            action.accept(node.key, node.value);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Node/*<>*/ node;
+        while ((node = firstNode()) != null) {
+            delete(node.key, node, false, /*absent*/defaultValue/**/);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public NavigableCharShortCursor/*<>*/ cursor() {
+        return new SkipListCursor(false, /* const key 0 */0, false, false,
+                /* const key 0 */0, false);
+    }
+
+    @Nonnull
+    @Override
+    public NavigableCharShortCursor/*<>*/ cursor(char fromKey, boolean fromInclusive,
+            char toKey, boolean toInclusive) {
+        if (compare(fromKey, toKey) > 0)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return new SkipListCursor(true, fromKey, fromInclusive, true, toKey, toInclusive);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        for (Node/*<>*/ node = firstNode(); node != null; node = nextLive(node)) {
+            if (sb.length() > 1)
+                sb.append(',').append(' ');
+            sb.append(node.key).append('=').append(node.value);
+        }
+        return sb.append('}').toString();
+    }
+
+
+    class SkipListCursor implements NavigableCharShortCursor/*<>*/ {
+        private final boolean hasLow, lowInclusive, hasHigh, highInclusive;
+        private final char low, high;
+
+        /** {@code false} while the cursor is in front of the first entry. */
+        private boolean started;
+        /**
+         * The current node, or the removed node, from which the traversal continues,
+         * or {@code null} after the last entry.
+         */
+        private Node/*<>*/ node;
+        /** {@code true} if {@code node} is the entry, the cursor points to. */
+        private boolean pointing;
+
+        SkipListCursor(boolean hasLow, char low, boolean lowInclusive,
+                boolean hasHigh, char high, boolean highInclusive) {
+            this.hasLow = hasLow;
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.hasHigh = hasHigh;
+            this.high = high;
+            this.highInclusive = highInclusive;
+        }
+
+        private boolean aboveLow(Node/*<>*/ node) {
+            if (!hasLow)
+                return true;
+            int cmp = compare(node.key, low);
+            return cmp > 0 || (lowInclusive && cmp == 0);
+        }
+
+        private boolean belowHigh(Node/*<>*/ node) {
+            if (!hasHigh)
+                return true;
+            int cmp = compare(node.key, high);
+            return cmp < 0 || (highInclusive && cmp == 0);
+        }
+
+        private Node/*<>*/ first() {
+            return hasLow ? findGreater(low, lowInclusive) : firstNode();
+        }
+
+        private Node/*<>*/ last() {
+            return hasHigh ? findLower(high, highInclusive) : lastNode();
+        }
+
+        private boolean moveTo(Node/*<>*/ node) {
+            started = true;
+            if (node != null && aboveLow(node) && belowHigh(node)) {
+                this.node = node;
+                pointing = true;
+                return true;
+            }
+            this.node = null;
+            pointing = false;
+            return false;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (!started)
+                return moveTo(first());
+            Node/*<>*/ node = this.node;
+            return node != null && moveTo(nextLive(node));
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return moveTo(first());
+        }
+
+        @Override
+        public boolean moveToLast() {
+            return moveTo(last());
+        }
+
+        @Override
+        public boolean moveToCeiling(char key) {
+            Node/*<>*/ node = findGreater(key, true);
+            return moveTo(node != null && !aboveLow(node) ? first() : node);
+        }
+
+        @Override
+        public boolean moveToFloor(char key) {
+            Node/*<>*/ node = findLower(key, true);
+            return moveTo(node != null && !belowHigh(node) ? last() : node);
+        }
+
+        @Override
+        public boolean moveToHigher(char key) {
+            Node/*<>*/ node = findGreater(key, false);
+            return moveTo(node != null && !aboveLow(node) ? first() : node);
+        }
+
+        @Override
+        public boolean moveToLower(char key) {
+            Node/*<>*/ node = findLower(key, false);
+            return moveTo(node != null && !belowHigh(node) ? last() : node);
+        }
+
+        @Override
+        public void forEachForward(/*f*/CharShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (moveNext()) {
+                Node/*<>*/ node = this.node;
+                action.accept(node.key, node.value);
+            }
+        }
+
+        private Node/*<>*/ current() {
+            Node/*<>*/ node = this.node;
+            if (node == null || !pointing)
+                throw new IllegalStateException();
+            return node;
+        }
+
+        @Override
+        public char key() {
+            return current().key;
+        }
+
+        @Override
+        public short value() {
+            return current().value;
+        }
+
+        /**
+         * If the entry is removed concurrently, the new value is lost, as if it was set
+         * just before the removal.
+         */
+        @Override
+        public void setValue(short value) {
+            /* if obj value */
+            if (value == null)
+                throw new java.lang.NullPointerException();
+            /* endif */
+            Node/*<>*/ node = current();
+            node.lock();
+            try {
+                if (!node.marked)
+                    node.value = value;
+            } finally {
+                node.unlock();
+            }
+        }
+
+        @Override
+        public void remove() {
+            Node/*<>*/ node = current();
+            delete(node.key, node, false, /*absent*/defaultValue/**/);
+            // keep the node to continue the traversal from it
+            pointing = false;
+        }
+    }
+}
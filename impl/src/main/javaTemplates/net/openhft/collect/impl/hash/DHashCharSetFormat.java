@@ -0,0 +1,300 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.*;
+import net.openhft.collect.set.hash.HashCharSet;
+import javax.annotation.Nonnull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Writes and reads {@code char} sets in the format, described in {@link DHashFormat}.
+ */
+final class DHashCharSetFormat {
+
+    static final byte ELEM_TYPE = (byte) /* if char elem */'c'/* elif byte elem //'b'
+            // elif short elem //'s'// elif int elem //'i'// elif long elem //'l'
+            // elif float elem //'f'// elif double elem //'d'// endif */;
+    static final int ELEM_BYTES = /* if !(float|double elem) */Character.SIZE
+            /* elif float elem //Integer.SIZE// elif double elem //Long.SIZE// endif */ / Byte.SIZE;
+
+    static void write(CharDHash hash, boolean mutable, DataOutput out) throws IOException {
+        DHashFormat.writeHeader(out, mutable ? DHashFormat.MUTABLE_SET :
+                DHashFormat.IMMUTABLE_SET, ELEM_TYPE, (byte) 0);
+        DHashFormat.writeConfig(out, hash.hashConfig());
+        writeTable(hash, out);
+    }
+
+    static void writeTable(CharDHash hash, DataOutput out) throws IOException {
+        /* if !(float|double elem) */
+        out.writeChar(hash.freeValue());
+        boolean supportRemoved = hash.supportRemoved();
+        out.writeBoolean(supportRemoved);
+        if (supportRemoved)
+            out.writeChar(hash.removedValue());
+        /* endif */
+        out.writeInt(hash.capacity());
+        out.writeInt(hash.size());
+        out.writeInt(hash.removedSlots());
+        /* if !(float|double elem) */
+        CharArrayIO.write(out, hash.keys());
+        /* elif float elem //
+        IntArrayIO.write(out, hash.keys());
+        // elif double elem //
+        LongArrayIO.write(out, hash.keys());
+        // endif */
+    }
+
+    static HashCharSet read(DataInput in) throws IOException {
+        boolean mutable = DHashFormat.readHeader(in, false, ELEM_TYPE, (byte) 0);
+        return newSet(readTable(in, DHashFormat.readConfig(in), mutable, 0), mutable);
+    }
+
+    static HashCharSet newSet(Table table, boolean mutable) {
+        if (mutable) {
+            MutableDHashCharSetGO set = new MutableDHashCharSet();
+            set.move(table);
+            return set;
+        } else {
+            ImmutableDHashCharSetGO set = new ImmutableDHashCharSet();
+            set.move(table);
+            return set;
+        }
+    }
+
+    static HashCharSet read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        HashCharSet set = read(new ByteBufferInput(in));
+        buffer.position(in.position());
+        return set;
+    }
+
+    /**
+     * @param valueBytes the size of a value in bytes, if the values follow the keys
+     *        in the input, {@code 0} for sets
+     */
+    static Table readTable(DataInput in, HashConfig config, boolean mutable, int valueBytes)
+            throws IOException {
+        /* if !(float|double elem) */
+        char freeValue = in.readChar();
+        boolean supportRemoved = in.readBoolean();
+        char removedValue = supportRemoved ? in.readChar() : freeValue;
+        if (supportRemoved && removedValue == freeValue)
+            throw new InvalidObjectException("Free and removed values are equal");
+        /* endif */
+        int capacity = in.readInt();
+        int size = in.readInt();
+        int removedSlots = in.readInt();
+        DHashFormat.checkTable(capacity, size, removedSlots, mutable);
+        DHashFormat.checkRemaining(in, ((long) capacity) * (long) (ELEM_BYTES + valueBytes));
+        /* bits */char[] keys = new /* bits */char[capacity];
+        /* if !(float|double elem) */
+        CharArrayIO.read(in, keys);
+        char free = freeValue, removed = removedValue;
+        /* elif float elem //
+        IntArrayIO.read(in, keys);
+        int free = FloatHash.FREE_BITS, removed = FloatHash.REMOVED_BITS;
+        // elif double elem //
+        LongArrayIO.read(in, keys);
+        long free = DoubleHash.FREE_BITS, removed = DoubleHash.REMOVED_BITS;
+        // endif */
+        // the header is checked to leave a free slot, if it matches the keys
+        int fullSlots = 0, removedKeys = 0;
+        for (/* bits */char key : keys) {
+            if (key != free) {
+                if (key == removed) {
+                    removedKeys++;
+                } else {
+                    fullSlots++;
+                }
+            }
+        }
+        if (fullSlots != size || removedKeys != removedSlots)
+            throw new InvalidObjectException("Inconsistent table");
+        return new Table(new HashConfigWrapper(config),
+                /* if !(float|double elem) */freeValue, supportRemoved, removedValue, /* endif */
+                keys, size, removedSlots);
+    }
+
+
+    /**
+     * The table, read from the input, to be moved to a new container.
+     */
+    static class Table implements CharDHash {
+        private final HashConfigWrapper configWrapper;
+        /* if !(float|double elem) */
+        private final char freeValue;
+        private final boolean supportRemoved;
+        private final char removedValue;
+        /* endif */
+        private final /* bits */char[] keys;
+        private final int size;
+        private final int removedSlots;
+
+        Table(HashConfigWrapper configWrapper,
+                /* if !(float|double elem) */
+                char freeValue, boolean supportRemoved, char removedValue,
+                /* endif */
+                /* bits */char[] keys, int size, int removedSlots) {
+            this.configWrapper = configWrapper;
+            /* if !(float|double elem) */
+            this.freeValue = freeValue;
+            this.supportRemoved = supportRemoved;
+            this.removedValue = removedValue;
+            /* endif */
+            this.keys = keys;
+            this.size = size;
+            this.removedSlots = removedSlots;
+        }
+
+        Table(Table table) {
+            this(table.configWrapper,
+                    /* if !(float|double elem) */
+                    table.freeValue, table.supportRemoved, table.removedValue,
+                    /* endif */
+                    table.keys, table.size, table.removedSlots);
+        }
+
+        @Override
+        public HashConfigWrapper configWrapper() {
+            return configWrapper;
+        }
+
+        @Override
+        public HashConfig hashConfig() {
+            return configWrapper.config();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long sizeAsLong() {
+            return (long) size;
+        }
+
+        @Override
+        public int capacity() {
+            return keys.length;
+        }
+
+        @Override
+        public int freeSlots() {
+            return keys.length - size - removedSlots;
+        }
+
+        @Override
+        public boolean noRemoved() {
+            return removedSlots == 0;
+        }
+
+        @Override
+        public int removedSlots() {
+            return removedSlots;
+        }
+
+        @Override
+        public int modCount() {
+            return 0;
+        }
+
+        @Override
+        public float currentLoad() {
+            return (float) (((double) (size + removedSlots)) / (double) keys.length);
+        }
+
+        @Override
+        public long bytesUsed() {
+            return Footprints.shallowBytes(this) + Footprints.arrayBytes(keys);
+        }
+
+        @Override
+        public boolean ensureCapacity(long minSize) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean shrink() {
+            throw new UnsupportedOperationException();
+        }
+
+        /* if !(float|double elem) */
+        @Override
+        public char freeValue() {
+            return freeValue;
+        }
+
+        @Override
+        public boolean supportRemoved() {
+            return supportRemoved;
+        }
+
+        @Override
+        public char removedValue() {
+            if (!supportRemoved)
+                throw new UnsupportedOperationException();
+            return removedValue;
+        }
+        /* endif */
+
+        @Nonnull
+        @Override
+        public /* bits */char[] keys() {
+            return keys;
+        }
+    }
+
+
+    /**
+     * Replaces sets in Java serialization, writes them in the compact format.
+     */
+    static final class SerializationProxy implements Externalizable {
+        private static final long serialVersionUID = 0L;
+
+        private HashCharSet set;
+
+        public SerializationProxy() {}
+
+        SerializationProxy(HashCharSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            set.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            set = read(in);
+        }
+
+        private Object readResolve() {
+            return set;
+        }
+    }
+
+    private DHashCharSetFormat() {}
+}
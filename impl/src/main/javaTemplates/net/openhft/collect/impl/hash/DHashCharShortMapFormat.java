@@ -0,0 +1,154 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.*;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import javax.annotation.Nonnull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Writes and reads maps from {@code char} to {@code short} in the format, described
+ * in {@link DHashFormat}.
+ */
+final class DHashCharShortMapFormat {
+
+    static final byte VALUE_TYPE = (byte) /* if short value */'s'/* elif byte value //'b'
+            // elif char value //'c'// elif int value //'i'// elif long value //'l'
+            // elif float value //'f'// elif double value //'d'// endif */;
+    static final int VALUE_BYTES = /* if !(float|double value) */Short.SIZE
+            /* elif float value //Integer.SIZE// elif double value //Long.SIZE// endif */ / Byte.SIZE;
+
+    static void write(CharShortDHash hash, short defaultValue, boolean mutable,
+            DataOutput out) throws IOException {
+        DHashFormat.writeHeader(out, mutable ? DHashFormat.MUTABLE_MAP :
+                DHashFormat.IMMUTABLE_MAP, DHashCharSetFormat.ELEM_TYPE, VALUE_TYPE);
+        DHashFormat.writeConfig(out, hash.hashConfig());
+        out.writeShort(defaultValue);
+        DHashCharSetFormat.writeTable(hash, out);
+        /* if !(float|double value) */
+        ShortArrayIO.write(out, hash.valueArray());
+        /* elif float value //
+        IntArrayIO.write(out, hash.valueArray());
+        // elif double value //
+        LongArrayIO.write(out, hash.valueArray());
+        // endif */
+    }
+
+    static HashCharShortMap read(DataInput in) throws IOException {
+        boolean mutable = DHashFormat.readHeader(in, true,
+                DHashCharSetFormat.ELEM_TYPE, VALUE_TYPE);
+        HashConfig config = DHashFormat.readConfig(in);
+        short defaultValue = in.readShort();
+        DHashCharSetFormat.Table keys = DHashCharSetFormat.readTable(in, config, mutable,
+                VALUE_BYTES);
+        /* bits */short[] values = new /* bits */short[keys.capacity()];
+        /* if !(float|double value) */
+        ShortArrayIO.read(in, values);
+        /* elif float value //
+        IntArrayIO.read(in, values);
+        // elif double value //
+        LongArrayIO.read(in, values);
+        // endif */
+        return newMap(new Table(keys, values), defaultValue, mutable);
+    }
+
+    static HashCharShortMap newMap(Table table, short defaultValue, boolean mutable) {
+        // the config is moved from the table, the factory only sets the default value
+        HashCharShortMapFactorySO factory = (HashCharShortMapFactorySO)
+                new HashCharShortMapFactoryImpl().withDefaultValue(defaultValue);
+        if (mutable) {
+            MutableDHashCharShortMapGO map = factory.uninitializedMutableMap();
+            map.move(table);
+            return map;
+        } else {
+            ImmutableDHashCharShortMapGO map = factory.uninitializedImmutableMap();
+            map.move(table);
+            return map;
+        }
+    }
+
+
+    static HashCharShortMap read(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        HashCharShortMap map = read(new ByteBufferInput(in));
+        buffer.position(in.position());
+        return map;
+    }
+
+
+    static final class Table extends DHashCharSetFormat.Table implements CharShortDHash {
+        private final /* bits */short[] values;
+
+        Table(DHashCharSetFormat.Table keys, /* bits */short[] values) {
+            super(keys);
+            this.values = values;
+        }
+
+        @Nonnull
+        @Override
+        public /* bits */short[] valueArray() {
+            return values;
+        }
+
+        @Override
+        public long bytesUsed() {
+            return super.bytesUsed() + Footprints.arrayBytes(values);
+        }
+    }
+
+
+    /**
+     * Replaces maps in Java serialization, writes them in the compact format.
+     */
+    static final class SerializationProxy implements Externalizable {
+        private static final long serialVersionUID = 0L;
+
+        private HashCharShortMap map;
+
+        public SerializationProxy() {}
+
+        SerializationProxy(HashCharShortMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            map.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            map = read(in);
+        }
+
+        private Object readResolve() {
+            return map;
+        }
+    }
+
+    private DHashCharShortMapFormat() {}
+}
@@ -0,0 +1,256 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.UnsafeConstants;
+
+
+/**
+ * A plain {@link MutableDHashCharShortMapGO}, which publishes its tables and a version,
+ * odd while the map is being updated, i. e. a seqlock. Any thread could look keys up
+ * in the published tables without locking. Updates should be made by one thread at a time
+ * and wrapped with {@link #beginUpdate()} and {@link #endUpdate()} calls.
+ */
+final class DHashCharShortMapSegment implements UnsafeConstants {
+
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 4;
+    private static final int RETRY = -2;
+
+    private static final long VERSION_OFFSET;
+    static {
+        try {
+            VERSION_OFFSET = U.objectFieldOffset(
+                    DHashCharShortMapSegment.class.getDeclaredField("version"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static /* bits */char keyAt(/* bits */char[] keys, int index) {
+        /* if !(float|double key) */
+        return U.getCharVolatile(keys, CHAR_BASE + (((long) index) << CHAR_SCALE_SHIFT));
+        /* elif float key //
+        return U.getIntVolatile(keys, INT_BASE + (((long) index) << INT_SCALE_SHIFT));
+        // elif double key //
+        return U.getLongVolatile(keys, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT));
+        // endif */
+    }
+
+    private static /* bits */short valueAt(/* bits */short[] vals, int index) {
+        /* if !(float|double value) */
+        return U.getShortVolatile(vals, SHORT_BASE + (((long) index) << SHORT_SCALE_SHIFT));
+        /* elif float value //
+        return U.getIntVolatile(vals, INT_BASE + (((long) index) << INT_SCALE_SHIFT));
+        // elif double value //
+        return U.getLongVolatile(vals, LONG_BASE + (((long) index) << LONG_SCALE_SHIFT));
+        // endif */
+    }
+
+
+    final MutableDHashCharShortMapGO map;
+    /**
+     * Odd while the map is being updated
+     */
+    volatile int version;
+
+    // the state of the map, published for lookups without locking
+    volatile /* bits */char[] keys;
+    volatile /* bits */short[] vals;
+    /* if !(float|double key) */
+    volatile char free, removed;
+    /* endif */
+    volatile int size;
+
+    /**
+     * {@link MutableDHash#modCount()} of the map, when the state was published last time.
+     * Only structural modifications change the arrays, free and removed values,
+     * and the size, all of them increment the mod count. Accessed only by the writer.
+     */
+    private int publishedModCount;
+
+    DHashCharShortMapSegment(MutableDHashCharShortMapGO map) {
+        this.map = map;
+        publish();
+    }
+
+    void beginUpdate() {
+        int version = this.version;
+        // a plain volatile write could be reordered with the following writes to the table,
+        // CAS is a full fence (like in StampedLock.writeLock()). The writer is the only one,
+        // so it always succeeds
+        U.compareAndSwapInt(this, VERSION_OFFSET, version, version + 1);
+    }
+
+    /**
+     * Should be called in {@code finally} block after {@link #beginUpdate()}.
+     */
+    void endUpdate() {
+        if (map.modCount() != publishedModCount)
+            publish();
+        // ordered write is enough, it isn't reordered with the preceding writes
+        U.putOrderedInt(this, VERSION_OFFSET, version + 1);
+    }
+
+    private void publish() {
+        MutableDHashCharShortMapGO map = this.map;
+        publishedModCount = map.modCount();
+        // new arrays, allocated by rehash, are safely published by the volatile writes
+        keys = map.set;
+        vals = map.values;
+        /* if !(float|double key) */
+        free = map.freeValue;
+        removed = map.removedValue;
+        /* endif */
+        size = map.size();
+    }
+
+    /**
+     * Looks for the key in the given published table, the same way as the map
+     * does, but makes at most {@code keys.length} probes, because the table
+     * could be changing during the lookup.
+     *
+     * @return the index of the key, {@code -1} if the key is absent,
+     *         or {@link #RETRY} if the probe didn't terminate
+     */
+    private int index(/* bits */char[] keys, /* bits */char key) {
+        /* bits */char free;
+        /* if !(float|double key) */
+        if (key == (free = this.free) || key == removed)
+            return -1;
+        /* elif float|double key //
+        free = CharHash.FREE_BITS;
+        // endif */
+        int capacity = keys.length;
+        int hash, index;
+        /* bits */char cur = keyAt(keys, index = (hash =
+                /* if !(byte|int|float|long|double key) */key & 0xFFFF
+                /* elif byte key //key & 0xFF
+                // elif int|float key //key & Integer.MAX_VALUE
+                // elif long|double key //((int) (key ^ (key >>> 32))) & Integer.MAX_VALUE
+                // endif */) % capacity);
+        if (cur == key)
+            return index;
+        if (cur == free)
+            return -1;
+        int step = (hash % (capacity - 2)) + 1;
+        for (int probes = 1; probes < capacity; probes++) {
+            if ((index -= step) < 0) index += capacity; // nextIndex
+            if ((cur = keyAt(keys, index)) == key)
+                return index;
+            if (cur == free)
+                return -1;
+        }
+        return RETRY;
+    }
+
+    /**
+     * Checks if the key is present without locking. If {@code lockOnContention} is
+     * {@code true}, after a few attempts, failed because of concurrent updates, locks
+     * on this segment, otherwise retries until success.
+     */
+    boolean containsKey(char key, boolean lockOnContention) {
+        /* bits */char k = /* unwrap key */key;
+        for (int attempt = 0; !lockOnContention || attempt < OPTIMISTIC_READ_ATTEMPTS;
+             attempt++) {
+            int version = this.version;
+            if ((version & 1) != 0)
+                continue;
+            int index = index(keys, k);
+            if (index != RETRY && this.version == version)
+                return index >= 0;
+        }
+        synchronized (this) {
+            return map.containsKey(key);
+        }
+    }
+
+    /**
+     * Returns the value, mapped to the key, or the given default value, without locking.
+     *
+     * @see #containsKey(char, boolean)
+     */
+    short getOrDefault(char key, short defaultValue, boolean lockOnContention) {
+        /* bits */char k = /* unwrap key */key;
+        for (int attempt = 0; !lockOnContention || attempt < OPTIMISTIC_READ_ATTEMPTS;
+             attempt++) {
+            int version = this.version;
+            if ((version & 1) != 0)
+                continue;
+            /* bits */char[] keys = this.keys;
+            /* bits */short[] vals = this.vals;
+            int index;
+            // if the tables were replaced between the two reads, index could be
+            // out of vals bounds, that isn't checked by Unsafe
+            if (vals.length != keys.length || (index = index(keys, k)) == RETRY)
+                continue;
+            /* bits */short value = index >= 0 ? valueAt(vals, index) : 0;
+            if (this.version == version)
+                return index >= 0 ? /* wrap value */value : defaultValue;
+        }
+        synchronized (this) {
+            return map.getOrDefault(key, defaultValue);
+        }
+    }
+
+    /**
+     * Puts the entries of the map, as they were at some point of time, to the given map.
+     * Doesn't lock, retries if the map is updated concurrently.
+     */
+    void copyTo(MutableDHashCharShortMapGO dest) {
+        /* bits */char[] keysCopy = null;
+        /* bits */short[] valsCopy = null;
+        for (;;) {
+            int version = this.version;
+            if ((version & 1) != 0)
+                continue;
+            /* bits */char[] keys = this.keys;
+            /* bits */short[] vals = this.vals;
+            int capacity = keys.length;
+            if (vals.length != capacity)
+                continue;
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = this.free;
+            removed = this.removed;
+            /* elif float|double key //
+            free = CharHash.FREE_BITS;
+            removed = CharHash.REMOVED_BITS;
+            // endif */
+            if (keysCopy == null || keysCopy.length != capacity) {
+                keysCopy = new /* bits */char[capacity];
+                valsCopy = new /* bits */short[capacity];
+            }
+            for (int i = 0; i < capacity; i++) {
+                keysCopy[i] = keyAt(keys, i);
+                valsCopy[i] = valueAt(vals, i);
+            }
+            if (this.version != version)
+                continue;
+            for (int i = 0; i < capacity; i++) {
+                /* bits */char key;
+                if ((key = keysCopy[i]) != free && key != removed) {
+                    dest.put(/* wrap key */key/**/, /* wrap value */valsCopy[i]/**/);
+                }
+            }
+            return;
+        }
+    }
+}
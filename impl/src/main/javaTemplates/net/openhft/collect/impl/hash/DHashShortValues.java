@@ -0,0 +1,46 @@
+/* with short|byte|char|int|long|float|double value */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * A values view of a hash map, giving access to the table of the map regardless of its
+ * key type, e. g. to traverse the values in parts.
+ */
+interface DHashShortValues {
+
+    /**
+     * Returns the map, this view belongs to.
+     */
+    DHash hash();
+
+    @Nonnull
+    /* bits */short[] valueArray();
+
+    /**
+     * Returns the index of the first full slot in the given range.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the index of the first full slot, or {@code to} if all slots in the range
+     *         are free or removed
+     */
+    int nextFullSlot(int from, int to);
+}
@@ -0,0 +1,181 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.DirectMemory;
+import net.openhft.collect.impl.UnsafeConstants;
+
+import java.nio.MappedByteBuffer;
+
+import static net.openhft.collect.impl.hash.OffHeapCharDHash.keyAt;
+
+
+/**
+ * The base of frozen containers, which table is mapped from the file, written
+ * by {@link FrozenDHashFormat}. The table is the table of the immutable on-heap container,
+ * the file is written from, so it is probed the same way, right in the mapped memory.
+ *
+ * <p>The buffers are referenced only from fields, every method, which reads the mapped
+ * memory, calls {@link DirectMemory#keepReachable(Object)} after the last read, otherwise
+ * the container, and the buffers with it, could be collected and unmapped meanwhile.
+ */
+abstract class FrozenCharDHash implements UnsafeConstants {
+
+    static final long KEYS_BASE = /* if !(float|double elem) */CHAR_BASE
+            /* elif float elem //INT_BASE// elif double elem //LONG_BASE// endif */;
+    static final int KEYS_SCALE_SHIFT = /* if !(float|double elem) */CHAR_SCALE_SHIFT
+            /* elif float elem //INT_SCALE_SHIFT// elif double elem //LONG_SCALE_SHIFT// endif */;
+
+    final HashConfig hashConfig;
+    final int capacity;
+    final int size;
+    final /* bits */char free;
+    /** Retained, the mapping is released when the buffer is collected */
+    private final MappedByteBuffer keyBuffer;
+    final long keys;
+
+    FrozenCharDHash(FrozenDHashFormat.Table table) {
+        hashConfig = table.config;
+        capacity = table.capacity;
+        size = table.size;
+        free = (/* bits */char) table.freeBits;
+        keyBuffer = table.keyBuffer;
+        keys = table.keys;
+    }
+
+    static long freeBits(CharDHash hash) {
+        /* if !(float|double elem) */
+        return (long) hash.freeValue();
+        /* elif float elem //
+        return (long) FloatHash.FREE_BITS;
+        // elif double elem //
+        return DoubleHash.FREE_BITS;
+        // endif */
+    }
+
+    final int index(/* bits */char key) {
+        /* bits */char free;
+        if (key == (free = this.free))
+            return -1;
+        long keys = this.keys;
+        int capacity = this.capacity;
+        int hash = CharDHashes.hash(key);
+        int index = hash % capacity;
+        /* bits */char cur;
+        try {
+            if ((cur = keyAt(keys, index)) == key)
+                return index;
+            if (cur == free)
+                return -1;
+            int step = (hash % (capacity - 2)) + 1;
+            while (true) {
+                if ((index -= step) < 0) index += capacity; // nextIndex
+                if ((cur = keyAt(keys, index)) == key)
+                    return index;
+                if (cur == free)
+                    return -1;
+            }
+        } finally {
+            DirectMemory.keepReachable(keyBuffer);
+        }
+    }
+
+    /**
+     * Copies the keys to a new heap table, like the table of the container,
+     * the file is written from.
+     */
+    final DHashCharSetFormat.Table heapTable() {
+        /* bits */char[] keys = new /* bits */char[capacity];
+        U.copyMemory(null, this.keys, keys, KEYS_BASE, ((long) capacity) << KEYS_SCALE_SHIFT);
+        DirectMemory.keepReachable(keyBuffer);
+        return new DHashCharSetFormat.Table(new HashConfigWrapper(hashConfig),
+                /* if !(float|double elem) */free, false, free, /* endif */
+                keys, size, 0);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final long sizeAsLong() {
+        return (long) size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    public final HashConfig hashConfig() {
+        return hashConfig;
+    }
+
+    public final float currentLoad() {
+        return (float) (((double) size) / (double) capacity);
+    }
+
+    public final boolean ensureCapacity(long minSize) {
+        throw new UnsupportedOperationException();
+    }
+
+    public final boolean shrink() {
+        throw new UnsupportedOperationException();
+    }
+
+    public final void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+
+    abstract class SlotCursor {
+        final long keys;
+        int index;
+        /* bits */char curKey;
+        boolean pointing;
+
+        SlotCursor() {
+            keys = FrozenCharDHash.this.keys;
+            index = capacity;
+        }
+
+        public boolean moveNext() {
+            /* bits */char free = FrozenCharDHash.this.free;
+            for (int i = index - 1; i >= 0; i--) {
+                /* bits */char key;
+                if ((key = keyAt(keys, i)) != free) {
+                    DirectMemory.keepReachable(keyBuffer);
+                    index = i;
+                    curKey = key;
+                    return pointing = true;
+                }
+            }
+            DirectMemory.keepReachable(keyBuffer);
+            index = -1;
+            return pointing = false;
+        }
+
+        final void checkPointing() {
+            if (!pointing)
+                throw new IllegalStateException();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.CharCursor;
+import net.openhft.collect.impl.Footprints;
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.set.CharSet;
+import net.openhft.collect.set.hash.HashCharSet;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+
+
+/**
+ * An immutable set, mapped from the file, written by {@link #write(File, CharDHash)}.
+ * Lookups and traversals are served right from the mapped memory. Methods, returning
+ * views or new sets, and {@code equals()} work with a heap copy of the set, which is made
+ * on the first call of any of them.
+ */
+public final class FrozenDHashCharSet extends FrozenCharDHash implements HashCharSet {
+
+    /**
+     * @param hash the table of an immutable set, or a mutable set without removed slots
+     */
+    static void write(File file, CharDHash hash) throws IOException {
+        FrozenDHashFormat.write(file, DHashFormat.IMMUTABLE_SET, DHashCharSetFormat.ELEM_TYPE,
+                (byte) 0, hash.hashConfig(), hash.capacity(), hash.size(), freeBits(hash), 0L,
+                hash.keys(), KEYS_BASE, KEYS_SCALE_SHIFT, null, 0L, 0);
+    }
+
+    static FrozenDHashCharSet open(File file) throws IOException {
+        return new FrozenDHashCharSet(FrozenDHashFormat.read(file, false,
+                DHashCharSetFormat.ELEM_TYPE, (byte) 0, KEYS_SCALE_SHIFT, 0));
+    }
+
+
+    private volatile HashCharSet heapCopy;
+
+    private FrozenDHashCharSet(FrozenDHashFormat.Table table) {
+        super(table);
+    }
+
+    private HashCharSet heapCopy() {
+        HashCharSet heapCopy;
+        if ((heapCopy = this.heapCopy) == null)
+            this.heapCopy = heapCopy = DHashCharSetFormat.newSet(heapTable(), false);
+        return heapCopy;
+    }
+
+    /**
+     * Counts the mapped table and the heap copy, if it is made.
+     */
+    @Override
+    public long bytesUsed() {
+        HashCharSet heapCopy = this.heapCopy;
+        return Footprints.shallowBytes(this) + (((long) capacity) << KEYS_SCALE_SHIFT) +
+                (heapCopy != null ? heapCopy.bytesUsed() : 0L);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contains(((Character) o).charValue());
+    }
+
+    @Override
+    public boolean contains(char elem) {
+        return index(/* unwrap elem */elem) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(@Nonnull Collection<?> c) {
+        for (Object o : c) {
+            if (!contains(o))
+                return false;
+        }
+        return true;
+    }
+
+    public void forEach(Consumer<? super Character> action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        for (ElemCursor cur = new ElemCursor(); cur.moveNext();) {
+            action.accept(cur.elem());
+        }
+    }
+
+    @Override
+    public void forEach(CharConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        new ElemCursor().forEachForward(action);
+    }
+
+    @Override
+    public boolean forEachWhile(CharPredicate predicate) {
+        if (predicate == null)
+            throw new java.lang.NullPointerException();
+        for (ElemCursor cur = new ElemCursor(); cur.moveNext();) {
+            if (!predicate.test(/* wrap elem */cur.curKey))
+                return false;
+        }
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public CharCursor cursor() {
+        return new ElemCursor();
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<Character> iterator() {
+        return heapCopy().iterator();
+    }
+
+    @Nonnull
+    @Override
+    public Object[] toArray() {
+        return heapCopy().toArray();
+    }
+
+    @Nonnull
+    @Override
+    public <T> T[] toArray(@Nonnull T[] a) {
+        return heapCopy().toArray(a);
+    }
+
+    @Override
+    public char[] toCharArray() {
+        char[] a = new char[size];
+        int i = 0;
+        for (ElemCursor cur = new ElemCursor(); cur.moveNext();) {
+            a[i++] = /* wrap elem */cur.curKey;
+        }
+        return a;
+    }
+
+    @Override
+    public char[] toArray(char[] a) {
+        return heapCopy().toArray(a);
+    }
+
+    @Override
+    public int intersectionSize(@Nonnull CharSet other) {
+        CharSet smaller, larger;
+        if (other.size() < size) {
+            smaller = other;
+            larger = this;
+        } else {
+            smaller = this;
+            larger = other;
+        }
+        int count = 0;
+        for (CharCursor cur = smaller.cursor(); cur.moveNext();) {
+            if (larger.contains(cur.elem()))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    public double jaccard(@Nonnull CharSet other) {
+        return heapCopy().jaccard(other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet intersect(@Nonnull CharSet other) {
+        return heapCopy().intersect(other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet union(@Nonnull CharSet other) {
+        return heapCopy().union(other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet difference(@Nonnull CharSet other) {
+        return heapCopy().difference(other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet freeze() {
+        return this;
+    }
+
+    @Override
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        heapCopy().writeTo(out);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (ElemCursor cur = new ElemCursor(); cur.moveNext();) {
+            hashCode += Primitives.hashCode(/* wrap elem */cur.curKey);
+        }
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this || heapCopy().equals(obj);
+    }
+
+    @Override
+    public String toString() {
+        return heapCopy().toString();
+    }
+
+
+    @Override
+    public boolean add(Character e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean add(char e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(@Nonnull Collection<? extends Character> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeChar(char v) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(@Nonnull Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean removeIf(Predicate<? super Character> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(CharPredicate filter) {
+        throw new UnsupportedOperationException();
+    }
+
+
+    class ElemCursor extends SlotCursor implements CharCursor {
+
+        @Override
+        public void forEachForward(CharConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (moveNext()) {
+                action.accept(/* wrap elem */curKey);
+            }
+        }
+
+        @Override
+        public char elem() {
+            checkPointing();
+            return /* wrap elem */curKey;
+        }
+    }
+}
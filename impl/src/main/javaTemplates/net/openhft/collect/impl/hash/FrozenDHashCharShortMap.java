@@ -0,0 +1,489 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.ShortCollection;
+import net.openhft.collect.impl.*;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.collect.set.hash.HashCharSet;
+import net.openhft.collect.set.hash.HashObjSet;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.Map;
+
+
+/**
+ * An immutable map, mapped from the file, written by
+ * {@link #write(File, CharShortDHash, short)}. Lookups and traversals are served right from
+ * the mapped memory. Views, {@code toString()} and {@code writeTo()} work with a heap copy
+ * of the map, which is made on the first call of any of them.
+ */
+public final class FrozenDHashCharShortMap extends FrozenCharDHash
+        implements HashCharShortMap, InternalCharShortMapOps {
+
+    static final long VALUES_BASE = /* if !(float|double value) */SHORT_BASE
+            /* elif float value //INT_BASE// elif double value //LONG_BASE// endif */;
+    static final int VALUES_SCALE_SHIFT = /* if !(float|double value) */SHORT_SCALE_SHIFT
+            /* elif float value //INT_SCALE_SHIFT// elif double value //LONG_SCALE_SHIFT// endif */;
+
+    /**
+     * @param hash the table of an immutable map, or a mutable map without removed slots
+     */
+    static void write(File file, CharShortDHash hash, short defaultValue) throws IOException {
+        FrozenDHashFormat.write(file, DHashFormat.IMMUTABLE_MAP, DHashCharSetFormat.ELEM_TYPE,
+                DHashCharShortMapFormat.VALUE_TYPE, hash.hashConfig(), hash.capacity(),
+                hash.size(), freeBits(hash), (long) /* unwrap value */defaultValue/**/,
+                hash.keys(), KEYS_BASE, KEYS_SCALE_SHIFT,
+                hash.valueArray(), VALUES_BASE, VALUES_SCALE_SHIFT);
+    }
+
+    static FrozenDHashCharShortMap open(File file) throws IOException {
+        return new FrozenDHashCharShortMap(FrozenDHashFormat.read(file, true,
+                DHashCharSetFormat.ELEM_TYPE, DHashCharShortMapFormat.VALUE_TYPE,
+                KEYS_SCALE_SHIFT, VALUES_SCALE_SHIFT));
+    }
+
+
+    private final short defaultValue;
+    /** Retained, the mapping is released when the buffer is collected */
+    private final MappedByteBuffer valueBuffer;
+    private final long values;
+    private volatile HashCharShortMap heapCopy;
+
+    private FrozenDHashCharShortMap(FrozenDHashFormat.Table table) {
+        super(table);
+        /* if !(float|double value) */
+        defaultValue = (short) table.defaultValueBits;
+        /* elif float value //
+        defaultValue = Float.intBitsToFloat((int) table.defaultValueBits);
+        // elif double value //
+        defaultValue = Double.longBitsToDouble(table.defaultValueBits);
+        // endif */
+        valueBuffer = table.valueBuffer;
+        values = table.values;
+    }
+
+    private /* bits */short valueAt(int index) {
+        /* if !(float|double value) */
+        short value = U.getShort(values + (((long) index) << SHORT_SCALE_SHIFT));
+        /* elif float value //
+        int value = U.getInt(values + (((long) index) << INT_SCALE_SHIFT));
+        // elif double value //
+        long value = U.getLong(values + (((long) index) << LONG_SCALE_SHIFT));
+        // endif */
+        DirectMemory.keepReachable(valueBuffer);
+        return value;
+    }
+
+    private HashCharShortMap heapCopy() {
+        HashCharShortMap heapCopy;
+        if ((heapCopy = this.heapCopy) == null) {
+            /* bits */short[] vals = new /* bits */short[capacity];
+            U.copyMemory(null, values, vals, VALUES_BASE,
+                    ((long) capacity) << VALUES_SCALE_SHIFT);
+            DirectMemory.keepReachable(valueBuffer);
+            this.heapCopy = heapCopy = DHashCharShortMapFormat.newMap(
+                    new DHashCharShortMapFormat.Table(heapTable(), vals), defaultValue, false);
+        }
+        return heapCopy;
+    }
+
+    /**
+     * Counts the mapped table and the heap copy, if it is made.
+     */
+    @Override
+    public long bytesUsed() {
+        HashCharShortMap heapCopy = this.heapCopy;
+        return Footprints.shallowBytes(this) + (((long) capacity) << KEYS_SCALE_SHIFT) +
+                (((long) capacity) << VALUES_SCALE_SHIFT) +
+                (heapCopy != null ? heapCopy.bytesUsed() : 0L);
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return containsKey(((Character) key).charValue());
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        return index(/* unwrap key */key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return containsValue(((Short) value).shortValue());
+    }
+
+    @Override
+    public boolean containsValue(short value) {
+        /* bits */short v = /* unwrap value */value;
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            if (valueAt(cur.index) == v)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsEntry(char key, short value) {
+        int index = index(/* unwrap key */key);
+        return index >= 0 && valueAt(index) == /* unwrap value */value;
+    }
+
+    /* if float|double key || float|double value */
+    @Override
+    public boolean containsEntry(/* bits */char key, /* bits */short value) {
+        int index = index(key);
+        return index >= 0 && valueAt(index) == value;
+    }
+    /* endif */
+
+    @Override
+    public Short get(Object key) {
+        int index = index(/* unwrap key */((Character) key).charValue()/**/);
+        return index >= 0 ? /* wrap value */valueAt(index) : null;
+    }
+
+    @Override
+    public short get(char key) {
+        int index = index(/* unwrap key */key);
+        return index >= 0 ? /* wrap value */valueAt(index) : defaultValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short getOrDefault(Object key, Short defaultValue) {
+        int index = index(/* unwrap key */((Character) key).charValue()/**/);
+        return index >= 0 ? /* wrap value */valueAt(index) : defaultValue;
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        int index = index(/* unwrap key */key);
+        return index >= 0 ? /* wrap value */valueAt(index) : defaultValue;
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public void forEach(BiConsumer<? super Character, ? super Short> action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            action.accept(cur.key(), cur.value());
+        }
+    }
+
+    @Override
+    public void forEach(CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        new EntryCursor().forEachForward(action);
+    }
+
+    @Override
+    public boolean forEachWhile(CharShortPredicate predicate) {
+        if (predicate == null)
+            throw new java.lang.NullPointerException();
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            if (!predicate.test(cur.key(), cur.value()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void parallelForEach(@Nonnull CharShortConsumer action) {
+        // traversal of the mapped table is bound by page faults, rather than by CPU
+        forEach(action);
+    }
+
+    @Nonnull
+    @Override
+    public CharShortCursor cursor() {
+        return new EntryCursor();
+    }
+
+    @Override
+    public boolean containsAllEntries(Map<?, ?> m) {
+        return CommonCharShortMapOps.containsAllEntries(this, m);
+    }
+
+    @Override
+    public boolean allEntriesContainingIn(InternalCharShortMapOps m) {
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            if (!m.containsEntry(cur.curKey, valueAt(cur.index)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void reversePutAllTo(InternalCharShortMapOps m) {
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            m.justPut(cur.curKey, valueAt(cur.index));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet keySet() {
+        return heapCopy().keySet();
+    }
+
+    @Nonnull
+    @Override
+    public ShortCollection values() {
+        return heapCopy().values();
+    }
+
+    @Nonnull
+    @Override
+    public HashObjSet<Map.Entry<Character, Short>> entrySet() {
+        return heapCopy().entrySet();
+    }
+
+    @Nonnull
+    @Override
+    public HashCharShortMap freeze() {
+        return this;
+    }
+
+    @Override
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        heapCopy().writeTo(out);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return CommonMapOps.equals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (EntryCursor cur = new EntryCursor(); cur.moveNext();) {
+            hashCode += Primitives.hashCode(cur.key()) ^ Primitives.hashCode(cur.value());
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return heapCopy().toString();
+    }
+
+
+    @Override
+    public void justPut(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if float|double key || float|double value */
+    @Override
+    public void justPut(/* bits */char key, /* bits */short value) {
+        throw new UnsupportedOperationException();
+    }
+    /* endif */
+
+    @Override
+    public Short put(Character key, Short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short put(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short putIfAbsent(Character key, Short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(@Nonnull Map<? extends Character, ? extends Short> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short compute(Character key,
+            BiFunction<? super Character, ? super Short, ? extends Short> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short compute(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short computeIfAbsent(Character key,
+            Function<? super Character, ? extends Short> mappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short computeIfAbsent(char key, /*f*/CharToShortFunction mappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short computeIfPresent(Character key,
+            BiFunction<? super Character, ? super Short, ? extends Short> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short computeIfPresent(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short merge(Character key, Short value,
+            BiFunction<? super Short, ? super Short, ? extends Short> remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short merge(char key, short value, /*f*/ShortBinaryOperator remappingFunction) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short incrementValue(char key, short increment) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public Short replace(Character key, Short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short replace(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public boolean replace(Character key, Short oldValue, Short newValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean replace(char key, short oldValue, short newValue) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public void replaceAll(
+            BiFunction<? super Character, ? super Short, ? extends Short> function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(/*f*/CharShortToShortFunction function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void parallelReplaceAll(@Nonnull /*f*/CharShortToShortFunction function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Short remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short remove(char key) {
+        throw new UnsupportedOperationException();
+    }
+
+    /* if JDK8 jdk */@Override/* endif */
+    public boolean remove(Character key, Short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(char key, short value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(CharShortPredicate filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean parallelRemoveIf(@Nonnull CharShortPredicate filter) {
+        throw new UnsupportedOperationException();
+    }
+
+
+    class EntryCursor extends SlotCursor implements CharShortCursor {
+
+        @Override
+        public void forEachForward(CharShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (moveNext()) {
+                action.accept(/* wrap key */curKey/**/, /* wrap value */valueAt(index));
+            }
+        }
+
+        @Override
+        public char key() {
+            checkPointing();
+            return /* wrap key */curKey;
+        }
+
+        @Override
+        public short value() {
+            checkPointing();
+            return /* wrap value */valueAt(index);
+        }
+
+        @Override
+        public void setValue(short value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -18,10 +18,15 @@
 package net.openhft.collect.impl.hash;
 
 import net.openhft.collect.*;
+import net.openhft.collect.impl.Footprints;
 import net.openhft.collect.set.hash.HashCharSetFactory;
 import net.openhft.function.*;
 import net.openhft.collect.set.hash.HashCharSet;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -471,4 +476,59 @@ public abstract class HashCharSetFactoryGO/*<>*/ extends HashCharSetFactorySO/*<
         set.move(newMutableSetOf(e1, e2, e3, e4, e5, restElements));
         return set;
     }
+
+    @Override
+    public long estimateBytes(int expectedSize) {
+        long capacity = (long) DHashCapacities.capacity(configWrapper, expectedSize);
+        return Footprints.shallowBytes(uninitializedMutableSet()) +
+                Footprints.arrayBytes(/* if !(obj elem) *//* bits */char[].class
+                        /* elif obj elem //Object[].class// endif */, capacity);
+    }
+
+    @Override
+    public /*p1*/ PersistentChampCharSet/*p2*/ newPersistentSet() {
+        return PersistentChampCharSet.empty();
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public OffHeapDHashCharSet newOffHeapSet(long expectedSize) {
+        return new OffHeapDHashCharSet(hashConf, expectedSize);
+    }
+
+    @Override
+    public ChunkedDHashCharSet newChunkedSet(long expectedSize) {
+        return new ChunkedDHashCharSet(configWrapper, expectedSize);
+    }
+
+    @Override
+    public HashCharSet readSet(DataInput in) throws IOException {
+        return DHashCharSetFormat.read(in);
+    }
+
+    @Override
+    public HashCharSet readSet(ByteBuffer buffer) throws IOException {
+        return DHashCharSetFormat.read(buffer);
+    }
+
+    @Override
+    public void writeFrozenSet(File file, Iterable<Character> set) throws IOException {
+        if (set instanceof CharDHash && ((CharDHash) set).noRemoved()) {
+            FrozenDHashCharSet.write(file, (CharDHash) set);
+        } else {
+            // copies of the table would keep removed slots, elements are reinserted instead
+            MutableDHashCharSetGO table =
+                    newMutableSet(sizeOr(set, hashConf.getDefaultExpectedSize()));
+            for (char e : set) {
+                table.add(e);
+            }
+            FrozenDHashCharSet.write(file, table);
+        }
+    }
+
+    @Override
+    public HashCharSet openFrozenSet(File file) throws IOException {
+        return FrozenDHashCharSet.open(file);
+    }
+    /* endif */
 }
@@ -69,6 +69,10 @@ public abstract class HashCharSetFactorySO
         /* endif */
     }
 
+    MutableDHashCharSetGO uninitializedMutableSet() {
+        return new MutableDHashCharSet();
+    }
+
     ImmutableDHashCharSetGO uninitializedImmutableSet() {
         return new ImmutableDHashCharSet();
     }
@@ -21,11 +21,18 @@
 package net.openhft.collect.impl.hash;
 
 import net.openhft.collect.*;
+import net.openhft.collect.impl.CommonCharShortMapOps;
+import net.openhft.collect.impl.Footprints;
 import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.map.CharShortMap;
 import net.openhft.collect.map.hash.HashCharShortMapFactory;
 import net.openhft.function.*;
 import net.openhft.collect.map.hash.HashCharShortMap;
 
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static net.openhft.collect.impl.Containers.sizeAsInt;
@@ -547,4 +554,157 @@ public abstract class HashCharShortMapFactoryGO/*<>*/ extends HashCharShortMapFa
         map.move(newMutableMapOf(k1, v1, k2, v2, k3, v3, k4, v4, k5, v5));
         return map;
     }
+
+    @Override
+    public long estimateBytes(int expectedSize) {
+        long capacity = (long) DHashCapacities.capacity(configWrapper, expectedSize);
+        return Footprints.shallowBytes(uninitializedMutableMap()) +
+                Footprints.arrayBytes(/* if !(obj key) *//* bits */char[].class
+                        /* elif obj key //Object[].class// endif */, capacity) +
+                Footprints.arrayBytes(/* if !(obj value) *//* bits */short[].class
+                        /* elif obj value //Object[].class// endif */, capacity);
+    }
+
+    /* if !(obj key) && !(obj value) */
+    @Override
+    public ConcurrentDHashCharShortMap newConcurrentMap() {
+        return newConcurrentMap(hashConf.getDefaultExpectedSize(),
+                4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public ConcurrentDHashCharShortMap newConcurrentMap(int expectedSize, int concurrencyLevel) {
+        return new ConcurrentDHashCharShortMap(this, expectedSize, concurrencyLevel);
+    }
+
+    @Override
+    public SingleWriterDHashCharShortMap newSingleWriterMap(int expectedSize) {
+        return new SingleWriterDHashCharShortMap(this, expectedSize);
+    }
+
+    @Override
+    public PartitionedDHashCharShortMap newPartitionedMap(int partitions, int expectedSize) {
+        return new PartitionedDHashCharShortMap(this, partitions, expectedSize);
+    }
+
+    @Override
+    public OffHeapDHashCharShortMap newOffHeapMap(long expectedSize) {
+        return new OffHeapDHashCharShortMap(hashConf, getDefaultValue(), expectedSize);
+    }
+
+    @Override
+    public ChunkedDHashCharShortMap newChunkedMap(long expectedSize) {
+        return new ChunkedDHashCharShortMap(configWrapper, getDefaultValue(), expectedSize);
+    }
+
+    /* if !(float|double value) */
+    @Override
+    public PackedDHashCharShortMap newPackedMap(int expectedSize,
+            short minValue, short maxValue) {
+        /* if !(float|double key) */
+        char[] freeAndRemoved = newFreeAndRemoved();
+        return new PackedDHashCharShortMap(configWrapper, getDefaultValue(), expectedSize,
+                minValue, maxValue, freeAndRemoved[0], freeAndRemoved[1]);
+        /* elif float|double key //
+        return new PackedDHashCharShortMap(configWrapper, getDefaultValue(), expectedSize,
+                minValue, maxValue);
+        // endif */
+    }
+    /* endif */
+
+    @Override
+    public MappedDHashCharShortMap newMappedMap(File file, long expectedSize)
+            throws IOException {
+        return MappedDHashCharShortMap.create(file, expectedSize, hashConf, getDefaultValue());
+    }
+
+    @Override
+    public MappedDHashCharShortMap openMappedMap(File file, boolean readOnly)
+            throws IOException {
+        return MappedDHashCharShortMap.open(file, readOnly);
+    }
+
+    @Override
+    public HashCharShortMap readMap(DataInput in) throws IOException {
+        return DHashCharShortMapFormat.read(in);
+    }
+
+    @Override
+    public HashCharShortMap readMap(ByteBuffer buffer) throws IOException {
+        return DHashCharShortMapFormat.read(buffer);
+    }
+
+    @Override
+    public void writeFrozenMap(File file, Map<Character, Short> map) throws IOException {
+        if (map instanceof CharShortDHash && ((CharShortDHash) map).noRemoved()) {
+            FrozenDHashCharShortMap.write(file, (CharShortDHash) map,
+                    ((CharShortMap) map).defaultValue());
+        } else {
+            // copies of the table would keep removed slots, entries are reinserted instead
+            MutableDHashCharShortMapGO table = newMutableMap(map.size());
+            CommonCharShortMapOps.putAll(table, map);
+            FrozenDHashCharShortMap.write(file, table, getDefaultValue());
+        }
+    }
+
+    @Override
+    public HashCharShortMap openFrozenMap(File file) throws IOException {
+        return FrozenDHashCharShortMap.open(file);
+    }
+
+    @Override
+    public HashCharShortMap aggregateParallel(char[] keys, short[] values,
+            /*f*/ShortBinaryOperator function) {
+        if (function == null)
+            throw new java.lang.NullPointerException();
+        return CharShortAggregation.aggregate(this, keys, values, function);
+    }
+    /* endif */
+
+    /* if !(obj value) */
+    @Override
+    public /*p1*/ PersistentChampCharShortMap/*p2*/ newPersistentMap() {
+        return PersistentChampCharShortMap.empty(getDefaultValue());
+    }
+    /* endif */
+
+    /* if !(obj key) */
+    @Override
+    public /*p1*/ ConcurrentSkipListCharShortMap/*p2*/ newConcurrentSortedMap() {
+        return new ConcurrentSkipListCharShortMap/*p2*/(/* if !(obj value) */getDefaultValue()/* endif */);
+    }
+    /* endif */
+
+    /* if !(obj key) && int value */
+    @Override
+    public HashCharShortMap countParallel(char[] data) {
+        return CharShortAggregation.aggregate(this, data, null, null);
+    }
+    /* endif */
+
+    /* if !(obj key) && long value */
+    @Override
+    public ConcurrentDHashCharShortCounterMap newCounterMap(int expectedSize) {
+        return new ConcurrentDHashCharShortCounterMap(this, expectedSize);
+    }
+    /* endif */
+
+    /* if long key long value */
+    @Override
+    public NonBlockingLHashCharShortMap newNonBlockingMap(int expectedSize) {
+        return new NonBlockingLHashCharShortMap(this, expectedSize);
+    }
+    /* endif */
+
+    /* if obj key int value */
+    @Override
+    public DHashSymbolTable newSymbolTable(int expectedSize) {
+        return new DHashSymbolTable(configWrapper, expectedSize, false);
+    }
+
+    @Override
+    public DHashSymbolTable newOffHeapSymbolTable(int expectedSize) {
+        return new DHashSymbolTable(configWrapper, expectedSize, true);
+    }
+    /* endif */
 }
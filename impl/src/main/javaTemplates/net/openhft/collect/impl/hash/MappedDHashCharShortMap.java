@@ -0,0 +1,697 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.HashOverflowException;
+import net.openhft.collect.impl.DirectMemory;
+import net.openhft.collect.impl.UnsafeConstants;
+import net.openhft.collect.map.hash.MappedHashCharShortMap;
+import net.openhft.function.CharShortConsumer;
+import javax.annotation.Nonnull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+import static net.openhft.collect.impl.Containers.sizeAsInt;
+import static net.openhft.collect.impl.hash.OffHeapCharDHash.FREE_KEY;
+import static net.openhft.collect.impl.hash.OffHeapCharDHash.REMOVED_KEY;
+import static net.openhft.collect.impl.hash.OffHeapCharDHash.keyHash;
+
+
+/**
+ * The table layout and probing are the same as in {@link OffHeapDHashCharShortMap}, the table
+ * follows the 64-byte header of the file:
+ * <pre>
+ *  0: magic number, 8 bytes
+ *  8: format version, 4 bytes
+ * 12: key type, value type, free and removed key presence flags, 1 byte each
+ * 16: capacity, max size, size, removed slots, default value bits, 8 bytes each
+ * 56: seqlock version, 8 bytes
+ * </pre>
+ *
+ * <p>The single writer is ensured by an exclusive lock of the file. The writer makes
+ * the version odd before an update and even after it, readers retry, if they read an odd
+ * version or the version has changed during the lookup. All reads of readers are volatile,
+ * to not be reordered with the final version read. If the writer dies during an update,
+ * the next writer resets the version. Compaction of the table isn't atomic, the count
+ * of removed slots is {@code -1} meanwhile, if the writer dies during compaction, the next
+ * writer refuses to attach to the corrupt map.
+ *
+ * <p>Threads keep the buffer reachable while they access the mapped memory, so {@link #close()}
+ * only drops the reference to the buffer, it is unmapped, when it is collected. The file
+ * is never truncated, a new map is written to a temporary file, which then replaces the target.
+ */
+public final class MappedDHashCharShortMap implements MappedHashCharShortMap, UnsafeConstants {
+
+    private static final long MAGIC = 0x55434f4c4c484d50L;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte KEY_TYPE = (byte) /* if char key */'c'/* elif byte key //'b'
+            // elif short key //'s'// elif int key //'i'// elif long key //'l'
+            // elif float key //'f'// elif double key //'d'// endif */;
+    private static final byte VALUE_TYPE = (byte) /* if short value */'s'/* elif byte value //'b'
+            // elif char value //'c'// elif int value //'i'// elif long value //'l'
+            // elif float value //'f'// elif double value //'d'// endif */;
+
+    private static final long MAGIC_OFFSET = 0L;
+    private static final long FORMAT_VERSION_OFFSET = 8L;
+    private static final long KEY_TYPE_OFFSET = 12L;
+    private static final long VALUE_TYPE_OFFSET = 13L;
+    private static final long HAS_FREE_KEY_OFFSET = 14L;
+    private static final long HAS_REMOVED_KEY_OFFSET = 15L;
+    private static final long CAPACITY_OFFSET = 16L;
+    private static final long MAX_SIZE_OFFSET = 24L;
+    private static final long SIZE_OFFSET = 32L;
+    private static final long REMOVED_OFFSET = 40L;
+    private static final long DEFAULT_VALUE_OFFSET = 48L;
+    private static final long VERSION_OFFSET = 56L;
+    private static final long HEADER_SIZE = 64L;
+
+    private static final long MIN_CAPACITY = 7L;
+    private static final long RETRY = -2L;
+
+    private static long valuesOffset(long capacity) {
+        return HEADER_SIZE + (((capacity << CHAR_SCALE_SHIFT) + 7L) & ~7L);
+    }
+
+    private static long fileSize(long capacity) {
+        return valuesOffset(capacity) + ((capacity + 2L) << SHORT_SCALE_SHIFT);
+    }
+
+    static MappedDHashCharShortMap create(File file, long expectedSize,
+            HashConfig config, short defaultValue) throws IOException {
+        if (expectedSize < 0L)
+            throw new IllegalArgumentException("Expected size should be non-negative");
+        long desired = Math.max((long) Math.ceil(((double) expectedSize) /
+                config.getTargetLoad()), expectedSize + 1L);
+        long capacity = BigInteger.valueOf(Math.max(desired, MIN_CAPACITY) - 1L)
+                .nextProbablePrime().longValue();
+        long maxSize = Math.min((long) (((double) capacity) * config.getMaxLoad()),
+                capacity - 1L);
+        long fileSize = fileSize(capacity);
+        if (fileSize > (long) Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Map of the expected size " + expectedSize +
+                    " doesn't fit a single mapped region");
+        File target = file.getAbsoluteFile();
+        // processes might have the existing file mapped, truncating it would crash them
+        RandomAccessFile existing = null;
+        if (target.exists()) {
+            existing = new RandomAccessFile(target, "rw");
+            try {
+                lockForWriting(existing.getChannel());
+            } catch (IOException e) {
+                existing.close();
+                throw e;
+            }
+        }
+        File temp = null;
+        RandomAccessFile raf = null;
+        try {
+            temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+            raf = new RandomAccessFile(temp, "rw");
+            FileChannel channel = raf.getChannel();
+            FileLock lock = lockForWriting(channel);
+            raf.setLength(fileSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, fileSize);
+            long address = DirectMemory.address(buffer);
+            U.putByte(address + KEY_TYPE_OFFSET, KEY_TYPE);
+            U.putByte(address + VALUE_TYPE_OFFSET, VALUE_TYPE);
+            U.putLong(address + CAPACITY_OFFSET, capacity);
+            U.putLong(address + MAX_SIZE_OFFSET, maxSize);
+            U.putLong(address + DEFAULT_VALUE_OFFSET, (long) /* unwrap value */defaultValue);
+            U.putInt(address + FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+            // the magic number is the last, a file without it isn't recognized as a map
+            U.putLongVolatile(null, address + MAGIC_OFFSET, MAGIC);
+            if (existing != null) {
+                // releases the lock, the new file is already locked
+                existing.close();
+                existing = null;
+            }
+            // renaming over an existing file fails on some platforms
+            if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target)))
+                throw new IOException("Couldn't replace " + file);
+            return new MappedDHashCharShortMap(raf, lock, buffer, false);
+        } catch (IOException e) {
+            closeAndDelete(raf, temp);
+            throw e;
+        } catch (RuntimeException e) {
+            closeAndDelete(raf, temp);
+            throw e;
+        } finally {
+            if (existing != null)
+                existing.close();
+        }
+    }
+
+    private static void closeAndDelete(RandomAccessFile raf, File temp) throws IOException {
+        try {
+            if (raf != null)
+                raf.close();
+        } finally {
+            if (temp != null)
+                temp.delete();
+        }
+    }
+
+    static MappedDHashCharShortMap open(File file, boolean readOnly) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            FileLock lock = readOnly ? null : lockForWriting(channel);
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > (long) Integer.MAX_VALUE)
+                throw new IOException(file + " isn't a mapped map file");
+            MappedByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY :
+                    FileChannel.MapMode.READ_WRITE, 0L, fileSize);
+            long address = DirectMemory.address(buffer);
+            if (U.getLongVolatile(null, address + MAGIC_OFFSET) != MAGIC)
+                throw new IOException(file + " isn't a mapped map file");
+            int formatVersion = U.getInt(address + FORMAT_VERSION_OFFSET);
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + formatVersion +
+                        " of " + file);
+            }
+            if (U.getByte(address + KEY_TYPE_OFFSET) != KEY_TYPE ||
+                    U.getByte(address + VALUE_TYPE_OFFSET) != VALUE_TYPE) {
+                throw new IOException(file + " holds a map of other key or value type");
+            }
+            if (fileSize(U.getLong(address + CAPACITY_OFFSET)) != fileSize)
+                throw new IOException(file + " is truncated");
+            if (!readOnly && (U.getLongVolatile(null, address + VERSION_OFFSET) & 1L) != 0L &&
+                    U.getLong(address + REMOVED_OFFSET) < 0L) {
+                throw new IOException(file + " is corrupt, " +
+                        "the previous writer has died during compaction of the table");
+            }
+            return new MappedDHashCharShortMap(raf, lock, buffer, readOnly);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        } catch (RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static FileLock lockForWriting(FileChannel channel) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // attached for writing in this process
+            lock = null;
+        }
+        if (lock == null)
+            throw new IOException("The map is already attached for writing by other process or thread");
+        return lock;
+    }
+
+
+    private final RandomAccessFile file;
+    private final FileLock lock;
+    /**
+     * {@code null} after {@link #close()}, the mapping is released when the buffer
+     * is collected. Methods read the field once and keep the buffer reachable until
+     * the last access, the buffer might be unmapped meanwhile otherwise
+     */
+    private MappedByteBuffer buffer;
+    private final boolean readOnly;
+    private final long capacity;
+    private final long maxSize;
+    private final short defaultValue;
+    private final long address;
+    private final long keys, values;
+    /** The current version, known to the writer */
+    private long version;
+
+    private MappedDHashCharShortMap(RandomAccessFile file, FileLock lock,
+            MappedByteBuffer buffer, boolean readOnly) {
+        this.file = file;
+        this.lock = lock;
+        this.buffer = buffer;
+        this.readOnly = readOnly;
+        long address = DirectMemory.address(buffer);
+        this.address = address;
+        capacity = U.getLong(address + CAPACITY_OFFSET);
+        maxSize = U.getLong(address + MAX_SIZE_OFFSET);
+        /* if !(float|double value) */
+        defaultValue = (short) U.getLong(address + DEFAULT_VALUE_OFFSET);
+        /* elif float value //
+        defaultValue = Float.intBitsToFloat((int) U.getLong(address + DEFAULT_VALUE_OFFSET));
+        // elif double value //
+        defaultValue = Double.longBitsToDouble(U.getLong(address + DEFAULT_VALUE_OFFSET));
+        // endif */
+        keys = address + HEADER_SIZE;
+        values = address + valuesOffset(capacity);
+        if (!readOnly) {
+            version = U.getLongVolatile(null, address + VERSION_OFFSET);
+            if ((version & 1L) != 0L) {
+                // the previous writer has died during the update
+                U.putLongVolatile(null, address + VERSION_OFFSET, ++version);
+            }
+        }
+    }
+
+    private MappedByteBuffer buffer() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null)
+            throw new IllegalStateException("Map is closed");
+        return buffer;
+    }
+
+    private MappedByteBuffer writableBuffer() {
+        if (readOnly)
+            throw new UnsupportedOperationException("Map is attached read-only");
+        return buffer();
+    }
+
+    private void beginUpdate(long address) {
+        U.putLongVolatile(null, address + VERSION_OFFSET, ++version);
+    }
+
+    private void endUpdate(long address) {
+        // ordered write is enough, it isn't reordered with the preceding writes
+        U.putOrderedLong(null, address + VERSION_OFFSET, ++version);
+    }
+
+    private /* bits */char keyAtVolatile(long index) {
+        /* if !(float|double key) */
+        return U.getCharVolatile(null, keys + (index << CHAR_SCALE_SHIFT));
+        /* elif float key //
+        return U.getIntVolatile(null, keys + (index << INT_SCALE_SHIFT));
+        // elif double key //
+        return U.getLongVolatile(null, keys + (index << LONG_SCALE_SHIFT));
+        // endif */
+    }
+
+    private short valueAtVolatile(long index) {
+        return U.getShortVolatile(null, values + (index << SHORT_SCALE_SHIFT));
+    }
+
+    private short valueAt(long index) {
+        return U.getShort(values + (index << SHORT_SCALE_SHIFT));
+    }
+
+    private void setValueAt(long index, short value) {
+        U.putShort(values + (index << SHORT_SCALE_SHIFT), value);
+    }
+
+    /**
+     * Lookup with volatile reads, for readers.
+     *
+     * @return the slot of the key, {@code -1} if it is absent, or {@link #RETRY}, if the table
+     *         is being updated
+     */
+    private long index(long address, /* bits */char key) {
+        long capacity = this.capacity;
+        if (key == FREE_KEY)
+            return U.getByteVolatile(null, address + HAS_FREE_KEY_OFFSET) != 0 ? capacity : -1L;
+        if (key == REMOVED_KEY) {
+            return U.getByteVolatile(null, address + HAS_REMOVED_KEY_OFFSET) != 0 ?
+                    capacity + 1L : -1L;
+        }
+        long hash = keyHash(key);
+        long index = hash % capacity;
+        long step = hash % (capacity - 2L) + 1L;
+        for (long probes = 0L; probes < capacity; probes++) {
+            /* bits */char cur = keyAtVolatile(index);
+            if (cur == key)
+                return index;
+            if (cur == FREE_KEY)
+                return -1L;
+            if ((index -= step) < 0L) index += capacity; // nextIndex
+        }
+        return RETRY;
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public int size() {
+        return sizeAsInt(sizeAsLong());
+    }
+
+    @Override
+    public long sizeAsLong() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null)
+            return 0L;
+        long size = U.getLongVolatile(null, address + SIZE_OFFSET);
+        DirectMemory.keepReachable(buffer);
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sizeAsLong() == 0L;
+    }
+
+    /**
+     * The capacity of mapped maps is fixed.
+     */
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        if (minSize > maxSize)
+            throw new HashOverflowException();
+        return false;
+    }
+
+    @Override
+    public boolean shrink() {
+        return false;
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        /* bits */char k = /* unwrap key */key;
+        MappedByteBuffer buffer = buffer();
+        long address = this.address;
+        try {
+            while (true) {
+                long version = U.getLongVolatile(null, address + VERSION_OFFSET);
+                if ((version & 1L) == 0L) {
+                    long index = index(address, k);
+                    if (index != RETRY &&
+                            U.getLongVolatile(null, address + VERSION_OFFSET) == version) {
+                        return index >= 0L;
+                    }
+                }
+                Thread.yield();
+            }
+        } finally {
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public short get(char key) {
+        return getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        /* bits */char k = /* unwrap key */key;
+        MappedByteBuffer buffer = buffer();
+        long address = this.address;
+        try {
+            while (true) {
+                long version = U.getLongVolatile(null, address + VERSION_OFFSET);
+                if ((version & 1L) == 0L) {
+                    long index = index(address, k);
+                    if (index != RETRY) {
+                        short value = index >= 0L ? valueAtVolatile(index) : defaultValue;
+                        if (U.getLongVolatile(null, address + VERSION_OFFSET) == version)
+                            return value;
+                    }
+                }
+                Thread.yield();
+            }
+        } finally {
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    /**
+     * Should be called by the writer between {@link #beginUpdate(long)}
+     * and {@link #endUpdate(long)}.
+     *
+     * @return the slot of the key, if it is already present, or the bitwise complement
+     *         of the slot, in which the key is inserted
+     */
+    private long insert(long address, /* bits */char key) {
+        if (key == FREE_KEY || key == REMOVED_KEY) {
+            long flagOffset = key == FREE_KEY ? HAS_FREE_KEY_OFFSET : HAS_REMOVED_KEY_OFFSET;
+            long index = key == FREE_KEY ? capacity : capacity + 1L;
+            if (U.getByte(address + flagOffset) != 0)
+                return index;
+            U.putByte(address + flagOffset, (byte) 1);
+            U.putLong(address + SIZE_OFFSET, U.getLong(address + SIZE_OFFSET) + 1L);
+            return ~index;
+        }
+        long keys = this.keys, capacity = this.capacity;
+        long hash = keyHash(key);
+        long index = hash % capacity;
+        long step = hash % (capacity - 2L) + 1L;
+        long firstRemoved = -1L;
+        /* bits */char cur;
+        while ((cur = OffHeapCharDHash.keyAt(keys, index)) != FREE_KEY) {
+            if (cur == key)
+                return index;
+            if (cur == REMOVED_KEY && firstRemoved < 0L)
+                firstRemoved = index;
+            if ((index -= step) < 0L) index += capacity; // nextIndex
+        }
+        // the key is absent, the capacity is checked only if a free slot is taken
+        long size = U.getLong(address + SIZE_OFFSET);
+        long removed = U.getLong(address + REMOVED_OFFSET);
+        if (firstRemoved >= 0L) {
+            index = firstRemoved;
+            U.putLong(address + REMOVED_OFFSET, removed - 1L);
+        } else if (size + removed >= maxSize) {
+            if (removed == 0L)
+                throw new HashOverflowException();
+            compact(address);
+            index = hash % capacity;
+            while (OffHeapCharDHash.keyAt(keys, index) != FREE_KEY) {
+                if ((index -= step) < 0L) index += capacity; // nextIndex
+            }
+        }
+        OffHeapCharDHash.setKeyAt(keys, index, key);
+        U.putLong(address + SIZE_OFFSET, size + 1L);
+        return ~index;
+    }
+
+    /**
+     * Rebuilds the table in place, without removed slots, via a temporary copy. The count
+     * of removed slots is {@code -1} meanwhile, to detect the death of the writer
+     * in the middle of compaction.
+     */
+    private void compact(long address) {
+        long keys = this.keys, values = this.values, capacity = this.capacity;
+        long keysSize = capacity << CHAR_SCALE_SHIFT;
+        long valuesSize = capacity << SHORT_SCALE_SHIFT;
+        long copy = U.allocateMemory(keysSize + valuesSize);
+        try {
+            U.copyMemory(keys, copy, keysSize);
+            U.copyMemory(values, copy + keysSize, valuesSize);
+            U.putLong(address + REMOVED_OFFSET, -1L);
+            U.setMemory(keys, keysSize, (byte) 0);
+            for (long i = 0L; i < capacity; i++) {
+                /* bits */char key = OffHeapCharDHash.keyAt(copy, i);
+                if (key == FREE_KEY || key == REMOVED_KEY)
+                    continue;
+                long hash = keyHash(key);
+                long index = hash % capacity;
+                if (OffHeapCharDHash.keyAt(keys, index) != FREE_KEY) {
+                    long step = hash % (capacity - 2L) + 1L;
+                    do {
+                        if ((index -= step) < 0L) index += capacity; // nextIndex
+                    } while (OffHeapCharDHash.keyAt(keys, index) != FREE_KEY);
+                }
+                OffHeapCharDHash.setKeyAt(keys, index, key);
+                setValueAt(index, U.getShort(copy + keysSize + (i << SHORT_SCALE_SHIFT)));
+            }
+            U.putLong(address + REMOVED_OFFSET, 0L);
+        } finally {
+            U.freeMemory(copy);
+        }
+    }
+
+    private void removeAt(long address, long index) {
+        if (index == capacity) {
+            U.putByte(address + HAS_FREE_KEY_OFFSET, (byte) 0);
+        } else if (index == capacity + 1L) {
+            U.putByte(address + HAS_REMOVED_KEY_OFFSET, (byte) 0);
+        } else {
+            OffHeapCharDHash.setKeyAt(keys, index, REMOVED_KEY);
+            U.putLong(address + REMOVED_OFFSET, U.getLong(address + REMOVED_OFFSET) + 1L);
+        }
+        U.putLong(address + SIZE_OFFSET, U.getLong(address + SIZE_OFFSET) - 1L);
+    }
+
+    @Override
+    public short put(char key, short value) {
+        MappedByteBuffer buffer = writableBuffer();
+        long address = this.address;
+        beginUpdate(address);
+        try {
+            long index = insert(address, /* unwrap key */key);
+            if (index < 0L) {
+                setValueAt(~index, value);
+                return defaultValue;
+            }
+            short oldValue = valueAt(index);
+            setValueAt(index, value);
+            return oldValue;
+        } finally {
+            endUpdate(address);
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        MappedByteBuffer buffer = writableBuffer();
+        long address = this.address;
+        beginUpdate(address);
+        try {
+            long index = insert(address, /* unwrap key */key);
+            if (index < 0L) {
+                setValueAt(~index, value);
+                return defaultValue;
+            }
+            return valueAt(index);
+        } finally {
+            endUpdate(address);
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public short incrementValue(char key, short increment) {
+        MappedByteBuffer buffer = writableBuffer();
+        long address = this.address;
+        beginUpdate(address);
+        try {
+            long index = insert(address, /* unwrap key */key);
+            short newValue;
+            if (index < 0L) {
+                index = ~index;
+                newValue = (short) (defaultValue + increment);
+            } else {
+                newValue = (short) (valueAt(index) + increment);
+            }
+            setValueAt(index, newValue);
+            return newValue;
+        } finally {
+            endUpdate(address);
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public short remove(char key) {
+        MappedByteBuffer buffer = writableBuffer();
+        long address = this.address;
+        // the writer doesn't need the seqlock to read
+        long index = index(address, /* unwrap key */key);
+        if (index < 0L) {
+            DirectMemory.keepReachable(buffer);
+            return defaultValue;
+        }
+        beginUpdate(address);
+        try {
+            short oldValue = valueAt(index);
+            removeAt(address, index);
+            return oldValue;
+        } finally {
+            endUpdate(address);
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public void forEach(@Nonnull CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        MappedByteBuffer buffer = buffer();
+        long address = this.address;
+        long capacity = this.capacity;
+        for (long i = capacity + 1L; i >= 0L; i--) {
+            boolean present;
+            /* bits */char key;
+            short value;
+            while (true) {
+                long version = U.getLongVolatile(null, address + VERSION_OFFSET);
+                if ((version & 1L) == 0L) {
+                    if (i >= capacity) {
+                        present = U.getByteVolatile(null, address + (i == capacity ?
+                                HAS_FREE_KEY_OFFSET : HAS_REMOVED_KEY_OFFSET)) != 0;
+                        key = i == capacity ? FREE_KEY : REMOVED_KEY;
+                    } else {
+                        key = keyAtVolatile(i);
+                        present = key != FREE_KEY && key != REMOVED_KEY;
+                    }
+                    value = valueAtVolatile(i);
+                    if (U.getLongVolatile(null, address + VERSION_OFFSET) == version)
+                        break;
+                }
+                Thread.yield();
+            }
+            if (present)
+                action.accept(/* wrap key */key/**/, value);
+        }
+        DirectMemory.keepReachable(buffer);
+    }
+
+    @Override
+    public void clear() {
+        MappedByteBuffer buffer = writableBuffer();
+        long address = this.address;
+        beginUpdate(address);
+        try {
+            U.setMemory(keys, capacity << CHAR_SCALE_SHIFT, (byte) 0);
+            U.putByte(address + HAS_FREE_KEY_OFFSET, (byte) 0);
+            U.putByte(address + HAS_REMOVED_KEY_OFFSET, (byte) 0);
+            U.putLong(address + SIZE_OFFSET, 0L);
+            U.putLong(address + REMOVED_OFFSET, 0L);
+        } finally {
+            endUpdate(address);
+            DirectMemory.keepReachable(buffer);
+        }
+    }
+
+    @Override
+    public void force() {
+        MappedByteBuffer buffer = buffer();
+        if (!readOnly)
+            buffer.force();
+    }
+
+    @Override
+    public void close() {
+        if (buffer == null)
+            return;
+        // not unmapped right away, other threads might still read the map
+        buffer = null;
+        try {
+            if (lock != null)
+                lock.release();
+            file.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package net.openhft.collect.impl.hash;
 
 import net.openhft.collect.*;
+import net.openhft.collect.impl.CommonSetOps;
 import net.openhft.collect.impl.InternalCharCollectionOps;
 import net.openhft.collect.set.hash.HashCharSet;
 import net.openhft.function.*;
@@ -28,6 +29,7 @@ import net.openhft.collect.impl.NotGenerated;
 
 import net.openhft.collect.set.CharSet;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import java.util.*;
 
@@ -181,6 +183,360 @@ public abstract class MutableCharDHashGO/*<>*/ extends MutableCharDHashSO/*<>*/
     /* endif */
 
 
+    /* with Mutable mutability */
+    private MutableDHashCharSetGO/*<>*/ uninitializedSimilarSet(@Nonnull HashCharSet/*<>*/ thisC) {
+        /* if !(obj elem) */
+        return new MutableDHashCharSet();
+        /* elif obj elem //
+        Equivalence<E> equivalence = thisC.equivalence();
+        if (equivalence == null)
+            return new MutableDHashObjSet<E>();
+        MutableDHashObjSet.WithCustomEquivalence<E> result =
+                new MutableDHashObjSet.WithCustomEquivalence<E>();
+        result.equivalence = equivalence;
+        return result;
+        // endif */
+    }
+
+    private MutableDHashCharSetGO/*<>*/ newSimilarSet(@Nonnull HashCharSet/*<>*/ thisC,
+            int expectedSize) {
+        MutableDHashCharSetGO/*<>*/ result = uninitializedSimilarSet(thisC);
+        /* if !(float|double|obj elem) */
+        char free = freeValue;
+        result.init(configWrapper(), expectedSize, free,
+                supportRemoved() ? removedValue() : (char) (free + 1));
+        /* elif float|double|obj elem //
+        result.init(configWrapper(), expectedSize);
+        // endif */
+        return result;
+    }
+
+    private static /*<>*/ boolean sameEquivalence(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharSet/*<?>*/ other) {
+        /* if !(obj elem) */
+        return true;
+        /* elif obj elem //
+        return NullableObjects.equals(thisC.equivalence(), other.equivalence());
+        // endif */
+    }
+
+    /**
+     * Whether to iterate over the {@code other} set and probe this hash, rather than iterate
+     * over this hash and query the {@code other} set.
+     */
+    private boolean iterateOther(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharSet/*<?>*/ other) {
+        return other.size() < size() && sameEquivalence(thisC, other);
+    }
+
+    int intersectionSize(@Nonnull HashCharSet/*<>*/ thisC, @Nonnull CharSet/*<?>*/ other) {
+        if (other == thisC)
+            return size();
+        if (iterateOther(thisC, other))
+            return otherContainedInThis(other, null);
+        return thisContainedInOther(other, true, null);
+    }
+
+    double jaccard(@Nonnull HashCharSet/*<>*/ thisC, @Nonnull CharSet/*<?>*/ other) {
+        int intersectionSize = intersectionSize(thisC, other);
+        int unionSize = size() + other.size() - intersectionSize;
+        return unionSize != 0 ? ((double) intersectionSize) / unionSize : 1.0;
+    }
+
+    @Nonnull
+    HashCharSet/*<>*/ intersect(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharSet/*<?>*/ other) {
+        MutableDHashCharSetGO/*<>*/ result =
+                newSimilarSet(thisC, Math.min(size(), other.size()));
+        if (iterateOther(thisC, other)) {
+            otherContainedInThis(other, result);
+        } else {
+            thisContainedInOther(other, true, result);
+        }
+        return result;
+    }
+
+    @Nonnull
+    HashCharSet/*<>*/ union(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharSet/*<extends>*/ other) {
+        MutableDHashCharSetGO/*<>*/ result = uninitializedSimilarSet(thisC);
+        if (other instanceof CharDHash && other.size() > size() &&
+                ((CharDHash) other).hashConfig().equals(hashConfig()) &&
+                sameEquivalence(thisC, other)) {
+            // Copying the larger table is a plain array clone, then only the smaller side
+            // is probed and inserted
+            result.copy((CharDHash) other);
+            reverseAddAllTo(result);
+        } else {
+            result.copy(this);
+            result.addAll(other);
+        }
+        return result;
+    }
+
+    @Nonnull
+    HashCharSet/*<>*/ difference(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharSet/*<?>*/ other) {
+        MutableDHashCharSetGO/*<>*/ result;
+        if (iterateOther(thisC, other)) {
+            result = uninitializedSimilarSet(thisC);
+            result.copy(this);
+            result.removeAll(other);
+        } else {
+            result = newSimilarSet(thisC, size());
+            thisContainedInOther(other, false, result);
+        }
+        return result;
+    }
+
+    boolean setEquals(@Nonnull HashCharSet/*<>*/ thisC, Object obj) {
+        if (obj == thisC)
+            return true;
+        if (obj instanceof CharDHash && obj instanceof CharSet) {
+            CharSet/*<?>*/ other = (CharSet/*<?>*/) obj;
+            if (other.size() != size())
+                return false;
+            CharDHash otherHash = (CharDHash) obj;
+            boolean sameEquivalence = sameEquivalence(thisC, other);
+            if (sameEquivalence && hashCodesDiffer(thisC, otherHash))
+                return false;
+            if (otherHash.capacity() == capacity() && sameEquivalence)
+                return allContainedInSameCapacity(otherHash, other);
+        }
+        return CommonSetOps.equals(thisC, obj);
+    }
+
+    /**
+     * Checks if all elements of this hash are contained in the {@code other} set,
+     * which is a hash of the same capacity.
+     */
+    private boolean allContainedInSameCapacity(@Nonnull CharDHash otherHash,
+            @Nonnull CharSet/*<?>*/ other) {
+        int mc = modCount();
+        /* bits *//* raw */char free, removed;
+        /* if !(float|double|obj elem) */
+        free = freeValue;
+        removed = supportRemoved() ? removedValue() : free;
+        /* elif float|double elem //
+        free = FREE_BITS;
+        removed = REMOVED_BITS;
+        // elif obj elem //
+        free = FREE;
+        removed = REMOVED;
+        // endif */
+        /* bits *//* raw */char[] keys = set;
+        /* bits *//* raw */char[] otherKeys = otherHash.keys();
+        /* if !(float|double|obj elem) */
+        char otherFree = otherHash.freeValue();
+        char otherRemoved = otherHash.supportRemoved() ? otherHash.removedValue() : otherFree;
+        // Identical arrays represent equal sets, if the special values have the same meaning
+        if (otherFree == free &&
+                ((noRemoved() && otherHash.noRemoved()) ||
+                        (supportRemoved() && otherHash.supportRemoved() &&
+                                removed == otherRemoved)) &&
+                Arrays.equals(keys, otherKeys)) {
+            return true;
+        }
+        /* elif float|double elem */
+        if (Arrays.equals(keys, otherKeys))
+            return true;
+        /* endif */
+        for (int i = keys.length - 1; i >= 0; i--) {
+            /* bits *//* raw */char key;
+            if ((key = keys[i]) != free && key != removed) {
+                if ((otherKeys[i] != key/* if !(float|double|obj elem) */ || key == otherFree ||
+                        key == otherRemoved/* endif */) && !other.contains(/* wrap elem */key/**/))
+                    return false;
+            }
+        }
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+        return true;
+    }
+
+    /**
+     * Counts elements of this hash, which are (if {@code inOther} is {@code true})
+     * or are not contained in the {@code other} set, and adds them to {@code result},
+     * if it isn't {@code null}.
+     */
+    private int thisContainedInOther(@Nonnull CharSet/*<?>*/ other, boolean inOther,
+            @Nullable MutableDHashCharSetGO/*<>*/ result) {
+        int mc = modCount();
+        /* bits *//* raw */char free, removed;
+        /* if !(float|double|obj elem) */
+        free = freeValue;
+        removed = supportRemoved() ? removedValue() : free;
+        /* elif float|double elem //
+        free = FREE_BITS;
+        removed = REMOVED_BITS;
+        // elif obj elem //
+        free = FREE;
+        removed = REMOVED;
+        // endif */
+        /* bits *//* raw */char[] keys = set;
+        /* bits *//* raw */char[] otherKeys = null;
+        /* if !(float|double|obj elem) */
+        char otherFree = free, otherRemoved = removed;
+        /* endif */
+        if (other instanceof CharDHash && ((CharDHash) other).capacity() == keys.length) {
+            CharDHash otherHash = (CharDHash) other;
+            otherKeys = otherHash.keys();
+            /* if !(float|double|obj elem) */
+            otherFree = otherHash.freeValue();
+            otherRemoved = otherHash.supportRemoved() ? otherHash.removedValue() : otherFree;
+            /* endif */
+        }
+        int count = 0;
+        for (int i = keys.length - 1; i >= 0; i--) {
+            /* bits *//* raw */char key;
+            if ((key = keys[i]) != free && key != removed) {
+                // In tables of the same capacity, probing for any key starts from the same slot,
+                // so the key is often found in the other table at the same index, without
+                // hashing and random memory access
+                boolean contained = (otherKeys != null && otherKeys[i] == key
+                        /* if !(float|double|obj elem) */&& key != otherFree &&
+                        key != otherRemoved/* endif */) ||
+                        other.contains(/* wrap elem */key/**/);
+                if (contained == inOther) {
+                    count++;
+                    if (result != null) {
+                        /* if obj elem */// noinspection unchecked/* endif */
+                        result.add(/* if obj elem //(E) // endif */key);
+                    }
+                }
+            }
+        }
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+        return count;
+    }
+
+    /**
+     * Counts elements of the {@code other} set, which are contained in this hash, and adds
+     * the corresponding elements of this hash to {@code result}, if it isn't {@code null}.
+     */
+    private int otherContainedInThis(@Nonnull CharSet/*<?>*/ other,
+            @Nullable MutableDHashCharSetGO/*<>*/ result) {
+        int mc = modCount();
+        /* bits *//* raw */char[] keys = set;
+        int count = 0, index;
+        if (other instanceof CharDHash) {
+            CharDHash otherHash = (CharDHash) other;
+            int otherMc = otherHash.modCount();
+            /* bits *//* raw */char otherFree, otherRemoved;
+            /* if !(float|double|obj elem) */
+            otherFree = otherHash.freeValue();
+            otherRemoved = otherHash.supportRemoved() ? otherHash.removedValue() : otherFree;
+            /* elif float|double elem //
+            otherFree = FREE_BITS;
+            otherRemoved = REMOVED_BITS;
+            // elif obj elem //
+            otherFree = FREE;
+            otherRemoved = REMOVED;
+            // endif */
+            /* bits *//* raw */char[] otherKeys = otherHash.keys();
+            for (int i = otherKeys.length - 1; i >= 0; i--) {
+                /* bits *//* raw */char key;
+                if ((key = otherKeys[i]) != otherFree && key != otherRemoved &&
+                        (index = index(key)) >= 0) {
+                    count++;
+                    if (result != null) {
+                        /* if obj elem */// noinspection unchecked/* endif */
+                        result.add(/* if obj elem //(E) // endif */keys[index]);
+                    }
+                }
+            }
+            if (otherMc != otherHash.modCount())
+                throw new ConcurrentModificationException();
+        } else {
+            CharCursor/*<?>*/ cur = other.cursor();
+            while (cur.moveNext()) {
+                if ((index = index(/* unwrap elem */cur.elem()/**/)) >= 0) {
+                    count++;
+                    if (result != null) {
+                        /* if obj elem */// noinspection unchecked/* endif */
+                        result.add(/* if obj elem //(E) // endif */keys[index]);
+                    }
+                }
+            }
+        }
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+        return count;
+    }
+    /* endwith */
+
+
+    /* if Mutable mutability */
+    /**
+     * If {@code thisC} is this set, hands the arrays of this hash over to a new immutable set
+     * and leaves this hash empty. Otherwise {@code thisC} is a key view of a map, returns
+     * an immutable copy of the keys.
+     */
+    @Nonnull
+    HashCharSet/*<>*/ freeze(@Nonnull HashCharSet/*<>*/ thisC) {
+        if (thisC != this) {
+            MutableDHashCharSetGO/*<>*/ keys = uninitializedSimilarSet(thisC);
+            keys.copy(this);
+            return keys.freeze(keys);
+        }
+        // Immutable hashes don't support removed slots
+        if (!noRemoved())
+            rehash(capacity());
+        ImmutableDHashCharSetGO/*<>*/ frozen = uninitializedImmutableSimilarSet(thisC);
+        frozen.move(this);
+        clearAfterHandOver();
+        return frozen;
+    }
+
+    private ImmutableDHashCharSetGO/*<>*/ uninitializedImmutableSimilarSet(
+            @Nonnull HashCharSet/*<>*/ thisC) {
+        /* if !(obj elem) */
+        return new ImmutableDHashCharSet();
+        /* elif obj elem //
+        Equivalence<E> equivalence = thisC.equivalence();
+        if (equivalence == null)
+            return new ImmutableDHashObjSet<E>();
+        ImmutableDHashObjSet.WithCustomEquivalence<E> result =
+                new ImmutableDHashObjSet.WithCustomEquivalence<E>();
+        result.equivalence = equivalence;
+        return result;
+        // endif */
+    }
+
+    /**
+     * Leaves this hash empty, with newly allocated arrays, after the current arrays are handed
+     * over to an immutable hash. Iterators and cursors over the old arrays fail fast.
+     */
+    final void clearAfterHandOver() {
+        incrementModCount();
+        /* if !(float|double|obj elem) */
+        init(configWrapper(), 0, freeValue, removedValue);
+        /* elif float|double|obj elem //
+        init(configWrapper(), 0);
+        // endif */
+    }
+
+    private boolean hashCodesDiffer(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharDHash otherHash) {
+        // If thisC is a key view, the tracked hash code is of the map, not of the set
+        return thisC == this && trackedHashCodesDiffer(otherHash);
+    }
+    /* elif Immutable mutability */
+    @Nonnull
+    HashCharSet/*<>*/ freeze(@Nonnull HashCharSet/*<>*/ thisC) {
+        // Immutable set, or key view of an immutable map, which is immutable as well
+        return thisC;
+    }
+
+    private boolean hashCodesDiffer(@Nonnull HashCharSet/*<>*/ thisC,
+            @Nonnull CharDHash otherHash) {
+        // Immutable hashes don't track hash codes
+        return false;
+    }
+    /* endif */
+
+
     /* with No|Some removed */
     /* if !(Immutable mutability Some removed) */
 
@@ -42,20 +42,36 @@ public abstract class MutableCharDHashSO extends MutableDHash
         super.copy(hash);
         freeValue = hash.freeValue();
         /* if Mutable mutability */
-        if (hash.supportRemoved())
+        set = arraysShared() ? hash.keys() : hash.keys().clone();
+        /* elif Immutable mutability //
+        set = hash.keys().clone();
+        // endif */
+        /* if Mutable mutability */
+        if (hash.supportRemoved()) {
             removedValue = hash.removedValue();
+        } else {
+            // immutable hash doesn't have removed value, choose a new one,
+            // not equal to free value and any key in the hash
+            removedValue = freeValue;
+            removedValue = findNewFreeOrRemoved();
+        }
         /* endif */
-        set = hash.keys().clone();
     }
 
     final void move(CharDHash hash) {
         super.copy(hash);
         freeValue = hash.freeValue();
+        set = hash.keys();
         /* if Mutable mutability */
-        if (hash.supportRemoved())
+        if (hash.supportRemoved()) {
             removedValue = hash.removedValue();
+        } else {
+            // immutable hash doesn't have removed value, choose a new one,
+            // not equal to free value and any key in the hash
+            removedValue = freeValue;
+            removedValue = findNewFreeOrRemoved();
+        }
         /* endif */
-        set = hash.keys();
     }
 
     final void init(HashConfigWrapper configWrapper, int size,
@@ -76,6 +92,11 @@ public abstract class MutableCharDHashSO extends MutableDHash
         return set;
     }
 
+    @Override
+    long tableBytes() {
+        return Footprints.arrayBytes(set);
+    }
+
     @Override
     public int capacity() {
         return set.length;
@@ -130,21 +151,17 @@ public abstract class MutableCharDHashSO extends MutableDHash
         /* if byte|char|short elem */
         searchForFree:
         if (size > CHAR_CARDINALITY / 2) {
-            int searchStart = random.nextInt(capacity);
-            for (int i = searchStart; i >= 0; i--) {
-                if ( keys[ i ] == free ) {
-                    newFree = (char) i;
-                    if (newFree != free
-                            /* if Mutable mutability */ && newFree != removed/* endif */)
-                        break searchForFree;
-                }
-            }
-            for (int i = capacity - 1; i > searchStart; i--) {
-                if ( keys[ i ] == free ) {
-                    newFree = (char) i;
-                    if (newFree != free
-                            /* if Mutable mutability */ && newFree != removed/* endif */)
-                        break searchForFree;
+            // Most values are keys, so values are checked one by one from a random one.
+            // A free slot at index i doesn't mean that (char) i is absent, the slot of
+            // a key isn't equal to the key, when it is negative or the capacity is greater
+            // than the cardinality
+            int searchStart = random.nextInt(CHAR_CARDINALITY);
+            for (int i = 0; i < CHAR_CARDINALITY; i++) {
+                newFree = (char) (searchStart + i);
+                if (newFree != free
+                        /* if Mutable mutability */ && newFree != removed/* endif */ &&
+                        index(newFree) < 0) {
+                    break searchForFree;
                 }
             }
             throw new RuntimeException("Impossible state");
@@ -191,9 +208,20 @@ public abstract class MutableCharDHashSO extends MutableDHash
 
     @Override
     void allocateArrays(int capacity) {
-        set = new char[capacity];
-        if (freeValue != 0)
-            Arrays.fill(set, freeValue);
+        char[] keys = takeArray(char[].class, capacity);
+        if (keys != null) {
+            Arrays.fill(keys, freeValue);
+        } else {
+            keys = new char[capacity];
+            if (freeValue != 0)
+                Arrays.fill(keys, freeValue);
+        }
+        set = keys;
+    }
+
+    @Override
+    void cloneArrays() {
+        set = set.clone();
     }
 
     @Override
@@ -204,6 +232,8 @@ public abstract class MutableCharDHashSO extends MutableDHash
 
     @Override
     void removeAt(int index) {
+        ownArrays();
+        untrackSlotHashCode(index);
         set[index] = removedValue;
         postRemoveHook();
     }
@@ -27,6 +27,8 @@ import net.openhft.collect.set.CharSet;
 import net.openhft.collect.set.hash.HashCharSet;
 import javax.annotation.Nonnull;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 
@@ -49,6 +51,23 @@ public abstract class MutableDHashCharKeyMap/*<>*/ extends MutableCharDHashGO/*<
     }
     /* endif */
 
+    /* if obj key */
+    public final <F> boolean containsKey(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super K> equivalence) {
+        return foreignIndex(foreignKey, equivalence) >= 0;
+    }
+
+    final <F> int foreignIndex(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super K> equivalence) {
+        // hashes of foreign keys are consistent only with the key equivalence they extend
+        if (!NullableObjects.equals(equivalence.keyEquivalence(), keyEquivalence())) {
+            throw new IllegalArgumentException(equivalence + " doesn't extend " +
+                    "the key equivalence of this map: " + keyEquivalence());
+        }
+        return index(foreignKey, equivalence);
+    }
+    /* endif */
+
 
     @Nonnull
     public HashCharSet keySet() {
@@ -92,6 +111,25 @@ public abstract class MutableDHashCharKeyMap/*<>*/ extends MutableCharDHashGO/*<
             return MutableDHashCharKeyMap.this.currentLoad();
         }
 
+        @Override
+        public long bytesUsed() {
+            return MutableDHashCharKeyMap.this.bytesUsed();
+        }
+
+        /* if obj key */
+        @Override
+        public long bytesUsed(boolean includeReferenced) {
+            long bytes = bytesUsed();
+            if (includeReferenced) {
+                Set<Object> visited = Footprints.newVisitedSet();
+                for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+                    bytes += Footprints.deepBytes(cur.elem(), visited);
+                }
+            }
+            return bytes;
+        }
+        /* endif */
+
         /* if !(obj|float|double key) */
         @Override
         public char freeValue() {
@@ -306,6 +344,50 @@ public abstract class MutableDHashCharKeyMap/*<>*/ extends MutableCharDHashGO/*<
             return MutableDHashCharKeyMap.this.retainAll(this, c);
         }
 
+
+        @Override
+        public int intersectionSize(@Nonnull CharSet/*<?>*/ other) {
+            return MutableDHashCharKeyMap.this.intersectionSize(this, other);
+        }
+
+        @Override
+        public double jaccard(@Nonnull CharSet/*<?>*/ other) {
+            return MutableDHashCharKeyMap.this.jaccard(this, other);
+        }
+
+        @Nonnull
+        @Override
+        public HashCharSet/*<>*/ intersect(@Nonnull CharSet/*<?>*/ other) {
+            return MutableDHashCharKeyMap.this.intersect(this, other);
+        }
+
+        @Nonnull
+        @Override
+        public HashCharSet/*<>*/ union(@Nonnull CharSet/*<extends>*/ other) {
+            return MutableDHashCharKeyMap.this.union(this, other);
+        }
+
+        @Nonnull
+        @Override
+        public HashCharSet/*<>*/ difference(@Nonnull CharSet/*<?>*/ other) {
+            return MutableDHashCharKeyMap.this.difference(this, other);
+        }
+
+        @Nonnull
+        @Override
+        public HashCharSet/*<>*/ freeze() {
+            return MutableDHashCharKeyMap.this.freeze(this);
+        }
+
+        /* if !(obj key) */
+        @Override
+        public void writeTo(@Nonnull DataOutput out) throws IOException {
+            DHashCharSetFormat.write(this,
+                    /* if Mutable mutability */true/* elif Immutable mutability //false// endif */,
+                    out);
+        }
+        /* endif */
+
         @Override
         public void clear() {
             MutableDHashCharKeyMap.this.clear();
@@ -42,8 +42,13 @@ public abstract class MutableDHashCharObjMapSO</* if obj key //K, // endif */V>
 
     final void copy(CharObjDHash hash) {
         super.copy(hash);
+        /* if Mutable mutability */
+        // noinspection unchecked
+        values = (V[]) (arraysShared() ? hash.valueArray() : hash.valueArray().clone());
+        /* elif Immutable mutability //
         // noinspection unchecked
         values = (V[]) hash.valueArray().clone();
+        // endif */
     }
 
     final void move(CharObjDHash hash) {
@@ -58,6 +63,11 @@ public abstract class MutableDHashCharObjMapSO</* if obj key //K, // endif */V>
         return values;
     }
 
+    @Override
+    long tableBytes() {
+        return super.tableBytes() + Footprints.arrayBytes(values);
+    }
+
 
     boolean nullableValueEquals(@Nullable V a, @Nullable V b) {
         return a == b || (a != null && a.equals(b));
@@ -145,8 +155,16 @@ public abstract class MutableDHashCharObjMapSO</* if obj key //K, // endif */V>
     @Override
     void allocateArrays(int capacity) {
         super.allocateArrays(capacity);
+        // pooled arrays of references are filled with nulls
+        Object[] vals = takeArray(Object[].class, capacity);
         // noinspection unchecked
-        values = (V[]) new Object[capacity];
+        values = (V[]) (vals != null ? vals : new Object[capacity]);
+    }
+
+    @Override
+    void cloneArrays() {
+        super.cloneArrays();
+        values = values.clone();
     }
 
     @Override
@@ -160,8 +178,9 @@ public abstract class MutableDHashCharObjMapSO</* if obj key //K, // endif */V>
     /* if Mutable mutability */
     @Override
     void removeAt(int index) {
-        values[index] = null;
+        // the removed entry should be untracked in super, before the value is cleared
         super.removeAt(index);
+        values[index] = null;
     }
     /* endif */
 
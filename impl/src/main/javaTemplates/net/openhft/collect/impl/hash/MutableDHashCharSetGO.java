@@ -22,18 +22,43 @@ package net.openhft.collect.impl.hash;
 
 import net.openhft.collect.*;
 import net.openhft.collect.impl.*;
+import net.openhft.collect.set.CharSet;
 import net.openhft.collect.set.hash.HashCharSet;
 import javax.annotation.Nonnull;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 
 public class MutableDHashCharSetGO/*<>*/ extends MutableCharDHashSetSO/*<>*/
-        implements HashCharSet/*<>*/, InternalCharCollectionOps/*<>*/ {
+        implements HashCharSet/*<>*/, InternalCharCollectionOps/*<>*/
+        /* if !(obj elem) //, java.io.Serializable// endif */ {
 
     public int hashCode() {
+        /* if Mutable mutability */
+        return trackedHashCode();
+        /* elif Immutable mutability //
         return setHashCode();
+        // endif */
+    }
+
+    /* if Mutable mutability */
+    @Override
+    int computeHashCode() {
+        return setHashCode();
+    }
+
+    @Override
+    int slotHashCode(int index) {
+        /* if obj elem */
+        // noinspection unchecked
+        return nullableKeyHashCode((E) set[index]);
+        /* elif !(obj elem) //
+        return Primitives.hashCode(set[index]);
+        // endif */
     }
+    /* endif */
 
     @Override
     public String toString() {
@@ -41,9 +66,28 @@ public class MutableDHashCharSetGO/*<>*/ extends MutableCharDHashSetSO/*<>*/
     }
 
     public boolean equals(Object obj) {
-        return CommonSetOps.equals(this, obj);
+        return setEquals(this, obj);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet/*<>*/ freeze() {
+        return freeze(this);
+    }
+
+    /* if !(obj elem) */
+    @Override
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        DHashCharSetFormat.write(this,
+                /* if Mutable mutability */true/* elif Immutable mutability //false// endif */,
+                out);
     }
 
+    Object writeReplace() {
+        return new DHashCharSetFormat.SerializationProxy(this);
+    }
+    /* endif */
+
     @Override
     public boolean containsAll(@Nonnull Collection<?> c) {
         return CommonCharCollectionOps.containsAll(this, c);
@@ -55,6 +99,20 @@ public class MutableDHashCharSetGO/*<>*/ extends MutableCharDHashSetSO/*<>*/
         return setCursor();
     }
 
+    /* if obj elem */
+    @Override
+    public long bytesUsed(boolean includeReferenced) {
+        long bytes = bytesUsed();
+        if (includeReferenced) {
+            Set<Object> visited = Footprints.newVisitedSet();
+            for (CharCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+                bytes += Footprints.deepBytes(cur.elem(), visited);
+            }
+        }
+        return bytes;
+    }
+    /* endif */
+
 
     /* if !(obj elem) */
     @Override
@@ -139,4 +197,33 @@ public class MutableDHashCharSetGO/*<>*/ extends MutableCharDHashSetSO/*<>*/
     public boolean retainAll(@Nonnull Collection<?> c) {
         return retainAll(this, c);
     }
+
+
+    @Override
+    public int intersectionSize(@Nonnull CharSet/*<?>*/ other) {
+        return intersectionSize(this, other);
+    }
+
+    @Override
+    public double jaccard(@Nonnull CharSet/*<?>*/ other) {
+        return jaccard(this, other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet/*<>*/ intersect(@Nonnull CharSet/*<?>*/ other) {
+        return intersect(this, other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet/*<>*/ union(@Nonnull CharSet/*<extends>*/ other) {
+        return union(this, other);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharSet/*<>*/ difference(@Nonnull CharSet/*<?>*/ other) {
+        return difference(this, other);
+    }
 }
\ No newline at end of file
@@ -25,17 +25,22 @@ import net.openhft.collect.*;
 import net.openhft.function.*;
 import net.openhft.collect.impl.*;
 import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.CharShortMap;
+import net.openhft.collect.map.hash.HashCharShortMap;
 import net.openhft.collect.set.ObjSet;
 import net.openhft.collect.set.ShortSet;
 import net.openhft.collect.set.hash.HashObjSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 
 public class MutableDHashCharShortMapGO/*<>*/
-        extends MutableDHashCharShortMapSO/*<>*/ {
+        extends MutableDHashCharShortMapSO/*<>*/
+        /* if !(obj key) && !(obj value) //implements java.io.Serializable// endif */ {
 
     /* if obj value */
     @Override
@@ -91,6 +96,16 @@ public class MutableDHashCharShortMapGO/*<>*/
         /* template GetOrDefault */ throw new NotGenerated(); /* endtemplate */
     }
 
+    /* if obj key */
+    @Override
+    public <F> short get/* valueSuffix */(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super K> equivalence) {
+        int index = foreignIndex(foreignKey, equivalence);
+        return index >= 0 ? /* wrap value */values[index]/**/ :
+                /* if !(obj value) //defaultValue()// elif obj value //null// endif */;
+    }
+    /* endif */
+
     /* if obj key obj value || JDK8 jdk */@Override/* endif */
     public void forEach(BiConsumer<? super Character, ? super Short> action) {
         /* template ForEach */
@@ -117,6 +132,25 @@ public class MutableDHashCharShortMapGO/*<>*/
         return new NoRemovedMapCursor();
     }
 
+    /* if obj key || obj value */
+    @Override
+    public long bytesUsed(boolean includeReferenced) {
+        long bytes = bytesUsed();
+        if (includeReferenced) {
+            Set<Object> visited = Footprints.newVisitedSet();
+            for (CharShortCursor/*<>*/ cur = cursor(); cur.moveNext();) {
+                /* if obj key */
+                bytes += Footprints.deepBytes(cur.key(), visited);
+                /* endif */
+                /* if obj value */
+                bytes += Footprints.deepBytes(cur.value(), visited);
+                /* endif */
+            }
+        }
+        return bytes;
+    }
+    /* endif */
+
 
     @Override
     public boolean containsAllEntries(Map<?, ?> m) {
@@ -149,14 +183,212 @@ public class MutableDHashCharShortMapGO/*<>*/
 
     @Override
     public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (o instanceof CharShortDHash && o instanceof InternalCharShortMapOps) {
+            InternalCharShortMapOps/*<?>*/ m = (InternalCharShortMapOps/*<?>*/) o;
+            if (m.size() != size())
+                return false;
+            CharShortDHash hash = (CharShortDHash) o;
+            boolean sameEquivalences = sameEquivalences(m);
+            /* if Mutable mutability */
+            if (sameEquivalences && trackedHashCodesDiffer(hash))
+                return false;
+            /* endif */
+            if (hash.capacity() == capacity() && sameEquivalences)
+                return allEntriesContainedInSameCapacity(hash, m);
+        }
         return CommonMapOps.equals(this, o);
     }
 
+    private boolean sameEquivalences(CharShortMap/*<?>*/ m) {
+        /* if !(obj key) && !(obj value) */
+        return true;
+        /* elif obj key || obj value */
+        return /* if obj key */NullableObjects.equals(keyEquivalence(), m.keyEquivalence())
+                /* endif *//* if obj key obj value */&& /* endif */
+                /* if obj value */NullableObjects.equals(valueEquivalence(), m.valueEquivalence())
+                /* endif */;
+        /* endif */
+    }
+
+    /**
+     * Checks if all entries of this map are contained in the map {@code m},
+     * which is a hash of the same capacity. When a key is found in the same slot
+     * of the other table, values are compared right away, without probing.
+     */
+    private boolean allEntriesContainedInSameCapacity(CharShortDHash hash,
+            InternalCharShortMapOps/*<?>*/ m) {
+        /* if Mutable mutability */
+        int mc = modCount();
+        /* endif */
+        /* bits *//* raw */char free, removed, otherFree, otherRemoved;
+        /* if !(float|double|obj key) */
+        free = freeValue;
+        removed = /* if Mutable mutability */removedValue/* elif Immutable mutability //free// endif */;
+        otherFree = hash.freeValue();
+        otherRemoved = hash.supportRemoved() ? hash.removedValue() : otherFree;
+        /* elif float|double key //
+        free = otherFree = FREE_BITS;
+        removed = otherRemoved = REMOVED_BITS;
+        // elif obj key //
+        free = otherFree = FREE;
+        removed = otherRemoved = REMOVED;
+        // endif */
+        /* bits *//* raw */char[] keys = set;
+        /* bits *//* raw */char[] otherKeys = hash.keys();
+        /* bits */short[] vals = values;
+        /* bits *//* raw */short[] otherVals = hash.valueArray();
+        for (int i = keys.length - 1; i >= 0; i--) {
+            /* bits *//* raw */char key;
+            if ((key = keys[i]) != free && key != removed) {
+                if (otherKeys[i] == key && key != otherFree && key != otherRemoved) {
+                    /* if !(obj value) */
+                    if (vals[i] != otherVals[i])
+                        return false;
+                    /* elif obj value //
+                    // noinspection unchecked
+                    if (!nullableValueEquals(vals[i], (V) otherVals[i]))
+                        return false;
+                    // endif */
+                } else if (!m.containsEntry(key, vals[i])) {
+                    return false;
+                }
+            }
+        }
+        /* if Mutable mutability */
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+        /* endif */
+        return true;
+    }
+
     @Override
     public int hashCode() {
+        /* if Mutable mutability */
+        return trackedHashCode();
+        /* elif Immutable mutability //
+        return computeHashCode();
+        // endif */
+    }
+
+    /* if Mutable mutability */@Override/* endif */
+    int computeHashCode() {
         /* template SetHashCode */ throw new NotGenerated(); /* endtemplate */
     }
 
+    /* if Mutable mutability */
+    @Override
+    int slotHashCode(int index) {
+        /* if obj key */// noinspection unchecked/* endif */
+        return /* if !(obj key) */Primitives.hashCode(set[index])
+                /* elif obj key //nullableKeyHashCode((K) set[index])// endif */
+                ^
+                /* if !(obj value) */Primitives.hashCode(values[index])
+                /* elif obj value //nullableValueHashCode(values[index])// endif */;
+    }
+    /* endif */
+
+    @Nonnull
+    @Override
+    public HashCharShortMap/*<>*/ freeze() {
+        /* if Mutable mutability */
+        // Immutable hashes don't support removed slots
+        if (!noRemoved())
+            rehash(capacity());
+        ImmutableDHashCharShortMapGO/*<>*/ frozen = uninitializedImmutableSimilarMap();
+        frozen.move(this);
+        clearAfterHandOver();
+        return frozen;
+        /* elif Immutable mutability //
+        return this;
+        // endif */
+    }
+
+    /* if !(obj key) && !(obj value) */
+    @Override
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        DHashCharShortMapFormat.write(this, defaultValue(),
+                /* if Mutable mutability */true/* elif Immutable mutability //false// endif */,
+                out);
+    }
+
+    Object writeReplace() {
+        return new DHashCharShortMapFormat.SerializationProxy(this);
+    }
+    /* endif */
+
+    /* if Mutable mutability */
+    /* with Mutable|Immutable mutability */
+    /**
+     * Creates an uninitialized Mutable map with the same key and value equivalences
+     * and default value, as this map has.
+     */
+    private MutableDHashCharShortMapGO/*<>*/ uninitializedMutableSimilarMap() {
+        /* if obj key */
+        Equivalence<Character> keyEquivalence = keyEquivalence();
+        /* endif */
+        /* if !(obj value) */
+        short defaultValue = defaultValue();
+        /* elif obj value */
+        Equivalence<Short> valueEquivalence = valueEquivalence();
+        /* endif */
+        /* if !(obj key) && !(obj value) */
+        if (defaultValue != 0) {
+            MutableDHashCharShortMap.WithCustomDefaultValue/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomDefaultValue/*<>*/();
+            map.defaultValue = defaultValue;
+            return map;
+        }
+        /* elif obj key && !(obj value) */
+        if (keyEquivalence != null && defaultValue != 0) {
+            MutableDHashCharShortMap.WithCustomKeyEquivalenceAndDefaultValue/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomKeyEquivalenceAndDefaultValue/*<>*/();
+            map.keyEquivalence = keyEquivalence;
+            map.defaultValue = defaultValue;
+            return map;
+        } else if (keyEquivalence != null) {
+            MutableDHashCharShortMap.WithCustomKeyEquivalence/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomKeyEquivalence/*<>*/();
+            map.keyEquivalence = keyEquivalence;
+            return map;
+        } else if (defaultValue != 0) {
+            MutableDHashCharShortMap.WithCustomDefaultValue/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomDefaultValue/*<>*/();
+            map.defaultValue = defaultValue;
+            return map;
+        }
+        /* elif !(obj key) && obj value */
+        if (valueEquivalence != null) {
+            MutableDHashCharShortMap.WithCustomValueEquivalence/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomValueEquivalence/*<>*/();
+            map.valueEquivalence = valueEquivalence;
+            return map;
+        }
+        /* elif obj key obj value */
+        if (keyEquivalence != null && valueEquivalence != null) {
+            MutableDHashCharShortMap.WithCustomEquivalences/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomEquivalences/*<>*/();
+            map.keyEquivalence = keyEquivalence;
+            map.valueEquivalence = valueEquivalence;
+            return map;
+        } else if (keyEquivalence != null) {
+            MutableDHashCharShortMap.WithCustomKeyEquivalence/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomKeyEquivalence/*<>*/();
+            map.keyEquivalence = keyEquivalence;
+            return map;
+        } else if (valueEquivalence != null) {
+            MutableDHashCharShortMap.WithCustomValueEquivalence/*<>*/ map =
+                    new MutableDHashCharShortMap.WithCustomValueEquivalence/*<>*/();
+            map.valueEquivalence = valueEquivalence;
+            return map;
+        }
+        /* endif */
+        return new MutableDHashCharShortMap/*<>*/();
+    }
+    /* endwith */
+    /* endif */
+
     @Override
     public String toString() {
         /* template ToString */ throw new NotGenerated(); /* endtemplate */
@@ -310,9 +542,149 @@ public class MutableDHashCharShortMapGO/*<>*/
 
     @Override
     public void putAll(@Nonnull Map<? extends Character, ? extends Short> m) {
+        /* if Mutable mutability */
+        if (m != this && m instanceof CharShortDHash/* if obj key // &&
+                NullableObjects.equals(keyEquivalence(), ((CharShortMap) m).keyEquivalence())
+                // endif */) {
+            CharShortDHash hash = (CharShortDHash) m;
+            if (size() == 0 && hash.capacity() >= capacity() &&
+                    hash.hashConfig().equals(hashConfig())) {
+                // Nothing to merge, take copies of the other map's arrays
+                // instead of reinserting every entry
+                incrementModCount();
+                copy(hash);
+                return;
+            }
+            if (hash.capacity() == capacity()) {
+                putAllFromSameCapacity(hash);
+                return;
+            }
+        }
+        /* endif */
         CommonCharShortMapOps.putAll(this, m);
     }
 
+    /* if Mutable mutability */
+    /**
+     * Values of the keys, found in the same slots in this and the other table, are overwritten
+     * in place; only the rest of the keys are probed for and inserted.
+     */
+    private void putAllFromSameCapacity(CharShortDHash hash) {
+        ownArrays();
+        int otherMc = hash.modCount();
+        /* bits *//* raw */char free, removed, otherFree, otherRemoved;
+        /* if !(float|double|obj key) */
+        free = freeValue;
+        removed = removedValue;
+        otherFree = hash.freeValue();
+        otherRemoved = hash.supportRemoved() ? hash.removedValue() : otherFree;
+        /* elif float|double key //
+        free = otherFree = FREE_BITS;
+        removed = otherRemoved = REMOVED_BITS;
+        // elif obj key //
+        free = otherFree = FREE;
+        removed = otherRemoved = REMOVED;
+        // endif */
+        /* bits *//* raw */char[] otherKeys = hash.keys();
+        /* bits *//* raw */short[] otherVals = hash.valueArray();
+        /* bits *//* raw */char[] keys = set;
+        /* bits */short[] vals = values;
+        for (int i = otherKeys.length - 1; i >= 0; i--) {
+            /* bits *//* raw */char key;
+            if ((key = otherKeys[i]) != otherFree && key != otherRemoved) {
+                if (i < keys.length && keys[i] == key && key != free && key != removed) {
+                    untrackSlotHashCode(i);
+                    /* if obj value */// noinspection unchecked/* endif */
+                    vals[i] = /* if obj value //(V) // endif */otherVals[i];
+                    trackSlotHashCode(i);
+                } else {
+                    /* if obj key */// noinspection unchecked/* endif */
+                    justPut(/* if obj key //(K) // endif */key,
+                            /* if obj value //(V) // endif */otherVals[i]);
+                    // justPut() might rehash, or change free or removed value
+                    keys = set;
+                    vals = values;
+                    /* if !(float|double|obj key) */
+                    free = freeValue;
+                    removed = removedValue;
+                    /* endif */
+                }
+            }
+        }
+        if (otherMc != hash.modCount())
+            throw new ConcurrentModificationException();
+    }
+
+    /* if !(obj key) && !(obj value) */
+    /**
+     * Moves the entries of the other map, none of which keys are present in this map,
+     * into this table. Keys are not compared, each one is put into the first free slot
+     * on its probe path.
+     */
+    final void putAllAbsent(MutableDHashCharShortMapGO other) {
+        ensureCapacity(size() + (long) other.size());
+        ownArrays();
+        int otherMc = other.modCount();
+        /* bits *//* raw */char free, otherFree, otherRemoved;
+        /* if !(float|double key) */
+        // keys of the other map might be equal to the free or removed value of this map
+        while (other.index(freeValue) >= 0) {
+            changeFree();
+        }
+        while (other.index(removedValue) >= 0) {
+            changeRemoved();
+        }
+        free = freeValue;
+        otherFree = other.freeValue;
+        otherRemoved = other.removedValue;
+        /* elif float|double key //
+        free = otherFree = FREE_BITS;
+        otherRemoved = REMOVED_BITS;
+        // endif */
+        /* bits *//* raw */char[] otherKeys = other.set;
+        /* bits */short[] otherVals = other.values;
+        /* bits *//* raw */char[] keys = set;
+        /* bits */short[] vals = values;
+        int capacity = keys.length;
+        for (int i = otherKeys.length - 1; i >= 0; i--) {
+            /* bits *//* raw */char key;
+            if ((key = otherKeys[i]) != otherFree && key != otherRemoved) {
+                /* if char key */
+                int hash = key;
+                /* elif byte key //
+                int hash = key & BYTE_MASK;
+                // elif short key //
+                int hash = key & SHORT_MASK;
+                // elif int|float key //
+                int hash = key & Integer.MAX_VALUE;
+                // elif long|double key //
+                int hash = ((int) (key ^ (key >>> 32))) & Integer.MAX_VALUE;
+                // endif */
+                int index;
+                if (keys[index = hash % capacity] != free) {
+                    int step = (hash % (capacity - 2)) + 1;
+                    do {
+                        if ((index -= step) < 0) index += capacity; // nextIndex
+                    } while (keys[index] != free);
+                }
+                keys[index] = key;
+                vals[index] = otherVals[i];
+                trackSlotHashCode(index);
+                postFreeSlotInsertHook();
+                if (keys != set) {
+                    // rehashed, because of too few free slots
+                    keys = set;
+                    vals = values;
+                    capacity = keys.length;
+                }
+            }
+        }
+        if (otherMc != other.modCount())
+            throw new ConcurrentModificationException();
+    }
+    /* endif */
+    /* endif */
+
 
     /* if obj key obj value || JDK8 jdk */@Override/* endif */
     public Short replace(Character key, Short value) {
@@ -427,6 +799,216 @@ public class MutableDHashCharShortMapGO/*<>*/
     }
 
 
+    /* if !(obj key) && !(obj value) */
+    @Override
+    public void parallelForEach(@Nonnull /*f*/CharShortConsumer action) {
+        if (isEmpty())
+            return;
+        /* if Mutable mutability */
+        int mc = modCount();
+        /* endif */
+        int capacity = capacity();
+        ParallelSlotTask.invoke(new ParallelForEachTask(action,
+                0, capacity, ParallelSlotTask.threshold(capacity)));
+        /* if Mutable mutability */
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+        /* endif */
+    }
+
+    private class ParallelForEachTask extends ParallelSlotTask {
+        private final /*f*/CharShortConsumer action;
+
+        ParallelForEachTask(/*f*/CharShortConsumer action, int from, int to, int threshold) {
+            super(from, to, threshold);
+            this.action = action;
+        }
+
+        @Override
+        ParallelSlotTask subTask(int from, int to) {
+            return new ParallelForEachTask(action, from, to, threshold);
+        }
+
+        @Override
+        int processRange(int from, int to) {
+            /*f*/CharShortConsumer action = this.action;
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = /* if Mutable mutability */removedValue
+                    /* elif Immutable mutability //free// endif */;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            /* bits */short[] vals = values;
+            for (int i = from; i < to; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    action.accept(/* wrap key */key/**/, /* wrap value */vals[i]/**/);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /* if Mutable mutability */
+    @Override
+    public void parallelReplaceAll(@Nonnull /*f*/CharShortToShortFunction function) {
+        if (isEmpty())
+            return;
+        int mc = modCount();
+        ownArrays();
+        int capacity = capacity();
+        try {
+            ParallelSlotTask.invoke(new ParallelReplaceAllTask(function,
+                    0, capacity, ParallelSlotTask.threshold(capacity)));
+        } finally {
+            // If a part failed, the others could have replaced values before that
+            postParallelUpdateHook();
+        }
+        if (mc != modCount())
+            throw new ConcurrentModificationException();
+    }
+
+    private class ParallelReplaceAllTask extends ParallelSlotTask {
+        private final /*f*/CharShortToShortFunction function;
+
+        ParallelReplaceAllTask(/*f*/CharShortToShortFunction function,
+                int from, int to, int threshold) {
+            super(from, to, threshold);
+            this.function = function;
+        }
+
+        @Override
+        ParallelSlotTask subTask(int from, int to) {
+            return new ParallelReplaceAllTask(function, from, to, threshold);
+        }
+
+        @Override
+        int processRange(int from, int to) {
+            /*f*/CharShortToShortFunction function = this.function;
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = removedValue;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            /* bits */short[] vals = values;
+            for (int i = from; i < to; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    short newValue = function.applyAsShort(
+                            /* wrap key */key/**/, /* wrap value */vals[i]/**/);
+                    vals[i] = /* unwrap value */newValue;
+                }
+            }
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean parallelRemoveIf(@Nonnull /*f*/CharShortPredicate filter) {
+        if (isEmpty())
+            return false;
+        int mc = modCount();
+        ownArrays();
+        int capacity = capacity();
+        int removedBefore = removedSlots();
+        int removed = 0;
+        boolean completed = false, modified;
+        try {
+            removed = ParallelSlotTask.invoke(new ParallelRemoveIfTask(filter,
+                    0, capacity, ParallelSlotTask.threshold(capacity)));
+            modified = mc != modCount();
+            completed = true;
+        } finally {
+            // If a part failed, the others could have removed entries before that
+            if (!completed)
+                removed = countRemovedSlots() - removedBefore;
+            if (removed > 0)
+                postParallelRemoveHook(removed);
+        }
+        if (modified)
+            throw new ConcurrentModificationException();
+        return removed > 0;
+    }
+
+    private int countRemovedSlots() {
+        /* bits */char removed = /* if !(float|double key) */removedValue
+                /* elif float|double key //REMOVED_BITS// endif */;
+        /* bits */char[] keys = set;
+        int count = 0;
+        for (int i = keys.length - 1; i >= 0; i--) {
+            if (keys[i] == removed)
+                count++;
+        }
+        return count;
+    }
+
+    private class ParallelRemoveIfTask extends ParallelSlotTask {
+        private final /*f*/CharShortPredicate filter;
+
+        ParallelRemoveIfTask(/*f*/CharShortPredicate filter, int from, int to, int threshold) {
+            super(from, to, threshold);
+            this.filter = filter;
+        }
+
+        @Override
+        ParallelSlotTask subTask(int from, int to) {
+            return new ParallelRemoveIfTask(filter, from, to, threshold);
+        }
+
+        /**
+         * Marks the slots of the entries, satisfying the filter, removed, without
+         * updating the counts of the hash.
+         *
+         * @return the number of the removed entries
+         */
+        @Override
+        int processRange(int from, int to) {
+            /*f*/CharShortPredicate filter = this.filter;
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = removedValue;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            /* bits */short[] vals = values;
+            int removedCount = 0;
+            for (int i = from; i < to; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    if (filter.test(/* wrap key */key/**/, /* wrap value */vals[i]/**/)) {
+                        keys[i] = removed;
+                        removedCount++;
+                    }
+                }
+            }
+            return removedCount;
+        }
+    }
+    /* elif Immutable mutability */
+    @Override
+    public void parallelReplaceAll(@Nonnull /*f*/CharShortToShortFunction function) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean parallelRemoveIf(@Nonnull /*f*/CharShortPredicate filter) {
+        throw new UnsupportedOperationException();
+    }
+    /* endif */
+    /* endif */
+
+
     /* with entry view */
     class EntryView extends AbstractSetView<Map.Entry<Character, Short>>
             implements HashObjSet<Map.Entry<Character, Short>>,
@@ -457,6 +1039,20 @@ public class MutableDHashCharShortMapGO/*<>*/
             return MutableDHashCharShortMapGO.this.currentLoad();
         }
 
+        @Override
+        public long bytesUsed() {
+            return MutableDHashCharShortMapGO.this.bytesUsed();
+        }
+
+        @Override
+        public long bytesUsed(boolean includeReferenced) {
+            /* if obj key || obj value */
+            return MutableDHashCharShortMapGO.this.bytesUsed(includeReferenced);
+            /* elif !(obj key) && !(obj value) //
+            return MutableDHashCharShortMapGO.this.bytesUsed();
+            // endif */
+        }
+
 
         @Override
         @SuppressWarnings("unchecked")
@@ -588,6 +1184,76 @@ public class MutableDHashCharShortMapGO/*<>*/
             /* template RetainAll */ throw new NotGenerated(); /* endtemplate */
         }
 
+
+        @Override
+        public int intersectionSize(@Nonnull ObjSet<?> other) {
+            return CommonSetOps.intersectionSize(this, other);
+        }
+
+        @Override
+        public double jaccard(@Nonnull ObjSet<?> other) {
+            return CommonSetOps.jaccard(this, other);
+        }
+
+        @Nonnull
+        @Override
+        public HashObjSet<Map.Entry<Character, Short>> intersect(@Nonnull ObjSet<?> other) {
+            HashObjSet<Map.Entry<Character, Short>> result =
+                    newEntrySet(Math.min(size(), other.size()));
+            CommonSetOps.addFiltered(this, other, true, result);
+            return result;
+        }
+
+        @Nonnull
+        @Override
+        public HashObjSet<Map.Entry<Character, Short>> union(
+                @Nonnull ObjSet<? extends Map.Entry<Character, Short>> other) {
+            HashObjSet<Map.Entry<Character, Short>> result =
+                    newEntrySet(size() + other.size());
+            reverseAddAllTo(result);
+            result.addAll(other);
+            return result;
+        }
+
+        @Nonnull
+        @Override
+        public HashObjSet<Map.Entry<Character, Short>> difference(@Nonnull ObjSet<?> other) {
+            HashObjSet<Map.Entry<Character, Short>> result = newEntrySet(size());
+            CommonSetOps.addFiltered(this, other, false, result);
+            return result;
+        }
+
+        @Nonnull
+        @Override
+        public HashObjSet<Map.Entry<Character, Short>> freeze() {
+            /* if Mutable mutability */
+            // Entries are views of the map's slots, freeze a copy of the map
+            MutableDHashCharShortMapGO/*<>*/ copy = uninitializedMutableSimilarMap();
+            copy.copy(MutableDHashCharShortMapGO.this);
+            return copy.freeze().entrySet();
+            /* elif Immutable mutability //
+            return this;
+            // endif */
+        }
+
+        /* with Mutable mutability */
+        private HashObjSet<Map.Entry<Character, Short>> newEntrySet(int expectedSize) {
+            MutableDHashObjSetGO<Map.Entry<Character, Short>> result;
+            Equivalence<Map.Entry<Character, Short>> equivalence = equivalence();
+            if (equivalence == null) {
+                result = new MutableDHashObjSet<Map.Entry<Character, Short>>();
+            } else {
+                MutableDHashObjSet.WithCustomEquivalence<Map.Entry<Character, Short>> set =
+                        new MutableDHashObjSet.WithCustomEquivalence<
+                                Map.Entry<Character, Short>>();
+                set.equivalence = equivalence;
+                result = set;
+            }
+            result.init(configWrapper(), expectedSize);
+            return result;
+        }
+        /* endwith */
+
         @Override
         public void clear() {
             MutableDHashCharShortMapGO.this.clear();
@@ -674,7 +1340,10 @@ public class MutableDHashCharShortMapGO/*<>*/
             if (modCount != modCount())
                 throw new IllegalStateException();
             short oldValue = /* wrap value */value;
+            ownArrays();
+            untrackSlotHashCode(index);
             value = values[index] = /* unwrap value */newValue;
+            trackSlotHashCode(index);
             return oldValue;
         }
     }
@@ -726,7 +1395,8 @@ public class MutableDHashCharShortMapGO/*<>*/
 
 
     /* with value view */
-    class ValueView extends AbstractShortValueView/*<>*/ {
+    class ValueView extends AbstractShortValueView/*<>*/
+            /* if !(obj key) && !(obj value) //implements DHashShortValues// endif */ {
 
         /* if obj value //
         @Override
@@ -745,6 +1415,39 @@ public class MutableDHashCharShortMapGO/*<>*/
             return MutableDHashCharShortMapGO.this.shrink();
         }
 
+        /* if !(obj key) && !(obj value) */
+        @Override
+        public DHash hash() {
+            return MutableDHashCharShortMapGO.this;
+        }
+
+        @Nonnull
+        @Override
+        public /* bits */short[] valueArray() {
+            return values;
+        }
+
+        @Override
+        public int nextFullSlot(int from, int to) {
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = /* if Mutable mutability */removedValue
+                    /* elif Immutable mutability //free// endif */;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            for (int i = from; i < to; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed)
+                    return i;
+            }
+            return to;
+        }
+        /* endif */
+
         @Override
         public boolean contains(Object o) {
             return MutableDHashCharShortMapGO.this.containsValue(o);
@@ -35,7 +35,11 @@ public abstract class MutableDHashCharShortMapSO/*<>*/
 
     final void copy(CharShortDHash hash) {
         super.copy(hash);
+        /* if Mutable mutability */
+        values = arraysShared() ? hash.valueArray() : hash.valueArray().clone();
+        /* elif Immutable mutability //
         values = hash.valueArray().clone();
+        // endif */
     }
 
     final void move(CharShortDHash hash) {
@@ -50,6 +54,11 @@ public abstract class MutableDHashCharShortMapSO/*<>*/
         return values;
     }
 
+    @Override
+    long tableBytes() {
+        return super.tableBytes() + Footprints.arrayBytes(values);
+    }
+
     /* with internal|simple version */
     /* if simple version || float|double value */
     /* define valueBits */
@@ -105,7 +114,15 @@ public abstract class MutableDHashCharShortMapSO/*<>*/
     @Override
     void allocateArrays(int capacity) {
         super.allocateArrays(capacity);
-        values = new /* bits */short[capacity];
+        // values in free slots are never read, stale pooled values don't matter
+        /* bits */short[] vals = takeArray(/* bits */short[].class, capacity);
+        values = vals != null ? vals : new /* bits */short[capacity];
+    }
+
+    @Override
+    void cloneArrays() {
+        super.cloneArrays();
+        values = values.clone();
     }
     /* endif */
 }
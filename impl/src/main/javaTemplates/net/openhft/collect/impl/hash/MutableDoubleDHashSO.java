@@ -20,6 +20,7 @@
 
 package net.openhft.collect.impl.hash;
 
+import net.openhft.collect.impl.Footprints;
 import net.openhft.collect.impl.NotGenerated;
 import javax.annotation.Nonnull;
 
@@ -32,7 +33,11 @@ public abstract class MutableDoubleDHashSO extends MutableDHash implements Doubl
 
     final void copy(DoubleDHash hash) {
         super.copy(hash);
+        /* if Mutable mutability */
+        set = arraysShared() ? hash.keys() : hash.keys().clone();
+        /* elif Immutable mutability //
         set = hash.keys().clone();
+        // endif */
     }
 
     final void move(DoubleDHash hash) {
@@ -46,6 +51,14 @@ public abstract class MutableDoubleDHashSO extends MutableDHash implements Doubl
         return set;
     }
 
+    /* with double elem */
+    // the number of bytes is long in both specializations, unlike the bits of elements
+    @Override
+    long tableBytes() {
+        return Footprints.arrayBytes(set);
+    }
+    /* endwith */
+
     @Override
     public int capacity() {
         return set.length;
@@ -71,12 +84,20 @@ public abstract class MutableDoubleDHashSO extends MutableDHash implements Doubl
     /* if Mutable mutability */
     @Override
     void allocateArrays(int capacity) {
-        set = new long[capacity];
+        long[] keys = takeArray(long[].class, capacity);
+        set = keys != null ? keys : new long[capacity];
         Arrays.fill(set, FREE_BITS);
     }
 
+    @Override
+    void cloneArrays() {
+        set = set.clone();
+    }
+
     @Override
     void removeAt(int index) {
+        ownArrays();
+        untrackSlotHashCode(index);
         set[index] = REMOVED_BITS;
         postRemoveHook();
     }
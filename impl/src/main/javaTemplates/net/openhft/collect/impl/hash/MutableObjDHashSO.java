@@ -20,6 +20,7 @@
 
 package net.openhft.collect.impl.hash;
 
+import net.openhft.collect.ForeignKeyEquivalence;
 import net.openhft.collect.impl.*;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,7 +35,11 @@ public abstract class MutableObjDHashSO<E> extends MutableDHash implements ObjDH
 
     final void copy(ObjDHash hash) {
         super.copy(hash);
+        /* if Mutable mutability */
+        set = arraysShared() ? hash.keys() : hash.keys().clone();
+        /* elif Immutable mutability //
         set = hash.keys().clone();
+        // endif */
     }
 
     final void move(ObjDHash hash) {
@@ -48,6 +53,11 @@ public abstract class MutableObjDHashSO<E> extends MutableDHash implements ObjDH
         return set;
     }
 
+    @Override
+    long tableBytes() {
+        return Footprints.arrayBytes(set);
+    }
+
     @Override
     public int capacity() {
         return set.length;
@@ -82,17 +92,65 @@ public abstract class MutableObjDHashSO<E> extends MutableDHash implements ObjDH
         /* template Index with null elem */ throw new NotGenerated(); /* endtemplate */
     }
 
+    /**
+     * Returns the index of the key, equivalent to the given foreign key, or {@code -1}.
+     * Probes the same sequence of slots as {@link #index(Object)}, so the hash
+     * of the foreign key should be equal to {@link #keyHashCode(Object)} of the key.
+     */
+    <F> int index(@Nonnull F foreignKey,
+            @Nonnull ForeignKeyEquivalence<? super F, ? super E> equivalence) {
+        Object[] keys = set;
+        int capacity = keys.length;
+        int hash = equivalence.hash(foreignKey) & Integer.MAX_VALUE;
+        int index = hash % capacity;
+        Object cur = keys[index];
+        if (cur == FREE)
+            return -1;
+        if (foreignKeyEquals(foreignKey, equivalence, cur))
+            return index;
+        int step = (hash % (capacity - 2)) + 1;
+        while (true) {
+            if ((index -= step) < 0) index += capacity; // nextIndex
+            if ((cur = keys[index]) == FREE)
+                return -1;
+            if (foreignKeyEquals(foreignKey, equivalence, cur))
+                return index;
+        }
+    }
+
+    private <F> boolean foreignKeyEquals(F foreignKey,
+            ForeignKeyEquivalence<? super F, ? super E> equivalence, Object cur) {
+        // the null key is never equivalent to a foreign key
+        /* if Mutable mutability */
+        if (cur == REMOVED || cur == null)
+            return false;
+        /* elif Immutable mutability //
+        if (cur == null)
+            return false;
+        // endif */
+        // noinspection unchecked
+        return equivalence.equivalent(foreignKey, (E) cur);
+    }
+
 
     /* if Mutable mutability */
     @Override
     void allocateArrays(int capacity) {
-        set = new Object[ capacity ];
+        Object[] keys = takeArray(Object[].class, capacity);
+        set = keys != null ? keys : new Object[ capacity ];
         Arrays.fill(set, FREE);
     }
 
+    @Override
+    void cloneArrays() {
+        set = set.clone();
+    }
+
 
     @Override
     void removeAt(int index) {
+        ownArrays();
+        untrackSlotHashCode(index);
         set[index] = REMOVED;
         postRemoveHook();
     }
@@ -0,0 +1,428 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.Container;
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.DirectMemory;
+import net.openhft.collect.impl.UnsafeConstants;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.ConcurrentModificationException;
+
+import static net.openhft.collect.impl.Containers.sizeAsInt;
+
+
+/**
+ * Base of the containers, which store the double hashing table in native memory,
+ * allocated by {@code Unsafe.allocateMemory()}, so the garbage collector never scans
+ * or copies it. Capacities are {@code long} primes, probing is the same as in
+ * {@link MutableDHash} tables: the first index is the hash modulo the capacity, the step
+ * is {@code hash % (capacity - 2) + 1}.
+ *
+ * <p>The keys and the values of maps are stored in a single block: the keys, as bits,
+ * then the values, aligned by 8 bytes. Keys with {@code 0} and {@code 1} bits mark free
+ * and removed slots, so these keys are stored apart, in two virtual slots
+ * {@code capacity} and {@code capacity + 1}, which values follow the values of the table.
+ *
+ * <p>The memory is released by {@link #close()}, or by the {@link DirectMemory.Cleaner},
+ * when the container becomes unreachable. Methods, which access the memory, call
+ * {@link #reachabilityFence()} after the last access, the container shouldn't become
+ * unreachable (and the memory released) within them.
+ */
+abstract class OffHeapCharDHash implements Container, Closeable, UnsafeConstants {
+
+    static final /* bits */char FREE_KEY = 0, REMOVED_KEY = 1;
+    private static final long MIN_CAPACITY = 7L;
+
+    static /* bits */char keyAt(long keys, long index) {
+        /* if !(float|double elem) */
+        return U.getChar(keys + (index << CHAR_SCALE_SHIFT));
+        /* elif float elem //
+        return U.getInt(keys + (index << INT_SCALE_SHIFT));
+        // elif double elem //
+        return U.getLong(keys + (index << LONG_SCALE_SHIFT));
+        // endif */
+    }
+
+    static void setKeyAt(long keys, long index, /* bits */char key) {
+        /* if !(float|double elem) */
+        U.putChar(keys + (index << CHAR_SCALE_SHIFT), key);
+        /* elif float elem //
+        U.putInt(keys + (index << INT_SCALE_SHIFT), key);
+        // elif double elem //
+        U.putLong(keys + (index << LONG_SCALE_SHIFT), key);
+        // endif */
+    }
+
+    /**
+     * Unlike the hashes of on-heap tables, spreads {@code long} keys over the whole
+     * positive {@code long} range, to make use of capacities beyond {@code int}.
+     */
+    static long keyHash(/* bits */char key) {
+        /* if char elem */
+        return (long) key;
+        /* elif byte elem //
+        return (long) (key & 0xFF);
+        // elif short elem //
+        return (long) (key & 0xFFFF);
+        // elif int|float elem //
+        return ((long) key) & 0xFFFFFFFFL;
+        // elif long|double elem //
+        return (key ^ (key >>> 32)) & Long.MAX_VALUE;
+        // endif */
+    }
+
+    /**
+     * Holds the address of the current block, the action of the cleaner.
+     * Mustn't reference the container.
+     */
+    static final class Memory implements Runnable {
+        long address;
+
+        @Override
+        public void run() {
+            if (address != 0L) {
+                U.freeMemory(address);
+                address = 0L;
+            }
+        }
+    }
+
+    private final double targetLoad, maxLoad, growFactor;
+    private final long valueSize;
+    private final Memory memory = new Memory();
+    private final DirectMemory.Cleaner cleaner;
+
+    /** The address of the keys, {@code 0} after {@link #close()} */
+    long keys;
+    /** The address of the values, {@code 0} for sets */
+    long values;
+    long capacity;
+    private long maxSize;
+    long size;
+    long removed;
+    boolean hasFreeKey, hasRemovedKey;
+    int modCount;
+
+    /**
+     * @param valueScaleShift log2 of the value size, or {@code -1} for sets
+     */
+    OffHeapCharDHash(HashConfig config, long expectedSize, int valueScaleShift) {
+        if (expectedSize < 0L)
+            throw new IllegalArgumentException("Expected size should be non-negative");
+        targetLoad = config.getTargetLoad();
+        maxLoad = config.getMaxLoad();
+        growFactor = config.getGrowFactor();
+        valueSize = valueScaleShift >= 0 ? 1L << valueScaleShift : 0L;
+        allocate(capacityFor(expectedSize));
+        cleaner = DirectMemory.Cleaner.create(this, memory);
+    }
+
+    private long capacityFor(long size) {
+        long desired = Math.max((long) Math.ceil(((double) size) / targetLoad), size + 1L);
+        return BigInteger.valueOf(Math.max(desired, MIN_CAPACITY) - 1L)
+                .nextProbablePrime().longValue();
+    }
+
+    private void allocate(long capacity) {
+        long keysSize = capacity << CHAR_SCALE_SHIFT;
+        long valuesOffset = (keysSize + 7L) & ~7L;
+        long address = U.allocateMemory(valuesOffset + (capacity + 2L) * valueSize);
+        U.setMemory(address, keysSize, (byte) 0);
+        memory.address = address;
+        keys = address;
+        values = valueSize != 0L ? address + valuesOffset : 0L;
+        this.capacity = capacity;
+        maxSize = Math.min((long) (((double) capacity) * maxLoad), capacity - 1L);
+        removed = 0L;
+    }
+
+    final void reachabilityFence() {
+        cleaner.keepReachable(this);
+    }
+
+    final void checkOpen() {
+        if (keys == 0L)
+            throw new IllegalStateException("Container is closed");
+    }
+
+    /**
+     * @return the slot of the key, or {@code -1}
+     */
+    final long index(/* bits */char key) {
+        if (key == FREE_KEY)
+            return hasFreeKey ? capacity : -1L;
+        if (key == REMOVED_KEY)
+            return hasRemovedKey ? capacity + 1L : -1L;
+        long keys = this.keys, capacity = this.capacity;
+        if (keys == 0L)
+            checkOpen();
+        try {
+            long hash = keyHash(key);
+            long index = hash % capacity;
+            /* bits */char cur = keyAt(keys, index);
+            if (cur == key)
+                return index;
+            if (cur == FREE_KEY)
+                return -1L;
+            long step = hash % (capacity - 2L) + 1L;
+            while (true) {
+                if ((index -= step) < 0L) index += capacity; // nextIndex
+                if ((cur = keyAt(keys, index)) == key)
+                    return index;
+                if (cur == FREE_KEY)
+                    return -1L;
+            }
+        } finally {
+            reachabilityFence();
+        }
+    }
+
+    /**
+     * @return the slot of the key, if it is already present, or the bitwise complement
+     *         of the slot, in which the key is inserted
+     */
+    final long insert(/* bits */char key) {
+        checkOpen();
+        if (key == FREE_KEY) {
+            if (hasFreeKey)
+                return capacity;
+            hasFreeKey = true;
+            size++;
+            modCount++;
+            return ~capacity;
+        }
+        if (key == REMOVED_KEY) {
+            if (hasRemovedKey)
+                return capacity + 1L;
+            hasRemovedKey = true;
+            size++;
+            modCount++;
+            return ~(capacity + 1L);
+        }
+        try {
+            if (size + removed >= maxSize)
+                grow();
+            long keys = this.keys, capacity = this.capacity;
+            long hash = keyHash(key);
+            long index = hash % capacity;
+            long step = hash % (capacity - 2L) + 1L;
+            long firstRemoved = -1L;
+            /* bits */char cur;
+            while ((cur = keyAt(keys, index)) != FREE_KEY) {
+                if (cur == key)
+                    return index;
+                if (cur == REMOVED_KEY && firstRemoved < 0L)
+                    firstRemoved = index;
+                if ((index -= step) < 0L) index += capacity; // nextIndex
+            }
+            if (firstRemoved >= 0L) {
+                index = firstRemoved;
+                removed--;
+            }
+            setKeyAt(keys, index, key);
+            size++;
+            modCount++;
+            return ~index;
+        } finally {
+            reachabilityFence();
+        }
+    }
+
+    final void removeAt(long index) {
+        if (index == capacity) {
+            hasFreeKey = false;
+        } else if (index == capacity + 1L) {
+            hasRemovedKey = false;
+        } else {
+            setKeyAt(keys, index, REMOVED_KEY);
+            reachabilityFence();
+            removed++;
+        }
+        size--;
+        modCount++;
+    }
+
+    private void grow() {
+        // if the table is full of removed slots, it is rebuilt without growth
+        long newSize = removed >= (size >> 1) ? size : (long) (((double) size) * growFactor);
+        rehash(capacityFor(Math.max(newSize, size + 1L)));
+    }
+
+    private void rehash(long newCapacity) {
+        long oldKeys = keys, oldValues = values, oldCapacity = capacity;
+        long oldAddress = memory.address;
+        allocate(newCapacity);
+        long keys = this.keys, capacity = this.capacity;
+        for (long i = 0L; i < oldCapacity; i++) {
+            /* bits */char key = keyAt(oldKeys, i);
+            if (key == FREE_KEY || key == REMOVED_KEY)
+                continue;
+            long hash = keyHash(key);
+            long index = hash % capacity;
+            if (keyAt(keys, index) != FREE_KEY) {
+                long step = hash % (capacity - 2L) + 1L;
+                do {
+                    if ((index -= step) < 0L) index += capacity; // nextIndex
+                } while (keyAt(keys, index) != FREE_KEY);
+            }
+            setKeyAt(keys, index, key);
+            if (oldValues != 0L)
+                copyValue(oldValues, i, index);
+        }
+        if (oldValues != 0L) {
+            copyValue(oldValues, oldCapacity, capacity);
+            copyValue(oldValues, oldCapacity + 1L, capacity + 1L);
+        }
+        U.freeMemory(oldAddress);
+        modCount++;
+    }
+
+    private void copyValue(long oldValues, long oldIndex, long index) {
+        long from = oldValues + oldIndex * valueSize, to = values + index * valueSize;
+        switch ((int) valueSize) {
+            case 1: U.putByte(to, U.getByte(from)); break;
+            case 2: U.putShort(to, U.getShort(from)); break;
+            case 4: U.putInt(to, U.getInt(from)); break;
+            default: U.putLong(to, U.getLong(from));
+        }
+    }
+
+
+    @Override
+    public final int size() {
+        return sizeAsInt(size);
+    }
+
+    @Override
+    public final long sizeAsLong() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0L;
+    }
+
+    @Override
+    public final boolean ensureCapacity(long minSize) {
+        checkOpen();
+        if (minSize <= maxSize)
+            return false;
+        rehash(capacityFor(minSize));
+        reachabilityFence();
+        return true;
+    }
+
+    @Override
+    public final boolean shrink() {
+        checkOpen();
+        long newCapacity = capacityFor(size);
+        if (newCapacity >= capacity)
+            return false;
+        rehash(newCapacity);
+        reachabilityFence();
+        return true;
+    }
+
+    public final void clear() {
+        checkOpen();
+        U.setMemory(keys, capacity << CHAR_SCALE_SHIFT, (byte) 0);
+        reachabilityFence();
+        size = 0L;
+        removed = 0L;
+        hasFreeKey = hasRemovedKey = false;
+        modCount++;
+    }
+
+    /**
+     * Releases the memory. Repeated calls have no effect.
+     */
+    @Override
+    public final void close() {
+        keys = 0L;
+        values = 0L;
+        size = 0L;
+        hasFreeKey = hasRemovedKey = false;
+        modCount++;
+        cleaner.clean();
+    }
+
+
+    /**
+     * Traverses the slots in descending order, starting from the virtual slots.
+     */
+    abstract class SlotCursor {
+        final long keys;
+        final long capacity;
+        int expectedModCount;
+        long index;
+        /* bits */char curKey;
+        boolean pointing;
+
+        SlotCursor() {
+            checkOpen();
+            keys = OffHeapCharDHash.this.keys;
+            capacity = OffHeapCharDHash.this.capacity;
+            expectedModCount = modCount;
+            index = capacity + 2L;
+        }
+
+        public boolean moveNext() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            try {
+                for (long i = index - 1L; i >= 0L; i--) {
+                    if (i >= capacity) {
+                        if (i == capacity ? hasFreeKey : hasRemovedKey) {
+                            index = i;
+                            curKey = i == capacity ? FREE_KEY : REMOVED_KEY;
+                            return pointing = true;
+                        }
+                        continue;
+                    }
+                    /* bits */char key = keyAt(keys, i);
+                    if (key != FREE_KEY && key != REMOVED_KEY) {
+                        index = i;
+                        curKey = key;
+                        return pointing = true;
+                    }
+                }
+                index = -1L;
+                return pointing = false;
+            } finally {
+                reachabilityFence();
+            }
+        }
+
+        final void checkPointing() {
+            if (!pointing)
+                throw new IllegalStateException();
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public void remove() {
+            checkPointing();
+            pointing = false;
+            removeAt(index);
+            expectedModCount = modCount;
+        }
+    }
+}
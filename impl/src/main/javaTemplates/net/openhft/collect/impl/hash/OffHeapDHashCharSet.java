@@ -0,0 +1,124 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.CharCursor;
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.AbstractMutableCharSet;
+import net.openhft.collect.set.hash.OffHeapHashCharSet;
+import net.openhft.function.CharConsumer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The table is a separate object, the referent of the cleaner, so that the set could extend
+ * {@link AbstractMutableCharSet}, which implements the bulk operations on top of
+ * the {@linkplain #cursor() cursor}.
+ */
+public final class OffHeapDHashCharSet extends AbstractMutableCharSet
+        implements OffHeapHashCharSet {
+
+    static final class Table extends OffHeapCharDHash {
+
+        Table(HashConfig config, long expectedSize) {
+            super(config, expectedSize, -1);
+        }
+
+
+        class ElemCursor extends SlotCursor implements CharCursor {
+
+            @Override
+            public void forEachForward(CharConsumer action) {
+                if (action == null)
+                    throw new java.lang.NullPointerException();
+                while (moveNext()) {
+                    action.accept(/* wrap elem */curKey);
+                }
+            }
+
+            @Override
+            public char elem() {
+                checkPointing();
+                return /* wrap elem */curKey;
+            }
+        }
+    }
+
+    private final Table table;
+
+    OffHeapDHashCharSet(HashConfig config, long expectedSize) {
+        table = new Table(config, expectedSize);
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return table.sizeAsLong();
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return table.ensureCapacity(minSize);
+    }
+
+    @Override
+    public boolean shrink() {
+        return table.shrink();
+    }
+
+    @Override
+    public boolean contains(char elem) {
+        return table.index(/* unwrap elem */elem) >= 0L;
+    }
+
+    @Override
+    public boolean add(char elem) {
+        return table.insert(/* unwrap elem */elem) < 0L;
+    }
+
+    @Override
+    public boolean removeChar(char elem) {
+        long index = table.index(/* unwrap elem */elem);
+        if (index < 0L)
+            return false;
+        table.removeAt(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void forEach(@Nonnull CharConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        table.new ElemCursor().forEachForward(action);
+    }
+
+    @Nonnull
+    @Override
+    public CharCursor cursor() {
+        return table.new ElemCursor();
+    }
+
+    @Override
+    public void close() {
+        table.close();
+    }
+}
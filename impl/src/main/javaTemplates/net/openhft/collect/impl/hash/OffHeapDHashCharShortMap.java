@@ -0,0 +1,208 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.AbstractMutableCharShortMap;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.hash.OffHeapHashCharShortMap;
+import net.openhft.function.CharShortConsumer;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The table is a separate object, the referent of the cleaner, so that the map could extend
+ * {@link AbstractMutableCharShortMap}, which implements the {@link java.util.Map} views
+ * on top of the {@linkplain #cursor() cursor}.
+ */
+public final class OffHeapDHashCharShortMap extends AbstractMutableCharShortMap
+        implements OffHeapHashCharShortMap {
+
+    static final class Table extends OffHeapCharDHash {
+
+        Table(HashConfig config, long expectedSize) {
+            super(config, expectedSize, SHORT_SCALE_SHIFT);
+        }
+
+        short valueAt(long index) {
+            short value = U.getShort(values + (index << SHORT_SCALE_SHIFT));
+            reachabilityFence();
+            return value;
+        }
+
+        void setValueAt(long index, short value) {
+            U.putShort(values + (index << SHORT_SCALE_SHIFT), value);
+            reachabilityFence();
+        }
+
+
+        class EntryCursor extends SlotCursor implements CharShortCursor {
+
+            @Override
+            public void forEachForward(CharShortConsumer action) {
+                if (action == null)
+                    throw new java.lang.NullPointerException();
+                while (moveNext()) {
+                    action.accept(/* wrap key */curKey/**/, valueAt(index));
+                }
+            }
+
+            @Override
+            public char key() {
+                checkPointing();
+                return /* wrap key */curKey;
+            }
+
+            @Override
+            public short value() {
+                checkPointing();
+                return valueAt(index);
+            }
+
+            @Override
+            public void setValue(short value) {
+                checkPointing();
+                setValueAt(index, value);
+            }
+        }
+    }
+
+    private final Table table;
+    private final short defaultValue;
+
+    OffHeapDHashCharShortMap(HashConfig config, short defaultValue, long expectedSize) {
+        table = new Table(config, expectedSize);
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return table.sizeAsLong();
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return table.ensureCapacity(minSize);
+    }
+
+    @Override
+    public boolean shrink() {
+        return table.shrink();
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        return table.index(/* unwrap key */key) >= 0L;
+    }
+
+    @Override
+    public boolean containsEntry(char key, short value) {
+        long index = table.index(/* unwrap key */key);
+        return index >= 0L &&
+                /* unwrap value */table.valueAt(index)/**/ == /* unwrap value */value/**/;
+    }
+
+    @Override
+    public short get(char key) {
+        long index = table.index(/* unwrap key */key);
+        return index >= 0L ? table.valueAt(index) : defaultValue;
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        long index = table.index(/* unwrap key */key);
+        return index >= 0L ? table.valueAt(index) : defaultValue;
+    }
+
+    @Override
+    public short put(char key, short value) {
+        long index = table.insert(/* unwrap key */key);
+        if (index < 0L) {
+            table.setValueAt(~index, value);
+            return defaultValue;
+        }
+        short oldValue = table.valueAt(index);
+        table.setValueAt(index, value);
+        return oldValue;
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        long index = table.insert(/* unwrap key */key);
+        if (index < 0L) {
+            table.setValueAt(~index, value);
+            return defaultValue;
+        }
+        return table.valueAt(index);
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        long index = table.insert(/* unwrap key */key);
+        short newValue;
+        if (index < 0L) {
+            index = ~index;
+            newValue = (short) (defaultValue + increment);
+        } else {
+            newValue = (short) (table.valueAt(index) + increment);
+        }
+        table.setValueAt(index, newValue);
+        return newValue;
+    }
+
+    @Override
+    public short remove(char key) {
+        long index = table.index(/* unwrap key */key);
+        if (index < 0L)
+            return defaultValue;
+        short oldValue = table.valueAt(index);
+        table.removeAt(index);
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Override
+    public void forEach(@Nonnull CharShortConsumer action) {
+        if (action == null)
+            throw new java.lang.NullPointerException();
+        table.new EntryCursor().forEachForward(action);
+    }
+
+    @Nonnull
+    @Override
+    public CharShortCursor cursor() {
+        return table.new EntryCursor();
+    }
+
+    @Override
+    public void close() {
+        table.close();
+    }
+}
@@ -0,0 +1,490 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.AbstractMutableCharShortMap;
+import net.openhft.collect.impl.Footprints;
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.hash.PackedHashCharShortMap;
+import net.openhft.function.CharShortConsumer;
+import javax.annotation.Nonnull;
+
+import java.util.ConcurrentModificationException;
+
+
+/**
+ * The keys are stored in the same table, as keys of {@link MutableDHashCharShortMap},
+ * and probed the same way. Values are stored as offsets from the min value, {@code bits}
+ * bits each, in a {@code long} array, indexed by slot. A value could cross the boundary
+ * of two words, so it is always read and written as two words, with shifts, which turn
+ * the second word to no-op, if the value lies in the first one. The array has an extra
+ * word at the end for this.
+ *
+ * <p>The table is a separate object, because the map extends
+ * {@link AbstractMutableCharShortMap}, which implements the {@link java.util.Map} views
+ * on top of the {@linkplain #cursor() cursor}.
+ */
+public final class PackedDHashCharShortMap extends AbstractMutableCharShortMap
+        implements PackedHashCharShortMap {
+
+    static long get(long[] words, int index, int bits, long mask) {
+        long bitIndex = ((long) index) * bits;
+        int word = (int) (bitIndex >>> 6);
+        int shift = ((int) bitIndex) & 63;
+        // (x << 1) << (63 - shift) is x << (64 - shift), but 0 rather than x, if shift is 0
+        return ((words[word] >>> shift) | ((words[word + 1] << 1) << (63 - shift))) & mask;
+    }
+
+    static void set(long[] words, int index, int bits, long mask, long bitsValue) {
+        long bitIndex = ((long) index) * bits;
+        int word = (int) (bitIndex >>> 6);
+        int shift = ((int) bitIndex) & 63;
+        words[word] = (words[word] & ~(mask << shift)) | (bitsValue << shift);
+        words[word + 1] = (words[word + 1] & ~((mask >>> 1) >>> (63 - shift))) |
+                ((bitsValue >>> 1) >>> (63 - shift));
+    }
+
+    static final class Table extends MutableCharDHashSO {
+        final short minValue;
+        final int bits;
+        final long mask;
+        long[] values;
+
+        Table(HashConfigWrapper configWrapper, int expectedSize, short minValue, int bits
+                /* if !(float|double key) */, char free, char removed/* endif */) {
+            this.minValue = minValue;
+            this.bits = bits;
+            mask = -1L >>> (64 - bits);
+            // allocateArrays() needs the bits
+            init(configWrapper, expectedSize/* if !(float|double key) */, free, removed/* endif */);
+        }
+
+        short valueAt(int index) {
+            return (short) (minValue + get(values, index, bits, mask));
+        }
+
+        void setValueAt(int index, short value) {
+            set(values, index, bits, mask, (long) value - (long) minValue);
+        }
+
+        void replaceValueAt(int index, short value) {
+            untrackSlotHashCode(index);
+            setValueAt(index, value);
+            trackSlotHashCode(index);
+        }
+
+        /**
+         * @return the index of the key, if it is present, otherwise inserts the key
+         *         with the given value and returns {@code -1}
+         */
+        int insert(/* bits */char key, short value) {
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            removed = removedValue;
+            if (key == (free = freeValue)) {
+                free = changeFree();
+            } else if (key == removed) {
+                removed = changeRemoved();
+            }
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            int capacity = keys.length;
+            int hash = CharDHashes.hash(key);
+            int index = hash % capacity;
+            int firstRemoved = -1;
+            /* bits */char cur = keys[index];
+            if (cur == key)
+                return index;
+            if (cur != free) {
+                if (cur == removed)
+                    firstRemoved = index;
+                int step = (hash % (capacity - 2)) + 1;
+                while (true) {
+                    if ((index -= step) < 0) index += capacity; // nextIndex
+                    if ((cur = keys[index]) == key)
+                        return index;
+                    if (cur == free)
+                        break;
+                    if (cur == removed && firstRemoved < 0)
+                        firstRemoved = index;
+                }
+            }
+            if (firstRemoved >= 0)
+                index = firstRemoved;
+            keys[index] = key;
+            setValueAt(index, value);
+            trackSlotHashCode(index);
+            if (firstRemoved >= 0) {
+                postRemovedSlotInsertHook();
+            } else {
+                postFreeSlotInsertHook();
+            }
+            return -1;
+        }
+
+        @Override
+        void rehash(int newCapacity) {
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = removedValue;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            long[] vals = values;
+            initForRehash(newCapacity);
+            /* bits */char[] newKeys = set;
+            long[] newVals = values;
+            int capacity = newKeys.length;
+            int bits = this.bits;
+            long mask = this.mask;
+            for (int i = keys.length - 1; i >= 0; i--) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    int hash = CharDHashes.hash(key);
+                    int index = hash % capacity;
+                    if (newKeys[index] != free) {
+                        int step = (hash % (capacity - 2)) + 1;
+                        do {
+                            if ((index -= step) < 0) index += capacity; // nextIndex
+                        } while (newKeys[index] != free);
+                    }
+                    newKeys[index] = key;
+                    set(newVals, index, bits, mask, get(vals, i, bits, mask));
+                }
+            }
+            recycle(keys);
+            recycle(vals);
+        }
+
+        @Override
+        void allocateArrays(int capacity) {
+            super.allocateArrays(capacity);
+            // stale bits of pooled arrays don't matter, set() overwrites all bits of a value
+            int length = (int) ((((long) capacity) * bits + 63L) >>> 6) + 1;
+            long[] vals = takeArray(long[].class, length);
+            values = vals != null ? vals : new long[length];
+        }
+
+        @Override
+        void cloneArrays() {
+            super.cloneArrays();
+            values = values.clone();
+        }
+
+        @Override
+        long tableBytes() {
+            return super.tableBytes() + Footprints.arrayBytes(values);
+        }
+
+        @Override
+        int slotHashCode(int index) {
+            return Primitives.hashCode(/* wrap key */set[index]/**/) ^
+                    Primitives.hashCode(valueAt(index));
+        }
+
+        @Override
+        int computeHashCode() {
+            /* bits */char free, removed;
+            /* if !(float|double key) */
+            free = freeValue;
+            removed = removedValue;
+            /* elif float|double key //
+            free = FREE_BITS;
+            removed = REMOVED_BITS;
+            // endif */
+            /* bits */char[] keys = set;
+            int hashCode = 0;
+            for (int i = keys.length - 1; i >= 0; i--) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed)
+                    hashCode += slotHashCode(i);
+            }
+            return hashCode;
+        }
+
+        // the table isn't exposed, the map implements the contracts
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return "Table[" + size() + "]";
+        }
+    }
+
+    private final Table table;
+    private final short defaultValue;
+    private final short minValue, maxValue;
+
+    PackedDHashCharShortMap(HashConfigWrapper configWrapper, short defaultValue,
+            int expectedSize, short minValue, short maxValue
+            /* if !(float|double key) */, char free, char removed/* endif */) {
+        if (minValue > maxValue) {
+            throw new IllegalArgumentException("Min value " + minValue +
+                    " is greater than max value " + maxValue);
+        }
+        this.defaultValue = defaultValue;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        int bits = Math.max(64 - Long.numberOfLeadingZeros((long) maxValue - (long) minValue), 1);
+        table = new Table(configWrapper, expectedSize, minValue, bits
+                /* if !(float|double key) */, free, removed/* endif */);
+    }
+
+    private void checkValue(short value) {
+        if (value < minValue || value > maxValue) {
+            throw new IllegalArgumentException("Value " + value + " is outside of the domain [" +
+                    minValue + ", " + maxValue + "]");
+        }
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public short minValue() {
+        return minValue;
+    }
+
+    @Override
+    public short maxValue() {
+        return maxValue;
+    }
+
+    @Override
+    public int bitsPerValue() {
+        return table.bits;
+    }
+
+    @Override
+    public HashConfig hashConfig() {
+        return table.hashConfig();
+    }
+
+    @Override
+    public float currentLoad() {
+        return table.currentLoad();
+    }
+
+    @Override
+    public long bytesUsed() {
+        return Footprints.shallowBytes(this) + table.bytesUsed();
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return (long) table.size();
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        return table.ensureCapacity(minSize);
+    }
+
+    @Override
+    public boolean shrink() {
+        return table.shrink();
+    }
+
+    @Override
+    public boolean containsKey(char key) {
+        return table.index(/* unwrap key */key) >= 0;
+    }
+
+    @Override
+    public short get(char key) {
+        int index = table.index(/* unwrap key */key);
+        return index >= 0 ? table.valueAt(index) : defaultValue;
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        int index = table.index(/* unwrap key */key);
+        return index >= 0 ? table.valueAt(index) : defaultValue;
+    }
+
+    @Override
+    public short put(char key, short value) {
+        checkValue(value);
+        int index = table.insert(/* unwrap key */key, value);
+        if (index < 0)
+            return defaultValue;
+        short oldValue = table.valueAt(index);
+        table.replaceValueAt(index, value);
+        return oldValue;
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        checkValue(value);
+        int index = table.insert(/* unwrap key */key, value);
+        return index < 0 ? defaultValue : table.valueAt(index);
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        int index = table.index(/* unwrap key */key);
+        short newValue = (short) ((index >= 0 ? table.valueAt(index) : defaultValue) +
+                increment);
+        // check before the key is inserted, to leave the map intact
+        checkValue(newValue);
+        if (index >= 0) {
+            table.replaceValueAt(index, newValue);
+        } else {
+            table.insert(/* unwrap key */key, newValue);
+        }
+        return newValue;
+    }
+
+    @Override
+    public short remove(char key) {
+        int index = table.index(/* unwrap key */key);
+        if (index < 0)
+            return defaultValue;
+        short oldValue = table.valueAt(index);
+        table.removeAt(index);
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    @Nonnull
+    @Override
+    public CharShortCursor cursor() {
+        return new EntryCursor();
+    }
+
+    @Override
+    public int hashCode() {
+        return table.trackedHashCode();
+    }
+
+
+    class EntryCursor implements CharShortCursor {
+        final /* bits */char[] keys;
+        final /* bits */char free, removed;
+        int expectedModCount;
+        int index;
+        /* bits */char curKey;
+
+        EntryCursor() {
+            Table table = PackedDHashCharShortMap.this.table;
+            keys = table.set;
+            /* if !(float|double key) */
+            free = table.freeValue;
+            removed = table.removedValue;
+            /* elif float|double key //
+            free = CharHash.FREE_BITS;
+            removed = CharHash.REMOVED_BITS;
+            // endif */
+            expectedModCount = table.modCount();
+            index = keys.length;
+            curKey = free;
+        }
+
+        @Override
+        public void forEachForward(CharShortConsumer action) {
+            if (action == null)
+                throw new java.lang.NullPointerException();
+            while (moveNext()) {
+                action.accept(/* wrap key */curKey/**/, table.valueAt(index));
+            }
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (expectedModCount != table.modCount())
+                throw new ConcurrentModificationException();
+            /* bits */char[] keys = this.keys;
+            for (int i = index - 1; i >= 0; i--) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    index = i;
+                    curKey = key;
+                    return true;
+                }
+            }
+            index = -1;
+            curKey = free;
+            return false;
+        }
+
+        private void checkPointing() {
+            if (curKey == free)
+                throw new IllegalStateException();
+            if (expectedModCount != table.modCount())
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public char key() {
+            checkPointing();
+            return /* wrap key */curKey;
+        }
+
+        @Override
+        public short value() {
+            checkPointing();
+            return table.valueAt(index);
+        }
+
+        @Override
+        public void setValue(short value) {
+            checkPointing();
+            checkValue(value);
+            table.replaceValueAt(index, value);
+        }
+
+        @Override
+        public void remove() {
+            checkPointing();
+            curKey = free;
+            table.removeAt(index);
+            expectedModCount = table.modCount();
+        }
+    }
+}
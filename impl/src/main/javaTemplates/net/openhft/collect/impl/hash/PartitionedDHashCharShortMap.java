@@ -0,0 +1,282 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.impl.UnsafeConstants;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.collect.map.hash.PartitionedHashCharShortMap;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Partitions are plain {@link MutableDHashCharShortMapGO}s. Every writer owns
+ * a {@linkplain Ring ring} per partition, the owner of the partition polls the rings of all
+ * registered writers. A closed writer marks its rings closed after the last publication,
+ * the owner unregisters a closed ring, when it applies the updates, left in the ring.
+ */
+public final class PartitionedDHashCharShortMap
+        implements PartitionedHashCharShortMap, UnsafeConstants {
+
+    private static final int MAX_PARTITIONS = 1 << 16;
+    private static final int RING_CAPACITY = 1024;
+    /**
+     * The writer publishes updates at least this often, to let the owner make progress
+     * without {@link Writer#flush()} calls.
+     */
+    private static final int BATCH = 64;
+
+    private static final byte PUT = 0, REMOVE = 1, INCREMENT = 2;
+
+    /**
+     * The head and the tail of a ring are padded to separate 64-byte lines,
+     * like the stripes of {@link net.openhft.collect.impl.StripedCounter}
+     */
+    private static final int PAD_SHIFT = 3;
+    private static final long HEAD_OFFSET = LONG_BASE + ((1L << PAD_SHIFT) << LONG_SCALE_SHIFT);
+    private static final long TAIL_OFFSET = LONG_BASE + ((2L << PAD_SHIFT) << LONG_SCALE_SHIFT);
+
+    /**
+     * Single-producer single-consumer ring buffer of updates. The writer fills the slots
+     * and publishes the tail by an ordered store, the owner applies the slots up to the tail
+     * and publishes the head back the same way.
+     */
+    static final class Ring {
+        final char[] keys = new char[RING_CAPACITY];
+        final short[] vals = new short[RING_CAPACITY];
+        final byte[] ops = new byte[RING_CAPACITY];
+        /** Holds the published head and tail, on their own cache lines */
+        final long[] indexes = new long[4 << PAD_SHIFT];
+
+        // accessed only by the writer
+        long writeIndex;
+        long publishedTail;
+        long cachedHead;
+
+        // accessed only by the owner of the partition
+        long readIndex;
+
+        /** Set by the writer after the last publication of the tail */
+        volatile boolean closed;
+
+        void publishTail(long tail) {
+            U.putOrderedLong(indexes, TAIL_OFFSET, tail);
+            publishedTail = tail;
+        }
+    }
+
+    static final class Partition {
+        final MutableDHashCharShortMapGO map;
+        volatile Ring[] rings = new Ring[0];
+
+        Partition(MutableDHashCharShortMapGO map) {
+            this.map = map;
+        }
+
+        synchronized void register(Ring ring) {
+            Ring[] rings = this.rings;
+            Ring[] newRings = new Ring[rings.length + 1];
+            System.arraycopy(rings, 0, newRings, 0, rings.length);
+            newRings[rings.length] = ring;
+            this.rings = newRings;
+        }
+
+        synchronized void unregister(Ring ring) {
+            Ring[] rings = this.rings;
+            Ring[] newRings = new Ring[rings.length - 1];
+            for (int i = 0, j = 0; i < rings.length; i++) {
+                if (rings[i] != ring)
+                    newRings[j++] = rings[i];
+            }
+            this.rings = newRings;
+        }
+    }
+
+    private final Partition[] partitions;
+    private final int partitionMask;
+
+    PartitionedDHashCharShortMap(HashCharShortMapFactoryGO factory,
+            int partitionCount, int expectedSize) {
+        if (partitionCount <= 0)
+            throw new IllegalArgumentException("Number of partitions should be positive");
+        int count = 1;
+        while (count < partitionCount && count < MAX_PARTITIONS) {
+            count <<= 1;
+        }
+        int partitionExpectedSize =
+                (int) (((long) expectedSize + (long) (count - 1)) / (long) count);
+        Partition[] partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(factory.newMutableMap(partitionExpectedSize));
+        }
+        this.partitions = partitions;
+        partitionMask = count - 1;
+    }
+
+    @Override
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    @Override
+    public int partitionOf(char key) {
+        int h = Primitives.hashCode(key) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & partitionMask;
+    }
+
+    @Nonnull
+    @Override
+    public HashCharShortMap partition(int partition) {
+        return partitions[partition].map;
+    }
+
+    @Override
+    public int drain(int partition) {
+        Partition p = partitions[partition];
+        MutableDHashCharShortMapGO map = p.map;
+        int applied = 0;
+        for (Ring ring : p.rings) {
+            // read before the tail, so the last tail of a closed ring is seen
+            boolean closed = ring.closed;
+            long head = ring.readIndex;
+            long tail = U.getLongVolatile(ring.indexes, TAIL_OFFSET);
+            if (head != tail) {
+                char[] keys = ring.keys;
+                short[] vals = ring.vals;
+                byte[] ops = ring.ops;
+                for (; head != tail; head++) {
+                    int index = ((int) head) & (RING_CAPACITY - 1);
+                    char key = keys[index];
+                    switch (ops[index]) {
+                        case PUT:
+                            map.put(key, vals[index]);
+                            break;
+                        case REMOVE:
+                            map.remove(key);
+                            break;
+                        default:
+                            map.incrementValue(key, vals[index]);
+                    }
+                }
+                applied += (int) (tail - ring.readIndex);
+                ring.readIndex = tail;
+                U.putOrderedLong(ring.indexes, HEAD_OFFSET, tail);
+            }
+            if (closed)
+                p.unregister(ring);
+        }
+        return applied;
+    }
+
+    @Nonnull
+    @Override
+    public Writer newWriter() {
+        return newRingWriter(-1);
+    }
+
+    @Nonnull
+    @Override
+    public Writer newWriter(int ownedPartition) {
+        if (ownedPartition < 0 || ownedPartition >= partitions.length)
+            throw new IndexOutOfBoundsException("Partition " + ownedPartition);
+        return newRingWriter(ownedPartition);
+    }
+
+    private Writer newRingWriter(int ownedPartition) {
+        Ring[] rings = new Ring[partitions.length];
+        for (int i = 0; i < rings.length; i++) {
+            Ring ring = new Ring();
+            rings[i] = ring;
+            partitions[i].register(ring);
+        }
+        return new RingWriter(rings, ownedPartition);
+    }
+
+    class RingWriter implements Writer {
+        private final Ring[] rings;
+        /** {@code -1}, if the writer isn't used by an owner */
+        private final int ownedPartition;
+        private boolean closed;
+
+        RingWriter(Ring[] rings, int ownedPartition) {
+            this.rings = rings;
+            this.ownedPartition = ownedPartition;
+        }
+
+        private void send(byte op, char key, short value) {
+            if (closed)
+                throw new IllegalStateException("Writer is closed");
+            Ring ring = rings[partitionOf(key)];
+            long tail = ring.writeIndex;
+            if (tail - ring.cachedHead >= (long) RING_CAPACITY) {
+                // the owner may be waiting for the buffered updates
+                ring.publishTail(tail);
+                while (tail - (ring.cachedHead = U.getLongVolatile(ring.indexes, HEAD_OFFSET))
+                        >= (long) RING_CAPACITY) {
+                    // the owner of the full ring might wait for a ring of the owned partition
+                    if (ownedPartition < 0 || drain(ownedPartition) == 0)
+                        Thread.yield();
+                }
+            }
+            int index = ((int) tail) & (RING_CAPACITY - 1);
+            ring.keys[index] = key;
+            ring.vals[index] = value;
+            ring.ops[index] = op;
+            ring.writeIndex = ++tail;
+            if (tail - ring.publishedTail >= (long) BATCH)
+                ring.publishTail(tail);
+        }
+
+        @Override
+        public void put(char key, short value) {
+            send(PUT, key, value);
+        }
+
+        @Override
+        public void remove(char key) {
+            send(REMOVE, key, /* const value 0 */0);
+        }
+
+        @Override
+        public void incrementValue(char key, short increment) {
+            send(INCREMENT, key, increment);
+        }
+
+        @Override
+        public void flush() {
+            for (Ring ring : rings) {
+                if (ring.writeIndex != ring.publishedTail)
+                    ring.publishTail(ring.writeIndex);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            flush();
+            for (Ring ring : rings) {
+                ring.closed = true;
+            }
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+/* with char|byte|short|int|long|float|double|obj elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.CharCursor;
+import net.openhft.collect.NullableObjects;
+import net.openhft.collect.impl.AbstractImmutableCharSet;
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.set.PersistentCharSet;
+import net.openhft.collect.set.TransientCharSet;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Persistent set, the same CHAMP trie, as in {@link PersistentChampCharShortMap},
+ * without values.
+ /* if obj elem */
+ * Elements are compared by {@link Object#equals(Object)}.
+ /* endif */
+ *
+ * <p>The boxing methods and the bulk operations are implemented on top of the cursor
+ * by the base class, the methods, which would change the set, throw
+ * {@code UnsupportedOperationException}.
+ */
+public final class PersistentChampCharSet/*<>*/ extends AbstractImmutableCharSet/*<>*/
+        implements PersistentCharSet/*<>*/ {
+
+    private static final int BITS = 5;
+    private static final int HASH_BITS = 32;
+    /**
+     * 7 levels of 5 bits and the level of colliding elements
+     */
+    private static final int MAX_DEPTH = 8;
+
+    private static final /* bits *//* raw */char[] NO_KEYS = new /* bits *//* raw */char[0];
+    private static final Node[] NO_NODES = new Node[0];
+    static final Node EMPTY_NODE = new Node(null, 0, 0, NO_KEYS, NO_NODES);
+
+    static final class Node {
+        /**
+         * The transient set, which is allowed to update this node in place,
+         * or {@code null}. The node exclusively owns its nodes array, if the owner
+         * isn't {@code null}. Keys arrays are never updated in place.
+         */
+        final Object edit;
+        int dataMap, nodeMap;
+        /* bits *//* raw */char[] keys;
+        Node[] nodes;
+
+        Node(Object edit, int dataMap, int nodeMap, /* bits *//* raw */char[] keys, Node[] nodes) {
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.keys = keys;
+            this.nodes = nodes;
+        }
+
+        private boolean ownedBy(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        private Node[] nodesFor(Object edit) {
+            return edit != null ? nodes.clone() : nodes;
+        }
+
+        Node withNode(Object edit, int index, Node node) {
+            if (ownedBy(edit)) {
+                nodes[index] = node;
+                return this;
+            }
+            Node[] nodes = this.nodes.clone();
+            nodes[index] = node;
+            return new Node(edit, dataMap, nodeMap, keys, nodes);
+        }
+
+        /**
+         * @param bit the position of the key in the data map, {@code 0} for collision nodes
+         */
+        Node insertKey(Object edit, int bit, /* bits *//* raw */char key) {
+            /* bits *//* raw */char[] keys = keysWith(this.keys, index(dataMap, bit), key);
+            if (ownedBy(edit)) {
+                this.dataMap |= bit;
+                this.keys = keys;
+                return this;
+            }
+            return new Node(edit, dataMap | bit, nodeMap, keys, nodesFor(edit));
+        }
+
+        Node removeKey(Object edit, int bit, int index) {
+            /* bits *//* raw */char[] keys = keysWithout(this.keys, index);
+            if (ownedBy(edit)) {
+                this.dataMap ^= bit;
+                this.keys = keys;
+                return this;
+            }
+            return new Node(edit, dataMap ^ bit, nodeMap, keys, nodesFor(edit));
+        }
+
+        Node keyToNode(Object edit, int bit, Node node) {
+            /* bits *//* raw */char[] keys = keysWithout(this.keys, index(dataMap, bit));
+            Node[] nodes = nodesWith(this.nodes, index(nodeMap, bit), node);
+            if (ownedBy(edit)) {
+                this.dataMap ^= bit;
+                this.nodeMap |= bit;
+                this.keys = keys;
+                this.nodes = nodes;
+                return this;
+            }
+            return new Node(edit, dataMap ^ bit, nodeMap | bit, keys, nodes);
+        }
+
+        Node nodeToKey(Object edit, int bit, int nodeIndex, /* bits *//* raw */char key) {
+            /* bits *//* raw */char[] keys = keysWith(this.keys, index(dataMap, bit), key);
+            Node[] nodes = nodesWithout(this.nodes, nodeIndex);
+            if (ownedBy(edit)) {
+                this.dataMap |= bit;
+                this.nodeMap ^= bit;
+                this.keys = keys;
+                this.nodes = nodes;
+                return this;
+            }
+            return new Node(edit, dataMap | bit, nodeMap ^ bit, keys, nodes);
+        }
+    }
+
+    /**
+     * Result of an update, besides the new node
+     */
+    static final class Change {
+        boolean changed;
+    }
+
+    private static int hash(/* bits *//* raw */char key) {
+        /* if !(obj elem) */
+        return Primitives.hashCode(key);
+        /* elif obj elem //
+        return NullableObjects.hashCode(key);
+        // endif */
+    }
+
+    private static boolean keyEquals(/* bits *//* raw */char a, /* bits *//* raw */char b) {
+        /* if !(obj elem) */
+        return a == b;
+        /* elif obj elem //
+        return NullableObjects.equals(a, b);
+        // endif */
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    private static int index(int map, int bit) {
+        return Integer.bitCount(map & (bit - 1));
+    }
+
+    private static /* bits *//* raw */char[] keysWith(/* bits *//* raw */char[] keys, int index,
+            /* bits *//* raw */char key) {
+        /* bits *//* raw */char[] newKeys = new /* bits *//* raw */char[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        newKeys[index] = key;
+        System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+        return newKeys;
+    }
+
+    private static /* bits *//* raw */char[] keysWithout(
+            /* bits *//* raw */char[] keys, int index) {
+        /* bits *//* raw */char[] newKeys = new /* bits *//* raw */char[keys.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, newKeys.length - index);
+        return newKeys;
+    }
+
+    private static Node[] nodesWith(Node[] nodes, int index, Node node) {
+        Node[] newNodes = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, newNodes, 0, index);
+        newNodes[index] = node;
+        System.arraycopy(nodes, index, newNodes, index + 1, nodes.length - index);
+        return newNodes;
+    }
+
+    private static Node[] nodesWithout(Node[] nodes, int index) {
+        Node[] newNodes = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, newNodes, 0, index);
+        System.arraycopy(nodes, index + 1, newNodes, index, newNodes.length - index);
+        return newNodes;
+    }
+
+    private static int collisionIndex(Node node, /* bits *//* raw */char key) {
+        /* bits *//* raw */char[] keys = node.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keyEquals(keys[i], key))
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean contains(Node node, /* bits *//* raw */char key) {
+        int hash = hash(key);
+        for (int shift = 0; shift < HASH_BITS; shift += BITS) {
+            int bit = bitpos(hash, shift);
+            if ((node.dataMap & bit) != 0)
+                return keyEquals(node.keys[index(node.dataMap, bit)], key);
+            if ((node.nodeMap & bit) == 0)
+                return false;
+            node = node.nodes[index(node.nodeMap, bit)];
+        }
+        return collisionIndex(node, key) >= 0;
+    }
+
+    static Node add(Node node, Object edit, /* bits *//* raw */char key, int hash, int shift,
+            Change change) {
+        if (shift >= HASH_BITS) {
+            if (collisionIndex(node, key) >= 0)
+                return node;
+            change.changed = true;
+            return node.insertKey(edit, 0, key);
+        }
+        int bit = bitpos(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            /* bits *//* raw */char k = node.keys[index(node.dataMap, bit)];
+            if (keyEquals(k, key))
+                return node;
+            change.changed = true;
+            Node sub = mergeTwo(edit, k, hash(k), key, hash, shift + BITS);
+            return node.keyToNode(edit, bit, sub);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            int i = index(node.nodeMap, bit);
+            Node sub = node.nodes[i];
+            Node newSub = add(sub, edit, key, hash, shift + BITS, change);
+            return newSub == sub ? node : node.withNode(edit, i, newSub);
+        }
+        change.changed = true;
+        return node.insertKey(edit, bit, key);
+    }
+
+    private static Node mergeTwo(Object edit, /* bits *//* raw */char key0, int hash0,
+            /* bits *//* raw */char key1, int hash1, int shift) {
+        if (shift >= HASH_BITS)
+            return new Node(edit, 0, 0, new /* bits *//* raw */char[] {key0, key1}, NO_NODES);
+        int mask0 = (hash0 >>> shift) & 31;
+        int mask1 = (hash1 >>> shift) & 31;
+        if (mask0 != mask1) {
+            int dataMap = (1 << mask0) | (1 << mask1);
+            /* bits *//* raw */char[] keys = mask0 < mask1 ?
+                    new /* bits *//* raw */char[] {key0, key1} :
+                    new /* bits *//* raw */char[] {key1, key0};
+            return new Node(edit, dataMap, 0, keys, NO_NODES);
+        }
+        Node sub = mergeTwo(edit, key0, hash0, key1, hash1, shift + BITS);
+        return new Node(edit, 0, 1 << mask0, NO_KEYS, new Node[] {sub});
+    }
+
+    static Node remove(Node node, Object edit, /* bits *//* raw */char key, int hash, int shift,
+            Change change) {
+        if (shift >= HASH_BITS) {
+            int i = collisionIndex(node, key);
+            if (i < 0)
+                return node;
+            change.changed = true;
+            return node.removeKey(edit, 0, i);
+        }
+        int bit = bitpos(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            int i = index(node.dataMap, bit);
+            if (!keyEquals(node.keys[i], key))
+                return node;
+            change.changed = true;
+            return node.removeKey(edit, bit, i);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            int i = index(node.nodeMap, bit);
+            Node sub = node.nodes[i];
+            Node newSub = remove(sub, edit, key, hash, shift + BITS, change);
+            if (!change.changed)
+                return node;
+            if (newSub.nodeMap == 0 && newSub.keys.length == 1) {
+                // keep the canonical form: a single key is inlined into the parent
+                if (node.dataMap == 0 && node.nodes.length == 1 && shift > 0)
+                    return newSub;
+                return node.nodeToKey(edit, bit, i, newSub.keys[0]);
+            }
+            return newSub == sub ? node : node.withNode(edit, i, newSub);
+        }
+        return node;
+    }
+
+    private static int hashCode(Node node) {
+        int hashCode = 0;
+        for (/* bits *//* raw */char key : node.keys) {
+            hashCode += /* if !(obj elem) */Primitives.hashCode(/* wrap elem */key/**/)
+                    /* elif obj elem //NullableObjects.hashCode(key)// endif */;
+        }
+        for (Node sub : node.nodes) {
+            hashCode += hashCode(sub);
+        }
+        return hashCode;
+    }
+
+    static /*<>*/ PersistentChampCharSet/*<>*/ empty() {
+        return new PersistentChampCharSet/*<>*/(EMPTY_NODE, 0);
+    }
+
+
+    private final Node root;
+    private final int size;
+
+    private PersistentChampCharSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return (long) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(/* raw */char v) {
+        return contains(root, /* unwrap elem */v/**/);
+    }
+
+    @Nonnull
+    @Override
+    public CharCursor/*<>*/ cursor() {
+        return new Cursor/*<>*/(root);
+    }
+
+    @Nonnull
+    @Override
+    public PersistentChampCharSet/*<>*/ with(char e) {
+        /* bits *//* raw */char k = /* unwrap elem */e/**/;
+        Change change = new Change();
+        Node newRoot = add(root, null, k, hash(k), 0, change);
+        return change.changed ? new PersistentChampCharSet/*<>*/(newRoot, size + 1) : this;
+    }
+
+    @Nonnull
+    @Override
+    public PersistentChampCharSet/*<>*/ without(/* raw */char e) {
+        /* bits *//* raw */char k = /* unwrap elem */e/**/;
+        Change change = new Change();
+        Node newRoot = remove(root, null, k, hash(k), 0, change);
+        return change.changed ? new PersistentChampCharSet/*<>*/(newRoot, size - 1) : this;
+    }
+
+    @Nonnull
+    @Override
+    public TransientCharSet/*<>*/ asTransient() {
+        return new Transient/*<>*/(root, size);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode(root);
+    }
+
+
+    private static final class Cursor/*<>*/ implements CharCursor/*<>*/ {
+        private final Node[] path = new Node[MAX_DEPTH];
+        /**
+         * Index of the next subnode to visit, for each node on the path
+         */
+        private final int[] nextNodes = new int[MAX_DEPTH];
+        private int depth;
+        private Node node;
+        private int index;
+
+        Cursor(Node root) {
+            path[0] = root;
+            node = root;
+            index = -1;
+        }
+
+        @Override
+        public void forEachForward(
+                /* if !(obj elem) */CharConsumer/* elif obj elem //Consumer// endif *//*<super>*/
+                action) {
+            if (action == null)
+                throw new NullPointerException();
+            while (moveNext()) {
+                action.accept(elem());
+            }
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (node != null && ++index < node.keys.length)
+                return true;
+            while (depth >= 0) {
+                Node top = path[depth];
+                int next = nextNodes[depth];
+                if (next < top.nodes.length) {
+                    nextNodes[depth] = next + 1;
+                    Node sub = top.nodes[next];
+                    path[++depth] = sub;
+                    nextNodes[depth] = 0;
+                    if (sub.keys.length > 0) {
+                        node = sub;
+                        index = 0;
+                        return true;
+                    }
+                } else {
+                    depth--;
+                }
+            }
+            node = null;
+            return false;
+        }
+
+        @Override
+        public char elem() {
+            if (node == null || index < 0 || index >= node.keys.length)
+                throw new IllegalStateException();
+            return /* if obj elem //(E) // endif *//* wrap elem */node.keys[index]/**/;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    private static final class Transient/*<>*/ implements TransientCharSet/*<>*/ {
+        private final Change change = new Change();
+        /**
+         * Replaced on {@link #persistent()}, so that nodes, owned by the previous token,
+         * aren't updated in place anymore
+         */
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public boolean contains(/* raw */char v) {
+            return PersistentChampCharSet.contains(root, /* unwrap elem */v/**/);
+        }
+
+        @Override
+        public boolean add(char e) {
+            /* bits *//* raw */char k = /* unwrap elem */e/**/;
+            Change change = this.change;
+            change.changed = false;
+            root = PersistentChampCharSet.add(root, edit, k, hash(k), 0, change);
+            if (change.changed)
+                size++;
+            return change.changed;
+        }
+
+        @Override
+        public boolean remove(/* raw */char e) {
+            /* bits *//* raw */char k = /* unwrap elem */e/**/;
+            Change change = this.change;
+            change.changed = false;
+            root = PersistentChampCharSet.remove(root, edit, k, hash(k), 0, change);
+            if (change.changed)
+                size--;
+            return change.changed;
+        }
+
+        @Nonnull
+        @Override
+        public PersistentCharSet/*<>*/ persistent() {
+            edit = new Object();
+            return new PersistentChampCharSet/*<>*/(root, size);
+        }
+    }
+}
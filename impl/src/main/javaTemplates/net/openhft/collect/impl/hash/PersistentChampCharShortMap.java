@@ -0,0 +1,689 @@
+/* with
+ char|byte|short|int|long|float|double|obj key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.NullableObjects;
+import net.openhft.collect.impl.AbstractImmutableCharShortMap;
+import net.openhft.collect.impl.Primitives;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.PersistentCharShortMap;
+import net.openhft.collect.map.TransientCharShortMap;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Persistent map, based on CHAMP, Compressed Hash-Array Mapped Prefix-tree
+ * (M. J. Steindorfer, J. J. Vinju, <i>Optimizing Hash-Array Mapped Tries for Fast and Lean
+ * Immutable JVM Collections</i>, 2015). Each node holds up to 32 entries and subnodes,
+ * selected by 5 bits of the key hash. Keys and values are stored inline in arrays
+ * of the nodes, subnodes - in a separate array. Nodes are kept in canonical form: every
+ * subnode holds at least two entries, so removals shrink the trie back.
+ /* if obj key */
+ * Keys are compared by {@link Object#equals(Object)}.
+ /* endif */
+ *
+ * <p>Keys with the same 32-bit hash (possible only for {@code long}, {@code double}
+ * and object keys) are stored in a plain array node below the last level.
+ *
+ * <p>Updates copy only the path from the root to the updated node. Nodes, created
+ * by a {@linkplain Transient transient} map, are owned by it and are updated in place,
+ * until the transient map publishes them by {@link Transient#persistent()}.
+ *
+ * <p>The boxing methods and the views are implemented on top of the cursor by the base
+ * class, the methods, which would change the map, throw
+ * {@code UnsupportedOperationException}.
+ */
+public final class PersistentChampCharShortMap/*<>*/ extends AbstractImmutableCharShortMap/*<>*/
+        implements PersistentCharShortMap/*<>*/ {
+
+    /* define valueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //$Short// endif */
+    /* enddefine */
+
+    /* define asValueSuffix */
+    /* if obj key short|byte|char|int|long|float|double value //AsShort// endif */
+    /* enddefine */
+
+    private static final int BITS = 5;
+    private static final int HASH_BITS = 32;
+    /**
+     * 7 levels of 5 bits and the level of colliding keys
+     */
+    private static final int MAX_DEPTH = 8;
+
+    private static final /* bits *//* raw */char[] NO_KEYS = new /* bits *//* raw */char[0];
+    private static final /* bits */short[] NO_VALUES = new /* bits */short[0];
+    private static final Node[] NO_NODES = new Node[0];
+    static final Node EMPTY_NODE = new Node(null, 0, 0, NO_KEYS, NO_VALUES, NO_NODES);
+
+    static final class Node {
+        /**
+         * The transient map, which is allowed to update this node in place,
+         * or {@code null}. The node exclusively owns its values and nodes arrays,
+         * if the owner isn't {@code null}. Keys arrays are never updated in place.
+         */
+        final Object edit;
+        int dataMap, nodeMap;
+        /* bits *//* raw */char[] keys;
+        /* bits */short[] vals;
+        Node[] nodes;
+
+        Node(Object edit, int dataMap, int nodeMap,
+                /* bits *//* raw */char[] keys, /* bits */short[] vals, Node[] nodes) {
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.keys = keys;
+            this.vals = vals;
+            this.nodes = nodes;
+        }
+
+        private boolean ownedBy(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        private /* bits */short[] valsFor(Object edit) {
+            return edit != null ? vals.clone() : vals;
+        }
+
+        private Node[] nodesFor(Object edit) {
+            return edit != null ? nodes.clone() : nodes;
+        }
+
+        Node withValue(Object edit, int index, /* bits */short value) {
+            if (ownedBy(edit)) {
+                vals[index] = value;
+                return this;
+            }
+            /* bits */short[] vals = this.vals.clone();
+            vals[index] = value;
+            return new Node(edit, dataMap, nodeMap, keys, vals, nodesFor(edit));
+        }
+
+        Node withNode(Object edit, int index, Node node) {
+            if (ownedBy(edit)) {
+                nodes[index] = node;
+                return this;
+            }
+            Node[] nodes = this.nodes.clone();
+            nodes[index] = node;
+            return new Node(edit, dataMap, nodeMap, keys, valsFor(edit), nodes);
+        }
+
+        /**
+         * @param bit the position of the entry in the data map, {@code 0} for collision nodes
+         */
+        Node insertEntry(Object edit, int bit, /* bits *//* raw */char key, /* bits */short value) {
+            int index = index(dataMap, bit);
+            /* bits *//* raw */char[] keys = keysWith(this.keys, index, key);
+            /* bits */short[] vals = valsWith(this.vals, index, value);
+            if (ownedBy(edit)) {
+                this.dataMap |= bit;
+                this.keys = keys;
+                this.vals = vals;
+                return this;
+            }
+            return new Node(edit, dataMap | bit, nodeMap, keys, vals, nodesFor(edit));
+        }
+
+        Node removeEntry(Object edit, int bit, int index) {
+            /* bits *//* raw */char[] keys = keysWithout(this.keys, index);
+            /* bits */short[] vals = valsWithout(this.vals, index);
+            if (ownedBy(edit)) {
+                this.dataMap ^= bit;
+                this.keys = keys;
+                this.vals = vals;
+                return this;
+            }
+            return new Node(edit, dataMap ^ bit, nodeMap, keys, vals, nodesFor(edit));
+        }
+
+        Node entryToNode(Object edit, int bit, Node node) {
+            int dataIndex = index(dataMap, bit);
+            /* bits *//* raw */char[] keys = keysWithout(this.keys, dataIndex);
+            /* bits */short[] vals = valsWithout(this.vals, dataIndex);
+            Node[] nodes = nodesWith(this.nodes, index(nodeMap, bit), node);
+            if (ownedBy(edit)) {
+                this.dataMap ^= bit;
+                this.nodeMap |= bit;
+                this.keys = keys;
+                this.vals = vals;
+                this.nodes = nodes;
+                return this;
+            }
+            return new Node(edit, dataMap ^ bit, nodeMap | bit, keys, vals, nodes);
+        }
+
+        Node nodeToEntry(Object edit, int bit, int nodeIndex,
+                /* bits *//* raw */char key, /* bits */short value) {
+            int dataIndex = index(dataMap, bit);
+            /* bits *//* raw */char[] keys = keysWith(this.keys, dataIndex, key);
+            /* bits */short[] vals = valsWith(this.vals, dataIndex, value);
+            Node[] nodes = nodesWithout(this.nodes, nodeIndex);
+            if (ownedBy(edit)) {
+                this.dataMap |= bit;
+                this.nodeMap ^= bit;
+                this.keys = keys;
+                this.vals = vals;
+                this.nodes = nodes;
+                return this;
+            }
+            return new Node(edit, dataMap | bit, nodeMap ^ bit, keys, vals, nodes);
+        }
+    }
+
+    /**
+     * Result of an update, besides the new node
+     */
+    static final class Change {
+        boolean found;
+        /* bits */short oldValue;
+    }
+
+    private static int hash(/* bits *//* raw */char key) {
+        /* if !(obj key) */
+        return Primitives.hashCode(key);
+        /* elif obj key //
+        return NullableObjects.hashCode(key);
+        // endif */
+    }
+
+    private static boolean keyEquals(/* bits *//* raw */char a, /* bits *//* raw */char b) {
+        /* if !(obj key) */
+        return a == b;
+        /* elif obj key //
+        return NullableObjects.equals(a, b);
+        // endif */
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    private static int index(int map, int bit) {
+        return Integer.bitCount(map & (bit - 1));
+    }
+
+    private static /* bits *//* raw */char[] keysWith(/* bits *//* raw */char[] keys, int index,
+            /* bits *//* raw */char key) {
+        /* bits *//* raw */char[] newKeys = new /* bits *//* raw */char[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        newKeys[index] = key;
+        System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+        return newKeys;
+    }
+
+    private static /* bits *//* raw */char[] keysWithout(
+            /* bits *//* raw */char[] keys, int index) {
+        /* bits *//* raw */char[] newKeys = new /* bits *//* raw */char[keys.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, newKeys.length - index);
+        return newKeys;
+    }
+
+    private static /* bits */short[] valsWith(/* bits */short[] vals, int index,
+            /* bits */short value) {
+        /* bits */short[] newVals = new /* bits */short[vals.length + 1];
+        System.arraycopy(vals, 0, newVals, 0, index);
+        newVals[index] = value;
+        System.arraycopy(vals, index, newVals, index + 1, vals.length - index);
+        return newVals;
+    }
+
+    private static /* bits */short[] valsWithout(/* bits */short[] vals, int index) {
+        /* bits */short[] newVals = new /* bits */short[vals.length - 1];
+        System.arraycopy(vals, 0, newVals, 0, index);
+        System.arraycopy(vals, index + 1, newVals, index, newVals.length - index);
+        return newVals;
+    }
+
+    private static Node[] nodesWith(Node[] nodes, int index, Node node) {
+        Node[] newNodes = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, newNodes, 0, index);
+        newNodes[index] = node;
+        System.arraycopy(nodes, index, newNodes, index + 1, nodes.length - index);
+        return newNodes;
+    }
+
+    private static Node[] nodesWithout(Node[] nodes, int index) {
+        Node[] newNodes = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, newNodes, 0, index);
+        System.arraycopy(nodes, index + 1, newNodes, index, newNodes.length - index);
+        return newNodes;
+    }
+
+    private static int collisionIndex(Node node, /* bits *//* raw */char key) {
+        /* bits *//* raw */char[] keys = node.keys;
+        for (int i = 0; i < keys.length; i++) {
+            if (keyEquals(keys[i], key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value of the key, or {@code defaultValue}, if the key is absent.
+     */
+    private static /* bits */short valueOrDefault(Node node, /* bits *//* raw */char key,
+            /* bits */short defaultValue) {
+        int hash = hash(key);
+        for (int shift = 0; shift < HASH_BITS; shift += BITS) {
+            int bit = bitpos(hash, shift);
+            if ((node.dataMap & bit) != 0) {
+                int i = index(node.dataMap, bit);
+                return keyEquals(node.keys[i], key) ? node.vals[i] : defaultValue;
+            }
+            if ((node.nodeMap & bit) == 0)
+                return defaultValue;
+            node = node.nodes[index(node.nodeMap, bit)];
+        }
+        int i = collisionIndex(node, key);
+        return i >= 0 ? node.vals[i] : defaultValue;
+    }
+
+    private static boolean contains(Node node, /* bits *//* raw */char key) {
+        int hash = hash(key);
+        for (int shift = 0; shift < HASH_BITS; shift += BITS) {
+            int bit = bitpos(hash, shift);
+            if ((node.dataMap & bit) != 0)
+                return keyEquals(node.keys[index(node.dataMap, bit)], key);
+            if ((node.nodeMap & bit) == 0)
+                return false;
+            node = node.nodes[index(node.nodeMap, bit)];
+        }
+        return collisionIndex(node, key) >= 0;
+    }
+
+    static Node put(Node node, Object edit, /* bits *//* raw */char key, int hash,
+            /* bits */short value, int shift, Change change) {
+        if (shift >= HASH_BITS) {
+            int i = collisionIndex(node, key);
+            if (i < 0)
+                return node.insertEntry(edit, 0, key, value);
+            return replaceValue(node, edit, i, value, change);
+        }
+        int bit = bitpos(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            int i = index(node.dataMap, bit);
+            /* bits *//* raw */char k = node.keys[i];
+            if (keyEquals(k, key))
+                return replaceValue(node, edit, i, value, change);
+            Node sub = mergeTwo(edit, k, node.vals[i], hash(k), key, value, hash, shift + BITS);
+            return node.entryToNode(edit, bit, sub);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            int i = index(node.nodeMap, bit);
+            Node sub = node.nodes[i];
+            Node newSub = put(sub, edit, key, hash, value, shift + BITS, change);
+            return newSub == sub ? node : node.withNode(edit, i, newSub);
+        }
+        return node.insertEntry(edit, bit, key, value);
+    }
+
+    private static Node replaceValue(Node node, Object edit, int index, /* bits */short value,
+            Change change) {
+        /* bits */short oldValue = node.vals[index];
+        change.found = true;
+        change.oldValue = oldValue;
+        return oldValue == value ? node : node.withValue(edit, index, value);
+    }
+
+    private static Node mergeTwo(Object edit,
+            /* bits *//* raw */char key0, /* bits */short value0, int hash0,
+            /* bits *//* raw */char key1, /* bits */short value1, int hash1, int shift) {
+        if (shift >= HASH_BITS) {
+            return new Node(edit, 0, 0, new /* bits *//* raw */char[] {key0, key1},
+                    new /* bits */short[] {value0, value1}, NO_NODES);
+        }
+        int mask0 = (hash0 >>> shift) & 31;
+        int mask1 = (hash1 >>> shift) & 31;
+        if (mask0 != mask1) {
+            int dataMap = (1 << mask0) | (1 << mask1);
+            if (mask0 < mask1) {
+                return new Node(edit, dataMap, 0, new /* bits *//* raw */char[] {key0, key1},
+                        new /* bits */short[] {value0, value1}, NO_NODES);
+            } else {
+                return new Node(edit, dataMap, 0, new /* bits *//* raw */char[] {key1, key0},
+                        new /* bits */short[] {value1, value0}, NO_NODES);
+            }
+        }
+        Node sub = mergeTwo(edit, key0, value0, hash0, key1, value1, hash1, shift + BITS);
+        return new Node(edit, 0, 1 << mask0, NO_KEYS, NO_VALUES, new Node[] {sub});
+    }
+
+    static Node remove(Node node, Object edit, /* bits *//* raw */char key, int hash, int shift,
+            Change change) {
+        if (shift >= HASH_BITS) {
+            int i = collisionIndex(node, key);
+            if (i < 0)
+                return node;
+            change.found = true;
+            change.oldValue = node.vals[i];
+            return node.removeEntry(edit, 0, i);
+        }
+        int bit = bitpos(hash, shift);
+        if ((node.dataMap & bit) != 0) {
+            int i = index(node.dataMap, bit);
+            if (!keyEquals(node.keys[i], key))
+                return node;
+            change.found = true;
+            change.oldValue = node.vals[i];
+            return node.removeEntry(edit, bit, i);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            int i = index(node.nodeMap, bit);
+            Node sub = node.nodes[i];
+            Node newSub = remove(sub, edit, key, hash, shift + BITS, change);
+            if (!change.found)
+                return node;
+            if (newSub.nodeMap == 0 && newSub.keys.length == 1) {
+                // keep the canonical form: a single entry is inlined into the parent
+                if (node.dataMap == 0 && node.nodes.length == 1 && shift > 0)
+                    return newSub;
+                return node.nodeToEntry(edit, bit, i, newSub.keys[0], newSub.vals[0]);
+            }
+            return newSub == sub ? node : node.withNode(edit, i, newSub);
+        }
+        return node;
+    }
+
+    private static boolean containsValue(Node node, /* bits */short value) {
+        for (/* bits */short v : node.vals) {
+            if (v == value)
+                return true;
+        }
+        for (Node sub : node.nodes) {
+            if (containsValue(sub, value))
+                return true;
+        }
+        return false;
+    }
+
+    private static int hashCode(Node node) {
+        int hashCode = 0;
+        /* bits *//* raw */char[] keys = node.keys;
+        /* bits */short[] vals = node.vals;
+        for (int i = 0; i < keys.length; i++) {
+            hashCode += /* if !(obj key) */Primitives.hashCode(/* wrap key */keys[i]/**/)
+                    /* elif obj key //NullableObjects.hashCode(keys[i])// endif */ ^
+                    Primitives.hashCode(/* wrap value */vals[i]/**/);
+        }
+        for (Node sub : node.nodes) {
+            hashCode += hashCode(sub);
+        }
+        return hashCode;
+    }
+
+    static /*<>*/ PersistentChampCharShortMap/*<>*/ empty(short defaultValue) {
+        return new PersistentChampCharShortMap/*<>*/(EMPTY_NODE, 0, defaultValue);
+    }
+
+
+    private final Node root;
+    private final int size;
+    private final short defaultValue;
+
+    private PersistentChampCharShortMap(Node root, int size, short defaultValue) {
+        this.root = root;
+        this.size = size;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return (long) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(/* raw */char key) {
+        return contains(root, /* unwrap key */key);
+    }
+
+    @Override
+    public boolean containsValue(short value) {
+        return containsValue(root, /* unwrap value */value);
+    }
+
+    @Override
+    public boolean containsEntry(/* raw */char key, /* raw */short value) {
+        /* bits */short v = /* unwrap value */value;
+        // absent keys are mapped to the complement of the value
+        return valueOrDefault(root, /* unwrap key */key/**/, (/* bits */short) ~v) == v;
+    }
+
+    @Override
+    public short get/* valueSuffix */(/* raw */char key) {
+        return getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public short getOrDefault(/* raw */char key, short defaultValue) {
+        return /* wrap value */valueOrDefault(root, /* unwrap key */key/**/,
+                /* unwrap value */defaultValue/**/)/**/;
+    }
+
+    @Nonnull
+    @Override
+    public CharShortCursor/*<>*/ cursor() {
+        return new Cursor/*<>*/(root);
+    }
+
+    @Nonnull
+    @Override
+    public PersistentChampCharShortMap/*<>*/ with(char key, short value) {
+        /* bits *//* raw */char k = /* unwrap key */key;
+        Change change = new Change();
+        Node newRoot = put(root, null, k, hash(k), /* unwrap value */value/**/, 0, change);
+        if (newRoot == root)
+            return this;
+        return new PersistentChampCharShortMap/*<>*/(newRoot, change.found ? size : size + 1,
+                defaultValue);
+    }
+
+    @Nonnull
+    @Override
+    public PersistentChampCharShortMap/*<>*/ without(/* raw */char key) {
+        /* bits *//* raw */char k = /* unwrap key */key;
+        Change change = new Change();
+        Node newRoot = remove(root, null, k, hash(k), 0, change);
+        if (!change.found)
+            return this;
+        return new PersistentChampCharShortMap/*<>*/(newRoot, size - 1, defaultValue);
+    }
+
+    @Nonnull
+    @Override
+    public TransientCharShortMap/*<>*/ asTransient() {
+        return new Transient/*<>*/(root, size, defaultValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode(root);
+    }
+
+
+    private static final class Cursor/*<>*/ implements CharShortCursor/*<>*/ {
+        private final Node[] path = new Node[MAX_DEPTH];
+        /**
+         * Index of the next subnode to visit, for each node on the path
+         */
+        private final int[] nextNodes = new int[MAX_DEPTH];
+        private int depth;
+        private Node node;
+        private int index;
+
+        Cursor(Node root) {
+            path[0] = root;
+            node = root;
+            index = -1;
+        }
+
+        @Override
+        public void forEachForward(/*f*/CharShortConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            while (moveNext()) {
+                action.accept(key(), value());
+            }
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (node != null && ++index < node.keys.length)
+                return true;
+            while (depth >= 0) {
+                Node top = path[depth];
+                int next = nextNodes[depth];
+                if (next < top.nodes.length) {
+                    nextNodes[depth] = next + 1;
+                    Node sub = top.nodes[next];
+                    path[++depth] = sub;
+                    nextNodes[depth] = 0;
+                    if (sub.keys.length > 0) {
+                        node = sub;
+                        index = 0;
+                        return true;
+                    }
+                } else {
+                    depth--;
+                }
+            }
+            node = null;
+            return false;
+        }
+
+        private void checkPosition() {
+            if (node == null || index < 0 || index >= node.keys.length)
+                throw new IllegalStateException();
+        }
+
+        @Override
+        public char key() {
+            checkPosition();
+            return /* if obj key //(K) // endif *//* wrap key */node.keys[index]/**/;
+        }
+
+        @Override
+        public short value() {
+            checkPosition();
+            return /* wrap value */node.vals[index]/**/;
+        }
+
+        @Override
+        public void setValue(short value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    private static final class Transient/*<>*/ implements TransientCharShortMap/*<>*/ {
+        private final short defaultValue;
+        private final Change change = new Change();
+        /**
+         * Replaced on {@link #persistent()}, so that nodes, owned by the previous token,
+         * aren't updated in place anymore
+         */
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        Transient(Node root, int size, short defaultValue) {
+            this.root = root;
+            this.size = size;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public boolean containsKey(/* raw */char key) {
+            return contains(root, /* unwrap key */key);
+        }
+
+        @Override
+        public short get/* valueSuffix */(/* raw */char key) {
+            return /* wrap value */valueOrDefault(root, /* unwrap key */key/**/,
+                    /* unwrap value */defaultValue/**/)/**/;
+        }
+
+        @Override
+        public short put(char key, short value) {
+            /* bits *//* raw */char k = /* unwrap key */key;
+            Change change = this.change;
+            change.found = false;
+            root = PersistentChampCharShortMap.put(
+                    root, edit, k, hash(k), /* unwrap value */value/**/, 0, change);
+            if (change.found)
+                return /* wrap value */change.oldValue/**/;
+            size++;
+            return defaultValue;
+        }
+
+        @Override
+        public short remove/* asValueSuffix */(/* raw */char key) {
+            /* bits *//* raw */char k = /* unwrap key */key;
+            Change change = this.change;
+            change.found = false;
+            root = PersistentChampCharShortMap.remove(root, edit, k, hash(k), 0, change);
+            if (!change.found)
+                return defaultValue;
+            size--;
+            return /* wrap value */change.oldValue/**/;
+        }
+
+        @Nonnull
+        @Override
+        public PersistentCharShortMap/*<>*/ persistent() {
+            edit = new Object();
+            return new PersistentChampCharShortMap/*<>*/(root, size, defaultValue);
+        }
+    }
+}
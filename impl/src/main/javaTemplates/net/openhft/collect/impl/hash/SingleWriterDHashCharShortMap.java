@@ -0,0 +1,269 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.map.hash.ConcurrentHashCharShortMap;
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.function.*;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A single {@linkplain DHashCharShortMapSegment segment} without a lock. Updates
+ * go straight to the underlying {@link MutableDHashCharShortMapGO} and only bump the version
+ * around; lookups and copying are retried until the version stays the same. Updates
+ * should be made by one thread at a time.
+ */
+public final class SingleWriterDHashCharShortMap implements ConcurrentHashCharShortMap {
+
+    private final HashCharShortMapFactoryGO factory;
+    private final DHashCharShortMapSegment segment;
+    private final short defaultValue;
+
+    SingleWriterDHashCharShortMap(HashCharShortMapFactoryGO factory, int expectedSize) {
+        this.factory = factory;
+        defaultValue = factory.getDefaultValue();
+        segment = new DHashCharShortMapSegment(factory.newMutableMap(expectedSize));
+    }
+
+    @Override
+    public short defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public int size() {
+        return segment.size;
+    }
+
+    @Override
+    public long sizeAsLong() {
+        return (long) segment.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return segment.size == 0;
+    }
+
+    @Override
+    public boolean ensureCapacity(long minSize) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.ensureCapacity(minSize);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public boolean shrink() {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.shrink();
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public void clear() {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            segment.map.clear();
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+
+    @Override
+    public boolean containsKey(char key) {
+        return segment.containsKey(key, false);
+    }
+
+    @Override
+    public short get(char key) {
+        return segment.getOrDefault(key, defaultValue, false);
+    }
+
+    @Override
+    public short getOrDefault(char key, short defaultValue) {
+        return segment.getOrDefault(key, defaultValue, false);
+    }
+
+    @Override
+    public short put(char key, short value) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.put(key, value);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short putIfAbsent(char key, short value) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.putIfAbsent(key, value);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short replace(char key, short value) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.replace(key, value);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public boolean replace(char key, short oldValue, short newValue) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.replace(key, oldValue, newValue);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short remove(char key) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.remove(key);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public boolean remove(char key, short value) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.remove(key, value);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short compute(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.compute(key, remappingFunction);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short computeIfAbsent(char key, /*f*/CharToShortFunction mappingFunction) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.computeIfAbsent(key, mappingFunction);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short computeIfPresent(char key, /*f*/CharShortToShortFunction remappingFunction) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.computeIfPresent(key, remappingFunction);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short merge(char key, short value, /*f*/ShortBinaryOperator remappingFunction) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.merge(key, value, remappingFunction);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short incrementValue(char key, short increment) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.incrementValue(key, increment);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+    @Override
+    public short incrementValue(char key, short increment, short defaultValue) {
+        DHashCharShortMapSegment segment = this.segment;
+        segment.beginUpdate();
+        try {
+            return segment.map.incrementValue(key, increment, defaultValue);
+        } finally {
+            segment.endUpdate();
+        }
+    }
+
+
+    @Override
+    public void forEach(@Nonnull CharShortConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        // the action could update this map, if it is called by the writer thread
+        snapshot().forEach(action);
+    }
+
+    @Nonnull
+    @Override
+    public HashCharShortMap snapshot() {
+        MutableDHashCharShortMapGO snapshot = factory.newMutableMap(segment.size);
+        segment.copyTo(snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
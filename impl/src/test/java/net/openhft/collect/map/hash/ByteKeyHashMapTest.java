@@ -23,7 +23,9 @@ import net.openhft.collect.map.ByteIntMapFactory;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static net.openhft.collect.map.hash.HashByteIntMaps.getDefaultFactory;
@@ -70,6 +72,33 @@ public class ByteKeyHashMapTest {
         }
     }
 
+    /**
+     * When more than a half of the domain is taken, changing the free or the removed value
+     * must pick a value, which isn't a present key.
+     */
+    @Test
+    public void testDensePutRemove() {
+        Random random = new Random(0);
+        for (int run = 0; run < 200; run++) {
+            ByteIntMap map = getDefaultFactory().newMutableMap();
+            Map<Byte, Integer> expected = new HashMap<Byte, Integer>();
+            for (int op = 0; op < 2000; op++) {
+                byte key = (byte) random.nextInt();
+                if (random.nextInt(4) == 0) {
+                    assertEquals("run " + run + ", op " + op,
+                            expected.remove(key) != null, map.containsKey(key));
+                    map.remove(key);
+                } else {
+                    expected.put(key, op);
+                    map.put(key, op);
+                }
+                assertEquals("run " + run + ", op " + op, expected.size(), map.size());
+            }
+            assertEquals(expected.size(), sizeByValueIterator(map));
+            assertEquals(expected, map);
+        }
+    }
+
     private static String toString(String prefix, ByteIntDHash hash) {
         return prefix +
                 "Hash: " + hash.toString() + "; Keys: " + Arrays.toString(hash.keys()) +
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.Equivalence;
+import net.openhft.collect.ForeignKeyEquivalence;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+
+public class ForeignKeyLookupTest {
+
+    private static final ForeignKeyEquivalence<CharSequence, String> CHARS =
+            ForeignKeyEquivalence.charSequence();
+    private static final ForeignKeyEquivalence<ByteBuffer, String> UTF_8 =
+            ForeignKeyEquivalence.utf8();
+
+    @Test
+    public void testLookups() throws UnsupportedEncodingException {
+        HashObjShortMap<String> map = HashObjShortMaps.newMutableMap();
+        String[] special = {"", "\u00e9t\u00e9", "\ud83d\ude00x", "\u4e2d\u6587"};
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, (short) i);
+        }
+        for (int i = 0; i < special.length; i++) {
+            map.put(special[i], (short) -i);
+        }
+        map.put(null, (short) 42);
+        // leave removed slots on the probe paths
+        for (int i = 0; i < 1000; i += 3) {
+            map.removeAsShort("key" + i);
+        }
+        StringBuilder sb = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + i;
+            sb.setLength(0);
+            sb.append(key);
+            buffer.clear();
+            buffer.put((byte) '#').put(key.getBytes("UTF-8")).flip().position(1);
+            assertEquals(map.containsKey(key), map.containsKey(sb, CHARS));
+            assertEquals(map.containsKey(key), map.containsKey(buffer, UTF_8));
+            assertEquals(map.getShort(key), map.getShort(sb, CHARS));
+            assertEquals(map.getShort(key), map.getShort(buffer, UTF_8));
+            assertEquals(1, buffer.position());
+        }
+        for (int i = 0; i < special.length; i++) {
+            sb.setLength(0);
+            sb.append(special[i]);
+            assertEquals((short) -i, map.getShort(sb, CHARS));
+            ByteBuffer bytes = ByteBuffer.wrap(special[i].getBytes("UTF-8"));
+            assertEquals((short) -i, map.getShort(bytes, UTF_8));
+        }
+        assertFalse(map.containsKey(new StringBuilder("absent"), CHARS));
+        // malformed
+        assertFalse(map.containsKey(ByteBuffer.wrap(new byte[] {(byte) 0xC3}), UTF_8));
+        byte[] surrogate = {(byte) 0xED, (byte) 0xA0, (byte) 0xBD};
+        assertFalse(map.containsKey(ByteBuffer.wrap(surrogate), UTF_8));
+
+        short value = map.getShort("key1");
+        HashObjShortMap<String> immutable = map.freeze();
+        assertEquals(value, immutable.getShort(new StringBuilder("key1"), CHARS));
+        assertEquals((short) 42, immutable.getShort(null));
+    }
+
+    @Test
+    public void testObjValues() {
+        HashObjObjMap<String, String> map = HashObjObjMaps.newMutableMap();
+        map.put("a", "A");
+        assertEquals("A", map.get(new StringBuilder("a"), CHARS));
+        assertNull(map.get(new StringBuilder("b"), CHARS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInconsistentKeyEquivalence() {
+        HashObjIntMapFactory<String> factory = HashObjIntMaps.getDefaultFactory()
+                .withKeyEquivalence(Equivalence.caseInsensitive());
+        HashObjIntMap<String> map = factory.newMutableMap();
+        map.put("a", 1);
+        map.containsKey("A", CHARS);
+    }
+}
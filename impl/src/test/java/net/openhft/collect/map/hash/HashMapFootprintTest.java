@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class HashMapFootprintTest {
+
+    @Test
+    public void testEstimate() {
+        HashIntLongMap map = HashIntLongMaps.newMutableMap(1000);
+        long bytes = map.bytesUsed();
+        // at least 12 bytes per slot
+        assertTrue(bytes > 12000L);
+        assertEquals(HashIntLongMaps.estimateBytes(1000), bytes);
+        assertEquals(bytes, map.keySet().bytesUsed());
+        assertEquals(bytes, map.entrySet().bytesUsed());
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, (long) i);
+        }
+        assertEquals(bytes, map.bytesUsed());
+    }
+
+    @Test
+    public void testReferenced() {
+        HashObjObjMap<String, String> map = HashObjObjMaps.newMutableMap();
+        String shared = "shared value";
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, shared);
+        }
+        long shallow = map.bytesUsed(false);
+        assertEquals(map.bytesUsed(), shallow);
+        long deep = map.bytesUsed(true);
+        assertTrue(deep > shallow);
+        map.put("key0", "other value");
+        assertTrue(map.bytesUsed(true) > deep);
+        assertTrue(map.keySet().bytesUsed(true) < map.bytesUsed(true));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.set.hash.HashObjSet;
+import net.openhft.collect.set.hash.HashObjSetFactory;
+import net.openhft.collect.set.hash.HashObjSets;
+import net.openhft.function.IntLongConsumer;
+import net.openhft.function.IntLongPredicate;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+
+import static org.junit.Assert.*;
+
+
+public class HashTableRecyclingTest {
+
+    private static final HashConfig RECYCLED = HashConfig.getDefault().withTableRecycled(true);
+
+    @Test
+    public void testGrowAndShrinkCycles() {
+        HashIntLongMapFactory factory = HashIntLongMaps.getDefaultFactory();
+        factory = factory.withConfig(factory.getConfig().withHashConfig(RECYCLED));
+        HashIntLongMap map = factory.newMutableMap();
+        HashIntLongMap other = factory.newMutableMap();
+        for (int cycle = 1; cycle <= 10; cycle++) {
+            for (int i = 0; i < 5000; i++) {
+                map.put(i * cycle, (long) i);
+                other.put(i, (long) cycle);
+            }
+            assertEquals(5000, other.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals((long) i, map.get(i * cycle));
+                assertEquals((long) cycle, other.get(i));
+            }
+            map.clear();
+            assertTrue(map.shrink());
+            assertTrue(map.isEmpty());
+            other.removeIf(new IntLongPredicate() {
+                @Override
+                public boolean test(int key, long value) {
+                    return key % 2 == 0;
+                }
+            });
+            other.shrink();
+            assertEquals(2500, other.size());
+            other.clear();
+            other.shrink();
+        }
+    }
+
+    @Test
+    public void testRehashDuringForEach() {
+        HashIntLongMapFactory factory = HashIntLongMaps.getDefaultFactory();
+        final HashIntLongMapFactory recycled =
+                factory.withConfig(factory.getConfig().withHashConfig(RECYCLED));
+        final int size = 1000;
+        final HashIntLongMap map = recycled.newMutableMap(size);
+        for (int i = 0; i < size; i++) {
+            map.put(i, 0L);
+        }
+        try {
+            map.forEach(new IntLongConsumer() {
+                boolean rehashed;
+
+                @Override
+                public void accept(int key, long value) {
+                    assertTrue("the key of another map", key >= 0);
+                    if (!rehashed) {
+                        rehashed = true;
+                        for (int i = size; i < size * 5; i++) {
+                            map.put(i, 0L);
+                        }
+                        // of the same capacity, as the old table of the map
+                        HashIntLongMap other = recycled.newMutableMap(size);
+                        for (int i = 1; i <= size; i++) {
+                            other.put(-i, 0L);
+                        }
+                    }
+                }
+            });
+            fail("ConcurrentModificationException expected");
+        } catch (ConcurrentModificationException expected) {
+            // the map was modified by the action
+        }
+    }
+
+    @Test
+    public void testRecycledReferenceArrays() {
+        HashObjObjMapFactory<Object, Object> mapFactory = HashObjObjMaps.getDefaultFactory();
+        HashObjObjMap<String, String> map = mapFactory.withConfig(
+                mapFactory.getConfig().withHashConfig(RECYCLED)).newMutableMap();
+        HashObjSetFactory<Object> setFactory = HashObjSets.getDefaultFactory();
+        HashObjSet<String> set = setFactory.withConfig(
+                setFactory.getConfig().withHashConfig(RECYCLED)).newMutableSet();
+        for (int cycle = 0; cycle < 5; cycle++) {
+            for (int i = 0; i < 2000; i++) {
+                map.put("k" + i, "v" + cycle);
+                set.add("e" + cycle + "_" + i);
+            }
+            for (int i = 0; i < 2000; i++) {
+                assertEquals("v" + cycle, map.get("k" + i));
+                assertTrue(set.contains("e" + cycle + "_" + i));
+            }
+            assertFalse(set.contains("e" + (cycle - 1) + "_0"));
+            map.clear();
+            map.shrink();
+            set.clear();
+            set.shrink();
+            assertNull(map.get("k0"));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.function.BiFunction;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashLongLongMaps.newNonBlockingMap;
+import static org.junit.Assert.*;
+
+
+public class NonBlockingHashLongLongMapTest {
+
+    @Test
+    public void testBasicOperations() {
+        NonBlockingHashLongLongMap map = newNonBlockingMap(10);
+        assertEquals(0L, map.put(0L, 5L));
+        assertEquals(5L, map.get(0L));
+        for (long i = 1; i <= 1000; i++) {
+            map.put(i, -i);
+        }
+        assertEquals(1001, map.size());
+        assertEquals(-7L, map.putIfAbsent(7L, 1L));
+        assertFalse(map.replace(7L, 1L, 2L));
+        assertTrue(map.replace(7L, -7L, 2L));
+        assertEquals(2L, map.remove(7L));
+        assertFalse(map.containsKey(7L));
+        assertFalse(map.remove(8L, 8L));
+        assertTrue(map.remove(8L, -8L));
+        assertEquals(999, map.snapshot().size());
+        assertTrue(map.shrink());
+        assertEquals(-9L, map.get(9L));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testAnyValue() {
+        NonBlockingHashLongLongMap map = newNonBlockingMap(10);
+        map.put(1L, Long.MIN_VALUE);
+        map.put(2L, Long.MIN_VALUE + 1L);
+        map.put(0L, Long.MIN_VALUE);
+        // values survive resizes
+        for (long i = 3; i < 1000; i++) {
+            map.put(i, Long.MIN_VALUE + i);
+        }
+        assertEquals(Long.MIN_VALUE, map.get(1L));
+        assertEquals(Long.MIN_VALUE + 1L, map.get(2L));
+        assertEquals(Long.MIN_VALUE, map.get(0L));
+        assertTrue(map.containsEntry(999L, Long.MIN_VALUE + 999L));
+        assertTrue(map.replace(2L, Long.MIN_VALUE + 1L, 0L));
+        assertEquals(Long.MIN_VALUE, map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(999, map.size());
+    }
+
+    @Test
+    public void testViews() {
+        NonBlockingHashLongLongMap map = newNonBlockingMap(10);
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, i * i);
+            expected.put(i, i * i);
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(Long.valueOf(4L), map.get((Object) 2L));
+        assertNull(map.get((Object) 100L));
+        assertTrue(map.keySet().removeLong(0L));
+        assertTrue(map.values().removeLong(1L));
+        for (Iterator<Map.Entry<Long, Long>> it = map.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Long, Long> e = it.next();
+            if (e.getKey() % 2 == 0) {
+                it.remove();
+            } else {
+                e.setValue(-e.getKey());
+            }
+        }
+        assertEquals(49, map.size());
+        for (long i = 3; i < 100; i += 2) {
+            assertEquals(-i, map.get(i));
+        }
+        assertNull(map.computeIfPresent(3L, new BiFunction<Long, Long, Long>() {
+            @Override
+            public Long apply(Long key, Long value) {
+                return null;
+            }
+        }));
+        assertFalse(map.containsKey(3L));
+    }
+
+    @Test
+    public void testConcurrentInsertsAndIncrements() throws InterruptedException {
+        final NonBlockingHashLongLongMap map = newNonBlockingMap(10);
+        final int threadCount = 4, keys = 10000;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final long offset = (long) t * keys;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (long i = 0; i < keys; i++) {
+                        map.put(offset + i + 1, i);
+                        map.incrementValue(-(i % 100) - 1, 1L);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threadCount * keys + 100, map.size());
+        for (long i = 0; i < (long) threadCount * keys; i++) {
+            assertEquals(i % keys, map.get(i + 1));
+        }
+        for (long i = 1; i <= 100; i++) {
+            assertEquals(threadCount * keys / 100, map.get(-i));
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdatesDuringResizes() throws InterruptedException {
+        final NonBlockingHashLongLongMap map = newNonBlockingMap(4);
+        final int threadCount = 4, keys = 20000;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final long offset = (long) t * keys;
+            final long seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    // removals leave tombstones, which make the table to be rebuilt
+                    for (long i = 0; i < keys; i++) {
+                        long key = offset + i + 1;
+                        map.put(key, Long.MIN_VALUE + key);
+                        if (random.nextInt(3) == 0)
+                            map.remove(key);
+                        map.incrementValue(0L, 1L);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            Random random = new Random(t);
+            for (long i = 0; i < keys; i++) {
+                long key = (long) t * keys + i + 1;
+                if (random.nextInt(3) == 0) {
+                    assertFalse(map.containsKey(key));
+                } else {
+                    assertEquals(Long.MIN_VALUE + key, map.get(key));
+                }
+            }
+        }
+        assertEquals((long) threadCount * keys, map.get(0L));
+        assertEquals(map.snapshot(), map);
+        assertEquals(map.size(), map.keySet().size());
+    }
+}
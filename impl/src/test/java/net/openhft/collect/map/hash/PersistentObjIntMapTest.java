@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.PersistentObjIntMap;
+import net.openhft.collect.map.TransientObjIntMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class PersistentObjIntMapTest {
+
+    /**
+     * Equal, but not identical keys with the same hash code
+     */
+    private static final class Key {
+        final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id / 3;
+        }
+
+        @Override
+        public String toString() {
+            return "k" + id;
+        }
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(0);
+        Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        PersistentObjIntMap<Key> map = HashObjIntMaps.newPersistentMap();
+        TransientObjIntMap<Key> builder = map.asTransient();
+        for (int i = 0; i < 10000; i++) {
+            Key key = new Key(random.nextInt(300));
+            int value = random.nextInt(10);
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertEquals(old != null ? old : 0, builder.removeAsInt(new Key(key.id)));
+                map = map.without(key);
+            } else {
+                Integer old = expected.put(key, value);
+                assertEquals(old != null ? old : 0, builder.put(new Key(key.id), value));
+                map = map.with(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(map, builder.persistent());
+        for (int id = 0; id < 300; id++) {
+            Key key = new Key(id);
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertNull(map.keyEquivalence());
+    }
+
+    @Test
+    public void testNullKey() {
+        PersistentObjIntMap<String> map = HashObjIntMaps.newPersistentMap();
+        map = map.with(null, 1).with("a", 2);
+        assertTrue(map.containsKey(null));
+        assertEquals(1, map.getInt(null));
+        assertEquals(1, map.without("a").size());
+        assertFalse(map.without(null).containsKey(null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        PersistentObjIntMap<String> map = HashObjIntMaps.<String>newPersistentMap().with("a", 1);
+        map.entrySet().iterator().next().setValue(2);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+
+public class SymbolTableTest {
+
+    @Test
+    public void testOnHeap() throws UnsupportedEncodingException {
+        testAgainstMap(HashObjIntMaps.newSymbolTable(2));
+    }
+
+    @Test
+    public void testOffHeap() throws UnsupportedEncodingException {
+        SymbolTable table = HashObjIntMaps.newOffHeapSymbolTable(2);
+        try {
+            testAgainstMap(table);
+        } finally {
+            table.close();
+        }
+        try {
+            table.id("a");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReadOnlyBuffers() throws UnsupportedEncodingException {
+        SymbolTable table = HashObjIntMaps.newSymbolTable(2);
+        byte[] bytes = "xsymbolx".getBytes("UTF-8");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 6).slice().asReadOnlyBuffer();
+        int id = table.intern(buffer);
+        assertEquals(0, buffer.position());
+        assertEquals("symbol", table.symbol(id));
+        assertEquals(id, table.id(buffer));
+        assertEquals(id, table.id("symbol"));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws InterruptedException {
+        final SymbolTable table = HashObjIntMaps.newSymbolTable(1000);
+        for (int i = 0; i < 1000; i++) {
+            table.intern("sym" + i);
+        }
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            final int reader = r;
+            readers[r] = new Thread() {
+                @Override
+                public void run() {
+                    for (int round = 0; round < 100; round++) {
+                        for (int i = reader; i < 1000; i += 3) {
+                            if (table.id("sym" + i) != i || table.id("absent" + i) != -1)
+                                failed.set(true);
+                        }
+                    }
+                }
+            };
+            readers[r].start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertFalse(failed.get());
+    }
+
+    private static void testAgainstMap(SymbolTable table) throws UnsupportedEncodingException {
+        HashObjIntMap<String> expected = HashObjIntMaps.newMutableMap();
+        Random random = new Random(0);
+        String[] special = {"", "\u00e9t\u00e9", "\ud83d\ude00x", "\u4e2d\u6587"};
+        for (int i = 0; i < 20000; i++) {
+            String symbol = i < special.length ? special[i] : "sym" + random.nextInt(5000);
+            byte[] bytes = symbol.getBytes("UTF-8");
+            int id;
+            switch (random.nextInt(3)) {
+                case 0:
+                    id = table.intern(new StringBuilder(symbol));
+                    break;
+                case 1:
+                    byte[] padded = new byte[bytes.length + 2];
+                    System.arraycopy(bytes, 0, padded, 1, bytes.length);
+                    id = table.intern(padded, 1, bytes.length);
+                    break;
+                default:
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+                    buffer.put(bytes).flip();
+                    id = table.intern(buffer);
+                    assertEquals(0, buffer.position());
+            }
+            if (!expected.containsKey(symbol)) {
+                // ids are dense
+                assertEquals(expected.size(), id);
+                expected.put(symbol, id);
+            } else {
+                assertEquals(expected.getInt(symbol), id);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (String symbol : expected.keySet()) {
+            int id = expected.getInt(symbol);
+            assertEquals(id, table.id(symbol));
+            assertEquals(symbol, table.symbol(id));
+            byte[] bytes = new byte[table.length(id)];
+            table.getBytes(id, bytes, 0);
+            assertArrayEquals(symbol.getBytes("UTF-8"), bytes);
+        }
+        assertEquals(-1, table.id("absent"));
+        assertEquals(-1, table.id(new byte[] {1, 2}, 0, 2));
+        table.shrink();
+        assertEquals(expected.getInt("sym1"), table.id("sym1"));
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertEquals(-1, table.id("sym1"));
+        assertEquals(0, table.intern("sym1"));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.set.PersistentObjSet;
+import net.openhft.collect.set.TransientObjSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+
+public class PersistentObjSetTest {
+
+    @Test
+    public void testAgainstHashSet() {
+        Random random = new Random(0);
+        Set<String> expected = new HashSet<String>();
+        PersistentObjSet<String> set = HashObjSets.newPersistentSet();
+        TransientObjSet<String> builder = set.asTransient();
+        for (int i = 0; i < 10000; i++) {
+            // new String instances, equal to the elements in the set
+            String e = new String("e" + random.nextInt(300));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(e), builder.remove(e));
+                set = set.without(e);
+            } else {
+                assertEquals(expected.add(e), builder.add(e));
+                set = set.with(e);
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertEquals(set, builder.persistent());
+        assertTrue(set.containsAll(expected));
+        assertNull(set.equivalence());
+        try {
+            set.add("x");
+            fail("persistent set should be read-only");
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+    }
+}
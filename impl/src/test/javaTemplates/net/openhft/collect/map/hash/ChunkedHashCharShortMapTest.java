@@ -0,0 +1,124 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newChunkedMap;
+import static org.junit.Assert.*;
+
+
+public class ChunkedHashCharShortMapTest {
+
+    @Test
+    public void testAgainstMutableMap() {
+        Random random = new Random(0);
+        HashCharShortMap expected = newMutableMap();
+        // small expected size, to test growth and rebuilding after removals
+        ChunkedHashCharShortMap map = newChunkedMap(4L);
+        for (int i = 0; i < 20000; i++) {
+            // keys 0 and 1 are stored apart from the table
+            char key = (char) random.nextInt(120);
+            short value = (short) random.nextInt(100);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertTrue(expected.remove(key) == map.remove(key));
+                    break;
+                case 1:
+                    assertTrue(expected.incrementValue(key, value) ==
+                            map.incrementValue(key, value));
+                    break;
+                default:
+                    assertTrue(expected.put(key, value) == map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        int count = 0;
+        for (CharShortCursor cur = map.cursor(); cur.moveNext(); count++) {
+            assertTrue(expected.containsKey(cur.key()));
+            assertTrue(expected.get(cur.key()) == cur.value());
+        }
+        assertEquals(expected.size(), count);
+        for (CharShortCursor cur = map.cursor(); cur.moveNext();) {
+            cur.remove();
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey((char) 0));
+        assertFalse(map.containsKey((char) 1));
+    }
+
+    @Test
+    public void testEnsureCapacityAndShrink() {
+        ChunkedHashCharShortMap map = newChunkedMap(0L);
+        assertTrue(map.ensureCapacity(100L));
+        assertFalse(map.ensureCapacity(50L));
+        for (char key = 0; key < 100; key++) {
+            map.put(key, (short) 1);
+        }
+        for (char key = 0; key < 100; key += 2) {
+            map.remove(key);
+        }
+        assertTrue(map.shrink());
+        assertEquals(50L, map.sizeAsLong());
+        for (char key = 0; key < 100; key++) {
+            assertEquals(key % 2 != 0, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void testViews() {
+        ChunkedHashCharShortMap map = newChunkedMap(4L);
+        for (char key = 0; key < 100; key++) {
+            map.put(key, (short) (key % 10));
+        }
+        HashCharShortMap expected = newMutableMap(map);
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+
+        assertTrue(map.keySet().contains((char) 0));
+        assertTrue(map.keySet().removeChar((char) 0));
+        assertFalse(map.containsKey((char) 0));
+        assertTrue(map.values().removeShort((short) 1));
+        assertEquals(98, map.size());
+        for (Iterator<Map.Entry<Character, Short>> it = map.entrySet().iterator();
+             it.hasNext();) {
+            Map.Entry<Character, Short> e = it.next();
+            if (e.getKey() % 2 == 0) {
+                it.remove();
+            } else {
+                e.setValue((short) 7);
+            }
+        }
+        assertEquals(49, map.size());
+        for (CharShortCursor cur = map.cursor(); cur.moveNext();) {
+            assertTrue(cur.key() % 2 != 0);
+            assertEquals((short) 7, cur.value());
+        }
+        assertEquals(map, newMutableMap(map));
+    }
+}
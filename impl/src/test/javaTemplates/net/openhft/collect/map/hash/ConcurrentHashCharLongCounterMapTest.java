@@ -0,0 +1,92 @@
+/* with char|byte|short|int|long|float|double key */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.openhft.collect.map.hash.HashCharLongMaps.newCounterMap;
+import static org.junit.Assert.*;
+
+
+public class ConcurrentHashCharLongCounterMapTest {
+
+    @Test
+    public void testBasicOperations() {
+        ConcurrentHashCharLongCounterMap map = newCounterMap(10);
+        assertTrue(map.isEmpty());
+        assertEquals(0L, map.sum((char) 1));
+        for (int i = 0; i < 100; i++) {
+            map.add((char) i, (long) i);
+            map.increment((char) i);
+        }
+        assertEquals(100, map.size());
+        assertTrue(map.containsKey((char) 42));
+        assertEquals(43L, map.sum((char) 42));
+        HashCharLongMap snapshot = map.snapshotAndReset();
+        assertEquals(100, snapshot.size());
+        assertEquals(43L, snapshot.get((char) 42));
+        assertEquals(100, map.size());
+        assertEquals(0L, map.sum((char) 42));
+        map.increment((char) 42);
+        assertEquals(1, map.snapshotAndReset().size());
+        assertEquals(0L, map.snapshot().get((char) 42));
+    }
+
+    @Test
+    public void testHotKeyIncrements() throws InterruptedException {
+        final ConcurrentHashCharLongCounterMap map = newCounterMap(10);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final long[] drained = new long[1];
+        Thread drainer = new Thread() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    for (long count : map.snapshotAndReset().values()) {
+                        drained[0] += count;
+                    }
+                }
+            }
+        };
+        drainer.start();
+        Thread[] threads = new Thread[8];
+        final int increments = 100000;
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < increments; i++) {
+                        map.increment((char) (i & 3));
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        stop.set(true);
+        drainer.join();
+        for (long count : map.snapshotAndReset().values()) {
+            drained[0] += count;
+        }
+        assertEquals((long) threads.length * increments, drained[0]);
+        assertEquals(4, map.size());
+    }
+}
@@ -0,0 +1,112 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newConcurrentMap;
+import static org.junit.Assert.*;
+
+
+public class ConcurrentHashCharShortMapTest {
+
+    @Test
+    public void testBasicOperations() {
+        ConcurrentHashCharShortMap map = newConcurrentMap(10, 4);
+        assertTrue(map.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        assertEquals(100, map.size());
+        assertTrue(map.containsKey((char) 42));
+        assertTrue(map.get((char) 42) == (short) 42);
+        assertTrue(map.remove((char) 42) == (short) 42);
+        assertFalse(map.containsKey((char) 42));
+        assertTrue(map.get((char) 42) == map.defaultValue());
+        assertTrue(map.putIfAbsent((char) 1, (short) 7) == (short) 1);
+        assertTrue(map.replace((char) 1, (short) 1, (short) 7));
+        assertTrue(map.get((char) 1) == (short) 7);
+        assertEquals(99, map.snapshot().size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertTrue(map.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException {
+        final ConcurrentHashCharShortMap map = newConcurrentMap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int r = 0; r < 25; r++) {
+                        for (int i = 0; i < 50; i++) {
+                            map.incrementValue((char) i, (short) 1);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(map.get((char) i) == (short) 100);
+        }
+    }
+
+    @Test
+    public void testLookupsDuringUpdates() throws InterruptedException {
+        final ConcurrentHashCharShortMap map = newConcurrentMap(10, 2);
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    for (int i = 0; i < 100; i++) {
+                        map.put((char) i, (short) i);
+                    }
+                    for (int i = 0; i < 100; i += 2) {
+                        map.remove((char) i);
+                    }
+                    map.shrink();
+                }
+            }
+        };
+        writer.start();
+        try {
+            for (int r = 0; r < 1000; r++) {
+                for (int i = 0; i < 100; i++) {
+                    short value = map.get((char) i);
+                    assertTrue(value == map.defaultValue() || value == (short) i);
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
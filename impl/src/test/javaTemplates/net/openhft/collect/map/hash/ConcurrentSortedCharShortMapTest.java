@@ -0,0 +1,166 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.ConcurrentSortedCharShortMap;
+import net.openhft.collect.map.NavigableCharShortCursor;
+import net.openhft.function.CharShortConsumer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newConcurrentSortedMap;
+import static org.junit.Assert.*;
+
+
+public class ConcurrentSortedCharShortMapTest {
+
+    private static ConcurrentSortedCharShortMap evenKeys() {
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i += 2) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys);
+        ConcurrentSortedCharShortMap map = newConcurrentSortedMap();
+        for (int key : keys) {
+            map.put((char) key, (short) key);
+        }
+        return map;
+    }
+
+    @Test
+    public void testNavigation() {
+        ConcurrentSortedCharShortMap map = evenKeys();
+        assertEquals(50, map.size());
+        assertTrue(map.firstKey() == (char) 0);
+        assertTrue(map.lastKey() == (char) 98);
+        NavigableCharShortCursor cur = map.cursor();
+        int expectedKey = 0;
+        while (cur.moveNext()) {
+            assertTrue(cur.key() == (char) expectedKey);
+            assertTrue(cur.value() == (short) expectedKey);
+            expectedKey += 2;
+        }
+        assertEquals(100, expectedKey);
+        assertTrue(cur.moveToCeiling((char) 3));
+        assertTrue(cur.key() == (char) 4);
+        assertTrue(cur.moveToFloor((char) 3));
+        assertTrue(cur.key() == (char) 2);
+        assertTrue(cur.moveToHigher((char) 4));
+        assertTrue(cur.key() == (char) 6);
+        assertTrue(cur.moveToLower((char) 4));
+        assertTrue(cur.key() == (char) 2);
+        assertFalse(cur.moveToLower((char) 0));
+        assertFalse(cur.moveToHigher((char) 98));
+    }
+
+    @Test
+    public void testRangeCursor() {
+        ConcurrentSortedCharShortMap map = evenKeys();
+        NavigableCharShortCursor cur = map.cursor((char) 10, true, (char) 20, false);
+        int count = 0;
+        while (cur.moveNext()) {
+            assertTrue(cur.key() == (char) (10 + 2 * count));
+            count++;
+        }
+        assertEquals(5, count);
+        assertFalse(cur.moveNext());
+        assertTrue(cur.moveToCeiling((char) 0));
+        assertTrue(cur.key() == (char) 10);
+        assertTrue(cur.moveToFloor((char) 50));
+        assertTrue(cur.key() == (char) 18);
+        assertTrue(cur.moveToLast());
+        assertTrue(cur.key() == (char) 18);
+        assertFalse(cur.moveToHigher((char) 18));
+        assertTrue(cur.moveToFirst());
+        cur.setValue((short) 1);
+        cur.remove();
+        assertTrue(cur.moveNext());
+        assertTrue(cur.key() == (char) 12);
+        assertFalse(map.containsKey((char) 10));
+        assertEquals(49, map.size());
+    }
+
+    @Test
+    public void testUpdatesAndPolls() {
+        ConcurrentSortedCharShortMap map = evenKeys();
+        assertTrue(map.put((char) 4, (short) 5) == (short) 4);
+        assertTrue(map.putIfAbsent((char) 4, (short) 6) == (short) 5);
+        assertTrue(map.get((char) 4) == (short) 5);
+        assertFalse(map.remove((char) 4, (short) 4));
+        assertTrue(map.remove((char) 4, (short) 5));
+        assertTrue(map.remove((char) 4) == map.defaultValue());
+        final char[] polled = new char[1];
+        CharShortConsumer action = new CharShortConsumer() {
+            @Override
+            public void accept(char key, short value) {
+                polled[0] = key;
+            }
+        };
+        assertTrue(map.pollFirstEntry(action));
+        assertTrue(polled[0] == (char) 0);
+        assertTrue(map.pollLastEntry(action));
+        assertTrue(polled[0] == (char) 98);
+        assertEquals(47, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.pollFirstEntry(action));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final ConcurrentSortedCharShortMap map = newConcurrentSortedMap();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int first = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int round = 0; round < 100; round++) {
+                        for (int key = first; key < 100; key += 4) {
+                            map.put((char) key, (short) key);
+                        }
+                        for (int key = first; key < 100; key += 8) {
+                            map.remove((char) key);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(48, map.size());
+        NavigableCharShortCursor cur = map.cursor();
+        int count = 0;
+        char prev = (char) 0;
+        while (cur.moveNext()) {
+            if (count++ > 0)
+                assertTrue(prev < cur.key());
+            prev = cur.key();
+            assertTrue(cur.key() == (char) cur.value());
+        }
+        assertEquals(48, count);
+    }
+}
@@ -0,0 +1,79 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.openFrozenMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.writeFrozenMap;
+import static org.junit.Assert.*;
+
+
+public class FrozenHashCharShortMapTest {
+
+    @Test
+    public void testFrozenMap() throws IOException {
+        File file = File.createTempFile("frozen", ".map");
+        try {
+            Random random = new Random(0);
+            HashCharShortMap expected = newMutableMap();
+            for (int i = 0; i < 1000; i++) {
+                char key = (char) random.nextInt(120);
+                if (random.nextInt(3) == 0) {
+                    expected.remove(key);
+                } else {
+                    expected.put(key, (short) random.nextInt(100));
+                }
+            }
+            writeFrozenMap(file, expected);
+
+            HashCharShortMap map = openFrozenMap(file);
+            assertEquals(expected.size(), map.size());
+            for (char key = 0; key < 120; key++) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertTrue(expected.get(key) == map.get(key));
+            }
+            int count = 0;
+            for (CharShortCursor cur = map.cursor(); cur.moveNext(); count++) {
+                assertTrue(expected.get(cur.key()) == cur.value());
+            }
+            assertEquals(expected.size(), count);
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+            assertEquals(expected.keySet(), map.keySet());
+            try {
+                map.put((char) 2, (short) 2);
+                fail("frozen map should be immutable");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/* with char|byte|short|int|long|float|double key */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.function.IntBinaryOperator;
+import org.junit.Test;
+
+import static net.openhft.collect.map.hash.HashCharIntMaps.aggregateParallel;
+import static net.openhft.collect.map.hash.HashCharIntMaps.countParallel;
+import static org.junit.Assert.*;
+
+
+public class HashCharIntMapAggregationTest {
+
+    private static final int DISTINCT_KEYS = 100;
+
+    private static char[] keys(int length) {
+        char[] keys = new char[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = (char) (i % DISTINCT_KEYS);
+        }
+        return keys;
+    }
+
+    @Test
+    public void testCountParallel() {
+        // both sequential and parallel paths
+        for (int length : new int[] {1000, 100000}) {
+            HashCharIntMap counts = countParallel(keys(length));
+            assertEquals(DISTINCT_KEYS, counts.size());
+            for (int i = 0; i < DISTINCT_KEYS; i++) {
+                assertEquals(length / DISTINCT_KEYS, counts.get((char) i));
+            }
+        }
+    }
+
+    @Test
+    public void testCountParallelManyKeys() {
+        // keys of the partitions are likely to hit the free value of the result table
+        int distinctKeys = 250, length = 100000;
+        char[] keys = new char[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = (char) (i % distinctKeys);
+        }
+        HashCharIntMap counts = countParallel(keys);
+        assertEquals(distinctKeys, counts.size());
+        for (int i = 0; i < distinctKeys; i++) {
+            assertEquals(length / distinctKeys, counts.get((char) i));
+        }
+    }
+
+    @Test
+    public void testAggregateParallelKeepsOrder() {
+        int length = 100000;
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        HashCharIntMap last = aggregateParallel(keys(length), values, new IntBinaryOperator() {
+            @Override
+            public int applyAsInt(int left, int right) {
+                return right;
+            }
+        });
+        assertEquals(DISTINCT_KEYS, last.size());
+        for (int i = 0; i < DISTINCT_KEYS; i++) {
+            assertEquals(length - DISTINCT_KEYS + i, last.get((char) i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentLengths() {
+        aggregateParallel(keys(10), new int[9], new IntBinaryOperator() {
+            @Override
+            public int applyAsInt(int left, int right) {
+                return left + right;
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newImmutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static org.junit.Assert.*;
+
+
+public class HashCharShortMapCopyOnWriteTest {
+
+    private static HashCharShortMap newBase() {
+        HashCharShortMap map = newMutableMap();
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        return newImmutableMap(map);
+    }
+
+    @Test
+    public void testWritesDontAffectImmutableMap() {
+        HashCharShortMap base = newBase();
+        HashCharShortMap copy = newMutableMap(base);
+        assertEquals(base, copy);
+        copy.put((char) 1, (short) 7);
+        copy.put((char) 120, (short) 120);
+        copy.remove((char) 2);
+        assertTrue(copy.get((char) 1) == (short) 7);
+        assertTrue(copy.containsKey((char) 120));
+        assertFalse(copy.containsKey((char) 2));
+        assertEquals(newBase(), base);
+
+        HashCharShortMap cleared = newMutableMap(base);
+        cleared.clear();
+        assertTrue(cleared.isEmpty());
+        assertEquals(newBase(), base);
+    }
+
+    @Test
+    public void testIterationWritesDontAffectImmutableMap() {
+        HashCharShortMap base = newBase();
+        HashCharShortMap copy = newMutableMap(base);
+        CharShortCursor cur = copy.cursor();
+        while (cur.moveNext()) {
+            if (cur.key() % 2 == 0) {
+                cur.remove();
+            } else {
+                cur.setValue((short) 0);
+            }
+        }
+        assertEquals(50, copy.size());
+        assertEquals(newBase(), base);
+
+        copy = newMutableMap(base);
+        Iterator<Map.Entry<Character, Short>> it = copy.entrySet().iterator();
+        it.next().setValue((short) 0);
+        it.next();
+        it.remove();
+        assertEquals(99, copy.size());
+        assertEquals(newBase(), base);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutableCursorSetValue() {
+        CharShortCursor cur = newBase().cursor();
+        assertTrue(cur.moveNext());
+        cur.setValue((short) 0);
+    }
+}
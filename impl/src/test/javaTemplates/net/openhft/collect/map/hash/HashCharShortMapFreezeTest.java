@@ -0,0 +1,58 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.function.CharShortConsumer;
+import org.junit.Test;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static org.junit.Assert.*;
+
+
+public class HashCharShortMapFreezeTest {
+
+    @Test
+    public void testFreezeAfterRemovals() {
+        HashCharShortMap map = newMutableMap();
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            map.remove((char) i);
+        }
+        HashCharShortMap frozen = map.freeze();
+        assertEquals(50, frozen.size());
+        final int[] count = {0};
+        frozen.forEach(new /*f*/CharShortConsumer() {
+            @Override
+            public void accept(char key, short value) {
+                assertTrue(key % 2 == 1);
+                assertTrue(value == (short) key);
+                count[0]++;
+            }
+        });
+        assertEquals(50, count[0]);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, frozen.containsKey((char) i));
+        }
+        assertEquals(50, frozen.keySet().toArray().length);
+    }
+}
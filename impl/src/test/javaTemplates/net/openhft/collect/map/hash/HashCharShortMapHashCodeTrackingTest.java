@@ -0,0 +1,98 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.*;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.CharShortMap;
+import net.openhft.function.CharShortPredicate;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.getDefaultFactory;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static org.junit.Assert.*;
+
+
+public class HashCharShortMapHashCodeTrackingTest {
+
+    private static HashCharShortMap newTrackedMap() {
+        HashCharShortMapFactory factory = getDefaultFactory();
+        HashConfig tracked = HashConfig.getDefault().withHashCodeTracked(true);
+        return factory.withConfig(/* if !(float|double key) */
+                factory.getConfig().withHashConfig(tracked)
+                /* elif float|double key //tracked// endif */).newMutableMap();
+    }
+
+    private static void assertHashCodeTracked(CharShortMap map) {
+        assertEquals(newMutableMap(map).hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testHashCodeTracked() {
+        HashCharShortMap map = newTrackedMap();
+        assertEquals(0, map.hashCode());
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        assertHashCodeTracked(map);
+        for (int i = 0; i < 100; i += 3) {
+            map.remove((char) i);
+            map.put((char) (i + 1), (short) 0);
+        }
+        assertHashCodeTracked(map);
+        CharShortCursor cur = map.cursor();
+        while (cur.moveNext()) {
+            cur.setValue((short) (cur.value() + 1));
+        }
+        assertHashCodeTracked(map);
+        Map.Entry<Character, Short> e = map.entrySet().iterator().next();
+        e.setValue((short) (e.getValue() + 1));
+        assertHashCodeTracked(map);
+        map.removeIf(new CharShortPredicate() {
+            @Override
+            public boolean test(char key, short value) {
+                return key > (char) 50;
+            }
+        });
+        assertHashCodeTracked(map);
+        map.clear();
+        assertEquals(0, map.hashCode());
+        map.put((char) 42, (short) 42);
+        assertHashCodeTracked(map);
+    }
+
+    @Test
+    public void testEquals() {
+        HashCharShortMap map1 = newTrackedMap(), map2 = newTrackedMap();
+        for (int i = 0; i < 10; i++) {
+            map1.put((char) i, (short) i);
+            map2.put((char) i, (short) (i + 1));
+        }
+        assertFalse(map1.equals(map2));
+        for (int i = 0; i < 10; i++) {
+            map2.put((char) i, (short) i);
+        }
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+    }
+}
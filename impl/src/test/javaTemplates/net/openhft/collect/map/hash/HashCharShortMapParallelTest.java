@@ -0,0 +1,165 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.function.CharShortConsumer;
+import net.openhft.function.CharShortPredicate;
+import net.openhft.function.CharShortToShortFunction;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.getDefaultFactory;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static org.junit.Assert.*;
+
+
+public class HashCharShortMapParallelTest {
+
+    private static HashCharShortMap newBigTrackedMap() {
+        HashCharShortMapFactory factory = getDefaultFactory();
+        HashConfig tracked = HashConfig.getDefault().withHashCodeTracked(true);
+        HashCharShortMap map = factory.withConfig(/* if !(float|double key) */
+                factory.getConfig().withHashConfig(tracked)
+                /* elif float|double key //tracked// endif */).newMutableMap();
+        /* if !(byte|char|short key) */
+        // big enough to be split into several parts
+        int n = 100000;
+        /* elif byte|char|short key //
+        // a half of the key domain, some values should be left free
+        int n = 1 << (Character.SIZE - 1);
+        // endif */
+        for (int i = 0; i < n; i++) {
+            map.put((char) i, (short) i);
+        }
+        return map;
+    }
+
+    @Test
+    public void testParallelForEach() {
+        HashCharShortMap map = newBigTrackedMap();
+        final AtomicInteger count = new AtomicInteger();
+        map.parallelForEach(new CharShortConsumer() {
+            @Override
+            public void accept(char key, short value) {
+                count.incrementAndGet();
+            }
+        });
+        assertEquals(map.size(), count.get());
+    }
+
+    @Test
+    public void testParallelReplaceAll() {
+        HashCharShortMap map = newBigTrackedMap();
+        HashCharShortMap expected = newMutableMap(map);
+        CharShortToShortFunction increment = new CharShortToShortFunction() {
+            @Override
+            public short applyAsShort(char key, short value) {
+                return (short) (value + 1);
+            }
+        };
+        map.parallelReplaceAll(increment);
+        expected.replaceAll(increment);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testParallelRemoveIf() {
+        HashCharShortMap map = newBigTrackedMap();
+        HashCharShortMap expected = newMutableMap(map);
+        CharShortPredicate filter = new CharShortPredicate() {
+            @Override
+            public boolean test(char key, short value) {
+                return key % 3 == 0;
+            }
+        };
+        assertTrue(map.parallelRemoveIf(filter));
+        expected.removeIf(filter);
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertFalse(map.parallelRemoveIf(filter));
+        // the map is consistent after the parallel removal
+        map.put((char) 3, (short) 3);
+        assertEquals((short) 3, map.get((char) 3));
+        assertEquals(expected.size() + 1, map.size());
+    }
+
+    @Test
+    public void testParallelReplaceAllFailure() {
+        HashCharShortMap map = newBigTrackedMap();
+        final int failAfter = map.size() / 2;
+        final AtomicInteger applied = new AtomicInteger();
+        try {
+            map.parallelReplaceAll(new CharShortToShortFunction() {
+                @Override
+                public short applyAsShort(char key, short value) {
+                    if (applied.incrementAndGet() == failAfter)
+                        throw new IllegalStateException("function failure");
+                    return (short) (value + 1);
+                }
+            });
+            fail("the failure of the function should be rethrown");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // some values are replaced, the hash code shouldn't be the tracked one
+        HashCharShortMap copy = newMutableMap(map);
+        assertEquals(copy, map);
+        assertEquals(copy.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testParallelRemoveIfFailure() {
+        HashCharShortMap map = newBigTrackedMap();
+        final int failAfter = map.size() / 2;
+        final AtomicInteger tested = new AtomicInteger();
+        try {
+            map.parallelRemoveIf(new CharShortPredicate() {
+                @Override
+                public boolean test(char key, short value) {
+                    if (tested.incrementAndGet() == failAfter)
+                        throw new IllegalStateException("filter failure");
+                    return key % 3 == 0;
+                }
+            });
+            fail("the failure of the filter should be rethrown");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // all parts are finished before the failure is rethrown, so the size
+        // is counted after the last removal
+        int count = 0;
+        for (CharShortCursor cur = map.cursor(); cur.moveNext(); count++) {
+            assertEquals(cur.value(), map.get(cur.key()));
+        }
+        assertEquals(count, map.size());
+        HashCharShortMap copy = newMutableMap(map);
+        assertEquals(copy, map);
+        assertEquals(copy.hashCode(), map.hashCode());
+        map.put((char) 3, (short) 3);
+        assertEquals((short) 3, map.get((char) 3));
+        assertEquals(count + (copy.containsKey((char) 3) ? 0 : 1), map.size());
+    }
+}
@@ -0,0 +1,170 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.HashConfig;
+import net.openhft.collect.impl.hash.Hash;
+import org.junit.Test;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.getDefaultFactory;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static org.junit.Assert.*;
+
+
+/**
+ * Covers the slot by slot paths of {@code equals()} and {@code putAll()} between maps
+ * of the same capacity.
+ */
+public class HashCharShortMapSameCapacityTest {
+
+    private static final int EXPECTED_SIZE = 100;
+
+    private static HashCharShortMap newTrackedMap() {
+        HashCharShortMapFactory factory = getDefaultFactory();
+        HashConfig tracked = HashConfig.getDefault().withHashCodeTracked(true);
+        return factory.withConfig(/* if !(float|double key) */
+                factory.getConfig().withHashConfig(tracked)
+                /* elif float|double key //tracked// endif */).newMutableMap(EXPECTED_SIZE);
+    }
+
+    /**
+     * Puts keys from {@code from} until {@code to}, then removes every third of them,
+     * leaving removed slots in the table.
+     */
+    private static HashCharShortMap newMapWithRemovedSlots(int from, int to, int valueShift) {
+        HashCharShortMap map = newTrackedMap();
+        for (int i = from; i < to; i++) {
+            map.put((char) i, (short) (i + valueShift));
+        }
+        for (int i = from; i < to; i += 3) {
+            map.remove((char) i);
+        }
+        return map;
+    }
+
+    private static int capacity(HashCharShortMap map) {
+        return ((Hash) map).capacity();
+    }
+
+    private static int modCount(HashCharShortMap map) {
+        return ((Hash) map).modCount();
+    }
+
+    private static void assertHashCodeTracked(HashCharShortMap map) {
+        assertEquals(newMutableMap(map).hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testEqualsDifferentValues() {
+        HashCharShortMap map1 = newMapWithRemovedSlots(0, 90, 0);
+        HashCharShortMap map2 = newMapWithRemovedSlots(0, 90, 0);
+        assertEquals(capacity(map1), capacity(map2));
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+        // only a value differs, in the same slot
+        map2.put((char) 10, (short) 11);
+        assertFalse(map1.equals(map2));
+        assertFalse(map2.equals(map1));
+        map2.put((char) 10, (short) 10);
+        assertEquals(map1, map2);
+    }
+
+    @Test
+    public void testEqualsDifferentRemovedSlots() {
+        HashCharShortMap withRemoved = newMapWithRemovedSlots(0, 90, 0);
+        // the same entries without removed slots, some of them in other slots
+        HashCharShortMap withoutRemoved = newTrackedMap();
+        for (int i = 0; i < 90; i++) {
+            if (i % 3 != 0)
+                withoutRemoved.put((char) i, (short) i);
+        }
+        assertEquals(capacity(withRemoved), capacity(withoutRemoved));
+        assertEquals(withRemoved, withoutRemoved);
+        assertEquals(withoutRemoved, withRemoved);
+        assertEquals(withRemoved.hashCode(), withoutRemoved.hashCode());
+        withoutRemoved.put((char) 89, (short) 0);
+        assertFalse(withRemoved.equals(withoutRemoved));
+        assertFalse(withoutRemoved.equals(withRemoved));
+        // a removed key of one map is present in the other
+        withoutRemoved.put((char) 89, (short) 89);
+        withoutRemoved.put((char) 3, (short) 3);
+        withRemoved.put((char) 91, (short) 91);
+        assertEquals(withRemoved.size(), withoutRemoved.size());
+        assertFalse(withRemoved.equals(withoutRemoved));
+        assertFalse(withoutRemoved.equals(withRemoved));
+    }
+
+    @Test
+    public void testPutAllIntoEmpty() {
+        HashCharShortMap source = newMapWithRemovedSlots(0, 90, 0);
+        HashCharShortMap target = newTrackedMap();
+        assertEquals(capacity(source), capacity(target));
+        int modCount = modCount(target);
+        target.putAll(source);
+        assertTrue(modCount(target) != modCount);
+        assertEquals(source, target);
+        assertHashCodeTracked(target);
+        // the arrays are copied, not shared
+        target.put((char) 1, (short) 0);
+        target.remove((char) 2);
+        assertTrue(source.get((char) 1) == (short) 1);
+        assertTrue(source.containsKey((char) 2));
+        assertHashCodeTracked(target);
+        assertHashCodeTracked(source);
+    }
+
+    @Test
+    public void testPutAllSameSlots() {
+        HashCharShortMap source = newMapWithRemovedSlots(0, 90, 1);
+        HashCharShortMap target = newMapWithRemovedSlots(0, 90, 0);
+        assertEquals(capacity(source), capacity(target));
+        int modCount = modCount(target);
+        target.putAll(source);
+        // all keys are found in the same slots, values are overwritten in place
+        assertEquals(modCount, modCount(target));
+        assertEquals(source, target);
+        assertHashCodeTracked(target);
+    }
+
+    @Test
+    public void testPutAllIntoNonEmpty() {
+        HashCharShortMap source = newMapWithRemovedSlots(0, 60, 1);
+        HashCharShortMap target = newMapWithRemovedSlots(31, 91, 0);
+        assertEquals(capacity(source), capacity(target));
+        HashCharShortMap expected = newMutableMap(target);
+        for (int i = 0; i < 60; i++) {
+            if (i % 3 != 0)
+                expected.put((char) i, (short) (i + 1));
+        }
+        int modCount = modCount(target);
+        target.putAll(source);
+        // new keys are inserted
+        assertTrue(modCount(target) != modCount);
+        assertEquals(expected, target);
+        assertEquals(target, expected);
+        assertHashCodeTracked(target);
+        // keys, removed from the target, but present in the source, are inserted again
+        for (int i = 31; i < 60; i += 3) {
+            assertTrue(target.get((char) i) == (short) (i + 1));
+        }
+        assertFalse(target.containsKey((char) 30));
+    }
+}
@@ -0,0 +1,152 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.*;
+import static org.junit.Assert.*;
+
+
+public class HashCharShortMapSerializationTest {
+
+    private static HashCharShortMap newMap() {
+        HashCharShortMap map = getDefaultFactory().withDefaultValue((short) 3).newMutableMap();
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        // leave removed slots in the table
+        for (int i = 0; i < 100; i += 3) {
+            map.remove((char) i);
+        }
+        return map;
+    }
+
+    private static byte[] write(HashCharShortMap map) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        map.writeTo(out);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        HashCharShortMap map = newMap();
+        byte[] bytes = write(map);
+        HashCharShortMap read = readMap(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertEquals(map, read);
+        assertTrue(read.defaultValue() == (short) 3);
+        read.put((char) 0, (short) 0);
+        assertTrue(read.containsKey((char) 0));
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1);
+        buffer.put(bytes).flip();
+        HashCharShortMap fromBuffer = readMap(buffer);
+        assertEquals(map, fromBuffer);
+        assertEquals(bytes.length, buffer.position());
+
+        HashCharShortMap frozen = map.freeze();
+        read = readMap(new DataInputStream(new ByteArrayInputStream(write(frozen))));
+        assertEquals(frozen, read);
+        try {
+            read.put((char) 0, (short) 0);
+            fail("immutable map should be read immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Returns the position of the capacity, which is followed by the size and the number
+     * of removed slots.
+     */
+    private static int capacityPosition(HashCharShortMap map, byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        for (int i = 0; i + 12 <= bytes.length; i++) {
+            in.reset();
+            in.skipBytes(i);
+            int capacity = in.readInt(), size = in.readInt(), removed = in.readInt();
+            if (size == map.size() && removed >= 0 && capacity > size + removed)
+                return i;
+        }
+        throw new AssertionError("capacity isn't found");
+    }
+
+    @Test
+    public void testInvalidCapacity() throws IOException {
+        HashCharShortMap map = newMap();
+        byte[] bytes = write(map);
+        int capacityPos = capacityPosition(map, bytes);
+        // all capacities are odd
+        bytes[capacityPos + 3]++;
+        try {
+            readMap(new DataInputStream(new ByteArrayInputStream(bytes)));
+            fail("table of invalid capacity shouldn't be read");
+        } catch (InvalidObjectException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSizeNotMatchingKeys() throws IOException {
+        HashCharShortMap map = newMap();
+        byte[] bytes = write(map);
+        int capacityPos = capacityPosition(map, bytes);
+        // the size is still consistent with the capacity, but not with the keys
+        bytes[capacityPos + 7]--;
+        try {
+            readMap(new DataInputStream(new ByteArrayInputStream(bytes)));
+            fail("table with other number of keys, than the size, shouldn't be read");
+        } catch (InvalidObjectException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTruncatedBuffer() throws IOException {
+        byte[] bytes = write(newMap());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+        try {
+            readMap(buffer);
+            fail("truncated map shouldn't be read");
+        } catch (EOFException e) {
+            // expected
+        }
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testSerializable() throws IOException, ClassNotFoundException {
+        HashCharShortMap map = newMap();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        HashCharShortMap read = (HashCharShortMap) in.readObject();
+        assertEquals(map, read);
+        assertTrue(read.defaultValue() == (short) 3);
+    }
+}
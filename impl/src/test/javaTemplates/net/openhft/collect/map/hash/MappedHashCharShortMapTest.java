@@ -0,0 +1,150 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.HashOverflowException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMappedMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.openMappedMap;
+import static org.junit.Assert.*;
+
+
+public class MappedHashCharShortMapTest {
+
+    @Test
+    public void testPersistence() throws IOException {
+        File file = File.createTempFile("mapped", ".map");
+        try {
+            Random random = new Random(0);
+            HashCharShortMap expected = newMutableMap();
+            MappedHashCharShortMap map = newMappedMap(file, 100L);
+            try {
+                for (int i = 0; i < 10000; i++) {
+                    // keys 0 and 1 are stored apart from the table
+                    char key = (char) random.nextInt(120);
+                    short value = (short) random.nextInt(100);
+                    if (random.nextInt(3) == 0) {
+                        assertTrue(expected.remove(key) == map.remove(key));
+                    } else {
+                        assertTrue(expected.put(key, value) == map.put(key, value));
+                    }
+                    assertEquals(expected.size(), map.size());
+                }
+                map.force();
+            } finally {
+                map.close();
+            }
+
+            MappedHashCharShortMap readOnly = openMappedMap(file, true);
+            try {
+                assertTrue(readOnly.isReadOnly());
+                assertEquals(expected.size(), readOnly.size());
+                for (char key = 0; key < 120; key++) {
+                    assertEquals(expected.containsKey(key), readOnly.containsKey(key));
+                    assertTrue(expected.get(key) == readOnly.get(key));
+                }
+                try {
+                    readOnly.put((char) 2, (short) 2);
+                    fail("read-only map should be unmodifiable");
+                } catch (UnsupportedOperationException e) {
+                    // expected
+                }
+            } finally {
+                readOnly.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testUpdatesOfFullMap() throws IOException {
+        File file = File.createTempFile("mapped", ".map");
+        try {
+            MappedHashCharShortMap map = newMappedMap(file, 10L);
+            try {
+                int size = 0;
+                try {
+                    // keys 0 and 1 are stored apart from the table
+                    for (int key = 2; ; key++) {
+                        map.put((char) key, (short) 1);
+                        size++;
+                    }
+                } catch (HashOverflowException e) {
+                    // the map is full
+                }
+                assertEquals(size, map.size());
+                for (int key = 2; key < size + 2; key++) {
+                    assertTrue(map.put((char) key, (short) 2) == (short) 1);
+                    assertTrue(map.putIfAbsent((char) key, (short) 3) == (short) 2);
+                    assertTrue(map.incrementValue((char) key, (short) 1) == (short) 3);
+                }
+                assertEquals(size, map.size());
+                // compacts the table, if the new key doesn't reuse the removed slot
+                assertTrue(map.remove((char) 2) == (short) 3);
+                map.put((char) (size + 2), (short) 1);
+                assertEquals(size, map.size());
+                for (int key = 3; key < size + 2; key++) {
+                    assertTrue(map.get((char) key) == (short) 3);
+                }
+            } finally {
+                map.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testSingleWriter() throws IOException {
+        File file = File.createTempFile("mapped", ".map");
+        try {
+            MappedHashCharShortMap writer = newMappedMap(file, 10L);
+            try {
+                try {
+                    openMappedMap(file, false);
+                    fail("second writer should be refused");
+                } catch (IOException e) {
+                    // expected
+                }
+                writer.put((char) 3, (short) 3);
+                MappedHashCharShortMap reader = openMappedMap(file, true);
+                try {
+                    assertTrue(reader.get((char) 3) == (short) 3);
+                    writer.put((char) 3, (short) 4);
+                    assertTrue(reader.get((char) 3) == (short) 4);
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                writer.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
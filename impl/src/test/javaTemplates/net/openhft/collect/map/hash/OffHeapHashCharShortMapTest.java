@@ -0,0 +1,156 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newOffHeapMap;
+import static org.junit.Assert.*;
+
+
+public class OffHeapHashCharShortMapTest {
+
+    /** The keys, which bits mark free and removed slots of the table */
+    private static final char FREE_BITS_KEY =
+            /* if !(float|double key) */(char) 0/* elif float|double key //0.0f// endif */;
+    private static final char REMOVED_BITS_KEY =
+            /* if !(float|double key) */(char) 1
+            /* elif float key //Float.MIN_VALUE// elif double key //Double.MIN_VALUE// endif */;
+
+    @Test
+    public void testKeysStoredInVirtualSlots() {
+        OffHeapHashCharShortMap map = newOffHeapMap(4L);
+        try {
+            map.put(FREE_BITS_KEY, (short) 1);
+            map.put(REMOVED_BITS_KEY, (short) 2);
+            assertEquals(2, map.size());
+            // growth copies the values of the virtual slots
+            for (int i = 2; i < 100; i++) {
+                map.put((char) i, (short) i);
+            }
+            assertEquals((short) 1, map.get(FREE_BITS_KEY));
+            assertEquals((short) 2, map.get(REMOVED_BITS_KEY));
+            assertTrue(map.keySet().contains(FREE_BITS_KEY));
+            assertEquals((short) 2, map.remove(REMOVED_BITS_KEY));
+            assertFalse(map.containsKey(REMOVED_BITS_KEY));
+            // the removed key doesn't make the slot of another key look removed
+            for (int i = 2; i < 100; i++) {
+                assertEquals((short) i, map.get((char) i));
+            }
+            for (CharShortCursor cur = map.cursor(); cur.moveNext();) {
+                cur.remove();
+            }
+            assertTrue(map.isEmpty());
+            assertFalse(map.containsKey(FREE_BITS_KEY));
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testRemovedSlotsReuse() {
+        Map<Character, Short> expected = new HashMap<Character, Short>();
+        OffHeapHashCharShortMap map = newOffHeapMap(100L);
+        try {
+            // removals and insertions of new keys fill the table with removed slots,
+            // which should be either reused, or dropped by rebuilding of the table
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 60; i++) {
+                    char key = (char) (round * 60 + i);
+                    map.put(key, (short) i);
+                    expected.put(key, (short) i);
+                }
+                for (int i = 0; i < 60; i++) {
+                    char key = (char) (round * 60 + i);
+                    if (i % 6 != 0) {
+                        assertEquals(expected.remove(key), map.remove((Object) key));
+                    }
+                }
+                assertEquals(expected, map);
+            }
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+            assertEquals(expected.keySet(), map.keySet());
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testViewsRemoveThroughTable() {
+        OffHeapHashCharShortMap map = newOffHeapMap(10L);
+        try {
+            for (int i = 2; i < 12; i++) {
+                map.put((char) i, (short) (i % 2));
+            }
+            assertTrue(map.values().removeShort((short) 0));
+            assertEquals(9, map.size());
+            for (Iterator<Map.Entry<Character, Short>> it = map.entrySet().iterator();
+                 it.hasNext();) {
+                if (it.next().getValue() == (short) 1)
+                    it.remove();
+            }
+            assertEquals(4, map.size());
+            for (Map.Entry<Character, Short> e : map.entrySet()) {
+                e.setValue((short) 7);
+            }
+            assertFalse(map.containsValue((short) 0));
+            assertTrue(map.values().contains((short) 7));
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        OffHeapHashCharShortMap map = newOffHeapMap(10L);
+        map.put((char) 2, (short) 2);
+        CharShortCursor cur = map.cursor();
+        map.close();
+        map.close();
+        assertEquals(0, map.size());
+        try {
+            map.get((char) 2);
+            fail("closed map should be unusable");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            map.keySet().iterator();
+            fail("closed map should be unusable");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // the cursor mustn't read the released memory
+        try {
+            cur.moveNext();
+            fail("cursor over a closed map should be unusable");
+        } catch (ConcurrentModificationException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newPackedMap;
+import static org.junit.Assert.*;
+
+
+public class PackedHashCharShortMapTest {
+
+    @Test
+    public void testAgainstMutableMap() {
+        Random random = new Random(0);
+        HashCharShortMap expected = newMutableMap();
+        // 5 bits per value, so values cross word boundaries
+        PackedHashCharShortMap map = newPackedMap(4, (short) 3, (short) 34);
+        assertEquals(5, map.bitsPerValue());
+        for (int i = 0; i < 20000; i++) {
+            char key = (char) random.nextInt(120);
+            short value = (short) (3 + random.nextInt(32));
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertTrue(expected.remove(key) == map.remove(key));
+                    break;
+                case 1:
+                    short increment = (short) random.nextInt(4);
+                    long newValue = (long) expected.get(key) + increment;
+                    if (newValue < 3L || newValue > 34L) {
+                        try {
+                            map.incrementValue(key, increment);
+                            fail();
+                        } catch (IllegalArgumentException e) {
+                            // expected
+                        }
+                        assertTrue(expected.containsKey(key) == map.containsKey(key));
+                    } else {
+                        assertTrue(expected.incrementValue(key, increment) ==
+                                map.incrementValue(key, increment));
+                    }
+                    break;
+                default:
+                    assertTrue(expected.put(key, value) == map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        int count = 0;
+        for (CharShortCursor cur = map.cursor(); cur.moveNext(); count++) {
+            assertTrue(expected.get(cur.key()) == cur.value());
+        }
+        assertEquals(expected.size(), count);
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testViews() {
+        PackedHashCharShortMap map = newPackedMap(10, (short) 0, (short) 3);
+        for (int i = 2; i < 12; i++) {
+            map.put((char) i, (short) (i % 4));
+        }
+        assertTrue(map.keySet().contains((char) 5));
+        assertTrue(map.values().removeShort((short) 0));
+        assertEquals(9, map.size());
+        for (Iterator<Map.Entry<Character, Short>> it = map.entrySet().iterator();
+             it.hasNext();) {
+            if (it.next().getValue() == (short) 1)
+                it.remove();
+        }
+        assertEquals(6, map.size());
+        for (Map.Entry<Character, Short> e : map.entrySet()) {
+            e.setValue((short) 3);
+        }
+        assertFalse(map.containsValue((short) 2));
+        try {
+            map.entrySet().iterator().next().setValue((short) 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(map.containsValue((short) 4));
+        }
+        HashCharShortMap copy = newMutableMap(map);
+        assertEquals(copy, map);
+        assertEquals(copy.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testFootprint() {
+        // 2 bits per value instead of a whole short
+        PackedHashCharShortMap map = newPackedMap(100, (short) 0, (short) 3);
+        HashCharShortMap mutable = newMutableMap(100);
+        for (int i = 2; i < 100; i++) {
+            map.put((char) i, (short) (i & 3));
+            mutable.put((char) i, (short) (i & 3));
+        }
+        assertEquals(2, map.bitsPerValue());
+        assertTrue(map.bytesUsed() < mutable.bytesUsed());
+    }
+
+    @Test
+    public void testDomain() {
+        PackedHashCharShortMap map = newPackedMap(10, (short) 1, (short) 1);
+        assertEquals(1, map.bitsPerValue());
+        try {
+            map.put((char) 2, (short) 2);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(map.containsKey((char) 2));
+        }
+        map.put((char) 2, (short) 1);
+        assertTrue(map.get((char) 2) == (short) 1);
+
+        PackedHashCharShortMap full =
+                newPackedMap(10, Short.MIN_VALUE, Short.MAX_VALUE);
+        assertEquals(Short.SIZE, full.bitsPerValue());
+        for (int i = 0; i < 10; i++) {
+            full.put((char) i, (i & 1) == 0 ? Short.MIN_VALUE : Short.MAX_VALUE);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(full.get((char) i) == ((i & 1) == 0 ? Short.MIN_VALUE : Short.MAX_VALUE));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newPartitionedMap;
+import static org.junit.Assert.*;
+
+
+public class PartitionedHashCharShortMapTest {
+
+    @Test
+    public void testUpdatesAreAppliedInOrder() {
+        PartitionedHashCharShortMap map = newPartitionedMap(3, 100);
+        assertEquals(4, map.partitionCount());
+        PartitionedHashCharShortMap.Writer writer = map.newWriter();
+        for (int i = 0; i < 100; i++) {
+            writer.put((char) i, (short) i);
+            writer.incrementValue((char) i, (short) 1);
+            if (i % 2 == 0)
+                writer.remove((char) i);
+        }
+        writer.flush();
+        int applied = 0;
+        for (int p = 0; p < map.partitionCount(); p++) {
+            applied += map.drain(p);
+        }
+        assertEquals(250, applied);
+        for (int i = 0; i < 100; i++) {
+            HashCharShortMap partition = map.partition(map.partitionOf((char) i));
+            assertEquals(i % 2 != 0, partition.containsKey((char) i));
+            if (i % 2 != 0)
+                assertTrue(partition.get((char) i) == (short) (i + 1));
+        }
+    }
+
+    @Test
+    public void testOwnerDrainsConcurrentWriters() throws InterruptedException {
+        final PartitionedHashCharShortMap map = newPartitionedMap(2, 100);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        Thread[] owners = new Thread[map.partitionCount()];
+        for (int p = 0; p < owners.length; p++) {
+            final int partition = p;
+            owners[p] = new Thread() {
+                @Override
+                public void run() {
+                    while (writing.get()) {
+                        map.drain(partition);
+                    }
+                    map.drain(partition);
+                }
+            };
+            owners[p].start();
+        }
+        Thread[] writers = new Thread[3];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread() {
+                @Override
+                public void run() {
+                    PartitionedHashCharShortMap.Writer writer = map.newWriter();
+                    // more updates than ring capacity, to wait for the owners
+                    for (int round = 0; round < 100; round++) {
+                        for (int i = 0; i < 100; i++) {
+                            writer.incrementValue((char) i, (short) 1);
+                        }
+                    }
+                    writer.flush();
+                }
+            };
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread owner : owners) {
+            owner.join();
+        }
+        for (int i = 0; i < 100; i++) {
+            HashCharShortMap partition = map.partition(map.partitionOf((char) i));
+            assertTrue(partition.get((char) i) == (short) 300);
+        }
+    }
+
+    @Test
+    public void testClosedWriter() {
+        PartitionedHashCharShortMap map = newPartitionedMap(2, 100);
+        PartitionedHashCharShortMap.Writer writer = map.newWriter();
+        for (int i = 0; i < 10; i++) {
+            writer.put((char) i, (short) i);
+        }
+        // publishes the buffered updates
+        writer.close();
+        writer.close();
+        try {
+            writer.put((char) 0, (short) 0);
+            fail("closed writer shouldn't send updates");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        int applied = 0;
+        for (int p = 0; p < map.partitionCount(); p++) {
+            applied += map.drain(p);
+            assertEquals(0, map.drain(p));
+        }
+        assertEquals(10, applied);
+    }
+
+    @Test
+    public void testOwnersWriteToEachOther() throws InterruptedException {
+        final PartitionedHashCharShortMap map = newPartitionedMap(2, 100);
+        final char[] keys = new char[map.partitionCount()];
+        for (int i = 1, found = 0; found < keys.length; i++) {
+            int partition = map.partitionOf((char) i);
+            // zero marks the partitions without a key yet
+            if (keys[partition] == 0) {
+                keys[partition] = (char) i;
+                found++;
+            }
+        }
+        final AtomicInteger writing = new AtomicInteger(keys.length);
+        Thread[] owners = new Thread[keys.length];
+        for (int p = 0; p < owners.length; p++) {
+            final int partition = p;
+            owners[p] = new Thread() {
+                @Override
+                public void run() {
+                    PartitionedHashCharShortMap.Writer writer = map.newWriter(partition);
+                    // fills the ring to the other partition, which owner is writing too
+                    char key = keys[(partition + 1) % keys.length];
+                    for (int i = 0; i < 5000; i++) {
+                        writer.incrementValue(key, (short) 1);
+                    }
+                    writer.close();
+                    writing.decrementAndGet();
+                    while (writing.get() > 0) {
+                        map.drain(partition);
+                    }
+                    map.drain(partition);
+                }
+            };
+            owners[p].start();
+        }
+        for (Thread owner : owners) {
+            owner.join();
+        }
+        for (char key : keys) {
+            assertTrue(map.partition(map.partitionOf(key)).get(key) == (short) 5000);
+        }
+    }
+}
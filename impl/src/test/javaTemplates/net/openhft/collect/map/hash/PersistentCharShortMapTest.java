@@ -0,0 +1,159 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import net.openhft.collect.map.CharShortCursor;
+import net.openhft.collect.map.PersistentCharShortMap;
+import net.openhft.collect.map.TransientCharShortMap;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newMutableMap;
+import static net.openhft.collect.map.hash.HashCharShortMaps.newPersistentMap;
+import static org.junit.Assert.*;
+
+
+public class PersistentCharShortMapTest {
+
+    @Test
+    public void testVersionsAreIndependent() {
+        PersistentCharShortMap empty = newPersistentMap();
+        PersistentCharShortMap map = empty;
+        for (int i = 0; i < 100; i++) {
+            map = map.with((char) i, (short) i);
+        }
+        PersistentCharShortMap without = map.without((char) 42);
+        assertEquals(0, empty.size());
+        assertEquals(100, map.size());
+        assertEquals(99, without.size());
+        assertTrue(map.containsKey((char) 42));
+        assertFalse(without.containsKey((char) 42));
+        assertSame(map, map.with((char) 1, (short) 1));
+        assertSame(without, without.without((char) 42));
+        assertEquals(map, without.with((char) 42, (short) 42));
+        assertEquals(map.hashCode(), without.with((char) 42, (short) 42).hashCode());
+        for (int i = 0; i < 100; i += 2) {
+            map = map.without((char) i);
+        }
+        assertEquals(50, map.size());
+        int count = 0;
+        for (CharShortCursor cur = map.cursor(); cur.moveNext(); count++) {
+            assertTrue(cur.key() == (char) cur.value());
+        }
+        assertEquals(50, count);
+    }
+
+    @Test
+    public void testAgainstMutableMap() {
+        Random random = new Random(0);
+        HashCharShortMap expected = newMutableMap();
+        PersistentCharShortMap map = newPersistentMap();
+        TransientCharShortMap builder = map.asTransient();
+        for (int i = 0; i < 10000; i++) {
+            char key = (char) random.nextInt(200);
+            short value = (short) random.nextInt(10);
+            if (random.nextInt(3) == 0) {
+                assertTrue(expected.remove(key) == builder.remove(key));
+                map = map.without(key);
+            } else {
+                assertTrue(expected.put(key, value) == builder.put(key, value));
+                map = map.with(key, value);
+            }
+            if (i % 1000 == 0) {
+                PersistentCharShortMap built = builder.persistent();
+                assertEquals(map, built);
+                // the builder is usable after publishing, and doesn't change published maps
+                builder.put((char) 250, (short) 1);
+                builder.remove((char) 250);
+                assertEquals(map, built);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), builder.size());
+        for (int key = 0; key < 200; key++) {
+            assertTrue(expected.get((char) key) == map.get((char) key));
+            assertTrue(expected.get((char) key) == builder.get((char) key));
+        }
+        assertEquals(map, builder.persistent());
+    }
+
+    @Test
+    public void testReadOnlyMapViews() {
+        HashCharShortMap expected = newMutableMap();
+        PersistentCharShortMap map = newPersistentMap();
+        for (int i = 0; i < 50; i++) {
+            expected.put((char) i, (short) (i % 7));
+            map = map.with((char) i, (short) (i % 7));
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected.keySet(), map.keySet());
+        assertEquals(expected.entrySet(), map.entrySet());
+        assertEquals(expected.values().size(), map.values().size());
+        assertTrue(map.containsValue((short) 6));
+        assertFalse(map.containsValue((short) 7));
+        assertEquals(Short.valueOf((short) 3), map.get((Object) Character.valueOf((char) 10)));
+        assertNull(map.get((Object) Character.valueOf((char) 60)));
+        try {
+            map.put((char) 60, (short) 1);
+            fail("persistent map should be read-only");
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+        try {
+            map.keySet().remove(Character.valueOf((char) 1));
+            fail("views of a persistent map should be read-only");
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+        try {
+            CharShortCursor cur = map.cursor();
+            cur.moveNext();
+            cur.remove();
+            fail("cursor of a persistent map should be read-only");
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+        assertEquals(50, map.size());
+    }
+
+    /* if long key */
+    @Test
+    public void testHashCollisions() {
+        // (int) (key ^ (key >>> 32)) is 0 for all these keys
+        PersistentCharShortMap map = newPersistentMap();
+        for (long i = 0; i < 10; i++) {
+            map = map.with(i | (i << 32), (short) i);
+        }
+        assertEquals(10, map.size());
+        for (long i = 0; i < 10; i++) {
+            assertTrue(map.get(i | (i << 32)) == (short) i);
+        }
+        for (long i = 0; i < 9; i++) {
+            map = map.without(i | (i << 32));
+        }
+        assertEquals(1, map.size());
+        assertTrue(map.get(9L | (9L << 32)) == (short) 9);
+    }
+    /* endif */
+}
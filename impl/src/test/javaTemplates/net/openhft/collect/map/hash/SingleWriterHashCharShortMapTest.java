@@ -0,0 +1,89 @@
+/* with
+ char|byte|short|int|long|float|double key
+ short|byte|char|int|long|float|double value
+*/
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.map.hash;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.openhft.collect.map.hash.HashCharShortMaps.newSingleWriterMap;
+import static org.junit.Assert.*;
+
+
+public class SingleWriterHashCharShortMapTest {
+
+    @Test
+    public void testBasicOperations() {
+        ConcurrentHashCharShortMap map = newSingleWriterMap(10);
+        assertTrue(map.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) i);
+        }
+        assertEquals(100, map.size());
+        assertTrue(map.containsKey((char) 42));
+        assertTrue(map.get((char) 42) == (short) 42);
+        assertTrue(map.remove((char) 42) == (short) 42);
+        assertFalse(map.containsKey((char) 42));
+        assertTrue(map.get((char) 42) == map.defaultValue());
+        assertTrue(map.incrementValue((char) 1, (short) 1) == (short) 2);
+        assertTrue(map.get((char) 1) == (short) 2);
+        assertEquals(99, map.snapshot().size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertTrue(map.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testLookupsDuringRehashes() throws InterruptedException {
+        final ConcurrentHashCharShortMap map = newSingleWriterMap(10);
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                while (!stop.get()) {
+                    // grows the map from the small initial capacity, rehashing several times
+                    for (int i = 0; i < 100; i++) {
+                        map.put((char) i, (short) i);
+                    }
+                    for (int i = 0; i < 100; i += 2) {
+                        map.remove((char) i);
+                    }
+                    map.shrink();
+                    map.clear();
+                    map.shrink();
+                }
+            }
+        };
+        writer.start();
+        try {
+            for (int r = 0; r < 1000; r++) {
+                for (int i = 0; i < 100; i++) {
+                    short value = map.get((char) i);
+                    assertTrue(value == map.defaultValue() || value == (short) i);
+                }
+                assertTrue(map.snapshot().size() <= 100);
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.CharCursor;
+import net.openhft.collect.CharIterator;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static net.openhft.collect.set.hash.HashCharSets.newChunkedSet;
+import static net.openhft.collect.set.hash.HashCharSets.newMutableSet;
+import static org.junit.Assert.*;
+
+
+public class ChunkedHashCharSetTest {
+
+    @Test
+    public void testAgainstMutableSet() {
+        Random random = new Random(0);
+        HashCharSet expected = newMutableSet();
+        // small expected size, to test growth and rebuilding after removals
+        ChunkedHashCharSet set = newChunkedSet(4L);
+        for (int i = 0; i < 20000; i++) {
+            // elements 0 and 1 are stored apart from the table
+            char elem = (char) random.nextInt(120);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.removeChar(elem), set.removeChar(elem));
+            } else {
+                assertEquals(expected.add(elem), set.add(elem));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        int count = 0;
+        for (CharCursor cur = set.cursor(); cur.moveNext(); count++) {
+            assertTrue(expected.contains(cur.elem()));
+        }
+        assertEquals(expected.size(), count);
+        for (CharIterator it = set.iterator(); it.hasNext();) {
+            it.nextChar();
+            it.remove();
+        }
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains((char) 0));
+        assertFalse(set.contains((char) 1));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        ChunkedHashCharSet set = newChunkedSet(0L);
+        HashCharSet evens = newMutableSet();
+        for (char elem = 0; elem < 100; elem++) {
+            set.add(elem);
+            if (elem % 2 == 0)
+                evens.add(elem);
+        }
+        assertTrue(set.containsAll(evens));
+        assertTrue(set.removeAll(evens));
+        assertEquals(50, set.size());
+        assertFalse(set.containsAll(evens));
+        assertTrue(set.addAll(evens));
+        assertEquals(100, set.size());
+        assertTrue(set.retainAll(evens));
+        assertEquals(evens, set);
+        assertEquals(50, set.toCharArray().length);
+    }
+}
@@ -0,0 +1,86 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import org.junit.Test;
+
+import static net.openhft.collect.set.hash.HashCharSets.newImmutableSet;
+import static net.openhft.collect.set.hash.HashCharSets.newMutableSet;
+import static org.junit.Assert.*;
+
+
+public class HashCharSetAlgebraTest {
+
+    private static HashCharSet range(int from, int to) {
+        HashCharSet set = newMutableSet(to - from);
+        for (int i = from; i < to; i++) {
+            set.add((char) i);
+        }
+        return set;
+    }
+
+    @Test
+    public void testIntersection() {
+        HashCharSet a = range(0, 60);
+        HashCharSet b = range(40, 100);
+        assertEquals(20, a.intersectionSize(b));
+        assertEquals(20, b.intersectionSize(a));
+        assertEquals(range(40, 60), a.intersect(b));
+        assertEquals(range(40, 60), b.intersect(a));
+        assertEquals(0, a.intersectionSize(range(100, 110)));
+        assertEquals(a.size(), a.intersectionSize(a));
+    }
+
+    @Test
+    public void testIntersectionWithTombstones() {
+        HashCharSet a = range(0, 60);
+        for (int i = 0; i < 60; i += 2) {
+            a.removeChar((char) i);
+        }
+        HashCharSet b = newMutableSet(a);
+        b.add((char) 100);
+        assertEquals(30, a.intersectionSize(b));
+        assertEquals(a, b.intersect(a));
+        assertEquals(a, a.intersect(newImmutableSet(b)));
+    }
+
+    @Test
+    public void testUnion() {
+        HashCharSet a = range(0, 10);
+        HashCharSet b = range(5, 50);
+        assertEquals(range(0, 50), a.union(b));
+        assertEquals(range(0, 50), b.union(a));
+        assertEquals(range(0, 50), newImmutableSet(a).union(b));
+    }
+
+    @Test
+    public void testDifference() {
+        HashCharSet a = range(0, 50);
+        assertEquals(range(0, 45), a.difference(range(45, 100)));
+        assertEquals(range(10, 50), a.difference(range(0, 10)));
+        assertTrue(a.difference(a).isEmpty());
+        assertEquals(range(0, 10), newImmutableSet(range(0, 20)).difference(range(10, 20)));
+    }
+
+    @Test
+    public void testJaccard() {
+        assertEquals(1.0, newMutableSet().jaccard(newMutableSet()), 0.0);
+        assertEquals(0.5, range(0, 20).jaccard(range(0, 10)), 0.0);
+        assertEquals(1.0 / 3.0, range(0, 20).jaccard(range(10, 30)), 1e-9);
+    }
+}
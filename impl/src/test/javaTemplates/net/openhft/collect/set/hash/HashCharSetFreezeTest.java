@@ -0,0 +1,59 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import org.junit.Test;
+
+import static net.openhft.collect.set.hash.HashCharSets.newImmutableSet;
+import static net.openhft.collect.set.hash.HashCharSets.newMutableSet;
+import static org.junit.Assert.*;
+
+
+public class HashCharSetFreezeTest {
+
+    @Test
+    public void testFreezeHandsOverContents() {
+        HashCharSet set = newMutableSet();
+        for (int i = 0; i < 60; i++) {
+            set.add((char) i);
+        }
+        for (int i = 0; i < 60; i += 2) {
+            set.removeChar((char) i);
+        }
+        HashCharSet expected = newMutableSet(set);
+        HashCharSet frozen = set.freeze();
+        assertEquals(expected, frozen);
+        assertTrue(set.isEmpty());
+        assertSame(frozen, frozen.freeze());
+        try {
+            frozen.add((char) 100);
+            fail();
+        } catch (UnsupportedOperationException expectedException) {
+            // expected
+        }
+        set.add((char) 100);
+        assertEquals(1, set.size());
+        assertEquals(expected, frozen);
+    }
+
+    @Test
+    public void testFreezeOfImmutable() {
+        HashCharSet immutable = newImmutableSet(newMutableSet());
+        assertSame(immutable, immutable.freeze());
+    }
+}
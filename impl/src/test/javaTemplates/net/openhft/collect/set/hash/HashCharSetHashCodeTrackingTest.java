@@ -0,0 +1,88 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.*;
+import net.openhft.collect.set.CharSet;
+import net.openhft.function.CharPredicate;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static net.openhft.collect.set.hash.HashCharSets.getDefaultFactory;
+import static net.openhft.collect.set.hash.HashCharSets.newMutableSet;
+import static org.junit.Assert.*;
+
+
+public class HashCharSetHashCodeTrackingTest {
+
+    private static HashCharSet newTrackedSet() {
+        HashCharSetFactory factory = getDefaultFactory();
+        HashConfig tracked = HashConfig.getDefault().withHashCodeTracked(true);
+        return factory.withConfig(/* if !(float|double elem) */
+                factory.getConfig().withHashConfig(tracked)
+                /* elif float|double elem //tracked// endif */).newMutableSet();
+    }
+
+    private static void assertHashCodeTracked(CharSet set) {
+        assertEquals(newMutableSet(set).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testHashCodeTracked() {
+        HashCharSet set = newTrackedSet();
+        assertEquals(0, set.hashCode());
+        for (int i = 0; i < 100; i++) {
+            set.add((char) i);
+        }
+        assertHashCodeTracked(set);
+        for (int i = 0; i < 100; i += 3) {
+            set.removeChar((char) i);
+        }
+        assertHashCodeTracked(set);
+        Iterator<Character> it = set.iterator();
+        it.next();
+        it.remove();
+        assertHashCodeTracked(set);
+        set.removeIf(new CharPredicate() {
+            @Override
+            public boolean test(char value) {
+                return value > (char) 50;
+            }
+        });
+        assertHashCodeTracked(set);
+        set.clear();
+        assertEquals(0, set.hashCode());
+        set.add((char) 42);
+        assertHashCodeTracked(set);
+    }
+
+    @Test
+    public void testEquals() {
+        HashCharSet set1 = newTrackedSet(), set2 = newTrackedSet();
+        for (int i = 0; i < 10; i++) {
+            set1.add((char) i);
+            set2.add((char) (i + 1));
+        }
+        assertFalse(set1.equals(set2));
+        set2.removeChar((char) 10);
+        set2.add((char) 0);
+        assertEquals(set1, set2);
+        assertEquals(set1.hashCode(), set2.hashCode());
+    }
+}
@@ -0,0 +1,153 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.set.hash;
+
+import net.openhft.collect.CharCursor;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static net.openhft.collect.set.hash.HashCharSets.newOffHeapSet;
+import static org.junit.Assert.*;
+
+
+public class OffHeapHashCharSetTest {
+
+    /** The elements, which bits mark free and removed slots of the table */
+    private static final char FREE_BITS_ELEM =
+            /* if !(float|double elem) */(char) 0/* elif float|double elem //0.0f// endif */;
+    private static final char REMOVED_BITS_ELEM =
+            /* if !(float|double elem) */(char) 1
+            /* elif float elem //Float.MIN_VALUE// elif double elem //Double.MIN_VALUE// endif */;
+
+    @Test
+    public void testElemsStoredInVirtualSlots() {
+        OffHeapHashCharSet set = newOffHeapSet(4L);
+        try {
+            assertTrue(set.add(FREE_BITS_ELEM));
+            assertTrue(set.add(REMOVED_BITS_ELEM));
+            assertFalse(set.add(FREE_BITS_ELEM));
+            assertEquals(2, set.size());
+            // growth keeps the elements of the virtual slots
+            for (int i = 2; i < 100; i++) {
+                set.add((char) i);
+            }
+            assertTrue(set.contains(FREE_BITS_ELEM));
+            assertTrue(set.removeChar(REMOVED_BITS_ELEM));
+            assertFalse(set.contains(REMOVED_BITS_ELEM));
+            // the removed element doesn't make the slot of another element look removed
+            for (int i = 2; i < 100; i++) {
+                assertTrue(set.contains((char) i));
+            }
+            for (CharCursor cur = set.cursor(); cur.moveNext();) {
+                cur.remove();
+            }
+            assertTrue(set.isEmpty());
+            assertFalse(set.contains(FREE_BITS_ELEM));
+        } finally {
+            set.close();
+        }
+    }
+
+    @Test
+    public void testRemovedSlotsReuse() {
+        Set<Character> expected = new HashSet<Character>();
+        OffHeapHashCharSet set = newOffHeapSet(100L);
+        try {
+            // removals and insertions of new elements fill the table with removed slots,
+            // which should be either reused, or dropped by rebuilding of the table
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 60; i++) {
+                    char elem = (char) (round * 60 + i);
+                    set.add(elem);
+                    expected.add(elem);
+                }
+                for (int i = 0; i < 60; i++) {
+                    char elem = (char) (round * 60 + i);
+                    if (i % 6 != 0) {
+                        assertEquals(expected.remove(elem), set.remove((Object) elem));
+                    }
+                }
+                assertEquals(expected, set);
+            }
+            assertEquals(set, expected);
+            assertEquals(expected.hashCode(), set.hashCode());
+        } finally {
+            set.close();
+        }
+    }
+
+    @Test
+    public void testBulkOperationsRemoveThroughTable() {
+        OffHeapHashCharSet set = newOffHeapSet(10L);
+        try {
+            Set<Character> evens = new HashSet<Character>();
+            for (int i = 2; i < 12; i++) {
+                set.add((char) i);
+                if (i % 2 == 0)
+                    evens.add((char) i);
+            }
+            assertTrue(set.containsAll(evens));
+            assertTrue(set.retainAll(evens));
+            assertEquals(evens, set);
+            for (Iterator<Character> it = set.iterator(); it.hasNext();) {
+                if (it.next() == (char) 2)
+                    it.remove();
+            }
+            assertEquals(4, set.size());
+            assertTrue(set.removeAll(evens));
+            assertTrue(set.isEmpty());
+            assertTrue(set.addAll(evens));
+            assertEquals(5, set.toCharArray().length);
+        } finally {
+            set.close();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        OffHeapHashCharSet set = newOffHeapSet(10L);
+        set.add((char) 2);
+        CharCursor cur = set.cursor();
+        set.close();
+        set.close();
+        assertEquals(0, set.size());
+        try {
+            set.contains((char) 2);
+            fail("closed set should be unusable");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            set.iterator();
+            fail("closed set should be unusable");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // the cursor mustn't read the released memory
+        try {
+            cur.moveNext();
+            fail("cursor over a closed set should be unusable");
+        } catch (ConcurrentModificationException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.impl.hash;
+
+import net.openhft.collect.CharCollection;
+
+import javax.annotation.Nullable;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.*;
+
+
+/* define spliterator */
+/* if !(long|float|double elem) //Spliterator.OfInt// elif long elem //Spliterator.OfLong
+// elif float|double elem //Spliterator.OfDouble// endif */
+/* enddefine */
+
+/* define consumer */
+/* if !(long|float|double elem) //IntConsumer// elif long elem //LongConsumer
+// elif float|double elem //DoubleConsumer// endif */
+/* enddefine */
+
+/**
+ * Spliterators over the tables of {@code char} hash sets, key sets and values views
+ * of hash maps. The table is split in halves by index range, so the parts hold roughly
+ * equal numbers of elements.
+ */
+public final class DHashCharSpliterators {
+
+    /**
+     * Returns a spliterator over the slots of the table, backing the given collection,
+     * or {@code null}, if the collection isn't a hash set or a view of a hash map.
+     * The spliterator is late-binding: it reads the table on the first traversal,
+     * split or size estimate, rather than on creation.
+     */
+    @Nullable
+    public static /*spliterator*/Spliterator.OfInt/**/ spliterator(CharCollection c) {
+        if (c instanceof CharDHash) {
+            return new KeySpliterator((CharDHash) c,
+                    Spliterator.SIZED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+        if (c instanceof DHashCharValues) {
+            return new ValueSpliterator((DHashCharValues) c,
+                    Spliterator.SIZED | Spliterator.NONNULL);
+        }
+        return null;
+    }
+
+    abstract static class SlotSpliterator implements /*spliterator*/Spliterator.OfInt/**/ {
+        private final Hash hash;
+        private int expectedModCount;
+        int index;
+        /**
+         * -1 until the spliterator is bound to the table, see {@link #bind()}.
+         */
+        int fence;
+        private long estimatedSize;
+        private int characteristics;
+
+        SlotSpliterator(Hash hash, int characteristics) {
+            this.hash = hash;
+            fence = -1;
+            this.characteristics = characteristics;
+        }
+
+        /**
+         * Creates a part of the given spliterator, bound to the same table.
+         */
+        SlotSpliterator(SlotSpliterator parent, int index, int fence, long estimatedSize) {
+            hash = parent.hash;
+            expectedModCount = parent.expectedModCount;
+            this.index = index;
+            this.fence = fence;
+            this.estimatedSize = estimatedSize;
+            characteristics = parent.characteristics;
+        }
+
+        /**
+         * Reads the table arrays of the hash into the fields of the spliterator.
+         *
+         * @return the capacity of the table
+         */
+        abstract int bindTable();
+
+        /**
+         * Should be called before each traversal, split and size estimate. Modifications
+         * of the hash before the first of these calls are seen by the spliterator.
+         */
+        final void bind() {
+            if (fence < 0) {
+                expectedModCount = hash.modCount();
+                estimatedSize = hash.size();
+                fence = bindTable();
+            }
+        }
+
+        /**
+         * Creates a spliterator of the same kind over the given part of the table.
+         */
+        abstract SlotSpliterator split(int from, int to, long estimatedSize);
+
+        @Override
+        public final SlotSpliterator trySplit() {
+            bind();
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid)
+                return null;
+            index = mid;
+            // Exact sizes of the parts are unknown, but full slots are spread
+            // over the table uniformly
+            characteristics &= ~Spliterator.SIZED;
+            estimatedSize >>>= 1;
+            return split(lo, mid, estimatedSize);
+        }
+
+        @Override
+        public final long estimateSize() {
+            bind();
+            return estimatedSize;
+        }
+
+        @Override
+        public final int characteristics() {
+            return characteristics;
+        }
+
+        /**
+         * Should be called after each element, passed to the action in {@code tryAdvance}.
+         */
+        final void advanced() {
+            if ((characteristics & Spliterator.SIZED) != 0)
+                estimatedSize--;
+        }
+
+        /**
+         * Should be called when the range is exhausted.
+         */
+        final void finished() {
+            index = fence;
+            if ((characteristics & Spliterator.SIZED) != 0)
+                estimatedSize = 0;
+        }
+
+        /**
+         * Should be called before each read from the table arrays. If the hash is rehashed,
+         * its old arrays might be recycled and already hold the entries of another hash.
+         */
+        final void checkModCount() {
+            if (hash.modCount() != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    static final class KeySpliterator extends SlotSpliterator {
+        private final CharDHash hash;
+        private /* bits */char[] keys;
+        private /* bits */char free, removed;
+
+        KeySpliterator(CharDHash hash, int characteristics) {
+            super(hash, characteristics);
+            this.hash = hash;
+        }
+
+        private KeySpliterator(KeySpliterator parent, int index, int fence,
+                long estimatedSize) {
+            super(parent, index, fence, estimatedSize);
+            hash = parent.hash;
+            keys = parent.keys;
+            free = parent.free;
+            removed = parent.removed;
+        }
+
+        @Override
+        int bindTable() {
+            CharDHash hash = this.hash;
+            /* bits */char[] keys = this.keys = hash.keys();
+            /* if !(float|double elem) */
+            free = hash.freeValue();
+            removed = hash.supportRemoved() ? hash.removedValue() : free;
+            /* elif float|double elem //
+            free = CharHash.FREE_BITS;
+            removed = CharHash.REMOVED_BITS;
+            // endif */
+            return keys.length;
+        }
+
+        @Override
+        SlotSpliterator split(int from, int to, long estimatedSize) {
+            return new KeySpliterator(this, from, to, estimatedSize);
+        }
+
+        @Override
+        public boolean tryAdvance(/*consumer*/IntConsumer/**/ action) {
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            checkModCount();
+            /* bits */char[] keys = this.keys;
+            /* bits */char free = this.free, removed = this.removed;
+            for (int i = index, fence = this.fence; i < fence; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    index = i + 1;
+                    advanced();
+                    action.accept(/* wrap elem */key/**/);
+                    return true;
+                }
+            }
+            finished();
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(/*consumer*/IntConsumer/**/ action) {
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            checkModCount();
+            /* bits */char[] keys = this.keys;
+            /* bits */char free = this.free, removed = this.removed;
+            for (int i = index, fence = this.fence; i < fence; i++) {
+                /* bits */char key;
+                if ((key = keys[i]) != free && key != removed) {
+                    action.accept(/* wrap elem */key/**/);
+                    checkModCount();
+                }
+            }
+            finished();
+        }
+    }
+
+    static final class ValueSpliterator extends SlotSpliterator {
+        private final DHashCharValues values;
+        private /* bits */char[] vals;
+
+        ValueSpliterator(DHashCharValues values, int characteristics) {
+            super(values.hash(), characteristics);
+            this.values = values;
+        }
+
+        private ValueSpliterator(ValueSpliterator parent, int index, int fence,
+                long estimatedSize) {
+            super(parent, index, fence, estimatedSize);
+            values = parent.values;
+            vals = parent.vals;
+        }
+
+        @Override
+        int bindTable() {
+            return (vals = values.valueArray()).length;
+        }
+
+        @Override
+        SlotSpliterator split(int from, int to, long estimatedSize) {
+            return new ValueSpliterator(this, from, to, estimatedSize);
+        }
+
+        @Override
+        public boolean tryAdvance(/*consumer*/IntConsumer/**/ action) {
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            checkModCount();
+            int i = values.nextFullSlot(index, fence);
+            if (i < fence) {
+                index = i + 1;
+                advanced();
+                action.accept(/* wrap elem */vals[i]/**/);
+                return true;
+            }
+            finished();
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(/*consumer*/IntConsumer/**/ action) {
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            DHashCharValues values = this.values;
+            /* bits */char[] vals = this.vals;
+            int fence = this.fence;
+            checkModCount();
+            for (int i = values.nextFullSlot(index, fence); i < fence;
+                 i = values.nextFullSlot(i + 1, fence)) {
+                action.accept(/* wrap elem */vals[i]/**/);
+                checkModCount();
+            }
+            finished();
+        }
+    }
+
+    private DHashCharSpliterators() {}
+}
@@ -0,0 +1,190 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.stream;
+
+import net.openhft.collect.CharCollection;
+import net.openhft.collect.CharCursor;
+import net.openhft.collect.impl.hash.DHashCharSpliterators;
+import net.openhft.collect.set.CharSet;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+
+/* define spliterator */
+/* if !(long|float|double elem) //Spliterator.OfInt// elif long elem //Spliterator.OfLong
+// elif float|double elem //Spliterator.OfDouble// endif */
+/* enddefine */
+
+/* define consumer */
+/* if !(long|float|double elem) //IntConsumer// elif long elem //LongConsumer
+// elif float|double elem //DoubleConsumer// endif */
+/* enddefine */
+
+/* define iterator */
+/* if !(long|float|double elem) //PrimitiveIterator.OfInt// elif long elem
+//PrimitiveIterator.OfLong// elif float|double elem //PrimitiveIterator.OfDouble// endif */
+/* enddefine */
+
+/* define stream */
+/* if !(long|float|double elem) //IntStream// elif long elem //LongStream
+// elif float|double elem //DoubleStream// endif */
+/* enddefine */
+
+/* define streamSupport */
+/* if !(long|float|double elem) //intStream// elif long elem //longStream
+// elif float|double elem //doubleStream// endif */
+/* enddefine */
+
+/**
+ * Unboxed Java 8 streams over {@code char} collections.
+ *
+ * <p>Hash sets, key sets and values views of hash maps are traversed and split
+ * directly over their tables, by index range. So
+ * {@code CharStreams.parallelStream(map.keySet())} runs without boxing and splits evenly.
+ * Spliterators over hash sets and key sets report {@link Spliterator#SIZED},
+ * {@link Spliterator#DISTINCT} and {@link Spliterator#NONNULL} characteristics.
+ * Spliterators over values views don't report {@code DISTINCT}. Other collections
+ * are traversed with their cursors.
+ */
+public final class CharStreams {
+
+    /**
+     * Returns a late-binding and fail-fast spliterator over the elements of the given
+     * collection. The spliterator binds to the collection on the first traversal, split
+     * or size estimate, so modifications of the collection before that are reflected
+     * in the elements and the size of the spliterator.
+     *
+     * @param c the collection
+     * @return a spliterator over the elements of the collection
+     */
+    @Nonnull
+    public static /*spliterator*/Spliterator.OfInt/**/ spliterator(
+            @Nonnull CharCollection c) {
+        /*spliterator*/Spliterator.OfInt/**/ spliterator = DHashCharSpliterators.spliterator(c);
+        if (spliterator != null)
+            return spliterator;
+        int characteristics = c instanceof CharSet ?
+                Spliterator.DISTINCT | Spliterator.NONNULL : Spliterator.NONNULL;
+        return new CursorSpliterator(c, characteristics);
+    }
+
+    /**
+     * Returns a sequential stream over the elements of the given collection.
+     *
+     * @param c the collection
+     * @return a sequential stream over the elements of the collection
+     */
+    @Nonnull
+    public static /*stream*/IntStream/**/ stream(@Nonnull CharCollection c) {
+        return StreamSupport./*streamSupport*/intStream/**/(spliterator(c), false);
+    }
+
+    /**
+     * Returns a possibly parallel stream over the elements of the given collection.
+     *
+     * @param c the collection
+     * @return a possibly parallel stream over the elements of the collection
+     */
+    @Nonnull
+    public static /*stream*/IntStream/**/ parallelStream(@Nonnull CharCollection c) {
+        return StreamSupport./*streamSupport*/intStream/**/(spliterator(c), true);
+    }
+
+    /**
+     * Creates the cursor and the spliterator over it on the first use, rather than
+     * on creation.
+     */
+    private static final class CursorSpliterator
+            implements /*spliterator*/Spliterator.OfInt/**/ {
+        private final CharCollection c;
+        private final int characteristics;
+        private /*spliterator*/Spliterator.OfInt/**/ spliterator;
+
+        CursorSpliterator(CharCollection c, int characteristics) {
+            this.c = c;
+            this.characteristics = characteristics;
+        }
+
+        private /*spliterator*/Spliterator.OfInt/**/ bind() {
+            /*spliterator*/Spliterator.OfInt/**/ spliterator;
+            if ((spliterator = this.spliterator) == null) {
+                spliterator = this.spliterator = Spliterators.spliterator(
+                        iterator(c.cursor()), c.size(), characteristics);
+            }
+            return spliterator;
+        }
+
+        @Override
+        public boolean tryAdvance(/*consumer*/IntConsumer/**/ action) {
+            return bind().tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(/*consumer*/IntConsumer/**/ action) {
+            bind().forEachRemaining(action);
+        }
+
+        @Override
+        public /*spliterator*/Spliterator.OfInt/**/ trySplit() {
+            return bind().trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return bind().estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            /*spliterator*/Spliterator.OfInt/**/ spliterator;
+            return (spliterator = this.spliterator) != null ? spliterator.characteristics() :
+                    // as reported by the spliterator over an iterator of a known size
+                    characteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    private static /*iterator*/PrimitiveIterator.OfInt/**/ iterator(final CharCursor cur) {
+        return new /*iterator*/PrimitiveIterator.OfInt/**/() {
+            private boolean advanced, hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced) {
+                    hasNext = cur.moveNext();
+                    advanced = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public /* if !(long|float|double elem) */int nextInt()
+                    /* elif long elem //long nextLong()
+                    // elif float|double elem //double nextDouble()// endif */ {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                advanced = false;
+                return cur.elem();
+            }
+        };
+    }
+
+    private CharStreams() {}
+}
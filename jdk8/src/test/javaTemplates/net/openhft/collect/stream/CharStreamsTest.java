@@ -0,0 +1,104 @@
+/* with char|byte|short|int|long|float|double elem */
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.collect.stream;
+
+import net.openhft.collect.map.hash.HashCharShortMap;
+import net.openhft.collect.map.hash.HashCharShortMaps;
+import net.openhft.collect.map.hash.HashShortCharMap;
+import net.openhft.collect.map.hash.HashShortCharMaps;
+import net.openhft.collect.set.hash.HashCharSet;
+import net.openhft.collect.set.hash.HashCharSets;
+import org.junit.Test;
+
+import java.util.Spliterator;
+
+import static org.junit.Assert.*;
+
+
+public class CharStreamsTest {
+
+    private static HashCharSet newSet(int size) {
+        HashCharSet set = HashCharSets.newMutableSet();
+        for (int i = 0; i < size; i++) {
+            set.add((char) i);
+        }
+        return set;
+    }
+
+    @Test
+    public void testSetStream() {
+        HashCharSet set = newSet(100);
+        assertEquals(set.size(), CharStreams.stream(set).count());
+        assertEquals(set.size(), CharStreams.parallelStream(set).distinct().count());
+        assertTrue(CharStreams.parallelStream(set).allMatch(e -> set.contains((char) e)));
+    }
+
+    @Test
+    public void testSpliteratorCharacteristics() {
+        HashCharSet set = newSet(100);
+        Spliterator<?> spliterator = CharStreams.spliterator(set);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+        assertEquals(set.size(), spliterator.estimateSize());
+        Spliterator<?> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(set.size() / 2, spliterator.estimateSize());
+        long[] count = new long[1];
+        spliterator.forEachRemaining(e -> count[0]++);
+        prefix.forEachRemaining(e -> count[0]++);
+        assertEquals(set.size(), count[0]);
+    }
+
+    @Test
+    public void testLateBinding() {
+        HashCharSet set = newSet(50);
+        Spliterator<?> spliterator = CharStreams.spliterator(set);
+        // the set grows after the spliterator is created, but before it is used
+        for (int i = 50; i < 100; i++) {
+            set.add((char) i);
+        }
+        assertEquals(set.size(), spliterator.estimateSize());
+        long[] count = new long[1];
+        spliterator.forEachRemaining(e -> count[0]++);
+        assertEquals(set.size(), count[0]);
+    }
+
+    @Test
+    public void testValuesStream() {
+        HashShortCharMap map = HashShortCharMaps.newMutableMap();
+        for (int i = 0; i < 100; i++) {
+            map.put((short) i, (char) 1);
+        }
+        Spliterator<?> spliterator = CharStreams.spliterator(map.values());
+        assertFalse(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertEquals(map.size(), CharStreams.parallelStream(map.values()).count());
+        assertEquals(map.size(), CharStreams.stream(map.values()).filter(v -> v == 1).count());
+    }
+
+    @Test
+    public void testKeySetStream() {
+        HashCharShortMap map = HashCharShortMaps.newMutableMap();
+        for (int i = 0; i < 100; i++) {
+            map.put((char) i, (short) 1);
+        }
+        Spliterator<?> spliterator = CharStreams.spliterator(map.keySet());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertEquals(map.size(), CharStreams.parallelStream(map.keySet()).distinct().count());
+    }
+}